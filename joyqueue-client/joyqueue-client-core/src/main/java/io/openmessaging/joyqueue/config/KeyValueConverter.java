@@ -87,6 +87,14 @@ public class KeyValueConverter {
         producerConfig.setBusinessIdLengthLimit(KeyValueHelper.getInt(attributes, JoyQueueProducerBuiltinKeys.BUSINESSID_LENGTH_LIMIT, producerConfig.getBusinessIdLengthLimit()));
         producerConfig.setBodyLengthLimit(KeyValueHelper.getInt(attributes, JoyQueueProducerBuiltinKeys.BODY_LENGTH_LIMIT, producerConfig.getBodyLengthLimit()));
         producerConfig.setBatchBodyLengthLimit(KeyValueHelper.getInt(attributes, JoyQueueProducerBuiltinKeys.BATCH_BODY_LENGTH_LIMIT, producerConfig.getBatchBodyLengthLimit()));
+        producerConfig.setMaxInFlightRequests(KeyValueHelper.getInt(attributes, JoyQueueProducerBuiltinKeys.MAX_IN_FLIGHT_REQUESTS, producerConfig.getMaxInFlightRequests()));
+        producerConfig.setMaxInFlightBytes(KeyValueHelper.getInt(attributes, JoyQueueProducerBuiltinKeys.MAX_IN_FLIGHT_BYTES, producerConfig.getMaxInFlightBytes()));
+        producerConfig.setInFlightOrdered(attributes.getBoolean(JoyQueueProducerBuiltinKeys.IN_FLIGHT_ORDERED, producerConfig.isInFlightOrdered()));
+        producerConfig.setAccumulate(attributes.getBoolean(JoyQueueProducerBuiltinKeys.ACCUMULATE, producerConfig.isAccumulate()));
+        producerConfig.setBatchSize(KeyValueHelper.getInt(attributes, JoyQueueProducerBuiltinKeys.BATCH_SIZE, producerConfig.getBatchSize()));
+        producerConfig.setBatchMessages(KeyValueHelper.getInt(attributes, JoyQueueProducerBuiltinKeys.BATCH_MESSAGES, producerConfig.getBatchMessages()));
+        producerConfig.setLinger(KeyValueHelper.getInt(attributes, JoyQueueProducerBuiltinKeys.LINGER, producerConfig.getLinger()));
+        producerConfig.setBufferMemory(KeyValueHelper.getInt(attributes, JoyQueueProducerBuiltinKeys.BUFFER_MEMORY, producerConfig.getBufferMemory()));
         return producerConfig;
     }
 
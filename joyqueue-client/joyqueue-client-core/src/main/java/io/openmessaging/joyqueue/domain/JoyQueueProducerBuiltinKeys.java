@@ -53,4 +53,20 @@ public interface JoyQueueProducerBuiltinKeys extends OMSBuiltinKeys {
 
     String BATCH_BODY_LENGTH_LIMIT = "PRODUCER_BATCH_BODY_LENGTH_LIMIT";
 
+    String MAX_IN_FLIGHT_REQUESTS = "PRODUCER_MAX_IN_FLIGHT_REQUESTS";
+
+    String MAX_IN_FLIGHT_BYTES = "PRODUCER_MAX_IN_FLIGHT_BYTES";
+
+    String IN_FLIGHT_ORDERED = "PRODUCER_IN_FLIGHT_ORDERED";
+
+    String ACCUMULATE = "PRODUCER_ACCUMULATE";
+
+    String BATCH_SIZE = "PRODUCER_BATCH_SIZE";
+
+    String BATCH_MESSAGES = "PRODUCER_BATCH_MESSAGES";
+
+    String LINGER = "PRODUCER_LINGER";
+
+    String BUFFER_MEMORY = "PRODUCER_BUFFER_MEMORY";
+
 }
\ No newline at end of file
@@ -39,4 +39,12 @@ public class CompressorManager {
         }
         return compressor;
     }
+
+    public static Compressor getCompressor(String type, String topic) {
+        Compressor compressor = getCompressor(type);
+        if (compressor instanceof TopicCompressor) {
+            return ((TopicCompressor) compressor).getTopicCompressor(topic);
+        }
+        return compressor;
+    }
 }
\ No newline at end of file
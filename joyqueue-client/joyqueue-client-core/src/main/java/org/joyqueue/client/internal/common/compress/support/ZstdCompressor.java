@@ -0,0 +1,71 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.client.internal.common.compress.support;
+
+import org.joyqueue.client.internal.common.compress.Compressor;
+import org.joyqueue.client.internal.common.compress.TopicCompressor;
+import org.joyqueue.toolkit.io.Zstd;
+import org.joyqueue.toolkit.io.ZstdDictionaries;
+import org.joyqueue.toolkit.io.ZstdDictionary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * ZstdCompressor
+ * 主题注册了字典时使用字典压缩，字典通过{@link ZstdDictionaries}注册或者从系统属性{@link ZstdDictionaries#DICTIONARIES_PROPERTY}加载
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/21
+ */
+public class ZstdCompressor implements Compressor, TopicCompressor {
+
+    public static final String NAME = "zstd";
+
+    private org.joyqueue.toolkit.io.Compressor delegate;
+
+    public ZstdCompressor() {
+        this(Zstd.INSTANCE);
+    }
+
+    public ZstdCompressor(org.joyqueue.toolkit.io.Compressor delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Compressor getTopicCompressor(String topic) {
+        ZstdDictionary dictionary = ZstdDictionaries.getByTopic(topic);
+        if (dictionary == null) {
+            return this;
+        }
+        return new ZstdCompressor(new Zstd(dictionary));
+    }
+
+    @Override
+    public void compress(byte[] bytes, int offset, int size, OutputStream out) throws IOException {
+        delegate.compress(bytes, offset, size, out);
+    }
+
+    @Override
+    public void decompress(byte[] bytes, int offset, int size, OutputStream out) throws IOException {
+        delegate.decompress(bytes, offset, size, out);
+    }
+
+    @Override
+    public String type() {
+        return NAME;
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.client.internal.producer.accumulator;
+
+import com.google.common.collect.Lists;
+import org.joyqueue.client.internal.metadata.domain.PartitionMetadata;
+import org.joyqueue.client.internal.metadata.domain.TopicMetadata;
+import org.joyqueue.client.internal.producer.domain.ProduceMessage;
+import org.joyqueue.client.internal.producer.domain.SendResult;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 同一个分区上累积的一批消息
+ *
+ * author: gaohaoxiang
+ * date: 2020/3/5
+ */
+public class ProducerBatch {
+
+    private TopicMetadata topicMetadata;
+    private PartitionMetadata partition;
+    private List<PartitionMetadata> partitions;
+    private boolean sticky;
+    private long createTime;
+
+    private List<ProduceMessage> messages = Lists.newArrayList();
+    private List<CompletableFuture<SendResult>> futures = Lists.newArrayList();
+    private int bytes;
+    private boolean closed;
+
+    public ProducerBatch(TopicMetadata topicMetadata, PartitionMetadata partition, List<PartitionMetadata> partitions, boolean sticky, long createTime) {
+        this.topicMetadata = topicMetadata;
+        this.partition = partition;
+        this.partitions = partitions;
+        this.sticky = sticky;
+        this.createTime = createTime;
+    }
+
+    /**
+     * 追加消息，批次已关闭或超过大小时返回false
+     * 空批次总能追加成功，避免单条超过batchSize的消息无法发送
+     */
+    public synchronized boolean tryAppend(ProduceMessage message, CompletableFuture<SendResult> future, int size, int batchSize, int batchMessages) {
+        if (closed) {
+            return false;
+        }
+        if (!messages.isEmpty() && (bytes + size > batchSize || messages.size() >= batchMessages)) {
+            return false;
+        }
+        message.setPartition(partition.getId());
+        messages.add(message);
+        futures.add(future);
+        bytes += size;
+        return true;
+    }
+
+    public synchronized boolean isFull(int batchSize, int batchMessages) {
+        return bytes >= batchSize || messages.size() >= batchMessages;
+    }
+
+    public synchronized boolean isExpired(long now, int linger) {
+        return now - createTime >= linger;
+    }
+
+    /**
+     * 关闭批次，只有第一次关闭返回true
+     */
+    public synchronized boolean close() {
+        if (closed) {
+            return false;
+        }
+        closed = true;
+        return true;
+    }
+
+    public void complete(List<SendResult> result) {
+        String topic = topicMetadata.getTopic();
+        for (int i = 0; i < futures.size(); i++) {
+            SendResult sendResult;
+            if (result != null && result.size() == futures.size()) {
+                sendResult = result.get(i);
+            } else if (result != null && !result.isEmpty()) {
+                // 批量消息只返回批次的起始位置
+                SendResult batchResult = result.get(0);
+                sendResult = new SendResult(topic, batchResult.getPartition(), batchResult.getIndex() + i, batchResult.getStartTime());
+            } else {
+                sendResult = new SendResult(topic, partition.getId(), -1, createTime);
+            }
+            futures.get(i).complete(sendResult);
+        }
+    }
+
+    public void completeExceptionally(Throwable cause) {
+        for (CompletableFuture<SendResult> future : futures) {
+            future.completeExceptionally(cause);
+        }
+    }
+
+    public TopicMetadata getTopicMetadata() {
+        return topicMetadata;
+    }
+
+    public PartitionMetadata getPartition() {
+        return partition;
+    }
+
+    public List<PartitionMetadata> getPartitions() {
+        return partitions;
+    }
+
+    public boolean isSticky() {
+        return sticky;
+    }
+
+    public long getCreateTime() {
+        return createTime;
+    }
+
+    public List<ProduceMessage> getMessages() {
+        return messages;
+    }
+
+    public List<CompletableFuture<SendResult>> getFutures() {
+        return futures;
+    }
+
+    public int getBytes() {
+        return bytes;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+}
@@ -0,0 +1,305 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.client.internal.producer.accumulator;
+
+import com.google.common.collect.Lists;
+import org.joyqueue.client.internal.metadata.domain.PartitionMetadata;
+import org.joyqueue.client.internal.metadata.domain.TopicMetadata;
+import org.joyqueue.client.internal.producer.callback.AsyncBatchProduceCallback;
+import org.joyqueue.client.internal.producer.checker.ProduceMessageChecker;
+import org.joyqueue.client.internal.producer.config.ProducerConfig;
+import org.joyqueue.client.internal.producer.domain.ProduceMessage;
+import org.joyqueue.client.internal.producer.domain.SendResult;
+import org.joyqueue.client.internal.producer.exception.ProducerException;
+import org.joyqueue.client.internal.producer.helper.ProducerHelper;
+import org.joyqueue.client.internal.producer.support.MessageProducerInner;
+import org.joyqueue.exception.JoyQueueCode;
+import org.joyqueue.network.domain.BrokerNode;
+import org.joyqueue.toolkit.concurrent.NamedThreadFactory;
+import org.joyqueue.toolkit.service.Service;
+import org.joyqueue.toolkit.time.SystemClock;
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 消息累加器
+ * 按topic和分区缓存消息，批次达到batchSize或者等待超过linger后整批发送，批次按配置整体压缩
+ * 未指定分区和partitionKey的消息粘滞在同一个分区上，直到批次发送后再重新选择分区
+ * 粘滞消息和指定分区的消息使用不同的批次，只有粘滞的批次允许切换分区重试
+ *
+ * author: gaohaoxiang
+ * date: 2020/3/5
+ */
+public class RecordAccumulator extends Service {
+
+    protected static final Logger logger = LoggerFactory.getLogger(RecordAccumulator.class);
+
+    private ProducerConfig config;
+    private MessageProducerInner messageProducerInner;
+
+    private Semaphore bufferPermits;
+    private ConcurrentMap<String /** topic:partition:sticky **/, ProducerBatch> batches = new ConcurrentHashMap<>();
+    private Set<ProducerBatch> inFlightBatches = ConcurrentHashMap.newKeySet();
+    private ConcurrentMap<String /** topic **/, PartitionMetadata> stickyPartitions = new ConcurrentHashMap<>();
+    private ScheduledExecutorService lingerTimer;
+
+    public RecordAccumulator(ProducerConfig config, MessageProducerInner messageProducerInner) {
+        this.config = config;
+        this.messageProducerInner = messageProducerInner;
+    }
+
+    @Override
+    protected void validate() throws Exception {
+        bufferPermits = new Semaphore(config.getBufferMemory());
+        lingerTimer = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("joyqueue-producer-accumulator-linger", true));
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        int interval = Math.max(config.getLinger() / 2, 1);
+        lingerTimer.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    sendExpiredBatches();
+                } catch (Exception e) {
+                    logger.error("send expired batches exception", e);
+                }
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected void doStop() {
+        if (lingerTimer != null) {
+            lingerTimer.shutdown();
+        }
+        flush();
+        awaitInFlightBatches(config.getTimeout());
+    }
+
+    /**
+     * 等待已发送的批次完成，超时后未完成的批次按失败处理
+     */
+    protected void awaitInFlightBatches(long timeout) {
+        List<CompletableFuture<SendResult>> futures = Lists.newArrayList();
+        for (ProducerBatch batch : inFlightBatches) {
+            futures.addAll(batch.getFutures());
+        }
+        if (!futures.isEmpty()) {
+            try {
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()])).get(timeout, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | TimeoutException e) {
+                logger.debug("await in flight batches exception", e);
+            }
+        }
+        for (ProducerBatch batch : inFlightBatches) {
+            logger.warn("in flight batch not completed before stop, topic: {}, partition: {}, messages: {}",
+                    batch.getTopicMetadata().getTopic(), batch.getPartition().getId(), batch.getMessages().size());
+            completeBatch(batch, null, new ProducerException("producer stopped before batch completed", JoyQueueCode.CN_SERVICE_NOT_AVAILABLE.getCode()));
+        }
+    }
+
+    public CompletableFuture<SendResult> append(ProduceMessage message, long timeout, TimeUnit timeoutUnit) {
+        ProduceMessageChecker.checkMessage(message, config);
+
+        int size = getMessageSize(message);
+        acquire(size, timeout, timeoutUnit);
+
+        CompletableFuture<SendResult> future = new CompletableFuture<>();
+        try {
+            doAppend(message, future, size);
+        } catch (Exception e) {
+            bufferPermits.release(size);
+            if (e instanceof ProducerException) {
+                throw (ProducerException) e;
+            }
+            throw new ProducerException(e);
+        }
+        return future;
+    }
+
+    protected void doAppend(ProduceMessage message, CompletableFuture<SendResult> future, int size) {
+        TopicMetadata topicMetadata = messageProducerInner.getAndCheckTopicMetadata(message.getTopic());
+        List<BrokerNode> brokers = messageProducerInner.getRegionBrokers(topicMetadata);
+        brokers = messageProducerInner.filterNotAvailableBrokers(brokers);
+        List<PartitionMetadata> partitions = messageProducerInner.getBrokerPartitions(topicMetadata, brokers);
+
+        while (true) {
+            boolean sticky = isSticky(message);
+            PartitionMetadata partition = selectPartition(message, topicMetadata, partitions, sticky);
+            String key = topicMetadata.getTopic() + ":" + partition.getId() + ":" + sticky;
+
+            ProducerBatch batch = batches.get(key);
+            if (batch == null) {
+                batch = new ProducerBatch(topicMetadata, partition, partitions, sticky, SystemClock.now());
+                ProducerBatch oldBatch = batches.putIfAbsent(key, batch);
+                if (oldBatch != null) {
+                    batch = oldBatch;
+                }
+            }
+
+            if (batch.tryAppend(message, future, size, config.getBatchSize(), config.getBatchMessages())) {
+                if (batch.isFull(config.getBatchSize(), config.getBatchMessages())) {
+                    sendBatch(key, batch);
+                }
+                return;
+            }
+
+            // 批次已满或已关闭，发送后重新选择批次
+            sendBatch(key, batch);
+            if (sticky) {
+                ProducerHelper.clearPartition(message);
+            }
+        }
+    }
+
+    protected boolean isSticky(ProduceMessage message) {
+        return message.getPartition() == ProduceMessage.NONE_PARTITION && StringUtils.isBlank(message.getPartitionKey());
+    }
+
+    protected PartitionMetadata selectPartition(ProduceMessage message, TopicMetadata topicMetadata, List<PartitionMetadata> partitions, boolean sticky) {
+        if (message.getPartition() != ProduceMessage.NONE_PARTITION) {
+            PartitionMetadata partition = topicMetadata.getPartition(message.getPartition());
+            if (partition == null) {
+                throw new ProducerException(String.format("partition not exist, topic: %s, partition: %s", topicMetadata.getTopic(), message.getPartition()),
+                        JoyQueueCode.FW_TOPIC_NO_PARTITIONGROUP.getCode());
+            }
+            return partition;
+        }
+        if (!sticky) {
+            return messageProducerInner.dispatchPartitions(Lists.newArrayList(message), topicMetadata, partitions);
+        }
+
+        String topic = topicMetadata.getTopic();
+        PartitionMetadata partition = stickyPartitions.get(topic);
+        if (partition != null && partitions.contains(partition)) {
+            return partition;
+        }
+        partition = messageProducerInner.dispatchPartitions(Lists.newArrayList(message), topicMetadata, partitions);
+        ProducerHelper.clearPartition(message);
+        stickyPartitions.put(topic, partition);
+        return partition;
+    }
+
+    protected void sendExpiredBatches() {
+        long now = SystemClock.now();
+        for (Map.Entry<String, ProducerBatch> entry : batches.entrySet()) {
+            if (entry.getValue().isExpired(now, config.getLinger())) {
+                sendBatch(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * 发送所有缓存的消息
+     */
+    public void flush() {
+        for (Map.Entry<String, ProducerBatch> entry : batches.entrySet()) {
+            sendBatch(entry.getKey(), entry.getValue());
+        }
+    }
+
+    protected void sendBatch(String key, ProducerBatch batch) {
+        batches.remove(key, batch);
+        if (!batch.close()) {
+            return;
+        }
+        if (batch.isSticky()) {
+            stickyPartitions.remove(batch.getTopicMetadata().getTopic(), batch.getPartition());
+        }
+
+        List<ProduceMessage> messages = batch.getMessages();
+        boolean failover = config.isFailover() && batch.isSticky();
+        if (failover) {
+            // 粘滞分区的批次只包含未指定分区的消息，允许切换分区重试
+            ProducerHelper.clearPartitions(messages);
+        }
+
+        inFlightBatches.add(batch);
+        try {
+            messageProducerInner.doBatchSend(messages, batch.getTopicMetadata(), batch.getPartition(), batch.getPartitions(),
+                    null, config.getTimeout(), TimeUnit.MILLISECONDS, false, failover, new AsyncBatchProduceCallback() {
+                        @Override
+                        public void onSuccess(List<ProduceMessage> messages, List<SendResult> result) {
+                            completeBatch(batch, result, null);
+                        }
+
+                        @Override
+                        public void onException(List<ProduceMessage> messages, Throwable cause) {
+                            completeBatch(batch, null, cause);
+                        }
+                    });
+        } catch (Exception e) {
+            logger.debug("send batch exception, topic: {}, partition: {}", batch.getTopicMetadata().getTopic(), batch.getPartition().getId(), e);
+            completeBatch(batch, null, e);
+        }
+    }
+
+    /**
+     * 完成批次并释放缓存，每个批次只处理一次
+     */
+    protected void completeBatch(ProducerBatch batch, List<SendResult> result, Throwable cause) {
+        if (!inFlightBatches.remove(batch)) {
+            return;
+        }
+        bufferPermits.release(batch.getBytes());
+        if (cause == null) {
+            batch.complete(result);
+        } else {
+            batch.completeExceptionally(cause);
+        }
+    }
+
+    protected void acquire(int size, long timeout, TimeUnit timeoutUnit) {
+        try {
+            if (!bufferPermits.tryAcquire(size, timeout, timeoutUnit)) {
+                throw new ProducerException(String.format("accumulator buffer exhausted, bufferMemory: %s", config.getBufferMemory()),
+                        JoyQueueCode.CN_REQUEST_EXCESSIVE.getCode());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProducerException(JoyQueueCode.CN_THREAD_INTERRUPTED.getMessage(), JoyQueueCode.CN_THREAD_INTERRUPTED.getCode());
+        }
+    }
+
+    protected int getMessageSize(ProduceMessage message) {
+        int size;
+        if (ArrayUtils.isNotEmpty(message.getBodyBytes())) {
+            size = message.getBodyBytes().length;
+        } else {
+            size = message.getBody().length();
+        }
+        return Math.max(Math.min(size, config.getBufferMemory()), 1);
+    }
+}
@@ -50,6 +50,24 @@ public class ProducerConfig {
     private int bodyLengthLimit = 1024 * 1024 * 1;
     private int batchBodyLengthLimit = 1024 * 1024 * 4;
 
+    // 单连接最大在途异步请求数，<=0不限制
+    private int maxInFlightRequests = 0;
+    // 单连接最大在途异步请求字节数，<=0不限制
+    private int maxInFlightBytes = 0;
+    // 同一分区的异步请求按顺序发送
+    private boolean inFlightOrdered = false;
+
+    // 异步发送的消息先在客户端累积成批
+    private boolean accumulate = false;
+    // 批次最大字节数
+    private int batchSize = 1024 * 16;
+    // 批次最大消息数
+    private int batchMessages = 1000;
+    // 批次最长等待时间(毫秒)
+    private int linger = 5;
+    // 累积消息占用的最大字节数
+    private int bufferMemory = 1024 * 1024 * 32;
+
     public ProducerConfig copy() {
         ProducerConfig producerConfig = new ProducerConfig();
         producerConfig.setApp(app);
@@ -67,6 +85,14 @@ public class ProducerConfig {
         producerConfig.setBusinessIdLengthLimit(businessIdLengthLimit);
         producerConfig.setBodyLengthLimit(bodyLengthLimit);
         producerConfig.setBatchBodyLengthLimit(batchBodyLengthLimit);
+        producerConfig.setMaxInFlightRequests(maxInFlightRequests);
+        producerConfig.setMaxInFlightBytes(maxInFlightBytes);
+        producerConfig.setInFlightOrdered(inFlightOrdered);
+        producerConfig.setAccumulate(accumulate);
+        producerConfig.setBatchSize(batchSize);
+        producerConfig.setBatchMessages(batchMessages);
+        producerConfig.setLinger(linger);
+        producerConfig.setBufferMemory(bufferMemory);
         return producerConfig;
     }
 
@@ -189,4 +215,68 @@ public class ProducerConfig {
     public void setBatchBodyLengthLimit(int batchBodyLengthLimit) {
         this.batchBodyLengthLimit = batchBodyLengthLimit;
     }
+
+    public int getMaxInFlightRequests() {
+        return maxInFlightRequests;
+    }
+
+    public void setMaxInFlightRequests(int maxInFlightRequests) {
+        this.maxInFlightRequests = maxInFlightRequests;
+    }
+
+    public int getMaxInFlightBytes() {
+        return maxInFlightBytes;
+    }
+
+    public void setMaxInFlightBytes(int maxInFlightBytes) {
+        this.maxInFlightBytes = maxInFlightBytes;
+    }
+
+    public boolean isInFlightOrdered() {
+        return inFlightOrdered;
+    }
+
+    public void setInFlightOrdered(boolean inFlightOrdered) {
+        this.inFlightOrdered = inFlightOrdered;
+    }
+
+    public boolean isAccumulate() {
+        return accumulate;
+    }
+
+    public void setAccumulate(boolean accumulate) {
+        this.accumulate = accumulate;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getBatchMessages() {
+        return batchMessages;
+    }
+
+    public void setBatchMessages(int batchMessages) {
+        this.batchMessages = batchMessages;
+    }
+
+    public int getLinger() {
+        return linger;
+    }
+
+    public void setLinger(int linger) {
+        this.linger = linger;
+    }
+
+    public int getBufferMemory() {
+        return bufferMemory;
+    }
+
+    public void setBufferMemory(int bufferMemory) {
+        this.bufferMemory = bufferMemory;
+    }
 }
\ No newline at end of file
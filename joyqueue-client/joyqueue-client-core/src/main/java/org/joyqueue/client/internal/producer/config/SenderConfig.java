@@ -27,6 +27,9 @@ public class SenderConfig {
     private int compressThreshold = 1024 * 1;
     private String compressType;
     private boolean batch;
+    private int maxInFlightRequests;
+    private int maxInFlightBytes;
+    private boolean inFlightOrdered;
 
     public SenderConfig() {
 
@@ -39,6 +42,18 @@ public class SenderConfig {
         this.batch = batch;
     }
 
+    public SenderConfig(boolean compress, int compressThreshold, String compressType, boolean batch,
+                        int maxInFlightRequests, int maxInFlightBytes, boolean inFlightOrdered) {
+        this(compress, compressThreshold, compressType, batch);
+        this.maxInFlightRequests = maxInFlightRequests;
+        this.maxInFlightBytes = maxInFlightBytes;
+        this.inFlightOrdered = inFlightOrdered;
+    }
+
+    public boolean isInFlightLimited() {
+        return maxInFlightRequests > 0 || maxInFlightBytes > 0 || inFlightOrdered;
+    }
+
     public boolean isCompress() {
         return compress;
     }
@@ -70,4 +85,28 @@ public class SenderConfig {
     public boolean isBatch() {
         return batch;
     }
+
+    public int getMaxInFlightRequests() {
+        return maxInFlightRequests;
+    }
+
+    public void setMaxInFlightRequests(int maxInFlightRequests) {
+        this.maxInFlightRequests = maxInFlightRequests;
+    }
+
+    public int getMaxInFlightBytes() {
+        return maxInFlightBytes;
+    }
+
+    public void setMaxInFlightBytes(int maxInFlightBytes) {
+        this.maxInFlightBytes = maxInFlightBytes;
+    }
+
+    public boolean isInFlightOrdered() {
+        return inFlightOrdered;
+    }
+
+    public void setInFlightOrdered(boolean inFlightOrdered) {
+        this.inFlightOrdered = inFlightOrdered;
+    }
 }
\ No newline at end of file
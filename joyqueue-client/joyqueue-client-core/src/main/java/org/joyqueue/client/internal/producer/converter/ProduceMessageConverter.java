@@ -125,7 +125,7 @@ public class ProduceMessageConverter {
         if (compressThreshold > byteBody.length) {
             return;
         }
-        Compressor compressor = CompressorManager.getCompressor(compressType);
+        Compressor compressor = CompressorManager.getCompressor(compressType, brokerMessage.getTopic());
         try {
             brokerMessage.setBody(CompressUtils.compress(brokerMessage.getByteBody(), compressor));
         } catch (IOException e) {
@@ -22,6 +22,7 @@ import org.joyqueue.client.internal.nameserver.NameServerConfig;
 import org.joyqueue.client.internal.producer.MessageProducer;
 import org.joyqueue.client.internal.producer.MessageSender;
 import org.joyqueue.client.internal.producer.TransactionMessageProducer;
+import org.joyqueue.client.internal.producer.accumulator.RecordAccumulator;
 import org.joyqueue.client.internal.producer.callback.AsyncBatchProduceCallback;
 import org.joyqueue.client.internal.producer.callback.AsyncProduceCallback;
 import org.joyqueue.client.internal.producer.callback.CompletableFutureAsyncBatchProduceCallback;
@@ -64,6 +65,7 @@ public class DefaultMessageProducer extends Service implements MessageProducer {
     private MessageSender messageSender;
     private AtomicLong transactionSequence;
     private MessageProducerInner messageProducerInner;
+    private RecordAccumulator recordAccumulator;
     private ProducerInterceptorManager producerInterceptorManager = new ProducerInterceptorManager();
 
     public DefaultMessageProducer(ProducerConfig config, NameServerConfig nameServerConfig, ClusterManager clusterManager, ProducerClientManager producerClientManager) {
@@ -84,19 +86,30 @@ public class DefaultMessageProducer extends Service implements MessageProducer {
     @Override
     protected void validate() throws Exception {
         transactionSequence = new AtomicLong();
-        senderConfig = new SenderConfig(config.isCompress(), config.getCompressThreshold(), config.getCompressType(), config.isBatch());
+        senderConfig = new SenderConfig(config.isCompress(), config.getCompressThreshold(), config.getCompressType(), config.isBatch(),
+                config.getMaxInFlightRequests(), config.getMaxInFlightBytes(), config.isInFlightOrdered());
         messageSender = new DefaultMessageSender(producerClientManager, senderConfig);
         messageProducerInner = new MessageProducerInner(config, nameServerConfig, messageSender, clusterManager, producerClientManager, producerInterceptorManager);
+        if (config.isAccumulate()) {
+            recordAccumulator = new RecordAccumulator(config, messageProducerInner);
+        }
     }
 
     @Override
     protected void doStart() throws Exception {
         messageSender.start();
         messageProducerInner.start();
+        if (recordAccumulator != null) {
+            recordAccumulator.start();
+        }
     }
 
     @Override
     protected void doStop() {
+        // 累加器停止时会等待已发送的批次完成，需要先于发送器停止
+        if (recordAccumulator != null) {
+            recordAccumulator.stop();
+        }
         if (messageProducerInner != null) {
             messageProducerInner.stop();
         }
@@ -152,6 +165,10 @@ public class DefaultMessageProducer extends Service implements MessageProducer {
 
     @Override
     public CompletableFuture<SendResult> sendAsync(ProduceMessage message, long timeout, TimeUnit timeoutUnit) {
+        if (recordAccumulator != null) {
+            checkState();
+            return recordAccumulator.append(message, timeout, timeoutUnit);
+        }
         CompletableFuture<SendResult> future = new CompletableFuture();
         doSend(message, timeout, timeoutUnit, false, new CompletableFutureAsyncProduceCallback(future));
         return future;
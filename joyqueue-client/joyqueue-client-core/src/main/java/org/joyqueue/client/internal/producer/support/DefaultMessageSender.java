@@ -33,6 +33,7 @@ import org.joyqueue.client.internal.producer.domain.SendResultData;
 import org.joyqueue.client.internal.producer.transport.ProducerClient;
 import org.joyqueue.client.internal.producer.transport.ProducerClientGroup;
 import org.joyqueue.client.internal.producer.transport.ProducerClientManager;
+import org.joyqueue.client.internal.producer.transport.ProducerInFlightWindow;
 import org.joyqueue.client.internal.transport.ConnectionState;
 import org.joyqueue.domain.QosLevel;
 import org.joyqueue.exception.JoyQueueCode;
@@ -249,10 +250,29 @@ public class DefaultMessageSender extends Service implements MessageSender {
         ProducerClient client = producerClientManager.getOrCreateClient(brokerNode);
         handleAddProducers(brokerNode, messages.keySet(), app, client);
 
+        if (!config.isInFlightLimited()) {
+            doBatchSendAsync(client, app, data, messages, timeout, callback, null);
+            return;
+        }
+
+        ProducerInFlightWindow inFlightWindow = client.getOrCreateInFlightWindow(config.getMaxInFlightRequests(), config.getMaxInFlightBytes(), config.isInFlightOrdered());
+        try {
+            inFlightWindow.send(getInFlightPartitionKey(messages), getInFlightBytes(messages), timeout, (completion) -> {
+                doBatchSendAsync(client, app, data, messages, timeout, callback, completion);
+            });
+        } catch (ClientException e) {
+            callback.onException(messages, e);
+        }
+    }
+
+    protected void doBatchSendAsync(ProducerClient client, String app, Map<String, ProduceMessageData> data,
+                                    Map<String, List<ProduceMessage>> messages, long timeout,
+                                    AsyncMultiBatchSendCallback callback, Runnable completion) {
         try {
             client.asyncProduceMessage(app, data, timeout, new CommandCallback() {
                 @Override
                 public void onSuccess(Command request, Command response) {
+                    complete(completion);
                     ProduceMessageResponse produceMessageResponse = (ProduceMessageResponse) response.getPayload();
                     Map<String, SendBatchResultData> produceBatchResultData = Maps.newHashMap();
                     for (Map.Entry<String, ProduceMessageAckData> entry : produceMessageResponse.getData().entrySet()) {
@@ -263,14 +283,51 @@ public class DefaultMessageSender extends Service implements MessageSender {
 
                 @Override
                 public void onException(Command request, Throwable cause) {
+                    complete(completion);
                     callback.onException(messages, cause);
                 }
             });
         } catch (ClientException e) {
+            complete(completion);
             callback.onException(messages, e);
         }
     }
 
+    protected void complete(Runnable completion) {
+        if (completion != null) {
+            completion.run();
+        }
+    }
+
+    protected String getInFlightPartitionKey(Map<String, List<ProduceMessage>> messages) {
+        if (messages.size() != 1) {
+            return null;
+        }
+        Map.Entry<String, List<ProduceMessage>> entry = messages.entrySet().iterator().next();
+        if (CollectionUtils.isEmpty(entry.getValue())) {
+            return null;
+        }
+        short partition = entry.getValue().get(0).getPartition();
+        if (partition == ProduceMessage.NONE_PARTITION) {
+            return null;
+        }
+        return entry.getKey() + ":" + partition;
+    }
+
+    protected int getInFlightBytes(Map<String, List<ProduceMessage>> messages) {
+        long bytes = 0;
+        for (List<ProduceMessage> topicMessages : messages.values()) {
+            for (ProduceMessage message : topicMessages) {
+                if (message.getBodyBytes() != null) {
+                    bytes += message.getBodyBytes().length;
+                } else if (message.getBody() != null) {
+                    bytes += message.getBody().length();
+                }
+            }
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
     @Override
     public CompletableFuture<Map<String, SendBatchResultData>> batchSendAsync(BrokerNode brokerNode, String app,
                                                                               String txId, Map<String, List<ProduceMessage>> messages,
@@ -175,6 +175,8 @@ public class MessageProducerInner extends Service {
 
         if (partition == null) {
             partition = dispatchPartitions(messages, topicMetadata, partitions, blackPartitionList);
+        } else {
+            ProducerHelper.setPartitions(messages, partition.getId());
         }
 
         for (int i = 0; i <= retryLimit; i++) {
@@ -35,6 +35,8 @@ import org.joyqueue.network.transport.command.JoyQueueCommand;
 
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * ProducerClient
@@ -50,6 +52,9 @@ public class ProducerClient {
 
     private ProducerConnectionState connectionState;
 
+    // 按窗口配置区分，共用连接的生产者配置不同时使用各自的窗口
+    private final ConcurrentMap<String, ProducerInFlightWindow> inFlightWindows = new ConcurrentHashMap<>();
+
     public static ProducerClient build(Client client) {
         ProducerClient producerClient = client.getAttribute().get(CLIENT_PRODUCER_CACHE_KEY);
         if (producerClient == null) {
@@ -126,6 +131,23 @@ public class ProducerClient {
         return (FetchProduceFeedbackResponse) client.sync(new JoyQueueCommand(fetchProduceFeedbackRequest), timeout).getPayload();
     }
 
+    public ProducerInFlightWindow getOrCreateInFlightWindow(int maxRequests, int maxBytes, boolean ordered) {
+        String key = maxRequests + ":" + maxBytes + ":" + ordered;
+        ProducerInFlightWindow inFlightWindow = inFlightWindows.get(key);
+        if (inFlightWindow == null) {
+            inFlightWindow = new ProducerInFlightWindow(maxRequests, maxBytes, ordered);
+            ProducerInFlightWindow oldInFlightWindow = inFlightWindows.putIfAbsent(key, inFlightWindow);
+            if (oldInFlightWindow != null) {
+                inFlightWindow = oldInFlightWindow;
+            }
+        }
+        return inFlightWindow;
+    }
+
+    public Collection<ProducerInFlightWindow> getInFlightWindows() {
+        return inFlightWindows.values();
+    }
+
     public void addProducers() {
         connectionState.handleAddProducers();
     }
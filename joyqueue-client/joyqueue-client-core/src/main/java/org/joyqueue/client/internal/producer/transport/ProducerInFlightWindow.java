@@ -0,0 +1,220 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.client.internal.producer.transport;
+
+import org.joyqueue.client.internal.exception.ClientException;
+import org.joyqueue.exception.JoyQueueCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 单个连接上的发送窗口
+ * 限制连接上未完成的生产请求数和字节数，多个请求可以同时在连接上传输
+ * 开启ordered后，同一分区同时只有一个请求在途，后续请求排队，不同分区之间仍然并行
+ *
+ * author: gaohaoxiang
+ * date: 2020/3/2
+ */
+public class ProducerInFlightWindow {
+
+    protected static final Logger logger = LoggerFactory.getLogger(ProducerInFlightWindow.class);
+
+    private int maxRequests;
+    private int maxBytes;
+    private boolean ordered;
+
+    private Semaphore requestPermits;
+    private Semaphore bytePermits;
+    private ConcurrentMap<String, PartitionQueue> partitionQueues = new ConcurrentHashMap<>();
+
+    public ProducerInFlightWindow(int maxRequests, int maxBytes, boolean ordered) {
+        this.maxRequests = maxRequests;
+        this.maxBytes = maxBytes;
+        this.ordered = ordered;
+        this.requestPermits = (maxRequests > 0 ? new Semaphore(maxRequests) : null);
+        this.bytePermits = (maxBytes > 0 ? new Semaphore(maxBytes) : null);
+    }
+
+    /**
+     * 获取窗口后发送请求，窗口已满时阻塞调用线程直到超时
+     * request必须在请求完成(成功或失败)时调用一次completion
+     *
+     * @param partitionKey 分区标识，为空时不保证顺序
+     * @param bytes 请求字节数
+     * @param timeout 等待窗口超时
+     * @param request 请求
+     */
+    public void send(String partitionKey, int bytes, long timeout, InFlightRequest request) {
+        int acquireBytes = acquire(bytes, timeout);
+        InFlightEntry entry = new InFlightEntry(partitionKey, acquireBytes, request);
+
+        if (!ordered || partitionKey == null) {
+            dispatch(entry);
+            return;
+        }
+
+        PartitionQueue partitionQueue = partitionQueues.get(partitionKey);
+        if (partitionQueue == null) {
+            partitionQueue = new PartitionQueue();
+            PartitionQueue oldPartitionQueue = partitionQueues.putIfAbsent(partitionKey, partitionQueue);
+            if (oldPartitionQueue != null) {
+                partitionQueue = oldPartitionQueue;
+            }
+        }
+        if (partitionQueue.offer(entry)) {
+            dispatch(entry);
+        }
+    }
+
+    protected int acquire(int bytes, long timeout) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        int acquireBytes = (bytePermits == null ? 0 : Math.max(Math.min(bytes, maxBytes), 1));
+
+        try {
+            if (requestPermits != null && !requestPermits.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+                throw new ClientException(String.format("in flight requests exceed, max: %s", maxRequests), JoyQueueCode.CN_REQUEST_EXCESSIVE.getCode());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClientException(JoyQueueCode.CN_THREAD_INTERRUPTED.getMessage(), JoyQueueCode.CN_THREAD_INTERRUPTED.getCode());
+        }
+
+        if (bytePermits == null) {
+            return acquireBytes;
+        }
+
+        boolean acquired = false;
+        try {
+            acquired = bytePermits.tryAcquire(acquireBytes, Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!acquired) {
+            if (requestPermits != null) {
+                requestPermits.release();
+            }
+            throw new ClientException(String.format("in flight bytes exceed, max: %s", maxBytes), JoyQueueCode.CN_REQUEST_EXCESSIVE.getCode());
+        }
+        return acquireBytes;
+    }
+
+    protected void dispatch(InFlightEntry entry) {
+        try {
+            entry.request.send(() -> complete(entry));
+        } catch (Throwable t) {
+            logger.warn("send in flight request exception, partition: {}", entry.partitionKey, t);
+            complete(entry);
+        }
+    }
+
+    protected void complete(InFlightEntry entry) {
+        if (!entry.completed.compareAndSet(false, true)) {
+            return;
+        }
+        if (requestPermits != null) {
+            requestPermits.release();
+        }
+        if (bytePermits != null) {
+            bytePermits.release(entry.bytes);
+        }
+
+        if (!ordered || entry.partitionKey == null) {
+            return;
+        }
+        PartitionQueue partitionQueue = partitionQueues.get(entry.partitionKey);
+        if (partitionQueue == null) {
+            return;
+        }
+        InFlightEntry next = partitionQueue.poll();
+        if (next != null) {
+            dispatch(next);
+        }
+    }
+
+    public int getInFlightRequests() {
+        return (requestPermits == null ? 0 : maxRequests - requestPermits.availablePermits());
+    }
+
+    public int getInFlightBytes() {
+        return (bytePermits == null ? 0 : maxBytes - bytePermits.availablePermits());
+    }
+
+    public int getMaxRequests() {
+        return maxRequests;
+    }
+
+    public int getMaxBytes() {
+        return maxBytes;
+    }
+
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    /**
+     * 在途请求
+     */
+    public interface InFlightRequest {
+
+        void send(Runnable completion);
+    }
+
+    protected static class InFlightEntry {
+
+        private String partitionKey;
+        private int bytes;
+        private InFlightRequest request;
+        private AtomicBoolean completed = new AtomicBoolean();
+
+        public InFlightEntry(String partitionKey, int bytes, InFlightRequest request) {
+            this.partitionKey = partitionKey;
+            this.bytes = bytes;
+            this.request = request;
+        }
+    }
+
+    /**
+     * 分区请求队列，队头为在途请求
+     */
+    protected static class PartitionQueue {
+
+        private Deque<InFlightEntry> entries = new ArrayDeque<>();
+
+        /**
+         * 入队，返回是否可以立即发送
+         */
+        public synchronized boolean offer(InFlightEntry entry) {
+            entries.addLast(entry);
+            return entries.size() == 1;
+        }
+
+        /**
+         * 移除已完成的队头，返回下一个待发送的请求
+         */
+        public synchronized InFlightEntry poll() {
+            entries.pollFirst();
+            return entries.peekFirst();
+        }
+    }
+}
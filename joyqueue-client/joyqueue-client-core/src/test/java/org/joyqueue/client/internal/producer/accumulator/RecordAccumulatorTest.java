@@ -0,0 +1,363 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.client.internal.producer.accumulator;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.joyqueue.client.internal.metadata.domain.PartitionMetadata;
+import org.joyqueue.client.internal.metadata.domain.TopicMetadata;
+import org.joyqueue.client.internal.producer.callback.AsyncBatchProduceCallback;
+import org.joyqueue.client.internal.producer.config.ProducerConfig;
+import org.joyqueue.client.internal.producer.domain.ProduceMessage;
+import org.joyqueue.client.internal.producer.domain.SendResult;
+import org.joyqueue.client.internal.producer.exception.ProducerException;
+import org.joyqueue.client.internal.producer.helper.ProducerHelper;
+import org.joyqueue.client.internal.producer.support.MessageProducerInner;
+import org.joyqueue.network.domain.BrokerNode;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RecordAccumulatorTest
+ *
+ * author: gaohaoxiang
+ * date: 2020/3/5
+ */
+public class RecordAccumulatorTest {
+
+    private static final String TOPIC = "test_topic";
+
+    private ProducerConfig config;
+    private TopicMetadata topicMetadata;
+    private TestProducerInner producerInner;
+
+    @Before
+    public void before() {
+        config = new ProducerConfig();
+        config.setAccumulate(true);
+        config.setBatchSize(1024);
+        config.setBatchMessages(100);
+        config.setLinger(1000 * 60);
+        config.setBufferMemory(1024);
+        config.setFailover(true);
+        config.setTimeout(100);
+
+        List<PartitionMetadata> partitions = Lists.newArrayList();
+        Map<Short, PartitionMetadata> partitionMap = Maps.newHashMap();
+        for (short i = 0; i < 3; i++) {
+            PartitionMetadata partition = new PartitionMetadata(i, i, TOPIC, new BrokerNode("127.0.0.1", 50088));
+            partitions.add(partition);
+            partitionMap.put(i, partition);
+        }
+        topicMetadata = new TopicMetadata(TOPIC, null, null, null, null, partitions, partitionMap, null, null,
+                null, null, null, null, true, null);
+        producerInner = new TestProducerInner(config, topicMetadata);
+    }
+
+    @Test
+    public void batchMessagesTest() throws Exception {
+        config.setBatchMessages(3);
+        RecordAccumulator accumulator = newAccumulator();
+
+        accumulator.append(new ProduceMessage(TOPIC, "1"), 100, TimeUnit.MILLISECONDS);
+        accumulator.append(new ProduceMessage(TOPIC, "2"), 100, TimeUnit.MILLISECONDS);
+        Assert.assertEquals(0, producerInner.batches.size());
+
+        // 达到批次消息数后发送
+        accumulator.append(new ProduceMessage(TOPIC, "3"), 100, TimeUnit.MILLISECONDS);
+        Assert.assertEquals(1, producerInner.batches.size());
+        Assert.assertEquals(3, producerInner.batches.get(0).messages.size());
+        accumulator.stop();
+    }
+
+    @Test
+    public void batchSizeTest() throws Exception {
+        config.setBatchSize(10);
+        RecordAccumulator accumulator = newAccumulator();
+
+        accumulator.append(new ProduceMessage(TOPIC, "12345"), 100, TimeUnit.MILLISECONDS);
+        Assert.assertEquals(0, producerInner.batches.size());
+
+        // 达到批次字节数后发送
+        accumulator.append(new ProduceMessage(TOPIC, "12345"), 100, TimeUnit.MILLISECONDS);
+        Assert.assertEquals(1, producerInner.batches.size());
+        Assert.assertEquals(2, producerInner.batches.get(0).messages.size());
+
+        // 超过批次大小的单条消息单独成批
+        accumulator.append(new ProduceMessage(TOPIC, "123456789012"), 100, TimeUnit.MILLISECONDS);
+        Assert.assertEquals(2, producerInner.batches.size());
+        Assert.assertEquals(1, producerInner.batches.get(1).messages.size());
+        accumulator.stop();
+    }
+
+    @Test
+    public void lingerTest() throws Exception {
+        config.setLinger(50);
+        RecordAccumulator accumulator = newAccumulator();
+
+        accumulator.append(new ProduceMessage(TOPIC, "1"), 100, TimeUnit.MILLISECONDS);
+        Assert.assertEquals(0, producerInner.batches.size());
+
+        // 超过linger后由定时任务发送
+        long deadline = System.currentTimeMillis() + 1000 * 5;
+        while (producerInner.batches.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(1, producerInner.batches.size());
+        Assert.assertEquals(1, producerInner.batches.get(0).messages.size());
+        accumulator.stop();
+    }
+
+    @Test
+    public void stickyPartitionTest() throws Exception {
+        config.setBatchMessages(2);
+        RecordAccumulator accumulator = newAccumulator();
+
+        for (int i = 0; i < 6; i++) {
+            accumulator.append(new ProduceMessage(TOPIC, String.valueOf(i)), 100, TimeUnit.MILLISECONDS);
+        }
+
+        // 同一批次粘滞在同一分区，批次发送后切换分区
+        Assert.assertEquals(3, producerInner.batches.size());
+        Assert.assertEquals(0, producerInner.batches.get(0).partition);
+        Assert.assertEquals(1, producerInner.batches.get(1).partition);
+        Assert.assertEquals(2, producerInner.batches.get(2).partition);
+        for (SentBatch batch : producerInner.batches) {
+            Assert.assertTrue(batch.failover);
+            for (ProduceMessage message : batch.messages) {
+                Assert.assertEquals(ProduceMessage.NONE_PARTITION, message.getPartition());
+            }
+        }
+        accumulator.stop();
+    }
+
+    @Test
+    public void keyedMessageTest() throws Exception {
+        RecordAccumulator accumulator = newAccumulator();
+
+        ProduceMessage stickyMessage = new ProduceMessage(TOPIC, "1");
+        ProduceMessage keyedMessage = new ProduceMessage(TOPIC, "2", null, "key");
+        ProduceMessage partitionMessage = new ProduceMessage(TOPIC, "3");
+        partitionMessage.setPartition((short) 0);
+
+        // 三条消息都落在分区0上，粘滞消息不能和指定分区的消息合并
+        accumulator.append(stickyMessage, 100, TimeUnit.MILLISECONDS);
+        accumulator.append(keyedMessage, 100, TimeUnit.MILLISECONDS);
+        accumulator.append(partitionMessage, 100, TimeUnit.MILLISECONDS);
+        accumulator.flush();
+
+        Assert.assertEquals(2, producerInner.batches.size());
+        for (SentBatch batch : producerInner.batches) {
+            Assert.assertEquals(0, batch.partition);
+            if (batch.messages.contains(stickyMessage)) {
+                Assert.assertEquals(1, batch.messages.size());
+                Assert.assertTrue(batch.failover);
+            } else {
+                Assert.assertEquals(2, batch.messages.size());
+                Assert.assertFalse(batch.failover);
+            }
+        }
+
+        // 只清除粘滞消息的分区
+        Assert.assertEquals(ProduceMessage.NONE_PARTITION, stickyMessage.getPartition());
+        Assert.assertEquals("key", keyedMessage.getPartitionKey());
+        Assert.assertEquals(0, keyedMessage.getPartition());
+        Assert.assertEquals(0, partitionMessage.getPartition());
+        accumulator.stop();
+    }
+
+    @Test
+    public void bufferReleaseTest() throws Exception {
+        config.setBufferMemory(10);
+        RecordAccumulator accumulator = newAccumulator();
+
+        CompletableFuture<SendResult> future1 = accumulator.append(new ProduceMessage(TOPIC, "12345"), 100, TimeUnit.MILLISECONDS);
+        CompletableFuture<SendResult> future2 = accumulator.append(new ProduceMessage(TOPIC, "12345"), 100, TimeUnit.MILLISECONDS);
+        assertBufferExhausted(accumulator);
+
+        // 发送成功后释放缓存
+        accumulator.flush();
+        producerInner.batches.get(0).callback.onSuccess(producerInner.batches.get(0).messages,
+                Collections.singletonList(new SendResult(TOPIC, (short) 0, 100, 0)));
+        Assert.assertEquals(100, future1.get().getIndex());
+        Assert.assertEquals(101, future2.get().getIndex());
+
+        CompletableFuture<SendResult> future3 = accumulator.append(new ProduceMessage(TOPIC, "12345"), 100, TimeUnit.MILLISECONDS);
+        accumulator.append(new ProduceMessage(TOPIC, "12345"), 100, TimeUnit.MILLISECONDS);
+        assertBufferExhausted(accumulator);
+
+        // 发送失败后释放缓存
+        accumulator.flush();
+        producerInner.batches.get(1).callback.onException(producerInner.batches.get(1).messages, new IllegalStateException("send failure"));
+        try {
+            future3.get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+
+        // 同步抛出异常时也释放缓存
+        producerInner.exception = new ProducerException("send exception", 0);
+        CompletableFuture<SendResult> future4 = accumulator.append(new ProduceMessage(TOPIC, "1234567890"), 100, TimeUnit.MILLISECONDS);
+        accumulator.flush();
+        Assert.assertTrue(future4.isCompletedExceptionally());
+        producerInner.exception = null;
+
+        accumulator.append(new ProduceMessage(TOPIC, "1234567890"), 100, TimeUnit.MILLISECONDS);
+        accumulator.stop();
+    }
+
+    @Test
+    public void stopTest() throws Exception {
+        config.setTimeout(1000 * 5);
+        RecordAccumulator accumulator = newAccumulator();
+        CompletableFuture<SendResult> future = accumulator.append(new ProduceMessage(TOPIC, "1"), 100, TimeUnit.MILLISECONDS);
+
+        // 停止时发送剩余消息，并等待发送完成
+        Thread thread = new Thread(() -> {
+            try {
+                while (producerInner.batches.isEmpty()) {
+                    Thread.sleep(10);
+                }
+                Thread.sleep(50);
+                SentBatch batch = producerInner.batches.get(0);
+                batch.callback.onSuccess(batch.messages, Collections.singletonList(new SendResult(TOPIC, (short) 0, 100, 0)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+        accumulator.stop();
+        thread.join();
+
+        Assert.assertTrue(future.isDone());
+        Assert.assertEquals(100, future.get().getIndex());
+    }
+
+    @Test
+    public void stopTimeoutTest() throws Exception {
+        RecordAccumulator accumulator = newAccumulator();
+        CompletableFuture<SendResult> future = accumulator.append(new ProduceMessage(TOPIC, "1"), 100, TimeUnit.MILLISECONDS);
+
+        // 超时未完成的批次按失败处理
+        accumulator.stop();
+        Assert.assertEquals(1, producerInner.batches.size());
+        try {
+            future.get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof ProducerException);
+        }
+
+        // 之后返回的结果被忽略
+        SentBatch batch = producerInner.batches.get(0);
+        batch.callback.onSuccess(batch.messages, Collections.singletonList(new SendResult(TOPIC, (short) 0, 100, 0)));
+        Assert.assertTrue(future.isCompletedExceptionally());
+    }
+
+    protected RecordAccumulator newAccumulator() throws Exception {
+        RecordAccumulator accumulator = new RecordAccumulator(config, producerInner);
+        accumulator.start();
+        return accumulator;
+    }
+
+    protected void assertBufferExhausted(RecordAccumulator accumulator) {
+        try {
+            accumulator.append(new ProduceMessage(TOPIC, "1"), 10, TimeUnit.MILLISECONDS);
+            Assert.fail();
+        } catch (ProducerException e) {
+            Assert.assertTrue(e.getMessage().contains("buffer exhausted"));
+        }
+    }
+
+    protected static class SentBatch {
+
+        private List<ProduceMessage> messages;
+        private short partition;
+        private boolean failover;
+        private AsyncBatchProduceCallback callback;
+    }
+
+    protected static class TestProducerInner extends MessageProducerInner {
+
+        private TopicMetadata topicMetadata;
+        private int sequence;
+        private volatile ProducerException exception;
+        private List<SentBatch> batches = new CopyOnWriteArrayList<>();
+
+        public TestProducerInner(ProducerConfig config, TopicMetadata topicMetadata) {
+            super(config, null, null, null, null);
+            this.topicMetadata = topicMetadata;
+        }
+
+        @Override
+        public TopicMetadata getAndCheckTopicMetadata(String topic) {
+            return topicMetadata;
+        }
+
+        @Override
+        public List<BrokerNode> getRegionBrokers(TopicMetadata topicMetadata) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<BrokerNode> filterNotAvailableBrokers(List<BrokerNode> brokerNodes) {
+            return brokerNodes;
+        }
+
+        @Override
+        public List<PartitionMetadata> getBrokerPartitions(TopicMetadata topicMetadata, List<BrokerNode> brokerNodes) {
+            return topicMetadata.getPartitions();
+        }
+
+        @Override
+        public synchronized PartitionMetadata dispatchPartitions(List<ProduceMessage> messages, TopicMetadata topicMetadata, List<PartitionMetadata> partitions) {
+            // 有partitionKey的消息固定在分区0，其余轮询
+            PartitionMetadata partition;
+            if (messages.get(0).getPartitionKey() != null) {
+                partition = partitions.get(0);
+            } else {
+                partition = partitions.get(sequence++ % partitions.size());
+            }
+            ProducerHelper.setPartitions(messages, partition.getId());
+            return partition;
+        }
+
+        @Override
+        public List<SendResult> doBatchSend(List<ProduceMessage> messages, TopicMetadata topicMetadata, PartitionMetadata partition, List<PartitionMetadata> partitions,
+                                            String txId, long timeout, TimeUnit timeoutUnit, boolean isOneway, boolean failover, AsyncBatchProduceCallback callback) {
+            if (exception != null) {
+                throw exception;
+            }
+            SentBatch batch = new SentBatch();
+            batch.messages = messages;
+            batch.partition = partition.getId();
+            batch.failover = failover;
+            batch.callback = callback;
+            batches.add(batch);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.client.internal.producer.transport;
+
+import org.joyqueue.client.internal.exception.ClientException;
+import org.joyqueue.exception.JoyQueueCode;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ProducerInFlightWindowTest
+ *
+ * author: gaohaoxiang
+ * date: 2020/3/2
+ */
+public class ProducerInFlightWindowTest {
+
+    @Test
+    public void requestLimitTest() {
+        ProducerInFlightWindow window = new ProducerInFlightWindow(2, 0, false);
+        List<Runnable> completions = new ArrayList<>();
+
+        window.send("test:0", 10, 100, completions::add);
+        window.send("test:1", 10, 100, completions::add);
+        Assert.assertEquals(2, window.getInFlightRequests());
+
+        // 请求数已满，等待超时
+        try {
+            window.send("test:2", 10, 10, completions::add);
+            Assert.fail();
+        } catch (ClientException e) {
+            Assert.assertEquals(JoyQueueCode.CN_REQUEST_EXCESSIVE.getCode(), e.getCode());
+        }
+        Assert.assertEquals(2, completions.size());
+
+        // 完成后释放窗口
+        completions.get(0).run();
+        Assert.assertEquals(1, window.getInFlightRequests());
+        window.send("test:2", 10, 10, completions::add);
+        Assert.assertEquals(3, completions.size());
+        Assert.assertEquals(2, window.getInFlightRequests());
+    }
+
+    @Test
+    public void byteLimitTest() {
+        ProducerInFlightWindow window = new ProducerInFlightWindow(0, 100, false);
+        List<Runnable> completions = new ArrayList<>();
+
+        window.send("test:0", 60, 100, completions::add);
+        Assert.assertEquals(60, window.getInFlightBytes());
+
+        // 字节数不足，等待超时
+        try {
+            window.send("test:1", 60, 10, completions::add);
+            Assert.fail();
+        } catch (ClientException e) {
+            Assert.assertEquals(JoyQueueCode.CN_REQUEST_EXCESSIVE.getCode(), e.getCode());
+        }
+        Assert.assertEquals(60, window.getInFlightBytes());
+
+        // 超过上限的单个请求按上限占用，不会永远等待
+        completions.get(0).run();
+        Assert.assertEquals(0, window.getInFlightBytes());
+        window.send("test:1", 200, 10, completions::add);
+        Assert.assertEquals(100, window.getInFlightBytes());
+
+        // 重复完成只释放一次
+        completions.get(1).run();
+        completions.get(1).run();
+        Assert.assertEquals(0, window.getInFlightBytes());
+    }
+
+    @Test
+    public void orderedTest() {
+        ProducerInFlightWindow window = new ProducerInFlightWindow(10, 0, true);
+        List<String> sent = new ArrayList<>();
+        List<Runnable> completions = new ArrayList<>();
+
+        window.send("test:0", 10, 100, completion -> {
+            sent.add("0-1");
+            completions.add(completion);
+        });
+        window.send("test:0", 10, 100, completion -> {
+            sent.add("0-2");
+            completions.add(completion);
+        });
+        window.send("test:1", 10, 100, completion -> {
+            sent.add("1-1");
+            completions.add(completion);
+        });
+
+        // 同一分区的第二个请求排队，不同分区并行
+        Assert.assertEquals(2, sent.size());
+        Assert.assertEquals("0-1", sent.get(0));
+        Assert.assertEquals("1-1", sent.get(1));
+        Assert.assertEquals(3, window.getInFlightRequests());
+
+        // 第一个请求完成后发送排队的请求
+        completions.get(0).run();
+        Assert.assertEquals(3, sent.size());
+        Assert.assertEquals("0-2", sent.get(2));
+        Assert.assertEquals(2, window.getInFlightRequests());
+
+        completions.get(1).run();
+        completions.get(2).run();
+        Assert.assertEquals(0, window.getInFlightRequests());
+    }
+
+    @Test
+    public void failureTest() {
+        ProducerInFlightWindow window = new ProducerInFlightWindow(1, 100, true);
+        List<String> sent = new ArrayList<>();
+
+        window.send("test:0", 50, 100, completion -> {
+            sent.add("1");
+            throw new IllegalStateException("send failure");
+        });
+
+        // 发送异常时释放窗口，并继续发送同一分区的后续请求
+        Assert.assertEquals(0, window.getInFlightRequests());
+        Assert.assertEquals(0, window.getInFlightBytes());
+
+        window.send("test:0", 50, 10, completion -> {
+            sent.add("2");
+            completion.run();
+        });
+        Assert.assertEquals(2, sent.size());
+        Assert.assertEquals(0, window.getInFlightRequests());
+        Assert.assertEquals(0, window.getInFlightBytes());
+    }
+
+    @Test
+    public void producerClientWindowTest() {
+        ProducerClient producerClient = new ProducerClient(null);
+        ProducerInFlightWindow window = producerClient.getOrCreateInFlightWindow(10, 100, false);
+
+        // 配置相同时共用窗口，不同时使用各自的窗口
+        Assert.assertSame(window, producerClient.getOrCreateInFlightWindow(10, 100, false));
+        ProducerInFlightWindow orderedWindow = producerClient.getOrCreateInFlightWindow(10, 100, true);
+        Assert.assertNotSame(window, orderedWindow);
+        Assert.assertTrue(orderedWindow.isOrdered());
+        ProducerInFlightWindow otherWindow = producerClient.getOrCreateInFlightWindow(20, 200, false);
+        Assert.assertEquals(20, otherWindow.getMaxRequests());
+        Assert.assertEquals(200, otherWindow.getMaxBytes());
+        Assert.assertEquals(3, producerClient.getInFlightWindows().size());
+    }
+}
@@ -35,6 +35,20 @@ public enum BrokerConfigKey implements PropertyDef {
     FRONTEND_SERVER_PRODUCE_THREADS("broker.frontend-server.produce.threads", Runtime.getRuntime().availableProcessors() * 4, Type.INT),
     FRONTEND_SERVER_PRODUCE_THREAD_KEEPALIVE("broker.frontend-server.produce.thread.keepalive", 1000 * 60, Type.INT),
     FRONTEND_SERVER_PRODUCE_THREAD_QUEUE_SIZE("broker.frontend-server.produce.thread.queue.size", 102400, Type.INT),
+    // 根据排队时间自动调整处理线程数
+    FRONTEND_SERVER_THREAD_ADAPTIVE("broker.frontend-server.thread.adaptive", false, Type.BOOLEAN),
+    // 调整间隔
+    FRONTEND_SERVER_THREAD_ADAPTIVE_INTERVAL("broker.frontend-server.thread.adaptive.interval", 1000 * 5, Type.INT),
+    // 平均排队时间超过该值(毫秒)时扩容
+    FRONTEND_SERVER_THREAD_ADAPTIVE_QUEUE_TIME("broker.frontend-server.thread.adaptive.queue.time", 10, Type.INT),
+    // 最大线程数为配置线程数的倍数
+    FRONTEND_SERVER_THREAD_ADAPTIVE_MAX_RATIO("broker.frontend-server.thread.adaptive.max.ratio", 4, Type.INT),
+    // 使用虚拟线程执行处理器，运行时不支持时使用线程池
+    FRONTEND_SERVER_VIRTUAL_THREADS("broker.frontend-server.virtual.threads", false, Type.BOOLEAN),
+    // 虚拟线程下每种命令的最大并发数
+    FRONTEND_SERVER_VIRTUAL_THREAD_CONCURRENCY("broker.frontend-server.virtual.thread.concurrency", 1024 * 10, Type.INT),
+    // 指定命令的最大并发数，后缀为协议和命令类型，如kafka.1
+    FRONTEND_SERVER_VIRTUAL_THREAD_CONCURRENCY_PREFIX("broker.frontend-server.virtual.thread.concurrency.", 1024 * 10, Type.INT),
     TRACER_TYPE("broker.tracer.type", "default", Type.STRING),
     // 详细日志
     LOG_DETAIL("broker.log.detail", false, Type.BOOLEAN),
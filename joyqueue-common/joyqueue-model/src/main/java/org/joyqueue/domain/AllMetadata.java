@@ -25,6 +25,8 @@ import java.util.Map;
  */
 public class AllMetadata {
 
+    // 元数据版本，用于后续增量同步，0表示不支持
+    private long version;
     private Map<TopicName, TopicConfig> topics;
     private Map<Integer, Broker> brokers;
     private List<Producer> producers;
@@ -33,6 +35,14 @@ public class AllMetadata {
     private List<Config> configs;
     private List<AppToken> appTokens;
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public Map<TopicName, TopicConfig> getTopics() {
         return topics;
     }
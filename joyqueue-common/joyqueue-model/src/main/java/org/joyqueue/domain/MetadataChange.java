@@ -0,0 +1,100 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.domain;
+
+/**
+ * 元数据变更记录
+ * 只记录变更的实体类型和标识，变更后的内容由nameserver按标识查询当前值
+ *
+ * author: gaohaoxiang
+ * date: 2020/3/9
+ */
+public class MetadataChange {
+
+    // 变更版本，单调递增
+    private long version;
+    // 实体类型
+    private Type type;
+    // 实体标识
+    private String key;
+
+    public MetadataChange() {
+
+    }
+
+    public MetadataChange(long version, Type type, String key) {
+        this.version = version;
+        this.type = type;
+        this.key = key;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    @Override
+    public String toString() {
+        return "MetadataChange{" +
+                "version=" + version +
+                ", type=" + type +
+                ", key='" + key + '\'' +
+                '}';
+    }
+
+    public enum Type {
+
+        // 主题，key为主题全名，包括分区组和副本
+        TOPIC,
+
+        // broker，key为brokerId
+        BROKER,
+
+        // 生产者，key为主题全名.应用
+        PRODUCER,
+
+        // 消费者，key为主题全名.应用
+        CONSUMER,
+
+        // 配置
+        CONFIG,
+
+        // 数据中心
+        DATACENTER,
+
+        // 令牌
+        APP_TOKEN
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.domain;
+
+import java.util.List;
+
+/**
+ * 元数据增量
+ * 包含上次同步版本之后变更的实体当前值，删除的实体只保留标识
+ * 配置、数据中心和令牌数据量小，有变更时返回全量，没有变更时为null
+ *
+ * author: gaohaoxiang
+ * date: 2020/3/9
+ */
+public class MetadataDelta {
+
+    // 增量对应的版本
+    private long version;
+
+    private List<TopicConfig> topics;
+    private List<String> removedTopics;
+    private List<Broker> brokers;
+    private List<Integer> removedBrokers;
+    private List<Producer> producers;
+    private List<Producer> removedProducers;
+    private List<Consumer> consumers;
+    private List<Consumer> removedConsumers;
+    private List<DataCenter> dataCenters;
+    private List<Config> configs;
+    private List<AppToken> appTokens;
+
+    public boolean isEmpty() {
+        return isEmpty(topics) && isEmpty(removedTopics) && isEmpty(brokers) && isEmpty(removedBrokers)
+                && isEmpty(producers) && isEmpty(removedProducers) && isEmpty(consumers) && isEmpty(removedConsumers)
+                && dataCenters == null && configs == null && appTokens == null;
+    }
+
+    protected boolean isEmpty(List<?> list) {
+        return list == null || list.isEmpty();
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public List<TopicConfig> getTopics() {
+        return topics;
+    }
+
+    public void setTopics(List<TopicConfig> topics) {
+        this.topics = topics;
+    }
+
+    public List<String> getRemovedTopics() {
+        return removedTopics;
+    }
+
+    public void setRemovedTopics(List<String> removedTopics) {
+        this.removedTopics = removedTopics;
+    }
+
+    public List<Broker> getBrokers() {
+        return brokers;
+    }
+
+    public void setBrokers(List<Broker> brokers) {
+        this.brokers = brokers;
+    }
+
+    public List<Integer> getRemovedBrokers() {
+        return removedBrokers;
+    }
+
+    public void setRemovedBrokers(List<Integer> removedBrokers) {
+        this.removedBrokers = removedBrokers;
+    }
+
+    public List<Producer> getProducers() {
+        return producers;
+    }
+
+    public void setProducers(List<Producer> producers) {
+        this.producers = producers;
+    }
+
+    public List<Producer> getRemovedProducers() {
+        return removedProducers;
+    }
+
+    public void setRemovedProducers(List<Producer> removedProducers) {
+        this.removedProducers = removedProducers;
+    }
+
+    public List<Consumer> getConsumers() {
+        return consumers;
+    }
+
+    public void setConsumers(List<Consumer> consumers) {
+        this.consumers = consumers;
+    }
+
+    public List<Consumer> getRemovedConsumers() {
+        return removedConsumers;
+    }
+
+    public void setRemovedConsumers(List<Consumer> removedConsumers) {
+        this.removedConsumers = removedConsumers;
+    }
+
+    public List<DataCenter> getDataCenters() {
+        return dataCenters;
+    }
+
+    public void setDataCenters(List<DataCenter> dataCenters) {
+        this.dataCenters = dataCenters;
+    }
+
+    public List<Config> getConfigs() {
+        return configs;
+    }
+
+    public void setConfigs(List<Config> configs) {
+        this.configs = configs;
+    }
+
+    public List<AppToken> getAppTokens() {
+        return appTokens;
+    }
+
+    public void setAppTokens(List<AppToken> appTokens) {
+        this.appTokens = appTokens;
+    }
+}
@@ -77,16 +77,19 @@ public class TopicName {
 
         TopicName topicName = TOPIC_NAME_CACHE.get(fullName);
         if (topicName == null) {
-            if (TOPIC_NAME_CACHE.size() > TOPIC_NAME_CACHE_SIZE) {
-                TOPIC_NAME_CACHE.clear();
-            }
             String[] splits = StringUtils.splitByWholeSeparator(fullName, TOPIC_SEPARATOR_SPLIT);
             if (splits.length == 1) {
                 topicName = new TopicName(splits[0]);
             } else {
                 topicName = new TopicName(splits[1], splits[0]);
             }
-            TOPIC_NAME_CACHE.put(fullName, topicName);
+            // 缓存满后不再清空，避免热点主题全部失效，超出部分直接返回新对象
+            if (TOPIC_NAME_CACHE.size() < TOPIC_NAME_CACHE_SIZE) {
+                TopicName oldTopicName = TOPIC_NAME_CACHE.putIfAbsent(fullName, topicName);
+                if (oldTopicName != null) {
+                    topicName = oldTopicName;
+                }
+            }
         }
         return topicName;
     }
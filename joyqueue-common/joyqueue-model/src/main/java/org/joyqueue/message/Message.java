@@ -15,10 +15,14 @@
  */
 package org.joyqueue.message;
 
+import org.joyqueue.toolkit.io.Compressor;
 import org.joyqueue.toolkit.io.Compressors;
+import org.joyqueue.toolkit.io.Lz4;
+import org.joyqueue.toolkit.io.Lz4Frame;
 import org.joyqueue.toolkit.io.Snappy;
 import org.joyqueue.toolkit.io.Zip;
 import org.joyqueue.toolkit.io.Zlib;
+import org.joyqueue.toolkit.io.Zstd;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -334,6 +338,18 @@ public class Message implements Serializable {
                             data = Compressors.decompress(body, 0, body.length, Snappy.INSTANCE);
                             break;
                         }
+                        case LZ4: {
+                            data = Compressors.decompress(body, 0, body.length, Lz4.INSTANCE);
+                            break;
+                        }
+                        case ZSTD: {
+                            data = Compressors.decompress(body, 0, body.length, Zstd.INSTANCE);
+                            break;
+                        }
+                        case LZ4_FRAME: {
+                            data = Compressors.decompress(body, 0, body.length, Lz4Frame.INSTANCE);
+                            break;
+                        }
                     }
                     text = new String(data, Charset.forName("UTF-8"));
                 } else {
@@ -368,6 +384,15 @@ public class Message implements Serializable {
                     case ZLIB: {
                         return Compressors.decompress(body, 0, body.length, Zlib.INSTANCE);
                     }
+                    case LZ4: {
+                        return Compressors.decompress(body, 0, body.length, Lz4.INSTANCE);
+                    }
+                    case ZSTD: {
+                        return Compressors.decompress(body, 0, body.length, Zstd.INSTANCE);
+                    }
+                    case LZ4_FRAME: {
+                        return Compressors.decompress(body, 0, body.length, Lz4Frame.INSTANCE);
+                    }
                 }
                 return body;
             } else {
@@ -392,8 +417,9 @@ public class Message implements Serializable {
         }
         if (data.length >= COMPRESS_THRESHOLD) {
             try {
-                data = Compressors.compress(data, 0, data.length,
-                        compressionType != CompressionType.Snappy ? Zip.INSTANCE : Snappy.INSTANCE);
+                // 按设置的压缩类型压缩，保证getText能用同样的类型解压，未设置时沿用Zip
+                Compressor compressor = getCompressor(compressionType);
+                data = Compressors.compress(data, 0, data.length, compressor != null ? compressor : Zip.INSTANCE);
                 compressed = true;
             } catch (IOException ignored) {
             }
@@ -402,6 +428,28 @@ public class Message implements Serializable {
         bodyCRC = 0;
     }
 
+    protected static Compressor getCompressor(CompressionType compressionType) {
+        if (compressionType == null) {
+            return null;
+        }
+        switch (compressionType) {
+            case Zip:
+                return Zip.INSTANCE;
+            case ZLIB:
+                return Zlib.INSTANCE;
+            case Snappy:
+                return Snappy.INSTANCE;
+            case LZ4:
+                return Lz4.INSTANCE;
+            case ZSTD:
+                return Zstd.INSTANCE;
+            case LZ4_FRAME:
+                return Lz4Frame.INSTANCE;
+            default:
+                return null;
+        }
+    }
+
     public Map<String, String> getAttributes() {
         return this.attributes;
     }
@@ -528,6 +576,12 @@ public class Message implements Serializable {
 
         Snappy(3),
 
+        LZ4(4),
+
+        ZSTD(5),
+
+        LZ4_FRAME(6),
+
         ;
 
         private int type;
@@ -546,6 +600,12 @@ public class Message implements Serializable {
                     return ZLIB;
                 case 3:
                     return Snappy;
+                case 4:
+                    return LZ4;
+                case 5:
+                    return ZSTD;
+                case 6:
+                    return LZ4_FRAME;
                 default: {
                     throw new UnsupportedOperationException("unsupported type, type: " + value);
                 }
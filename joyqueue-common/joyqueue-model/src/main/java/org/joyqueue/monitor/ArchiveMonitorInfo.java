@@ -36,6 +36,12 @@ public class ArchiveMonitorInfo implements Serializable {
      **/
     private Map<String, Long> topicProduceBacklog;
 
+    /**
+     * producer 按分区生产待归档记录数，key为topic:partition
+     *
+     **/
+    private Map<String, Long> partitionProduceBacklog;
+
     public long getConsumeBacklog() {
         return consumeBacklog;
     }
@@ -59,4 +65,12 @@ public class ArchiveMonitorInfo implements Serializable {
     public void setTopicProduceBacklog(Map<String, Long> topicProduceBacklog) {
         this.topicProduceBacklog = topicProduceBacklog;
     }
+
+    public Map<String, Long> getPartitionProduceBacklog() {
+        return partitionProduceBacklog;
+    }
+
+    public void setPartitionProduceBacklog(Map<String, Long> partitionProduceBacklog) {
+        this.partitionProduceBacklog = partitionProduceBacklog;
+    }
 }
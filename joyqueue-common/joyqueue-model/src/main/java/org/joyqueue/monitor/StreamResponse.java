@@ -0,0 +1,49 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.monitor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * StreamResponse
+ * 边生成边输出的响应，不在内存中构造完整的响应体
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/11
+ */
+public abstract class StreamResponse {
+
+    private Map<String, String> headers = new HashMap<>();
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public void addHeader(String key, String value) {
+        headers.put(key, value);
+    }
+
+    /**
+     * 输出响应体
+     *
+     * @param writer 输出
+     * @throws IOException 输出异常
+     */
+    public abstract void write(Writer writer) throws IOException;
+}
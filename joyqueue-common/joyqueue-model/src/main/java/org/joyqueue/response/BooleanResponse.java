@@ -22,16 +22,29 @@ import org.joyqueue.exception.JoyQueueCode;
  * Date: 2019/1/3
  */
 public class BooleanResponse implements Response{
-    private JoyQueueCode joyQueueCode;
+    private static final BooleanResponse SUCCESS = new BooleanResponse(JoyQueueCode.SUCCESS);
+    // 下标为JoyQueueCode.ordinal，响应不可变，可以共享
+    private static final BooleanResponse[] RESPONSES = new BooleanResponse[JoyQueueCode.values().length];
+
+    static {
+        for (JoyQueueCode code : JoyQueueCode.values()) {
+            RESPONSES[code.ordinal()] = (code == JoyQueueCode.SUCCESS ? SUCCESS : new BooleanResponse(code));
+        }
+    }
+
+    private final JoyQueueCode joyQueueCode;
     public BooleanResponse(JoyQueueCode code){
         this.joyQueueCode = code;
     }
     public static BooleanResponse success(){
-        return new BooleanResponse(JoyQueueCode.SUCCESS);
+        return SUCCESS;
     }
 
     public static BooleanResponse failed(JoyQueueCode joyQueueCode){
-        return new BooleanResponse(joyQueueCode);
+        if (joyQueueCode == null) {
+            return new BooleanResponse(null);
+        }
+        return RESPONSES[joyQueueCode.ordinal()];
     }
 
     public JoyQueueCode getJoyQueueCode() {
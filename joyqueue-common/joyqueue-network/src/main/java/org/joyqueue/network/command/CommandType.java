@@ -91,4 +91,11 @@ public class CommandType {
     // 主题组
     public static final int GET_PARTITION_GROUP_CLUSTER_REQUEST = 72;
     public static final int GET_PARTITION_GROUP_CLUSTER_RESPONSE = -72;
+
+    // 集群限流令牌租约
+    public static final int LEASE_LIMIT_TOKEN_REQUEST = 73;
+    public static final int LEASE_LIMIT_TOKEN_RESPONSE = -73;
+
+    // 事务offset提交通知，更新group协调者的offset缓存
+    public static final int TRANSACTION_OFFSETS_COMMITTED_REQUEST = 74;
 }
\ No newline at end of file
@@ -22,6 +22,7 @@ import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.epoll.Epoll;
@@ -29,6 +30,7 @@ import io.netty.channel.epoll.EpollEventLoopGroup;
 import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -111,7 +113,7 @@ public abstract class TransportServerSupport extends Service implements Transpor
         ServerBootstrap serverBootstrap = new ServerBootstrap();
         serverBootstrap.channel(Epoll.isAvailable() ? EpollServerSocketChannel.class : NioServerSocketChannel.class)
                 .group(acceptEventGroup, ioEventGroup)
-                .childHandler(channelHandler)
+                .childHandler(newChildHandler(channelHandler))
                 .option(ChannelOption.SO_REUSEADDR, config.isReuseAddress())
                 .option(ChannelOption.SO_RCVBUF, config.getSocketBufferSize())
                 .option(ChannelOption.SO_BACKLOG, config.getBacklog())
@@ -124,6 +126,22 @@ public abstract class TransportServerSupport extends Service implements Transpor
         return serverBootstrap;
     }
 
+    protected ChannelHandler newChildHandler(final ChannelHandler channelHandler) {
+        if (!config.isFlushConsolidation()) {
+            return channelHandler;
+        }
+        final int flushConsolidationLimit = config.getFlushConsolidationLimit();
+        return new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel channel) throws Exception {
+                // 放在最前面，合并后续所有handler的flush，非读事件中的flush在事件循环的下一个任务里统一执行
+                channel.pipeline()
+                        .addLast(new FlushConsolidationHandler(flushConsolidationLimit, true))
+                        .addLast(channelHandler);
+            }
+        };
+    }
+
     protected Channel doBind(ServerBootstrap serverBootstrap) throws Exception {
         return serverBootstrap.bind(port)
                 .sync()
@@ -16,6 +16,7 @@
 package org.joyqueue.network.transport.codec.support;
 
 import org.joyqueue.network.transport.codec.Codec;
+import org.joyqueue.network.transport.command.Command;
 import org.joyqueue.network.transport.exception.TransportException;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
@@ -40,8 +41,15 @@ public class NettyDecoder extends ByteToMessageDecoder {
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
         try {
+            long startTime = System.nanoTime();
             Object payload = codec.decode(in);
             if (payload != null) {
+                if (payload instanceof Command) {
+                    // 记录解码耗时和收到请求的时间，用于统计请求各阶段耗时
+                    long receiveTime = System.nanoTime();
+                    ((Command) payload).setReceiveTime(receiveTime);
+                    ((Command) payload).setDecodeTime(receiveTime - startTime);
+                }
                 out.add(payload);
             }
         } catch (Exception e) {
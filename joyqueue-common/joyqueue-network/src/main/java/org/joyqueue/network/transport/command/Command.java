@@ -32,6 +32,10 @@ public class Command {
     protected AtomicBoolean released = new AtomicBoolean(false);
     // 附加属性
     protected Object attachment;
+    // 解码完成时间，单位纳秒，只在服务端收到的请求上有效
+    protected long receiveTime;
+    // 解码耗时，单位纳秒
+    protected long decodeTime;
 
     public Command() {
     }
@@ -75,6 +79,22 @@ public class Command {
         return attachment;
     }
 
+    public void setReceiveTime(long receiveTime) {
+        this.receiveTime = receiveTime;
+    }
+
+    public long getReceiveTime() {
+        return receiveTime;
+    }
+
+    public void setDecodeTime(long decodeTime) {
+        this.decodeTime = decodeTime;
+    }
+
+    public long getDecodeTime() {
+        return decodeTime;
+    }
+
     public boolean isSuccess() {
         return (header.getStatus() == JoyQueueCode.SUCCESS.getCode());
     }
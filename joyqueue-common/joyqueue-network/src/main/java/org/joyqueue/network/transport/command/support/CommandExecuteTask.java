@@ -69,4 +69,16 @@ public class CommandExecuteTask implements Runnable {
             }
         }
     }
+
+    public Transport getTransport() {
+        return transport;
+    }
+
+    public Command getRequest() {
+        return request;
+    }
+
+    public CommandHandler getCommandHandler() {
+        return commandHandler;
+    }
 }
\ No newline at end of file
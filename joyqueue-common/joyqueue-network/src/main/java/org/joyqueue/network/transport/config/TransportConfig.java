@@ -84,6 +84,10 @@ public class TransportConfig {
     private RetryPolicy retryPolicy;
     // 清理间隔
     private int clearInterval = 1000 * 1;
+    // 合并同一连接上的flush，同一次事件循环内的多个响应只flush一次
+    private boolean flushConsolidation = false;
+    // 连续合并多少次flush后强制flush
+    private int flushConsolidationLimit = 256;
 
 
     public RetryPolicy getRetryPolicy() {
@@ -312,4 +316,20 @@ public class TransportConfig {
     public int getClearInterval() {
         return clearInterval;
     }
-}
\ No newline at end of file
+
+    public boolean isFlushConsolidation() {
+        return flushConsolidation;
+    }
+
+    public void setFlushConsolidation(boolean flushConsolidation) {
+        this.flushConsolidation = flushConsolidation;
+    }
+
+    public int getFlushConsolidationLimit() {
+        return flushConsolidationLimit;
+    }
+
+    public void setFlushConsolidationLimit(int flushConsolidationLimit) {
+        this.flushConsolidationLimit = flushConsolidationLimit;
+    }
+}
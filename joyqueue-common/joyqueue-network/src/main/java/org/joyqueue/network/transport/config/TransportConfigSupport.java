@@ -106,6 +106,10 @@ public class TransportConfigSupport {
                     transportConfig.getRetryPolicy().setMaxRetrys(property.getInteger());
                 } else if (fullKey.equals(keyPrefix + TRANSPORT_CLEAR_INTERVAL)) {
                     transportConfig.setClearInterval(property.getInteger());
+                } else if (fullKey.equals(keyPrefix + TRANSPORT_FLUSH_CONSOLIDATION)) {
+                    transportConfig.setFlushConsolidation(property.getBoolean());
+                } else if (fullKey.equals(keyPrefix + TRANSPORT_FLUSH_CONSOLIDATION_LIMIT)) {
+                    transportConfig.setFlushConsolidationLimit(property.getInteger());
                 }
             }
 
@@ -136,6 +140,8 @@ public class TransportConfigSupport {
     public static final String TRANSPORT_RETRY_DELAY = "transport.retryDelay";
     public static final String TRANSPORT_RETRY_MAX = "transport.retryMax";
     public static final String TRANSPORT_CLEAR_INTERVAL = "transport.clearInterval";
+    public static final String TRANSPORT_FLUSH_CONSOLIDATION = "transport.flushConsolidation";
+    public static final String TRANSPORT_FLUSH_CONSOLIDATION_LIMIT = "transport.flushConsolidationLimit";
 
     //server transport config
     public static final String TRANSPORT_SERVER_PORT = "transport.server.port";
@@ -0,0 +1,94 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.toolkit.io;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * lz4块压缩
+ * 格式为4字节的原始长度加单个lz4块，适合消息体这类一次性压缩的数据
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/21
+ */
+public class Lz4 implements Compressor {
+
+    public static final Compressor INSTANCE = new Lz4();
+
+    private static final int LENGTH_SIZE = 4;
+
+    private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4SafeDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().safeDecompressor();
+
+    @Override
+    public void compress(final byte[] buf, final int offset, final int size, final OutputStream out) throws
+            IOException {
+        if (buf == null || out == null) {
+            return;
+        }
+        byte[] block = new byte[LENGTH_SIZE + COMPRESSOR.maxCompressedLength(size)];
+        writeInt(block, 0, size);
+        try {
+            int length = COMPRESSOR.compress(buf, offset, size, block, LENGTH_SIZE);
+            out.write(block, 0, LENGTH_SIZE + length);
+        } catch (LZ4Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void decompress(final byte[] buf, final int offset, final int size, final OutputStream out) throws
+            IOException {
+        if (buf == null || buf.length == 0 || size <= 0 || offset >= buf.length || out == null) {
+            return;
+        }
+        if (size < LENGTH_SIZE) {
+            throw new IOException("lz4 block is too short");
+        }
+        int length = readInt(buf, offset);
+        if (length < 0) {
+            throw new IOException(String.format("invalid lz4 block length %s", length));
+        }
+        byte[] result = new byte[length];
+        try {
+            int decompressed = DECOMPRESSOR.decompress(buf, offset + LENGTH_SIZE, size - LENGTH_SIZE, result, 0, length);
+            if (decompressed != length) {
+                throw new IOException(String.format("lz4 block length mismatch, expected: %s, actual: %s", length, decompressed));
+            }
+        } catch (LZ4Exception e) {
+            throw new IOException(e);
+        }
+        out.write(result);
+    }
+
+    protected static void writeInt(byte[] buf, int offset, int value) {
+        buf[offset] = (byte) (value >>> 24);
+        buf[offset + 1] = (byte) (value >>> 16);
+        buf[offset + 2] = (byte) (value >>> 8);
+        buf[offset + 3] = (byte) value;
+    }
+
+    protected static int readInt(byte[] buf, int offset) {
+        return ((buf[offset] & 0xFF) << 24) | ((buf[offset + 1] & 0xFF) << 16)
+                | ((buf[offset + 2] & 0xFF) << 8) | (buf[offset + 3] & 0xFF);
+    }
+}
@@ -0,0 +1,243 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.toolkit.io;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+import net.jpountz.xxhash.StreamingXXHash32;
+import net.jpountz.xxhash.XXHash32;
+import net.jpountz.xxhash.XXHashFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * lz4帧压缩
+ * 标准的lz4帧格式，可以和其它语言的lz4实现互通，带内容校验和
+ *
+ * @see <a href="https://github.com/lz4/lz4/blob/dev/doc/lz4_Frame_format.md">LZ4 Frame Format</a>
+ * author: gaohaoxiang
+ * date: 2020/4/21
+ */
+public class Lz4Frame implements Compressor {
+
+    public static final Compressor INSTANCE = new Lz4Frame();
+
+    public static final int MAGIC = 0x184D2204;
+
+    private static final int FLG_VERSION = 0x40;
+    private static final int FLG_VERSION_MASK = 0xC0;
+    private static final int FLG_BLOCK_INDEPENDENCE = 0x20;
+    private static final int FLG_BLOCK_CHECKSUM = 0x10;
+    private static final int FLG_CONTENT_SIZE = 0x08;
+    private static final int FLG_CONTENT_CHECKSUM = 0x04;
+    private static final int FLG_DICTIONARY_ID = 0x01;
+
+    // 64KB的块
+    private static final int BD_BLOCK_SIZE_64KB = 4;
+    private static final int INCOMPRESSIBLE_MASK = 0x80000000;
+
+    private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4SafeDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().safeDecompressor();
+    private static final XXHashFactory HASH_FACTORY = XXHashFactory.fastestInstance();
+    private static final XXHash32 HASH = HASH_FACTORY.hash32();
+
+    @Override
+    public void compress(final byte[] buf, final int offset, final int size, final OutputStream out) throws
+            IOException {
+        if (buf == null || out == null) {
+            return;
+        }
+        int maxBlockSize = getBlockMaximumSize(BD_BLOCK_SIZE_64KB);
+        byte[] block = new byte[4 + COMPRESSOR.maxCompressedLength(Math.min(size, maxBlockSize))];
+
+        // 帧头，记录原始长度，解压时可以一次分配
+        writeIntLE(block, 0, MAGIC);
+        block[4] = (byte) (FLG_VERSION | FLG_BLOCK_INDEPENDENCE | FLG_CONTENT_SIZE | FLG_CONTENT_CHECKSUM);
+        block[5] = (byte) (BD_BLOCK_SIZE_64KB << 4);
+        writeIntLE(block, 6, size);
+        writeIntLE(block, 10, 0);
+        block[14] = (byte) ((HASH.hash(block, 4, 10, 0) >> 8) & 0xFF);
+        out.write(block, 0, 15);
+
+        int position = offset;
+        int end = offset + size;
+        try {
+            while (position < end) {
+                int blockSize = Math.min(maxBlockSize, end - position);
+                int length = COMPRESSOR.compress(buf, position, blockSize, block, 4);
+                // 压缩后更大时保存原始数据
+                if (length >= blockSize) {
+                    writeIntLE(block, 0, blockSize | INCOMPRESSIBLE_MASK);
+                    out.write(block, 0, 4);
+                    out.write(buf, position, blockSize);
+                } else {
+                    writeIntLE(block, 0, length);
+                    out.write(block, 0, 4 + length);
+                }
+                position += blockSize;
+            }
+        } catch (LZ4Exception e) {
+            throw new IOException(e);
+        }
+
+        // 结束标记和内容校验和
+        writeIntLE(block, 0, 0);
+        writeIntLE(block, 4, HASH.hash(buf, offset, size, 0));
+        out.write(block, 0, 8);
+    }
+
+    @Override
+    public void decompress(final byte[] buf, final int offset, final int size, final OutputStream out) throws
+            IOException {
+        if (buf == null || buf.length == 0 || size <= 0 || offset >= buf.length || out == null) {
+            return;
+        }
+        int end = offset + size;
+        int position = offset;
+
+        checkRemaining(position, 7, end);
+        if (readIntLE(buf, position) != MAGIC) {
+            throw new IOException("lz4 frame magic mismatch");
+        }
+        int flg = buf[position + 4] & 0xFF;
+        int bd = buf[position + 5] & 0xFF;
+        position += 6;
+
+        if ((flg & FLG_VERSION_MASK) != FLG_VERSION) {
+            throw new IOException(String.format("unsupported lz4 frame version, flg: %s", flg));
+        }
+        if ((flg & FLG_DICTIONARY_ID) != 0) {
+            throw new IOException("lz4 frame dictionary is not supported");
+        }
+        long contentSize = -1;
+        if ((flg & FLG_CONTENT_SIZE) != 0) {
+            checkRemaining(position, 8, end);
+            contentSize = (readIntLE(buf, position) & 0xFFFFFFFFL) | ((long) readIntLE(buf, position + 4) << 32);
+            position += 8;
+        }
+        checkRemaining(position, 1, end);
+        byte descriptorHash = (byte) ((HASH.hash(buf, offset + 4, position - offset - 4, 0) >> 8) & 0xFF);
+        if (descriptorHash != buf[position++]) {
+            throw new IOException("lz4 frame descriptor checksum mismatch");
+        }
+
+        int maxBlockSize = getBlockMaximumSize((bd >> 4) & 0x7);
+        boolean blockChecksum = (flg & FLG_BLOCK_CHECKSUM) != 0;
+        StreamingXXHash32 contentHash = ((flg & FLG_CONTENT_CHECKSUM) != 0 ? HASH_FACTORY.newStreamingHash32(0) : null);
+
+        // 有原始长度时直接解压到结果里，否则逐块解压
+        byte[] result = null;
+        int resultPosition = 0;
+        byte[] block = null;
+        if (contentSize >= 0 && contentSize <= Integer.MAX_VALUE) {
+            result = new byte[(int) contentSize];
+        } else {
+            block = new byte[maxBlockSize];
+        }
+
+        try {
+            while (true) {
+                checkRemaining(position, 4, end);
+                int blockSize = readIntLE(buf, position);
+                position += 4;
+                if (blockSize == 0) {
+                    break;
+                }
+
+                boolean compressed = (blockSize & INCOMPRESSIBLE_MASK) == 0;
+                blockSize &= ~INCOMPRESSIBLE_MASK;
+                if (blockSize > maxBlockSize) {
+                    throw new IOException(String.format("lz4 frame block size %s exceeded max: %s", blockSize, maxBlockSize));
+                }
+                checkRemaining(position, blockSize + (blockChecksum ? 4 : 0), end);
+
+                if (blockChecksum && readIntLE(buf, position + blockSize) != HASH.hash(buf, position, blockSize, 0)) {
+                    throw new IOException("lz4 frame block checksum mismatch");
+                }
+
+                byte[] data = buf;
+                int dataOffset = position;
+                int length = blockSize;
+                if (result != null) {
+                    if (compressed) {
+                        length = DECOMPRESSOR.decompress(buf, position, blockSize, result, resultPosition, result.length - resultPosition);
+                    } else {
+                        checkRemaining(resultPosition, blockSize, result.length);
+                        System.arraycopy(buf, position, result, resultPosition, blockSize);
+                    }
+                    data = result;
+                    dataOffset = resultPosition;
+                    resultPosition += length;
+                } else if (compressed) {
+                    length = DECOMPRESSOR.decompress(buf, position, blockSize, block, 0, maxBlockSize);
+                    data = block;
+                    dataOffset = 0;
+                    out.write(block, 0, length);
+                } else {
+                    out.write(buf, position, blockSize);
+                }
+                if (contentHash != null) {
+                    contentHash.update(data, dataOffset, length);
+                }
+
+                position += blockSize + (blockChecksum ? 4 : 0);
+            }
+        } catch (LZ4Exception e) {
+            throw new IOException(e);
+        }
+
+        if (contentHash != null) {
+            checkRemaining(position, 4, end);
+            if (readIntLE(buf, position) != contentHash.getValue()) {
+                throw new IOException("lz4 frame content checksum mismatch");
+            }
+        }
+        if (result != null) {
+            if (resultPosition != result.length) {
+                throw new IOException(String.format("lz4 frame content size mismatch, expected: %s, actual: %s", result.length, resultPosition));
+            }
+            out.write(result);
+        }
+    }
+
+    protected static int getBlockMaximumSize(int blockSize) throws IOException {
+        if (blockSize < 4 || blockSize > 7) {
+            throw new IOException(String.format("unsupported lz4 frame block size: %s", blockSize));
+        }
+        return 1 << (2 * blockSize + 8);
+    }
+
+    protected static void checkRemaining(int position, int length, int end) throws IOException {
+        if (end - position < length) {
+            throw new IOException("lz4 frame ended prematurely");
+        }
+    }
+
+    protected static void writeIntLE(byte[] buf, int offset, int value) {
+        buf[offset] = (byte) value;
+        buf[offset + 1] = (byte) (value >>> 8);
+        buf[offset + 2] = (byte) (value >>> 16);
+        buf[offset + 3] = (byte) (value >>> 24);
+    }
+
+    protected static int readIntLE(byte[] buf, int offset) {
+        return (buf[offset] & 0xFF) | ((buf[offset + 1] & 0xFF) << 8)
+                | ((buf[offset + 2] & 0xFF) << 16) | ((buf[offset + 3] & 0xFF) << 24);
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.toolkit.io;
+
+import com.github.luben.zstd.ZstdInputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * zstd压缩
+ * 指定字典时使用字典压缩，解压时根据帧头里的字典id查找字典，不是当前字典的从{@link ZstdDictionaries}查找
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/21
+ */
+public class Zstd implements Compressor {
+
+    public static final int DEFAULT_LEVEL = 3;
+
+    public static final Compressor INSTANCE = new Zstd();
+
+    private int level;
+    private ZstdDictionary dictionary;
+
+    public Zstd() {
+        this(DEFAULT_LEVEL);
+    }
+
+    public Zstd(int level) {
+        this.level = level;
+    }
+
+    public Zstd(ZstdDictionary dictionary) {
+        this.level = dictionary.getLevel();
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public void compress(final byte[] buf, final int offset, final int size, final OutputStream out) throws
+            IOException {
+        if (buf == null || out == null) {
+            return;
+        }
+        byte[] result = new byte[(int) com.github.luben.zstd.Zstd.compressBound(size)];
+        long length;
+        if (dictionary == null) {
+            length = com.github.luben.zstd.Zstd.compressByteArray(result, 0, result.length, buf, offset, size, level);
+        } else {
+            length = com.github.luben.zstd.Zstd.compressFastDict(result, 0, buf, offset, size, dictionary.getCompressDictionary());
+        }
+        checkError(length);
+        out.write(result, 0, (int) length);
+    }
+
+    @Override
+    public void decompress(final byte[] buf, final int offset, final int size, final OutputStream out) throws
+            IOException {
+        if (buf == null || buf.length == 0 || size <= 0 || offset >= buf.length || out == null) {
+            return;
+        }
+        // 读取帧头的接口不支持偏移量
+        byte[] source = (offset == 0 && size == buf.length ? buf : Arrays.copyOfRange(buf, offset, offset + size));
+
+        long dictionaryId = com.github.luben.zstd.Zstd.getDictIdFromFrame(source);
+        ZstdDictionary frameDictionary = null;
+        if (dictionary != null && dictionary.getId() == dictionaryId) {
+            frameDictionary = dictionary;
+        } else if (dictionaryId != 0) {
+            frameDictionary = ZstdDictionaries.get(dictionaryId);
+            if (frameDictionary == null) {
+                throw new IOException(String.format("zstd dictionary %s not registered", dictionaryId));
+            }
+        }
+
+        long contentSize = com.github.luben.zstd.Zstd.decompressedSize(source);
+        if (contentSize > Integer.MAX_VALUE) {
+            throw new IOException(String.format("zstd content size %s is too large", contentSize));
+        }
+
+        // 没有记录原始长度的帧使用流解压
+        if (contentSize <= 0) {
+            if (frameDictionary != null) {
+                throw new IOException("zstd frame with dictionary must contain content size");
+            }
+            streamDecompress(source, out);
+            return;
+        }
+
+        byte[] result = new byte[(int) contentSize];
+        long length;
+        if (frameDictionary == null) {
+            length = com.github.luben.zstd.Zstd.decompressByteArray(result, 0, result.length, source, 0, source.length);
+        } else {
+            length = com.github.luben.zstd.Zstd.decompressFastDict(result, 0, source, 0, source.length, frameDictionary.getDecompressDictionary());
+        }
+        checkError(length);
+        out.write(result, 0, (int) length);
+    }
+
+    protected void streamDecompress(byte[] source, OutputStream out) throws IOException {
+        ZstdInputStream zis = new ZstdInputStream(new ByteArrayInputStream(source));
+        try {
+            byte[] buffer = new byte[1024];
+            int position;
+            while ((position = zis.read(buffer)) != -1) {
+                out.write(buffer, 0, position);
+            }
+        } finally {
+            zis.close();
+        }
+    }
+
+    protected void checkError(long code) throws IOException {
+        if (com.github.luben.zstd.Zstd.isError(code)) {
+            throw new IOException(com.github.luben.zstd.Zstd.getErrorName(code));
+        }
+    }
+}
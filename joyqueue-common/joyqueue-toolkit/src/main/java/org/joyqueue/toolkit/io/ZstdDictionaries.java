@@ -0,0 +1,110 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.toolkit.io;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * zstd字典注册表
+ * 按主题注册字典，生产者按主题选择字典压缩，消费者和broker按帧头里的字典id查找字典解压
+ * 启动时从系统属性{@link #DICTIONARIES_PROPERTY}加载字典，格式为 topic:path[,topic:path]，broker和客户端使用相同的配置
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/21
+ */
+public class ZstdDictionaries {
+
+    public static final String DICTIONARIES_PROPERTY = "joyqueue.compress.zstd.dictionaries";
+
+    private static final Logger logger = LoggerFactory.getLogger(ZstdDictionaries.class);
+
+    private static final ConcurrentMap<String, ZstdDictionary> topicDictionaries = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Long, ZstdDictionary> idDictionaries = new ConcurrentHashMap<>();
+
+    static {
+        String dictionaries = System.getProperty(DICTIONARIES_PROPERTY);
+        if (StringUtils.isNotBlank(dictionaries)) {
+            try {
+                load(dictionaries);
+            } catch (Exception e) {
+                logger.error("load zstd dictionaries exception, dictionaries: {}", dictionaries, e);
+            }
+        }
+    }
+
+    /**
+     * 按配置加载并注册主题的字典
+     *
+     * @param dictionaries 格式为 topic:path[,topic:path]，path为训练好的字典文件
+     * @return 加载的字典数
+     * @throws IOException 读取字典文件失败
+     */
+    public static int load(String dictionaries) throws IOException {
+        int count = 0;
+        for (String item : StringUtils.split(dictionaries, ',')) {
+            item = item.trim();
+            if (item.isEmpty()) {
+                continue;
+            }
+            // 主题名里不会有冒号，按第一个冒号拆分
+            int index = item.indexOf(':');
+            if (index <= 0 || index == item.length() - 1) {
+                throw new IllegalArgumentException(String.format("invalid zstd dictionary config: %s", item));
+            }
+            String topic = item.substring(0, index).trim();
+            String path = item.substring(index + 1).trim();
+            ZstdDictionary dictionary = new ZstdDictionary(java.nio.file.Files.readAllBytes(Paths.get(path)));
+            register(topic, dictionary);
+            logger.info("load zstd dictionary, topic: {}, path: {}, id: {}", topic, path, dictionary.getId());
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 注册主题的字典，替换字典时旧字典仍然保留，用于解压之前的消息
+     */
+    public static void register(String topic, ZstdDictionary dictionary) {
+        idDictionaries.put(dictionary.getId(), dictionary);
+        topicDictionaries.put(topic, dictionary);
+    }
+
+    /**
+     * 只注册用于解压的字典
+     */
+    public static void register(ZstdDictionary dictionary) {
+        idDictionaries.put(dictionary.getId(), dictionary);
+    }
+
+    public static ZstdDictionary unregister(String topic) {
+        return topicDictionaries.remove(topic);
+    }
+
+    public static ZstdDictionary getByTopic(String topic) {
+        return topicDictionaries.get(topic);
+    }
+
+    public static ZstdDictionary get(long id) {
+        return idDictionaries.get(id);
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.toolkit.io;
+
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.github.luben.zstd.ZstdDictTrainer;
+
+import java.util.List;
+
+/**
+ * zstd字典
+ * 压缩和解压的上下文在第一次使用时创建，之后复用
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/21
+ */
+public class ZstdDictionary {
+
+    private byte[] dictionary;
+    private int level;
+    private long id;
+
+    private volatile ZstdDictCompress compressDictionary;
+    private volatile ZstdDictDecompress decompressDictionary;
+
+    public ZstdDictionary(byte[] dictionary) {
+        this(dictionary, Zstd.DEFAULT_LEVEL);
+    }
+
+    public ZstdDictionary(byte[] dictionary, int level) {
+        this.dictionary = dictionary;
+        this.level = level;
+        this.id = com.github.luben.zstd.Zstd.getDictIdFromDict(dictionary);
+        if (id == 0) {
+            throw new IllegalArgumentException("invalid zstd dictionary, dictionary id is missing");
+        }
+    }
+
+    /**
+     * 用样本数据训练字典
+     *
+     * @param samples        样本，通常是同一主题里有代表性的消息体
+     * @param dictionarySize 字典大小
+     * @return 字典
+     */
+    public static ZstdDictionary train(List<byte[]> samples, int dictionarySize) {
+        int sampleSize = 0;
+        for (byte[] sample : samples) {
+            sampleSize += sample.length;
+        }
+        ZstdDictTrainer trainer = new ZstdDictTrainer(sampleSize, dictionarySize);
+        for (byte[] sample : samples) {
+            trainer.addSample(sample);
+        }
+        return new ZstdDictionary(trainer.trainSamples());
+    }
+
+    public ZstdDictCompress getCompressDictionary() {
+        if (compressDictionary == null) {
+            synchronized (this) {
+                if (compressDictionary == null) {
+                    compressDictionary = new ZstdDictCompress(dictionary, level);
+                }
+            }
+        }
+        return compressDictionary;
+    }
+
+    public ZstdDictDecompress getDecompressDictionary() {
+        if (decompressDictionary == null) {
+            synchronized (this) {
+                if (decompressDictionary == null) {
+                    decompressDictionary = new ZstdDictDecompress(dictionary);
+                }
+            }
+        }
+        return decompressDictionary;
+    }
+
+    public byte[] getDictionary() {
+        return dictionary;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public long getId() {
+        return id;
+    }
+}
@@ -18,13 +18,23 @@ package org.joyqueue.toolkit.io;
 import com.google.common.base.Charsets;
 import org.joyqueue.toolkit.io.Compressor;
 import org.joyqueue.toolkit.io.Compressors;
+import org.joyqueue.toolkit.io.Lz4;
+import org.joyqueue.toolkit.io.Lz4Frame;
 import org.joyqueue.toolkit.io.Snappy;
 import org.joyqueue.toolkit.io.Zip;
 import org.joyqueue.toolkit.io.Zlib;
+import org.joyqueue.toolkit.io.Zstd;
+import org.joyqueue.toolkit.io.ZstdDictionaries;
+import org.joyqueue.toolkit.io.ZstdDictionary;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 
 /**
  * Created by hexiaofeng on 16-5-6.
@@ -34,7 +44,7 @@ public class CompressorTest {
     @Test
     public void testCompress() throws IOException {
         String test = "中国人民122Addf";
-        Compressor[] compressors = new Compressor[]{Zip.INSTANCE, Zlib.INSTANCE, Snappy.INSTANCE};
+        Compressor[] compressors = new Compressor[]{Zip.INSTANCE, Zlib.INSTANCE, Snappy.INSTANCE, Lz4.INSTANCE, Lz4Frame.INSTANCE, Zstd.INSTANCE};
         for (Compressor compressor : compressors) {
             byte[] data = Compressors.compress(test, compressor);
             String result = Compressors.decompress(data, Charsets.UTF_8, compressor);
@@ -54,4 +64,95 @@ public class CompressorTest {
         }
     }
 
+    @Test
+    public void testLargeCompress() throws IOException {
+        byte[] test = newJson(new Random(0), 1024 * 1024 / 64);
+        Compressor[] compressors = new Compressor[]{Lz4.INSTANCE, Lz4Frame.INSTANCE, Zstd.INSTANCE};
+        for (Compressor compressor : compressors) {
+            byte[] data = Compressors.compress(test, compressor);
+            Assert.assertTrue(data.length < test.length);
+            Assert.assertArrayEquals(test, Compressors.decompress(data, compressor));
+
+            // 带偏移量解压
+            byte[] padding = new byte[data.length + 3];
+            System.arraycopy(data, 0, padding, 3, data.length);
+            Assert.assertArrayEquals(test, Compressors.decompress(padding, 3, data.length, compressor));
+        }
+    }
+
+    @Test
+    public void testCorruptCompress() throws IOException {
+        byte[] test = newJson(new Random(0), 100);
+        Compressor[] compressors = new Compressor[]{Lz4.INSTANCE, Lz4Frame.INSTANCE, Zstd.INSTANCE};
+        for (Compressor compressor : compressors) {
+            byte[] data = Compressors.compress(test, compressor);
+            try {
+                Compressors.decompress(Arrays.copyOf(data, data.length / 2), compressor);
+                Assert.fail();
+            } catch (IOException e) {
+            }
+        }
+    }
+
+    @Test
+    public void testZstdDictionary() throws IOException {
+        Random random = new Random(0);
+        List<byte[]> samples = new ArrayList<byte[]>();
+        for (int i = 0; i < 1000; i++) {
+            samples.add(newJson(random, 1));
+        }
+        ZstdDictionary dictionary = ZstdDictionary.train(samples, 16 * 1024);
+        ZstdDictionaries.register("test_dictionary", dictionary);
+
+        byte[] test = newJson(random, 1);
+        byte[] plain = Compressors.compress(test, Zstd.INSTANCE);
+        byte[] data = Compressors.compress(test, new Zstd(ZstdDictionaries.getByTopic("test_dictionary")));
+        Assert.assertTrue(data.length < plain.length);
+
+        // 根据帧头里的字典id解压
+        Assert.assertArrayEquals(test, Compressors.decompress(data, Zstd.INSTANCE));
+
+        ZstdDictionaries.unregister("test_dictionary");
+        Assert.assertNull(ZstdDictionaries.getByTopic("test_dictionary"));
+        Assert.assertArrayEquals(test, Compressors.decompress(data, Zstd.INSTANCE));
+    }
+
+    @Test
+    public void testLoadZstdDictionary() throws IOException {
+        Random random = new Random(1);
+        List<byte[]> samples = new ArrayList<byte[]>();
+        for (int i = 0; i < 1000; i++) {
+            samples.add(newJson(random, 1));
+        }
+        ZstdDictionary dictionary = ZstdDictionary.train(samples, 16 * 1024);
+        File file = File.createTempFile("zstd", ".dict");
+        try {
+            java.nio.file.Files.write(file.toPath(), dictionary.getDictionary());
+            Assert.assertEquals(1, ZstdDictionaries.load(" test_load_dictionary:" + file.getPath() + ", "));
+            Assert.assertEquals(dictionary.getId(), ZstdDictionaries.getByTopic("test_load_dictionary").getId());
+            Assert.assertNotNull(ZstdDictionaries.get(dictionary.getId()));
+        } finally {
+            ZstdDictionaries.unregister("test_load_dictionary");
+            file.delete();
+        }
+
+        try {
+            ZstdDictionaries.load("test_load_dictionary");
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    protected byte[] newJson(Random random, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append("{\"orderId\":").append(random.nextInt(1000000))
+                    .append(",\"userId\":\"user_").append(random.nextInt(10000))
+                    .append("\",\"status\":\"").append(random.nextBoolean() ? "PAID" : "CREATED")
+                    .append("\",\"amount\":").append(random.nextInt(100000) / 100.0)
+                    .append(",\"items\":[{\"skuId\":").append(random.nextInt(100000))
+                    .append(",\"count\":").append(random.nextInt(10)).append("}]}");
+        }
+        return builder.toString().getBytes(Charsets.UTF_8);
+    }
 }
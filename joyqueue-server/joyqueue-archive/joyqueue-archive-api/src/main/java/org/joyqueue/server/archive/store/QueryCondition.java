@@ -72,10 +72,25 @@ public class QueryCondition implements Query {
     }
 
     public void setStartRowKeyByteArr(String startRowKeyByteArr) {
-        byte[] bytes = HBaseSerializer.hexStrToByteArray(startRowKeyByteArr);
+        byte[] bytes = hexStrToByteArray(startRowKeyByteArr);
         this.startRowKeyByteArr = bytes;
     }
 
+    private static byte[] hexStrToByteArray(String str) {
+        if (str == null) {
+            return null;
+        }
+        if (str.length() == 0) {
+            return new byte[0];
+        }
+        byte[] byteArray = new byte[str.length() / 2];
+        for (int i = 0; i < byteArray.length; i++){
+            String subStr = str.substring(2 * i, 2 * i + 2);
+            byteArray[i] = ((byte)Integer.parseInt(subStr, 16));
+        }
+        return byteArray;
+    }
+
     /**
      * 查询RowKey
      */
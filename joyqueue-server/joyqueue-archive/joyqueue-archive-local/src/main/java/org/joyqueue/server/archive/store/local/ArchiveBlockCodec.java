@@ -0,0 +1,161 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.server.archive.store.local;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 归档块编解码
+ * <br>
+ * 块格式: 长度(4) + 标记(1) + 条数(4) + 最小时间(8) + 最大时间(8) + 原始长度(4) + crc(4) + 数据
+ * <br>
+ * 数据格式: [时间(8) + id(16) + 长度(4) + 日志]...
+ * author: gaohaoxiang
+ * date: 2020/4/3
+ */
+public class ArchiveBlockCodec {
+
+    public static final int HEADER_SIZE = 4 + 1 + 4 + 8 + 8 + 4 + 4;
+    public static final byte FLAG_COMPRESSED = 0x01;
+
+    private static final int RECORD_HEADER_SIZE = 8 + ArchiveRecord.ID_LENGTH + 4;
+
+    public static ByteBuffer encode(List<ArchiveRecord> records, boolean compress) {
+        int rawLength = 0;
+        long minTime = Long.MAX_VALUE;
+        long maxTime = Long.MIN_VALUE;
+        for (ArchiveRecord record : records) {
+            rawLength += RECORD_HEADER_SIZE + record.getData().length;
+            minTime = Math.min(minTime, record.getTime());
+            maxTime = Math.max(maxTime, record.getTime());
+        }
+
+        byte[] raw = new byte[rawLength];
+        ByteBuffer rawBuffer = ByteBuffer.wrap(raw);
+        for (ArchiveRecord record : records) {
+            rawBuffer.putLong(record.getTime());
+            rawBuffer.put(record.getId());
+            rawBuffer.putInt(record.getData().length);
+            rawBuffer.put(record.getData());
+        }
+
+        byte flags = 0;
+        byte[] payload = raw;
+        int payloadLength = rawLength;
+        if (compress) {
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                deflater.setInput(raw);
+                deflater.finish();
+                byte[] compressed = new byte[rawLength + (rawLength >> 3) + 64];
+                int length = 0;
+                while (!deflater.finished() && length < compressed.length) {
+                    length += deflater.deflate(compressed, length, compressed.length - length);
+                }
+                // 压缩无收益时存原始数据
+                if (deflater.finished() && length < rawLength) {
+                    flags |= FLAG_COMPRESSED;
+                    payload = compressed;
+                    payloadLength = length;
+                }
+            } finally {
+                deflater.end();
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payloadLength);
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payloadLength);
+        buffer.putInt(HEADER_SIZE - 4 + payloadLength);
+        buffer.put(flags);
+        buffer.putInt(records.size());
+        buffer.putLong(minTime);
+        buffer.putLong(maxTime);
+        buffer.putInt(rawLength);
+        buffer.putInt((int) crc.getValue());
+        buffer.put(payload, 0, payloadLength);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * 解码块，buffer从块头开始
+     *
+     * @param buffer 块数据
+     * @return 记录
+     * @throws IOException 数据损坏
+     */
+    public static List<ArchiveRecord> decode(ByteBuffer buffer) throws IOException {
+        int start = buffer.position();
+        int blockLength = buffer.getInt();
+        byte flags = buffer.get();
+        int count = buffer.getInt();
+        buffer.getLong();
+        buffer.getLong();
+        int rawLength = buffer.getInt();
+        int crcValue = buffer.getInt();
+        int payloadLength = blockLength - (HEADER_SIZE - 4);
+        if (payloadLength < 0 || rawLength < 0 || count < 0 || buffer.remaining() < payloadLength) {
+            throw new IOException(String.format("invalid block, position: %s, length: %s", start, blockLength));
+        }
+
+        byte[] payload = new byte[payloadLength];
+        buffer.get(payload);
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        if ((int) crc.getValue() != crcValue) {
+            throw new IOException(String.format("block crc mismatch, position: %s", start));
+        }
+
+        byte[] raw = payload;
+        if ((flags & FLAG_COMPRESSED) != 0) {
+            raw = new byte[rawLength];
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(payload);
+                int length = inflater.inflate(raw);
+                if (length != rawLength) {
+                    throw new IOException(String.format("block length mismatch, position: %s", start));
+                }
+            } catch (DataFormatException e) {
+                throw new IOException(e);
+            } finally {
+                inflater.end();
+            }
+        }
+
+        List<ArchiveRecord> records = new ArrayList<>(count);
+        ByteBuffer rawBuffer = ByteBuffer.wrap(raw);
+        for (int i = 0; i < count; i++) {
+            long time = rawBuffer.getLong();
+            byte[] id = new byte[ArchiveRecord.ID_LENGTH];
+            rawBuffer.get(id);
+            byte[] data = new byte[rawBuffer.getInt()];
+            rawBuffer.get(data);
+            records.add(new ArchiveRecord(time, id, data));
+        }
+        return records;
+    }
+}
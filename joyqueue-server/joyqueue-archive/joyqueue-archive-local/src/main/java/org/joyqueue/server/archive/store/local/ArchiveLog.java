@@ -0,0 +1,208 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.server.archive.store.local;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 归档日志，由一个目录下的多个段组成，只有最后一个段可写
+ * author: gaohaoxiang
+ * date: 2020/4/3
+ */
+public class ArchiveLog {
+
+    protected static final Logger logger = LoggerFactory.getLogger(ArchiveLog.class);
+
+    private final File directory;
+    private final LocalArchiveConfig config;
+    private final List<ArchiveSegment> segments = new CopyOnWriteArrayList<>();
+    private ArchiveSegment activeSegment;
+    private long nextSegmentId = 0;
+
+    public ArchiveLog(File directory, LocalArchiveConfig config) {
+        this.directory = directory;
+        this.config = config;
+    }
+
+    public synchronized void open() throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException(String.format("create directory %s failed", directory));
+        }
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(ArchiveSegment.LOG_SUFFIX));
+        if (files == null || files.length == 0) {
+            return;
+        }
+        long[] ids = new long[files.length];
+        for (int i = 0; i < files.length; i++) {
+            ids[i] = ArchiveSegment.parseId(files[i].getName());
+        }
+        Arrays.sort(ids);
+        for (int i = 0; i < ids.length; i++) {
+            ArchiveSegment segment = new ArchiveSegment(directory, ids[i]);
+            boolean active = (i == ids.length - 1);
+            segment.open(active);
+            segments.add(segment);
+            if (active) {
+                activeSegment = segment;
+            }
+        }
+        nextSegmentId = ids[ids.length - 1] + 1;
+    }
+
+    public synchronized void append(List<ArchiveRecord> records) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+        ByteBuffer block = ArchiveBlockCodec.encode(records, config.isCompress());
+        if (activeSegment == null || activeSegment.isFull(block.remaining(), config.getSegmentSize())) {
+            roll();
+        }
+        activeSegment.append(block, records);
+    }
+
+    protected void roll() throws IOException {
+        if (activeSegment != null) {
+            activeSegment.seal();
+        }
+        ArchiveSegment segment = new ArchiveSegment(directory, nextSegmentId++);
+        segment.open(true);
+        segments.add(segment);
+        activeSegment = segment;
+    }
+
+    /**
+     * 查找时间范围内的块，按块的最小时间排序
+     *
+     * @param startTime 开始时间，包含
+     * @param stopTime  结束时间，不包含
+     * @return 块
+     */
+    public List<BlockRef> getBlocks(long startTime, long stopTime) {
+        List<BlockRef> result = new ArrayList<>();
+        for (ArchiveSegment segment : segments) {
+            for (BlockIndex block : segment.getBlocks(startTime, stopTime)) {
+                result.add(new BlockRef(segment, block));
+            }
+        }
+        result.sort(Comparator.comparingLong(o -> o.getBlock().getMinTime()));
+        return result;
+    }
+
+    public List<ArchiveRecord> read(BlockRef blockRef) throws IOException {
+        return blockRef.getSegment().read(blockRef.getBlock());
+    }
+
+    /**
+     * 根据id查找记录
+     *
+     * @param id 消息id
+     * @return 记录
+     * @throws IOException
+     */
+    public List<ArchiveRecord> get(byte[] id) throws IOException {
+        long key = ArchiveRecord.hashKey(id);
+        List<ArchiveRecord> result = null;
+        for (ArchiveSegment segment : segments) {
+            for (BlockIndex block : segment.lookup(key)) {
+                for (ArchiveRecord record : segment.read(block)) {
+                    if (Arrays.equals(id, record.getId())) {
+                        if (result == null) {
+                            result = new ArrayList<>();
+                        }
+                        result.add(record);
+                    }
+                }
+            }
+        }
+        return (result == null ? Collections.emptyList() : result);
+    }
+
+    public synchronized void flush() throws IOException {
+        if (activeSegment != null) {
+            activeSegment.flush();
+        }
+    }
+
+    /**
+     * 删除最后写入时间早于过期时间的段
+     *
+     * @param expireTime 过期时间
+     * @return 删除的段数
+     */
+    public synchronized int clean(long expireTime) {
+        int count = 0;
+        for (ArchiveSegment segment : segments) {
+            if (segment.getLastAppendTime() >= expireTime) {
+                break;
+            }
+            segments.remove(segment);
+            if (segment == activeSegment) {
+                activeSegment = null;
+            }
+            segment.delete();
+            count++;
+            logger.info("delete expired archive segment, file: {}", segment.getFile());
+        }
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    public synchronized void close() {
+        for (ArchiveSegment segment : segments) {
+            segment.close();
+        }
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 块引用
+     */
+    public static class BlockRef {
+
+        private final ArchiveSegment segment;
+        private final BlockIndex block;
+
+        public BlockRef(ArchiveSegment segment, BlockIndex block) {
+            this.segment = segment;
+            this.block = block;
+        }
+
+        public ArchiveSegment getSegment() {
+            return segment;
+        }
+
+        public BlockIndex getBlock() {
+            return block;
+        }
+    }
+}
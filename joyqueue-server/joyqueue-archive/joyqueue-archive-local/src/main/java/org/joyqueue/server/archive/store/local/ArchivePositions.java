@@ -0,0 +1,105 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.server.archive.store.local;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 归档进度，内存维护，定时刷盘
+ * author: gaohaoxiang
+ * date: 2020/4/3
+ */
+public class ArchivePositions {
+
+    protected static final Logger logger = LoggerFactory.getLogger(ArchivePositions.class);
+
+    private final File file;
+    private final ConcurrentMap<String, Long> positions = new ConcurrentHashMap<>();
+    private volatile boolean dirty = false;
+
+    public ArchivePositions(File file) {
+        this.file = file;
+    }
+
+    public void load() throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        Properties properties = new Properties();
+        try (InputStream inputStream = new FileInputStream(file)) {
+            properties.load(inputStream);
+        }
+        for (String key : properties.stringPropertyNames()) {
+            try {
+                positions.put(key, Long.parseLong(properties.getProperty(key)));
+            } catch (NumberFormatException e) {
+                logger.warn("invalid archive position, key: {}, value: {}", key, properties.getProperty(key));
+            }
+        }
+    }
+
+    public Long get(String topic, short partition) {
+        return positions.get(getKey(topic, partition));
+    }
+
+    public void put(String topic, short partition, long index) {
+        positions.put(getKey(topic, partition), index);
+        dirty = true;
+    }
+
+    public Long remove(String topic, short partition) {
+        Long position = positions.remove(getKey(topic, partition));
+        dirty = true;
+        return position;
+    }
+
+    public synchronized void flush() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        Properties properties = new Properties();
+        for (Map.Entry<String, Long> entry : positions.entrySet()) {
+            properties.setProperty(entry.getKey(), String.valueOf(entry.getValue()));
+        }
+        File tmpFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (OutputStream outputStream = new FileOutputStream(tmpFile)) {
+            properties.store(outputStream, null);
+        } catch (IOException e) {
+            dirty = true;
+            throw e;
+        }
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    protected String getKey(String topic, short partition) {
+        return topic + ":" + partition;
+    }
+}
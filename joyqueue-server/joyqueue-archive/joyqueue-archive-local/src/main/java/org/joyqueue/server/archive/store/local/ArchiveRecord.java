@@ -0,0 +1,83 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.server.archive.store.local;
+
+import java.util.Comparator;
+
+/**
+ * 归档记录，time和id用于建索引，data为序列化后的日志
+ * author: gaohaoxiang
+ * date: 2020/4/3
+ */
+public class ArchiveRecord {
+
+    public static final int ID_LENGTH = 16;
+
+    // 按时间、id排序
+    public static final Comparator<ArchiveRecord> COMPARATOR = (o1, o2) -> {
+        int result = Long.compare(o1.getTime(), o2.getTime());
+        if (result != 0) {
+            return result;
+        }
+        return compareId(o1.getId(), o2.getId());
+    };
+
+    private long time;
+    private byte[] id;
+    private byte[] data;
+
+    public ArchiveRecord(long time, byte[] id, byte[] data) {
+        this.time = time;
+        this.id = id;
+        this.data = data;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public byte[] getId() {
+        return id;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    /**
+     * id的前40位，用作哈希索引的键
+     *
+     * @param id 消息id
+     * @return 键
+     */
+    public static long hashKey(byte[] id) {
+        long key = 0;
+        for (int i = 0; i < 5; i++) {
+            key = (key << 8) | (id[i] & 0xFF);
+        }
+        return key;
+    }
+
+    public static int compareId(byte[] id1, byte[] id2) {
+        for (int i = 0; i < ID_LENGTH; i++) {
+            int result = (id1[i] & 0xFF) - (id2[i] & 0xFF);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+}
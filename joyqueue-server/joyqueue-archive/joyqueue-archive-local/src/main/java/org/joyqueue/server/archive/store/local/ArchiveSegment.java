@@ -0,0 +1,414 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.server.archive.store.local;
+
+import org.joyqueue.toolkit.time.SystemClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 归档段文件
+ * <br>
+ * 只追加写，每次写入一个块，块索引记录块的位置和时间范围
+ * 哈希索引项为消息id前40位 + 块序号(24位)，封存后排序写入文件，查询时二分查找
+ * author: gaohaoxiang
+ * date: 2020/4/3
+ */
+public class ArchiveSegment {
+
+    protected static final Logger logger = LoggerFactory.getLogger(ArchiveSegment.class);
+
+    public static final String LOG_SUFFIX = ".log";
+    public static final String INDEX_SUFFIX = ".idx";
+    public static final String HASH_INDEX_SUFFIX = ".hidx";
+
+    private static final int BLOCK_BITS = 24;
+    private static final long BLOCK_MASK = (1L << BLOCK_BITS) - 1;
+    public static final int MAX_BLOCKS = 1 << BLOCK_BITS;
+
+    // offset(8) + length(4) + count(4) + minTime(8) + maxTime(8)
+    private static final int INDEX_ENTRY_SIZE = 8 + 4 + 4 + 8 + 8;
+    private static final int HASH_ENTRY_SIZE = 8;
+
+    private final long id;
+    private final File file;
+    private final File indexFile;
+    private final File hashIndexFile;
+
+    private final List<BlockIndex> blocks = new ArrayList<>();
+    private volatile long size;
+    private volatile long lastAppendTime;
+    private volatile boolean sealed;
+
+    private FileChannel writeChannel;
+    private FileChannel readChannel;
+    private FileChannel hashIndexChannel;
+
+    // 未封存时的哈希索引
+    private long[] hashEntries;
+    private int hashSize;
+
+    public ArchiveSegment(File directory, long id) {
+        this.id = id;
+        String name = String.format("%020d", id);
+        this.file = new File(directory, name + LOG_SUFFIX);
+        this.indexFile = new File(directory, name + INDEX_SUFFIX);
+        this.hashIndexFile = new File(directory, name + HASH_INDEX_SUFFIX);
+    }
+
+    public static long parseId(String fileName) {
+        return Long.parseLong(fileName.substring(0, fileName.length() - LOG_SUFFIX.length()));
+    }
+
+    /**
+     * 打开段文件，封存的段直接加载索引，否则扫描文件重建索引并截断不完整的块
+     *
+     * @param active 是否为可写段
+     * @throws IOException
+     */
+    public synchronized void open(boolean active) throws IOException {
+        if (!active && indexFile.exists() && hashIndexFile.exists()) {
+            loadIndex();
+            size = file.length();
+            sealed = true;
+        } else {
+            recover();
+            if (active) {
+                // 可写段的索引在封存时重新生成
+                indexFile.delete();
+                hashIndexFile.delete();
+                writeChannel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            } else {
+                writeIndex();
+                hashEntries = null;
+                sealed = true;
+            }
+        }
+        lastAppendTime = (file.exists() ? file.lastModified() : SystemClock.now());
+    }
+
+    public synchronized void append(ByteBuffer block, List<ArchiveRecord> records) throws IOException {
+        if (sealed) {
+            throw new IOException(String.format("segment %s is sealed", file));
+        }
+        long offset = size;
+        int length = block.remaining();
+        long position = offset;
+        while (block.hasRemaining()) {
+            position += writeChannel.write(block, position);
+        }
+        addBlock(offset, length, records);
+        size = offset + length;
+        lastAppendTime = SystemClock.now();
+    }
+
+    public boolean isFull(int blockLength, long segmentSize) {
+        return (size > 0 && size + blockLength > segmentSize) || blocks.size() >= MAX_BLOCKS;
+    }
+
+    public synchronized List<BlockIndex> getBlocks(long startTime, long stopTime) {
+        List<BlockIndex> result = null;
+        for (BlockIndex block : blocks) {
+            if (block.overlaps(startTime, stopTime)) {
+                if (result == null) {
+                    result = new ArrayList<>();
+                }
+                result.add(block);
+            }
+        }
+        return (result == null ? Collections.emptyList() : result);
+    }
+
+    public List<ArchiveRecord> read(BlockIndex block) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(block.getLength());
+        readFully(getReadChannel(), buffer, block.getOffset());
+        buffer.flip();
+        return ArchiveBlockCodec.decode(buffer);
+    }
+
+    /**
+     * 根据哈希键查找可能包含记录的块
+     *
+     * @param key 哈希键
+     * @return 块
+     * @throws IOException
+     */
+    public List<BlockIndex> lookup(long key) throws IOException {
+        List<BlockIndex> result = new ArrayList<>();
+        synchronized (this) {
+            if (!sealed) {
+                int lastOrdinal = -1;
+                for (int i = 0; i < hashSize; i++) {
+                    long entry = hashEntries[i];
+                    int ordinal = (int) (entry & BLOCK_MASK);
+                    // 同一个块的索引项是连续的
+                    if ((entry >>> BLOCK_BITS) == key && ordinal != lastOrdinal) {
+                        result.add(blocks.get(ordinal));
+                        lastOrdinal = ordinal;
+                    }
+                }
+                return result;
+            }
+        }
+
+        FileChannel channel = getHashIndexChannel();
+        ByteBuffer buffer = ByteBuffer.allocate(HASH_ENTRY_SIZE);
+        long count = channel.size() / HASH_ENTRY_SIZE;
+        long target = key << BLOCK_BITS;
+        long low = 0;
+        long high = count;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (readHashEntry(channel, buffer, mid) < target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int lastOrdinal = -1;
+        for (long i = low; i < count; i++) {
+            long entry = readHashEntry(channel, buffer, i);
+            if ((entry >>> BLOCK_BITS) != key) {
+                break;
+            }
+            int ordinal = (int) (entry & BLOCK_MASK);
+            if (ordinal != lastOrdinal && ordinal < blocks.size()) {
+                result.add(blocks.get(ordinal));
+                lastOrdinal = ordinal;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 封存段，写入索引文件后不再可写
+     *
+     * @throws IOException
+     */
+    public synchronized void seal() throws IOException {
+        if (sealed) {
+            return;
+        }
+        if (writeChannel != null) {
+            writeChannel.force(false);
+            writeChannel.close();
+            writeChannel = null;
+        }
+        writeIndex();
+        hashEntries = null;
+        sealed = true;
+    }
+
+    public synchronized void flush() throws IOException {
+        if (writeChannel != null) {
+            writeChannel.force(false);
+        }
+    }
+
+    public synchronized void close() {
+        try {
+            if (writeChannel != null) {
+                writeChannel.force(false);
+                writeChannel.close();
+                writeChannel = null;
+            }
+            if (readChannel != null) {
+                readChannel.close();
+                readChannel = null;
+            }
+            if (hashIndexChannel != null) {
+                hashIndexChannel.close();
+                hashIndexChannel = null;
+            }
+        } catch (IOException e) {
+            logger.error("close archive segment exception, file: {}", file, e);
+        }
+    }
+
+    public synchronized void delete() {
+        close();
+        indexFile.delete();
+        hashIndexFile.delete();
+        if (!file.delete() && file.exists()) {
+            logger.warn("delete archive segment failed, file: {}", file);
+        }
+    }
+
+    protected void recover() throws IOException {
+        blocks.clear();
+        hashEntries = new long[1024];
+        hashSize = 0;
+        size = 0;
+        if (!file.exists()) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long length = channel.size();
+            long position = 0;
+            ByteBuffer header = ByteBuffer.allocate(4);
+            while (position + ArchiveBlockCodec.HEADER_SIZE <= length) {
+                header.clear();
+                readFully(channel, header, position);
+                header.flip();
+                int blockLength = header.getInt();
+                long total = 4L + blockLength;
+                if (blockLength < ArchiveBlockCodec.HEADER_SIZE - 4 || position + total > length) {
+                    break;
+                }
+                ByteBuffer block = ByteBuffer.allocate((int) total);
+                readFully(channel, block, position);
+                block.flip();
+                List<ArchiveRecord> records;
+                try {
+                    records = ArchiveBlockCodec.decode(block);
+                } catch (Exception e) {
+                    logger.warn("archive segment block is broken, file: {}, position: {}", file, position, e);
+                    break;
+                }
+                addBlock(position, (int) total, records);
+                position += total;
+            }
+            if (position < length) {
+                logger.warn("truncate archive segment, file: {}, length: {}, position: {}", file, length, position);
+                channel.truncate(position);
+            }
+            size = position;
+        }
+    }
+
+    protected void addBlock(long offset, int length, List<ArchiveRecord> records) {
+        long minTime = Long.MAX_VALUE;
+        long maxTime = Long.MIN_VALUE;
+        int ordinal = blocks.size();
+        for (ArchiveRecord record : records) {
+            minTime = Math.min(minTime, record.getTime());
+            maxTime = Math.max(maxTime, record.getTime());
+            if (hashSize == hashEntries.length) {
+                hashEntries = Arrays.copyOf(hashEntries, hashSize << 1);
+            }
+            hashEntries[hashSize++] = (ArchiveRecord.hashKey(record.getId()) << BLOCK_BITS) | ordinal;
+        }
+        blocks.add(new BlockIndex(offset, length, records.size(), minTime, maxTime));
+    }
+
+    protected void loadIndex() throws IOException {
+        blocks.clear();
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(indexFile.toPath()));
+        while (buffer.remaining() >= INDEX_ENTRY_SIZE) {
+            blocks.add(new BlockIndex(buffer.getLong(), buffer.getInt(), buffer.getInt(), buffer.getLong(), buffer.getLong()));
+        }
+    }
+
+    protected void writeIndex() throws IOException {
+        ByteBuffer indexBuffer = ByteBuffer.allocate(blocks.size() * INDEX_ENTRY_SIZE);
+        for (BlockIndex block : blocks) {
+            indexBuffer.putLong(block.getOffset());
+            indexBuffer.putInt(block.getLength());
+            indexBuffer.putInt(block.getCount());
+            indexBuffer.putLong(block.getMinTime());
+            indexBuffer.putLong(block.getMaxTime());
+        }
+
+        long[] entries = Arrays.copyOf(hashEntries, hashSize);
+        Arrays.sort(entries);
+        ByteBuffer hashBuffer = ByteBuffer.allocate(entries.length * HASH_ENTRY_SIZE);
+        for (long entry : entries) {
+            hashBuffer.putLong(entry);
+        }
+
+        // 先写哈希索引，存在块索引的段才认为索引完整
+        writeFile(hashIndexFile, hashBuffer.array());
+        writeFile(indexFile, indexBuffer.array());
+    }
+
+    protected void writeFile(File target, byte[] data) throws IOException {
+        File tmp = new File(target.getPath() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    protected synchronized FileChannel getReadChannel() throws IOException {
+        if (readChannel == null) {
+            readChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        }
+        return readChannel;
+    }
+
+    protected synchronized FileChannel getHashIndexChannel() throws IOException {
+        if (hashIndexChannel == null) {
+            hashIndexChannel = FileChannel.open(hashIndexFile.toPath(), StandardOpenOption.READ);
+        }
+        return hashIndexChannel;
+    }
+
+    protected long readHashEntry(FileChannel channel, ByteBuffer buffer, long index) throws IOException {
+        buffer.clear();
+        readFully(channel, buffer, index * HASH_ENTRY_SIZE);
+        buffer.flip();
+        return buffer.getLong();
+    }
+
+    protected static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset);
+            if (read < 0) {
+                throw new EOFException(String.format("read position %s out of range", offset));
+            }
+            offset += read;
+        }
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getLastAppendTime() {
+        return lastAppendTime;
+    }
+
+    public boolean isSealed() {
+        return sealed;
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.server.archive.store.local;
+
+/**
+ * 块索引，稀疏时间索引的一项
+ * author: gaohaoxiang
+ * date: 2020/4/3
+ */
+public class BlockIndex {
+
+    private long offset;
+    private int length;
+    private int count;
+    private long minTime;
+    private long maxTime;
+
+    public BlockIndex(long offset, int length, int count, long minTime, long maxTime) {
+        this.offset = offset;
+        this.length = length;
+        this.count = count;
+        this.minTime = minTime;
+        this.maxTime = maxTime;
+    }
+
+    public boolean overlaps(long startTime, long stopTime) {
+        return maxTime >= startTime && minTime < stopTime;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getMinTime() {
+        return minTime;
+    }
+
+    public long getMaxTime() {
+        return maxTime;
+    }
+
+    @Override
+    public String toString() {
+        return "BlockIndex{" +
+                "offset=" + offset +
+                ", length=" + length +
+                ", count=" + count +
+                ", minTime=" + minTime +
+                ", maxTime=" + maxTime +
+                '}';
+    }
+}
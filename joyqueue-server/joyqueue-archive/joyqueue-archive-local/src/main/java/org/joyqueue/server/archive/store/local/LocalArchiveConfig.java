@@ -0,0 +1,68 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.server.archive.store.local;
+
+import org.apache.commons.lang3.StringUtils;
+import org.joyqueue.toolkit.config.Property;
+import org.joyqueue.toolkit.config.PropertySupplier;
+
+import java.io.File;
+
+/**
+ * LocalArchiveConfig
+ * author: gaohaoxiang
+ * date: 2020/4/3
+ */
+public class LocalArchiveConfig {
+
+    private static final String DEFAULT_PATH = "archive-store";
+
+    private PropertySupplier propertySupplier;
+
+    public LocalArchiveConfig(PropertySupplier propertySupplier) {
+        this.propertySupplier = propertySupplier;
+    }
+
+    public String getPath() {
+        String path = PropertySupplier.getValue(propertySupplier, LocalArchiveConfigKey.PATH);
+        if (StringUtils.isNotBlank(path)) {
+            return path;
+        }
+        Property property = propertySupplier.getProperty(Property.APPLICATION_DATA_PATH);
+        String prefix = (property == null ? "" : property.getString());
+        return prefix + File.separator + DEFAULT_PATH;
+    }
+
+    public int getSegmentSize() {
+        return PropertySupplier.getValue(propertySupplier, LocalArchiveConfigKey.SEGMENT_SIZE);
+    }
+
+    public long getRetentionTime() {
+        return PropertySupplier.getValue(propertySupplier, LocalArchiveConfigKey.RETENTION_TIME);
+    }
+
+    public boolean isCompress() {
+        return PropertySupplier.getValue(propertySupplier, LocalArchiveConfigKey.COMPRESS);
+    }
+
+    public int getFlushInterval() {
+        return PropertySupplier.getValue(propertySupplier, LocalArchiveConfigKey.FLUSH_INTERVAL);
+    }
+
+    public int getCleanInterval() {
+        return PropertySupplier.getValue(propertySupplier, LocalArchiveConfigKey.CLEAN_INTERVAL);
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.server.archive.store.local;
+
+import org.joyqueue.toolkit.config.PropertyDef;
+
+/**
+ * LocalArchiveConfigKey
+ * author: gaohaoxiang
+ * date: 2020/4/3
+ */
+public enum LocalArchiveConfigKey implements PropertyDef {
+
+    // 存储目录，默认数据目录下的archive-store
+    PATH("archive.local.path", "", Type.STRING),
+    // 单个段文件大小
+    SEGMENT_SIZE("archive.local.segment.size", 1024 * 1024 * 64, Type.INT),
+    // 保留时间
+    RETENTION_TIME("archive.local.retention.time", 1000L * 60 * 60 * 24 * 7, Type.LONG),
+    // 是否压缩
+    COMPRESS("archive.local.compress", true, Type.BOOLEAN),
+    // 刷盘间隔
+    FLUSH_INTERVAL("archive.local.flush.interval", 1000, Type.INT),
+    // 过期清理间隔
+    CLEAN_INTERVAL("archive.local.clean.interval", 1000 * 60, Type.INT),
+
+    ;
+
+    private String name;
+    private Object value;
+    private PropertyDef.Type type;
+
+    LocalArchiveConfigKey(String name, Object value, PropertyDef.Type type) {
+        this.name = name;
+        this.value = value;
+        this.type = type;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getValue() {
+        return value;
+    }
+
+    @Override
+    public Type getType() {
+        return type;
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.server.archive.store.local;
+
+import org.joyqueue.server.archive.store.model.ConsumeLog;
+import org.joyqueue.server.archive.store.model.SendLog;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 归档记录内容序列化
+ * author: gaohaoxiang
+ * date: 2020/4/3
+ */
+public class LocalArchiveSerializer {
+
+    public static byte[] serializeSendLog(SendLog sendLog) {
+        byte[] app = toBytes(sendLog.getApp());
+        byte[] businessId = toBytes(sendLog.getBusinessId());
+        int size = 4 + sizeOf(app) + sizeOf(sendLog.getClientIp()) + 2 + 2 + 8
+                + sizeOf(sendLog.getMessageBody()) + sizeOf(businessId);
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(sendLog.getBrokerId());
+        writeBytes(buffer, app);
+        writeBytes(buffer, sendLog.getClientIp());
+        buffer.putShort(sendLog.getCompressType());
+        buffer.putShort(sendLog.getPartition());
+        buffer.putLong(sendLog.getIndex());
+        writeBytes(buffer, sendLog.getMessageBody());
+        writeBytes(buffer, businessId);
+        return buffer.array();
+    }
+
+    public static SendLog deserializeSendLog(String topic, ArchiveRecord record) {
+        ByteBuffer buffer = ByteBuffer.wrap(record.getData());
+        SendLog sendLog = new SendLog();
+        sendLog.setTopic(topic);
+        sendLog.setSendTime(record.getTime());
+        sendLog.setBytesMessageId(record.getId());
+        sendLog.setBrokerId(buffer.getInt());
+        sendLog.setApp(toString(readBytes(buffer)));
+        sendLog.setClientIp(readBytes(buffer));
+        sendLog.setCompressType(buffer.getShort());
+        sendLog.setPartition(buffer.getShort());
+        sendLog.setIndex(buffer.getLong());
+        sendLog.setMessageBody(readBytes(buffer));
+        sendLog.setBusinessId(toString(readBytes(buffer)));
+        return sendLog;
+    }
+
+    public static byte[] serializeConsumeLog(ConsumeLog consumeLog) {
+        byte[] app = toBytes(consumeLog.getApp());
+        ByteBuffer buffer = ByteBuffer.allocate(sizeOf(app) + 4 + sizeOf(consumeLog.getClientIp()));
+        writeBytes(buffer, app);
+        buffer.putInt(consumeLog.getBrokerId());
+        writeBytes(buffer, consumeLog.getClientIp());
+        return buffer.array();
+    }
+
+    public static ConsumeLog deserializeConsumeLog(ArchiveRecord record) {
+        ByteBuffer buffer = ByteBuffer.wrap(record.getData());
+        ConsumeLog consumeLog = new ConsumeLog();
+        consumeLog.setBytesMessageId(record.getId());
+        consumeLog.setConsumeTime(record.getTime());
+        consumeLog.setApp(toString(readBytes(buffer)));
+        consumeLog.setBrokerId(buffer.getInt());
+        consumeLog.setClientIp(readBytes(buffer));
+        return consumeLog;
+    }
+
+    protected static int sizeOf(byte[] value) {
+        return 4 + (value == null ? 0 : value.length);
+    }
+
+    protected static void writeBytes(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(value.length);
+            buffer.put(value);
+        }
+    }
+
+    protected static byte[] readBytes(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return value;
+    }
+
+    protected static byte[] toBytes(String value) {
+        return (value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    protected static String toString(byte[] value) {
+        return (value == null ? null : new String(value, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,455 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.server.archive.store.local;
+
+import com.jd.laf.extension.Extension;
+import com.jd.laf.extension.Ordered;
+import org.apache.commons.lang3.StringUtils;
+import org.joyqueue.exception.JoyQueueCode;
+import org.joyqueue.exception.JoyQueueException;
+import org.joyqueue.monitor.PointTracer;
+import org.joyqueue.monitor.TraceStat;
+import org.joyqueue.server.archive.store.QueryCondition;
+import org.joyqueue.server.archive.store.api.ArchiveStore;
+import org.joyqueue.server.archive.store.model.AchivePosition;
+import org.joyqueue.server.archive.store.model.ConsumeLog;
+import org.joyqueue.server.archive.store.model.Query;
+import org.joyqueue.server.archive.store.model.SendLog;
+import org.joyqueue.toolkit.concurrent.LoopThread;
+import org.joyqueue.toolkit.config.PropertySupplier;
+import org.joyqueue.toolkit.config.PropertySupplierAware;
+import org.joyqueue.toolkit.network.IpUtil;
+import org.joyqueue.toolkit.security.Hex;
+import org.joyqueue.toolkit.security.Md5;
+import org.joyqueue.toolkit.time.SystemClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 基于本地文件的归档存储
+ * 发送日志按主题分目录，消费日志单独一个目录，按块压缩写入，块上保留时间范围和消息id哈希索引
+ * author: gaohaoxiang
+ * date: 2020/4/3
+ */
+@Extension(value = "local", order = Ordered.ORDER + 1)
+public class LocalArchiveStore implements ArchiveStore, PropertySupplierAware {
+
+    protected static final Logger logger = LoggerFactory.getLogger(LocalArchiveStore.class);
+
+    private static final String SEND_LOG_DIR = "send";
+    private static final String CONSUME_LOG_DIR = "consume";
+    private static final String POSITION_FILE = "position";
+    // 游标，时间 + 消息id
+    private static final int CURSOR_LENGTH = 8 + ArchiveRecord.ID_LENGTH;
+
+    private PropertySupplier propertySupplier;
+    private LocalArchiveConfig config;
+    private String namespace;
+
+    private File directory;
+    private final ConcurrentMap<String, ArchiveLog> sendLogs = new ConcurrentHashMap<>();
+    private ArchiveLog consumeLog;
+    private ArchivePositions positions;
+
+    private LoopThread flushThread;
+    private LoopThread cleanThread;
+
+    // 生产和消费归档共用一个实例
+    private final AtomicBoolean started = new AtomicBoolean(false);
+
+    @Override
+    public void setSupplier(PropertySupplier supplier) {
+        this.propertySupplier = supplier;
+    }
+
+    @Override
+    public void setNameSpace(String nameSpace) {
+        this.namespace = nameSpace;
+    }
+
+    @Override
+    public boolean isStarted() {
+        return started.get();
+    }
+
+    @Override
+    public synchronized void start() throws Exception {
+        if (started.get()) {
+            return;
+        }
+        if (propertySupplier == null) {
+            throw new IllegalStateException("propertySupplier is null");
+        }
+        config = new LocalArchiveConfig(propertySupplier);
+        directory = (StringUtils.isBlank(namespace) ? new File(config.getPath()) : new File(config.getPath(), namespace));
+
+        File sendDirectory = new File(directory, SEND_LOG_DIR);
+        File[] topicDirectories = sendDirectory.listFiles(File::isDirectory);
+        if (topicDirectories != null) {
+            for (File topicDirectory : topicDirectories) {
+                ArchiveLog log = new ArchiveLog(topicDirectory, config);
+                log.open();
+                sendLogs.put(decodeTopic(topicDirectory.getName()), log);
+            }
+        }
+
+        consumeLog = new ArchiveLog(new File(directory, CONSUME_LOG_DIR), config);
+        consumeLog.open();
+
+        positions = new ArchivePositions(new File(directory, POSITION_FILE));
+        positions.load();
+
+        flushThread = LoopThread.builder()
+                .name("joyqueue-archive-local-flush")
+                .sleepTime(config.getFlushInterval(), config.getFlushInterval())
+                .doWork(this::flush)
+                .onException(e -> logger.error("flush local archive exception", e))
+                .build();
+
+        cleanThread = LoopThread.builder()
+                .name("joyqueue-archive-local-clean")
+                .sleepTime(config.getCleanInterval(), config.getCleanInterval())
+                .doWork(this::clean)
+                .onException(e -> logger.error("clean local archive exception", e))
+                .build();
+
+        flushThread.start();
+        cleanThread.start();
+        started.set(true);
+        logger.info("LocalArchiveStore is started, directory: {}", directory);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!started.compareAndSet(true, false)) {
+            return;
+        }
+        flushThread.stop();
+        cleanThread.stop();
+        try {
+            flush();
+        } catch (IOException e) {
+            logger.error("flush local archive exception", e);
+        }
+        for (ArchiveLog log : sendLogs.values()) {
+            log.close();
+        }
+        sendLogs.clear();
+        consumeLog.close();
+        logger.info("LocalArchiveStore is stopped.");
+    }
+
+    protected void flush() throws IOException {
+        for (ArchiveLog log : sendLogs.values()) {
+            log.flush();
+        }
+        consumeLog.flush();
+        // 进度在数据之后落盘，重启后最多重复归档
+        positions.flush();
+    }
+
+    protected void clean() {
+        long expireTime = SystemClock.now() - config.getRetentionTime();
+        for (ArchiveLog log : sendLogs.values()) {
+            log.clean(expireTime);
+        }
+        consumeLog.clean(expireTime);
+    }
+
+    @Override
+    public void putConsumeLog(List<ConsumeLog> consumeLogs, PointTracer tracer) throws JoyQueueException {
+        checkStarted();
+        TraceStat stat = tracer.begin("org.joyqueue.server.archive.store.local.LocalArchiveStore.putConsumeLog");
+        try {
+            List<ArchiveRecord> records = new ArrayList<>(consumeLogs.size());
+            for (ConsumeLog log : consumeLogs) {
+                records.add(new ArchiveRecord(log.getConsumeTime(), log.getBytesMessageId(), LocalArchiveSerializer.serializeConsumeLog(log)));
+            }
+            consumeLog.append(records);
+            tracer.end(stat);
+        } catch (Exception e) {
+            tracer.error(stat);
+            logger.error("putConsumeLog exception, consumeLogList: {}", consumeLogs, e);
+            throw new JoyQueueException(JoyQueueCode.SE_IO_ERROR, e);
+        }
+    }
+
+    @Override
+    public void putSendLog(List<SendLog> sendLogs, PointTracer tracer) throws JoyQueueException {
+        checkStarted();
+        TraceStat stat = tracer.begin("org.joyqueue.server.archive.store.local.LocalArchiveStore.putSendLog");
+        try {
+            Map<String, List<ArchiveRecord>> topicRecords = new HashMap<>();
+            for (SendLog log : sendLogs) {
+                List<ArchiveRecord> records = topicRecords.get(log.getTopic());
+                if (records == null) {
+                    records = new ArrayList<>();
+                    topicRecords.put(log.getTopic(), records);
+                }
+                records.add(new ArchiveRecord(log.getSendTime(), toMessageId(log.getMessageId()), LocalArchiveSerializer.serializeSendLog(log)));
+            }
+            for (Map.Entry<String, List<ArchiveRecord>> entry : topicRecords.entrySet()) {
+                getOrCreateSendLog(entry.getKey()).append(entry.getValue());
+            }
+            tracer.end(stat);
+        } catch (Exception e) {
+            tracer.error(stat);
+            logger.error("putSendLog exception, sendLogList: {}", sendLogs, e);
+            throw new JoyQueueException(JoyQueueCode.SE_IO_ERROR, e);
+        }
+    }
+
+    @Override
+    public void putPosition(AchivePosition achivePosition) throws JoyQueueException {
+        checkStarted();
+        positions.put(achivePosition.getTopic(), achivePosition.getPartition(), achivePosition.getIndex());
+    }
+
+    @Override
+    public Long getPosition(String topic, short partition) throws JoyQueueException {
+        checkStarted();
+        return positions.get(topic, partition);
+    }
+
+    @Override
+    public void cleanPosition(String topic, short partition) throws JoyQueueException {
+        checkStarted();
+        Long currentPosition = positions.remove(topic, partition);
+        if (currentPosition != null) {
+            logger.info("clean topic {}/partition {},archive position {}", topic, partition, currentPosition);
+        } else {
+            logger.info("clean topic {}/partition {},archive position not init", topic, partition);
+        }
+    }
+
+    /**
+     * 范围查询，包含开始时间，不包含结束时间
+     *
+     * @param query
+     * @return
+     * @throws JoyQueueException
+     */
+    @Override
+    public List<SendLog> scanSendLog(Query query) throws JoyQueueException {
+        checkStarted();
+        QueryCondition queryCondition = query.getQueryCondition();
+        QueryCondition.RowKey startRowKey = queryCondition.getStartRowKey();
+        String topic = startRowKey.getTopic();
+        ArchiveLog log = sendLogs.get(topic);
+        if (log == null) {
+            return Collections.emptyList();
+        }
+
+        int count = (queryCondition.getCount() <= 0 ? Integer.MAX_VALUE : queryCondition.getCount());
+        long startTime = startRowKey.getTime();
+        long stopTime = (queryCondition.getStopRowKey() == null || queryCondition.getStopRowKey().getTime() <= 0 ?
+                Long.MAX_VALUE : queryCondition.getStopRowKey().getTime());
+        String businessId = startRowKey.getBusinessId();
+        byte[] cursor = queryCondition.getStartRowKeyByteArr();
+        if (cursor != null && cursor.length != CURSOR_LENGTH) {
+            cursor = null;
+        }
+
+        try {
+            List<ArchiveRecord> records = new ArrayList<>();
+            if (StringUtils.isNotBlank(startRowKey.getMessageId())) {
+                for (ArchiveRecord record : log.get(Hex.decode(startRowKey.getMessageId()))) {
+                    if (matchRecord(record, startTime, stopTime, businessId, cursor)) {
+                        records.add(record);
+                    }
+                }
+            } else {
+                for (ArchiveLog.BlockRef blockRef : log.getBlocks(startTime, stopTime)) {
+                    // 块按最小时间排序，已满足数量且后续块都晚于当前结果时提前结束
+                    if (records.size() >= count) {
+                        records.sort(ArchiveRecord.COMPARATOR);
+                        records.subList(count, records.size()).clear();
+                        if (blockRef.getBlock().getMinTime() > records.get(count - 1).getTime()) {
+                            break;
+                        }
+                    }
+                    for (ArchiveRecord record : log.read(blockRef)) {
+                        if (matchRecord(record, startTime, stopTime, businessId, cursor)) {
+                            records.add(record);
+                        }
+                    }
+                }
+            }
+
+            records.sort(ArchiveRecord.COMPARATOR);
+            List<SendLog> result = new ArrayList<>(Math.min(records.size(), count));
+            for (ArchiveRecord record : records) {
+                if (result.size() >= count) {
+                    break;
+                }
+                SendLog sendLog = LocalArchiveSerializer.deserializeSendLog(topic, record);
+                sendLog.setMessageId(Hex.encode(record.getId()));
+                sendLog.setClientIpStr(toIpString(sendLog.getClientIp()));
+                sendLog.setRowKeyStart(Hex.encode(toCursor(record)));
+                result.add(sendLog);
+            }
+            return result;
+        } catch (Exception e) {
+            throw new JoyQueueException(JoyQueueCode.SE_IO_ERROR, e);
+        }
+    }
+
+    @Override
+    public SendLog getOneSendLog(Query query) throws JoyQueueException {
+        checkStarted();
+        QueryCondition queryCondition = query.getQueryCondition();
+        QueryCondition.RowKey rowKey = queryCondition.getRowKey();
+        ArchiveLog log = sendLogs.get(rowKey.getTopic());
+        if (log == null) {
+            return null;
+        }
+        try {
+            for (ArchiveRecord record : log.get(Hex.decode(rowKey.getMessageId()))) {
+                if (rowKey.getTime() > 0 && record.getTime() != rowKey.getTime()) {
+                    continue;
+                }
+                SendLog sendLog = LocalArchiveSerializer.deserializeSendLog(rowKey.getTopic(), record);
+                sendLog.setMessageId(Hex.encode(record.getId()));
+                sendLog.setClientIpStr(toIpString(sendLog.getClientIp()));
+                return sendLog;
+            }
+            return null;
+        } catch (Exception e) {
+            throw new JoyQueueException(JoyQueueCode.SE_IO_ERROR, e);
+        }
+    }
+
+    @Override
+    public List<ConsumeLog> scanConsumeLog(String messageId, Integer count) throws JoyQueueException {
+        checkStarted();
+        try {
+            List<ArchiveRecord> records = consumeLog.get(Hex.decode(messageId));
+            List<ArchiveRecord> sorted = new ArrayList<>(records);
+            sorted.sort(ArchiveRecord.COMPARATOR);
+
+            int limit = (count == null || count <= 0 ? Integer.MAX_VALUE : count);
+            List<ConsumeLog> result = new ArrayList<>(Math.min(sorted.size(), limit));
+            for (ArchiveRecord record : sorted) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                ConsumeLog log = LocalArchiveSerializer.deserializeConsumeLog(record);
+                log.setMessageId(Hex.encode(record.getId()));
+                log.setClientIpStr(toIpString(log.getClientIp()));
+                result.add(log);
+            }
+            return result;
+        } catch (Exception e) {
+            logger.error(e.getMessage(), e);
+            throw new JoyQueueException(JoyQueueCode.SE_IO_ERROR, e);
+        }
+    }
+
+    protected boolean matchRecord(ArchiveRecord record, long startTime, long stopTime, String businessId, byte[] cursor) {
+        if (record.getTime() < startTime || record.getTime() >= stopTime) {
+            return false;
+        }
+        if (cursor != null && compareCursor(record, cursor) < 0) {
+            return false;
+        }
+        if (StringUtils.isNotEmpty(businessId)) {
+            SendLog sendLog = LocalArchiveSerializer.deserializeSendLog(null, record);
+            return businessId.equals(sendLog.getBusinessId());
+        }
+        return true;
+    }
+
+    protected int compareCursor(ArchiveRecord record, byte[] cursor) {
+        ByteBuffer buffer = ByteBuffer.wrap(cursor);
+        int result = Long.compare(record.getTime(), buffer.getLong());
+        if (result != 0) {
+            return result;
+        }
+        byte[] id = new byte[ArchiveRecord.ID_LENGTH];
+        buffer.get(id);
+        return ArchiveRecord.compareId(record.getId(), id);
+    }
+
+    protected byte[] toCursor(ArchiveRecord record) {
+        ByteBuffer buffer = ByteBuffer.allocate(CURSOR_LENGTH);
+        buffer.putLong(record.getTime());
+        buffer.put(record.getId());
+        return buffer.array();
+    }
+
+    protected ArchiveLog getOrCreateSendLog(String topic) throws IOException {
+        ArchiveLog log = sendLogs.get(topic);
+        if (log != null) {
+            return log;
+        }
+        synchronized (sendLogs) {
+            log = sendLogs.get(topic);
+            if (log == null) {
+                log = new ArchiveLog(new File(new File(directory, SEND_LOG_DIR), encodeTopic(topic)), config);
+                log.open();
+                sendLogs.put(topic, log);
+            }
+            return log;
+        }
+    }
+
+    protected byte[] toMessageId(String messageId) throws JoyQueueException {
+        try {
+            return Md5.INSTANCE.encrypt(messageId.getBytes(StandardCharsets.UTF_8), null);
+        } catch (Exception e) {
+            throw new JoyQueueException(JoyQueueCode.SE_IO_ERROR, e);
+        }
+    }
+
+    protected String toIpString(byte[] clientIp) {
+        if (clientIp == null || clientIp.length < 4) {
+            return null;
+        }
+        StringBuilder builder = new StringBuilder();
+        IpUtil.toAddress(clientIp, builder);
+        return builder.toString();
+    }
+
+    protected String encodeTopic(String topic) throws UnsupportedEncodingException {
+        return URLEncoder.encode(topic, "UTF-8");
+    }
+
+    protected String decodeTopic(String name) throws UnsupportedEncodingException {
+        return URLDecoder.decode(name, "UTF-8");
+    }
+
+    protected void checkStarted() throws JoyQueueException {
+        if (!started.get()) {
+            throw new JoyQueueException(JoyQueueCode.CN_SERVICE_NOT_AVAILABLE, "local archive store is not started");
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.server.archive.store.local;
+
+import org.joyqueue.monitor.DefaultPointTracer;
+import org.joyqueue.monitor.PointTracer;
+import org.joyqueue.server.archive.store.QueryCondition;
+import org.joyqueue.server.archive.store.model.AchivePosition;
+import org.joyqueue.server.archive.store.model.ConsumeLog;
+import org.joyqueue.server.archive.store.model.SendLog;
+import org.joyqueue.toolkit.config.PropertySupplier;
+import org.joyqueue.toolkit.security.Hex;
+import org.joyqueue.toolkit.security.Md5;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LocalArchiveStoreTest
+ * author: gaohaoxiang
+ * date: 2020/4/3
+ */
+public class LocalArchiveStoreTest {
+
+    private static final String TOPIC = "test_topic";
+
+    private File directory;
+    private PointTracer tracer = new DefaultPointTracer();
+    private LocalArchiveStore store;
+
+    @Before
+    public void before() throws Exception {
+        directory = Files.createTempDirectory("archive-local").toFile();
+        store = newStore(new HashMap<>());
+    }
+
+    @After
+    public void after() {
+        store.stop();
+        delete(directory);
+    }
+
+    @Test
+    public void testSendLog() throws Exception {
+        List<SendLog> sendLogs = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            sendLogs.add(newSendLog(i, 1000 + i, "biz_" + (i % 10)));
+        }
+        store.putSendLog(sendLogs, tracer);
+
+        List<SendLog> result = store.scanSendLog(newScanCondition(1010, 1050, null, 20));
+        Assert.assertEquals(20, result.size());
+        Assert.assertEquals(1010, result.get(0).getSendTime());
+        Assert.assertEquals(1029, result.get(19).getSendTime());
+        Assert.assertEquals(TOPIC, result.get(0).getTopic());
+        Assert.assertEquals(10, result.get(0).getIndex());
+        Assert.assertEquals("127.0.0.1:50000", result.get(0).getClientIpStr());
+
+        // 从上一页最后一条继续
+        QueryCondition next = newScanCondition(1010, 1050, null, 20);
+        next.setStartRowKeyByteArr(result.get(19).getRowKeyStart());
+        List<SendLog> nextResult = store.scanSendLog(next);
+        Assert.assertEquals(20, nextResult.size());
+        Assert.assertEquals(1029, nextResult.get(0).getSendTime());
+        Assert.assertEquals(1048, nextResult.get(19).getSendTime());
+
+        List<SendLog> bizResult = store.scanSendLog(newScanCondition(1000, 1100, "biz_3", 100));
+        Assert.assertEquals(10, bizResult.size());
+        for (SendLog sendLog : bizResult) {
+            Assert.assertEquals("biz_3", sendLog.getBusinessId());
+        }
+
+        QueryCondition one = new QueryCondition();
+        QueryCondition.RowKey rowKey = new QueryCondition.RowKey();
+        rowKey.setTopic(TOPIC);
+        rowKey.setTime(1020);
+        rowKey.setBusinessId("biz_0");
+        rowKey.setMessageId(result.get(10).getMessageId());
+        one.setRowKey(rowKey);
+        SendLog sendLog = store.getOneSendLog(one);
+        Assert.assertNotNull(sendLog);
+        Assert.assertEquals(20, sendLog.getIndex());
+        Assert.assertArrayEquals(("body_" + 20).getBytes(StandardCharsets.UTF_8), sendLog.getMessageBody());
+
+        Assert.assertTrue(store.scanSendLog(newScanCondition(1000, 1100, null, 10, "unknown_topic")).isEmpty());
+    }
+
+    @Test
+    public void testConsumeLog() throws Exception {
+        byte[] messageId = Md5.INSTANCE.encrypt("message_1".getBytes(StandardCharsets.UTF_8), null);
+        List<ConsumeLog> consumeLogs = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ConsumeLog consumeLog = new ConsumeLog();
+            consumeLog.setBytesMessageId(messageId);
+            consumeLog.setApp("app_" + i);
+            consumeLog.setBrokerId(1);
+            consumeLog.setClientIp(new byte[]{80, 0, 127, 0, 0, 1});
+            consumeLog.setConsumeTime(2000 - i);
+            consumeLogs.add(consumeLog);
+        }
+        store.putConsumeLog(consumeLogs, tracer);
+
+        List<ConsumeLog> result = store.scanConsumeLog(Hex.encode(messageId), 10);
+        Assert.assertEquals(3, result.size());
+        Assert.assertEquals("app_2", result.get(0).getApp());
+        Assert.assertEquals(Hex.encode(messageId), result.get(0).getMessageId());
+        Assert.assertEquals(2, store.scanConsumeLog(Hex.encode(messageId), 2).size());
+    }
+
+    @Test
+    public void testReopen() throws Exception {
+        List<SendLog> sendLogs = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            sendLogs.add(newSendLog(i, 1000 + i, null));
+        }
+        store.putSendLog(sendLogs, tracer);
+        store.putPosition(new AchivePosition(TOPIC, (short) 0, 10));
+        store.stop();
+
+        store = newStore(new HashMap<>());
+        Assert.assertEquals(10, store.scanSendLog(newScanCondition(0, 0, null, 100)).size());
+        Assert.assertEquals(Long.valueOf(10), store.getPosition(TOPIC, (short) 0));
+
+        store.putSendLog(sendLogs, tracer);
+        Assert.assertEquals(20, store.scanSendLog(newScanCondition(0, 0, null, 100)).size());
+
+        store.cleanPosition(TOPIC, (short) 0);
+        Assert.assertNull(store.getPosition(TOPIC, (short) 0));
+    }
+
+    @Test
+    public void testClean() throws Exception {
+        store.stop();
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(LocalArchiveConfigKey.SEGMENT_SIZE.getName(), 1);
+        properties.put(LocalArchiveConfigKey.RETENTION_TIME.getName(), 0);
+        store = newStore(properties);
+
+        for (int i = 0; i < 5; i++) {
+            List<SendLog> sendLogs = new ArrayList<>();
+            sendLogs.add(newSendLog(i, 1000 + i, null));
+            store.putSendLog(sendLogs, tracer);
+        }
+        Assert.assertEquals(5, store.scanSendLog(newScanCondition(0, 0, null, 100)).size());
+
+        Thread.sleep(10);
+        store.clean();
+        Assert.assertTrue(store.scanSendLog(newScanCondition(0, 0, null, 100)).isEmpty());
+
+        List<SendLog> sendLogs = new ArrayList<>();
+        sendLogs.add(newSendLog(5, 1005, null));
+        store.putSendLog(sendLogs, tracer);
+        Assert.assertEquals(1, store.scanSendLog(newScanCondition(0, 0, null, 100)).size());
+    }
+
+    protected LocalArchiveStore newStore(Map<String, Object> properties) throws Exception {
+        properties.put(LocalArchiveConfigKey.PATH.getName(), directory.getAbsolutePath());
+        LocalArchiveStore store = new LocalArchiveStore();
+        store.setSupplier(new PropertySupplier.MapSupplier(properties));
+        store.setNameSpace("joyqueue");
+        store.start();
+        return store;
+    }
+
+    protected SendLog newSendLog(int index, long sendTime, String businessId) {
+        SendLog sendLog = new SendLog();
+        sendLog.setTopic(TOPIC);
+        sendLog.setApp("test_app");
+        sendLog.setBrokerId(1);
+        sendLog.setClientIp(new byte[]{0x50, (byte) 0xC3, 127, 0, 0, 1});
+        sendLog.setPartition((short) 0);
+        sendLog.setIndex(index);
+        sendLog.setSendTime(sendTime);
+        sendLog.setBusinessId(businessId);
+        sendLog.setMessageId(TOPIC + 0 + index);
+        sendLog.setMessageBody(("body_" + index).getBytes(StandardCharsets.UTF_8));
+        return sendLog;
+    }
+
+    protected QueryCondition newScanCondition(long startTime, long stopTime, String businessId, int count) {
+        return newScanCondition(startTime, stopTime, businessId, count, TOPIC);
+    }
+
+    protected QueryCondition newScanCondition(long startTime, long stopTime, String businessId, int count, String topic) {
+        QueryCondition.RowKey startRowKey = new QueryCondition.RowKey();
+        startRowKey.setTopic(topic);
+        startRowKey.setTime(startTime);
+        startRowKey.setBusinessId(businessId);
+        QueryCondition.RowKey stopRowKey = new QueryCondition.RowKey();
+        stopRowKey.setTopic(topic);
+        stopRowKey.setTime(stopTime);
+
+        QueryCondition queryCondition = new QueryCondition();
+        queryCondition.setStartRowKey(startRowKey);
+        queryCondition.setStopRowKey(stopRowKey);
+        queryCondition.setCount(count);
+        return queryCondition;
+    }
+
+    protected void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
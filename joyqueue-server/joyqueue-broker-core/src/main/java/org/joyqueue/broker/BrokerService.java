@@ -16,6 +16,7 @@
 package org.joyqueue.broker;
 
 import com.google.common.base.Preconditions;
+import org.apache.commons.lang3.StringUtils;
 import org.joyqueue.broker.archive.ArchiveManager;
 import org.joyqueue.broker.cluster.ClusterManager;
 import org.joyqueue.broker.cluster.ClusterNameService;
@@ -25,6 +26,7 @@ import org.joyqueue.broker.config.Configuration;
 import org.joyqueue.broker.config.ConfigurationManager;
 import org.joyqueue.broker.config.scan.ClassScanner;
 import org.joyqueue.broker.consumer.Consume;
+import org.joyqueue.broker.consumer.ConsumeConfig;
 import org.joyqueue.broker.consumer.MessageConvertSupport;
 import org.joyqueue.broker.coordinator.CoordinatorService;
 import org.joyqueue.broker.election.ElectionService;
@@ -56,6 +58,7 @@ import org.joyqueue.store.StoreService;
 import org.joyqueue.toolkit.config.Property;
 import org.joyqueue.toolkit.config.PropertyDef;
 import org.joyqueue.toolkit.config.PropertySupplier;
+import org.joyqueue.toolkit.io.ZstdDictionaries;
 import org.joyqueue.toolkit.lang.Close;
 import org.joyqueue.toolkit.lang.LifeCycle;
 import org.joyqueue.toolkit.service.Service;
@@ -176,6 +179,8 @@ public class BrokerService extends Service {
         this.coordinatorService = new CoordinatorService(configuration, clusterManager, nameService);
         this.brokerContext.coordinnatorService(this.coordinatorService);
 
+        // 其他协议消费时需要解压使用字典压缩的消息
+        loadZstdDictionaries(new ConsumeConfig(configuration));
         this.messageConvertSupport = new MessageConvertSupport();
         this.brokerContext.messageConvertSupport(this.messageConvertSupport);
 
@@ -218,7 +223,8 @@ public class BrokerService extends Service {
                 archiveManager,
                 nameService,
                 electionService,
-                messageConvertSupport);
+                messageConvertSupport,
+                storeInitializer.getRecoveryStat());
         this.brokerContext.brokerManageService(brokerManageService);
 
         //build store manager
@@ -237,6 +243,15 @@ public class BrokerService extends Service {
         enrichConfiguration(configuration);
     }
 
+    private void loadZstdDictionaries(ConsumeConfig consumeConfig) throws IOException {
+        String dictionaries = consumeConfig.getZstdDictionaries();
+        if (StringUtils.isBlank(dictionaries)) {
+            return;
+        }
+        int count = ZstdDictionaries.load(dictionaries);
+        logger.info("load zstd dictionaries, count: {}", count);
+    }
+
     private void enrichServicePorts(Configuration configuration) {
         // broker.frontend-server.transport.server.port	50088	JoyQueue Server与客户端通信的端口
         String key = BrokerConfig.BROKER_FRONTEND_SERVER_CONFIG_PREFIX + TransportConfigSupport.TRANSPORT_SERVER_PORT;
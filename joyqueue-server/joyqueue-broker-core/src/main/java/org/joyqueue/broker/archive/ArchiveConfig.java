@@ -67,10 +67,26 @@ public class ArchiveConfig {
         return PropertySupplier.getValue(propertySupplier, ArchiveConfigKey.CONSUME_WRITE_DELAY);
     }
 
+    public int getConsumeAppendStripes() {
+        return PropertySupplier.getValue(propertySupplier, ArchiveConfigKey.CONSUME_APPEND_STRIPES);
+    }
+
+    public int getConsumeAppendBufferSize() {
+        return PropertySupplier.getValue(propertySupplier, ArchiveConfigKey.CONSUME_APPEND_BUFFER_SIZE);
+    }
+
     public int getProduceBatchNum() {
         return PropertySupplier.getValue(propertySupplier, ArchiveConfigKey.PRODUCE_BATCH_NUM);
     }
 
+    public int getProduceReadAhead() {
+        return PropertySupplier.getValue(propertySupplier, ArchiveConfigKey.PRODUCE_READ_AHEAD);
+    }
+
+    public int getProduceCheckInterval() {
+        return PropertySupplier.getValue(propertySupplier, ArchiveConfigKey.PRODUCE_CHECK_INTERVAL);
+    }
+
     public int getLogQueueSize() {
         return PropertySupplier.getValue(propertySupplier, ArchiveConfigKey.LOG_QUEUE_SIZE);
     }
@@ -91,6 +107,10 @@ public class ArchiveConfig {
         return PropertySupplier.getValue(propertySupplier, ArchiveConfigKey.ARCHIVE_STORE_NAMESPACE);
     }
 
+    public String getStoreType() {
+        return PropertySupplier.getValue(propertySupplier, ArchiveConfigKey.ARCHIVE_STORE_TYPE);
+    }
+
     public String getTracerType() {
         return PropertySupplier.getValue(propertySupplier, BrokerConfigKey.TRACER_TYPE);
     }
@@ -102,4 +122,8 @@ public class ArchiveConfig {
     public boolean isBacklogEnable() {
         return PropertySupplier.getValue(propertySupplier, ArchiveConfigKey.ARCHIVE_BACKLOG_ENABLE);
     }
+
+    public PropertySupplier getPropertySupplier() {
+        return propertySupplier;
+    }
 }
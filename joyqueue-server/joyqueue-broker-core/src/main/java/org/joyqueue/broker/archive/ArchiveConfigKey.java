@@ -25,12 +25,22 @@ import org.joyqueue.toolkit.config.PropertyDef;
 public enum ArchiveConfigKey implements PropertyDef {
     CONSUME_BATCH_NUM("archive.consume.batch.num", 1000, Type.INT),
     CONSUME_WRITE_DELAY("archive.consume.write.delay", 1, Type.INT),
+    // 消费日志追加缓冲分段数，0表示按cpu核数
+    CONSUME_APPEND_STRIPES("archive.consume.append.stripes", 0, Type.INT),
+    // 每个分段缓冲的消费日志条数，写满后直接写本地文件
+    CONSUME_APPEND_BUFFER_SIZE("archive.consume.append.buffer.size", 4096, Type.INT),
     PRODUCE_BATCH_NUM("archive.produce.batch.num", 10, Type.INT),
+    // 每个分区已读取未写入存储的最大消息数
+    PRODUCE_READ_AHEAD("archive.produce.read.ahead", 1000, Type.INT),
+    // 检查分区是否有未归档消息的间隔，兜底漏掉的写入通知
+    PRODUCE_CHECK_INTERVAL("archive.produce.check.interval", 1000, Type.INT),
     LOG_QUEUE_SIZE("archive.send.log.queue.size", 1000, Type.INT),
     WRITE_THREAD_NUM("archive.thread.num", 5, Type.INT),
     ARCHIVE_SWITCH("archive.switch", false, Type.BOOLEAN),
     ARCHIVE_THREAD_POOL_QUEUE_SIZE("archive.thread.pool.queue.size", 10, Type.INT),
     ARCHIVE_STORE_NAMESPACE("archive.store.namespace", "joyqueue", Type.STRING),
+    // 归档存储类型，为空使用默认存储
+    ARCHIVE_STORE_TYPE("archive.store.type", "", Type.STRING),
     ARCHIVE_REAMING_ENABLE("archive.reaming.enable", false, Type.BOOLEAN),
     ARCHIVE_BACKLOG_ENABLE("archive.backlog.enable", false, Type.BOOLEAN),
 
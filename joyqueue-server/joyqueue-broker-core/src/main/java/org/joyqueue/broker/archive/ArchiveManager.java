@@ -98,6 +98,19 @@ public class ArchiveManager extends Service {
         logger.info("archive manager stopped.");
     }
 
+    /**
+     * 分区写入消息通知
+     *
+     * @param topic     主题
+     * @param partition 分区
+     */
+    public void onPutMessage(String topic, short partition) {
+        ProduceArchiveService archiveService = sendArchiveService;
+        if (archiveService != null) {
+            archiveService.onPutMessage(topic, partition);
+        }
+    }
+
     /**
      * 获取未归档的发送日志条数
      *
@@ -124,4 +137,13 @@ public class ArchiveManager extends Service {
     public Map<String, Long> getSendBacklogNumByTopic() {
         return sendArchiveService.getArchivePosition();
     }
+
+    /**
+     * 按分区获取发送归档延迟
+     *
+     * @return 未归档的发送日志条数，key为topic:partition
+     */
+    public Map<String, Long> getSendArchiveLag() {
+        return sendArchiveService.getArchiveLag();
+    }
 }
@@ -15,7 +15,10 @@
  */
 package org.joyqueue.broker.archive;
 
+import org.joyqueue.message.SourceType;
 import org.joyqueue.server.archive.store.model.ConsumeLog;
+import org.joyqueue.server.archive.store.model.SendLog;
+import org.joyqueue.store.message.MessageParser;
 
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
@@ -31,6 +34,9 @@ import java.util.concurrent.ConcurrentMap;
  */
 public class ArchiveSerializer {
 
+    private static final byte MESSAGE_VERSION_V0 = 0;
+    private static final Charset UTF_8 = Charset.forName("utf-8");
+
     private static ByteBufferPool byteBufferPool = new ByteBufferPool();
 
     public static void release(ByteBuffer byteBuffer) {
@@ -118,6 +124,71 @@ public class ArchiveSerializer {
         return log;
     }
 
+    /**
+     * 按偏移量直接从存储的消息中读取发送日志，不反序列化整条消息
+     * <br>
+     * 批量消息和需要转换业务ID的消息（如kafka）返回null，由调用方走完整解析
+     *
+     * @param buffer 存储的消息
+     * @param topic 主题
+     * @param brokerId brokerId
+     * @return 发送日志
+     */
+    public static SendLog readSendLog(ByteBuffer buffer, String topic, int brokerId) {
+        ByteBuffer message = buffer.slice();
+        short sysCode = MessageParser.getShort(message, MessageParser.SYS);
+        byte source = (byte) (sysCode >> 2 & 0x3);
+        boolean isBatch = ((sysCode >> 12) == 1);
+        if (isBatch || source == SourceType.KAFKA.getValue()) {
+            return null;
+        }
+
+        short partition = MessageParser.getShort(message, MessageParser.PARTITION);
+        long index = MessageParser.getLong(message, MessageParser.INDEX);
+        long sendTime = MessageParser.getLong(message, MessageParser.CLIENT_TIMESTAMP);
+
+        byte version = (byte) ((sysCode >> 8) & 15);
+        boolean isIpv4 = (version == MESSAGE_VERSION_V0 || (sysCode & (1 << 7)) > 1);
+        byte[] clientIp = new byte[isIpv4 ? 6 : 16];
+        message.position(MessageParser.CLIENT_IP);
+        message.get(clientIp);
+
+        // 变长字段依次为 body(4)、businessId(1)、properties(2)、extension(4)、app(1)
+        message.position(MessageParser.getFixedAttributesLength());
+        skip(message, message.getInt());
+        String businessId = readString(message, message.get() & 0xFF);
+        skip(message, message.getShort() & 0xFFFF);
+        skip(message, message.getInt());
+        String app = readString(message, message.get() & 0xFF);
+
+        SendLog sendLog = new SendLog();
+        sendLog.setTopic(topic);
+        sendLog.setSendTime(sendTime);
+        sendLog.setBusinessId(businessId);
+        sendLog.setMessageId(ArchiveUtils.messageId(topic, partition, index));
+        sendLog.setBrokerId(brokerId);
+        sendLog.setApp(app);
+        sendLog.setClientIp(clientIp);
+        sendLog.setCompressType((short) -1);
+        sendLog.setMessageBody(buffer.array());
+        sendLog.setPartition(partition);
+        sendLog.setIndex(index);
+        return sendLog;
+    }
+
+    private static void skip(ByteBuffer buffer, int length) {
+        buffer.position(buffer.position() + length);
+    }
+
+    private static String readString(ByteBuffer buffer, int length) {
+        if (length == 0) {
+            return "";
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
 
     /**
      * from jetty
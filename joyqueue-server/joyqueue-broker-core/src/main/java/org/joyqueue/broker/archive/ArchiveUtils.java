@@ -1,5 +1,10 @@
 package org.joyqueue.broker.archive;
 
+import org.apache.commons.lang3.StringUtils;
+import org.joyqueue.broker.Plugins;
+import org.joyqueue.server.archive.store.api.ArchiveStore;
+import org.joyqueue.toolkit.config.PropertySupplierAware;
+
 /**
  * Common utils
  *
@@ -13,4 +18,16 @@ public class ArchiveUtils {
         return topic+partition+messageIndex;
     }
 
+    /**
+     *  Archive store by config type, default store when type is blank
+     **/
+    public static ArchiveStore archiveStore(ArchiveConfig archiveConfig){
+        String type = archiveConfig.getStoreType();
+        ArchiveStore archiveStore = StringUtils.isBlank(type) ? Plugins.ARCHIVESTORE.get() : Plugins.ARCHIVESTORE.get(type);
+        if (archiveStore instanceof PropertySupplierAware && archiveConfig.getPropertySupplier() != null) {
+            ((PropertySupplierAware) archiveStore).setSupplier(archiveConfig.getPropertySupplier());
+        }
+        return archiveStore;
+    }
+
 }
@@ -57,9 +57,13 @@ import java.util.stream.Collectors;
  */
 public class ConsumeArchiveService extends Service {
     private static final Logger logger = LoggerFactory.getLogger(ConsumeArchiveService.class);
+    // 停止时等待正在进行的追加完成的最长时间
+    private static final long APPENDER_CLOSE_TIMEOUT = 1000 * 3;
 
     // 消费归档存日志文件
     private ArchiveMappedFileRepository repository;
+    // 消费日志追加缓冲
+    private ConsumeLogAppender appender;
     // 归档存储服务
     private ArchiveStore archiveStore;
     // 集群管理
@@ -76,6 +80,9 @@ public class ConsumeArchiveService extends Service {
     // 负责删除已经归档本地文件
     private LoopThread cleanConsumeLogFileThread;
 
+    // 负责将追加缓冲批量写入本地文件
+    private LoopThread flushConsumeLogThread;
+
     private PointTracer tracer;
 
     public ConsumeArchiveService(ArchiveConfig archiveConfig, ClusterManager clusterManager) {
@@ -87,7 +94,7 @@ public class ConsumeArchiveService extends Service {
     protected void validate() throws Exception {
         super.validate();
         if (archiveStore == null) {
-            archiveStore = Plugins.ARCHIVESTORE.get();
+            archiveStore = ArchiveUtils.archiveStore(archiveConfig);
         }
         archiveStore.setNameSpace(archiveConfig.getNamespace());
         logger.info("Get archive store namespace [{}] by archive config.", archiveConfig.getNamespace());
@@ -95,6 +102,7 @@ public class ConsumeArchiveService extends Service {
         Preconditions.checkArgument(archiveStore != null, "archive store can not be null.");
 
         this.repository = new ArchiveMappedFileRepository(archiveConfig.getArchivePath());
+        this.appender = new ConsumeLogAppender(repository, archiveConfig.getConsumeAppendStripes(), archiveConfig.getConsumeAppendBufferSize());
         this.readByteCounter = new AtomicInteger(0);
 
         this.tracer = Plugins.TRACERERVICE.get(archiveConfig.getTracerType());
@@ -115,6 +123,13 @@ public class ConsumeArchiveService extends Service {
                 .onException(e -> logger.error(e.getMessage(), e))
                 .doWork(this::cleanAndRollWriteFile)
                 .build();
+
+        this.flushConsumeLogThread = LoopThread.builder()
+                .sleepTime(1, 10)
+                .name("FlushArchiveFile-ConsumeLog-Thread")
+                .onException(e -> logger.error(e.getMessage(), e))
+                .doWork(appender::flush)
+                .build();
     }
 
 
@@ -122,6 +137,7 @@ public class ConsumeArchiveService extends Service {
     protected void doStart() throws Exception {
         super.doStart();
         archiveStore.start();
+        flushConsumeLogThread.start();
         readConsumeLogThread.start();
         cleanConsumeLogFileThread.start();
     }
@@ -130,6 +146,9 @@ public class ConsumeArchiveService extends Service {
     @Override
     protected void doStop() {
         super.doStop();
+        Close.close(flushConsumeLogThread);
+        // 先停止接收追加再写入缓冲中剩余的消费日志，避免最后一次刷盘后到达的应答丢失
+        appender.close(APPENDER_CLOSE_TIMEOUT);
         Close.close(readConsumeLogThread);
         Close.close(cleanConsumeLogFileThread);
         Close.close(repository);
@@ -231,12 +250,15 @@ public class ConsumeArchiveService extends Service {
             return;
         }
         List<ConsumeLog> logList = convert(connection, locations);
-        logList.stream().forEach(log -> {
-            // 序列化
+        for (ConsumeLog log : logList) {
+            // 序列化后放入追加缓冲，由刷盘线程批量写本地文件
             ByteBuffer buffer = ArchiveSerializer.write(log);
-            appendLog(buffer);
-            ArchiveSerializer.release(buffer);
-        });
+            if (!appender.append(buffer)) {
+                ArchiveSerializer.release(buffer);
+                logger.debug("ConsumeArchiveService is stopping, drop consume log.");
+                return;
+            }
+        }
     }
 
     /**
@@ -282,12 +304,12 @@ public class ConsumeArchiveService extends Service {
     }
 
     /**
-     * 追加缓存信息到本地消费日志文件
+     * 追加缓冲中未写入本地文件的消费日志条数
      *
-     * @param buffer
+     * @return
      */
-    private synchronized void appendLog(ByteBuffer buffer) {
-        repository.append(buffer);
+    public long getPendingConsumeLogNum() {
+        return appender == null ? 0 : appender.size();
     }
 
     /**
@@ -392,6 +414,17 @@ public class ConsumeArchiveService extends Service {
             }
         }
 
+        /**
+         * 批量追加日志到本地文件
+         *
+         * @param buffers
+         */
+        public synchronized void append(List<ByteBuffer> buffers) {
+            for (ByteBuffer buffer : buffers) {
+                append(buffer);
+            }
+        }
+
         /**
          * 创建并映射一个读写文件
          */
@@ -0,0 +1,199 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.archive;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 消费日志追加缓冲
+ * 按线程分段的多生产者单消费者环形缓冲，应答线程无锁写入，由刷盘线程批量写本地文件
+ * author: gaohaoxiang
+ * date: 2020/4/8
+ */
+public class ConsumeLogAppender {
+
+    private final ConsumeArchiveService.ArchiveMappedFileRepository repository;
+    private final Stripe[] stripes;
+    private final int stripeMask;
+
+    // 只有刷盘线程使用
+    private final List<ByteBuffer> batch;
+
+    // 正在追加的线程数，关闭时等待这些追加完成后再最后一次刷盘
+    private final LongAdder appending = new LongAdder();
+    private volatile boolean closed;
+
+    public ConsumeLogAppender(ConsumeArchiveService.ArchiveMappedFileRepository repository, int stripes, int bufferSize) {
+        this.repository = repository;
+        int stripeNum = tableSize(stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors());
+        int capacity = tableSize(Math.max(bufferSize, 1));
+        this.stripes = new Stripe[stripeNum];
+        for (int i = 0; i < stripeNum; i++) {
+            this.stripes[i] = new Stripe(capacity);
+        }
+        this.stripeMask = stripeNum - 1;
+        this.batch = new ArrayList<>(capacity);
+    }
+
+    /**
+     * 追加一条序列化后的消费日志，缓冲写满时直接写本地文件
+     * 写入后buffer由追加缓冲负责释放
+     *
+     * @param buffer 消费日志
+     * @return 已关闭时返回false，buffer由调用方释放
+     */
+    public boolean append(ByteBuffer buffer) {
+        appending.increment();
+        try {
+            if (closed) {
+                return false;
+            }
+            Stripe stripe = stripes[(int) Thread.currentThread().getId() & stripeMask];
+            if (!stripe.offer(buffer)) {
+                try {
+                    repository.append(buffer);
+                } finally {
+                    ArchiveSerializer.release(buffer);
+                }
+            }
+            return true;
+        } finally {
+            appending.decrement();
+        }
+    }
+
+    /**
+     * 停止接收追加，等待正在进行的追加完成后写入缓冲中剩余的消费日志
+     *
+     * @param timeout 等待追加完成的超时时间，单位毫秒
+     * @return 写入条数
+     */
+    public int close(long timeout) {
+        closed = true;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        while (appending.sum() != 0 && System.nanoTime() < deadline) {
+            Thread.yield();
+        }
+        return flush();
+    }
+
+    /**
+     * 将缓冲中的消费日志批量写入本地文件，每个分段只获取一次文件锁
+     *
+     * @return 写入条数
+     */
+    public synchronized int flush() {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            if (stripe.drainTo(batch) == 0) {
+                continue;
+            }
+            try {
+                repository.append(batch);
+                count += batch.size();
+            } finally {
+                for (ByteBuffer buffer : batch) {
+                    ArchiveSerializer.release(buffer);
+                }
+                batch.clear();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 缓冲中未写入本地文件的条数
+     *
+     * @return
+     */
+    public long size() {
+        long size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    private static int tableSize(int size) {
+        int n = 1;
+        while (n < size && n < (1 << 30)) {
+            n <<= 1;
+        }
+        return n;
+    }
+
+    /**
+     * 单个分段，多线程写入，刷盘线程读取
+     */
+    static class Stripe {
+
+        private final AtomicReferenceArray<ByteBuffer> slots;
+        private final int capacity;
+        private final int mask;
+        // 写入者通过CAS领取位置
+        private final AtomicLong tail = new AtomicLong();
+        // 只有刷盘线程修改
+        private volatile long head;
+
+        Stripe(int capacity) {
+            this.slots = new AtomicReferenceArray<>(capacity);
+            this.capacity = capacity;
+            this.mask = capacity - 1;
+        }
+
+        boolean offer(ByteBuffer buffer) {
+            while (true) {
+                long current = tail.get();
+                if (current - head >= capacity) {
+                    return false;
+                }
+                if (tail.compareAndSet(current, current + 1)) {
+                    slots.lazySet((int) (current & mask), buffer);
+                    return true;
+                }
+            }
+        }
+
+        int drainTo(List<ByteBuffer> list) {
+            long current = head;
+            int count = 0;
+            while (count < capacity) {
+                int index = (int) (current & mask);
+                ByteBuffer buffer = slots.get(index);
+                // 位置已领取但还未写入，下次再读，保证顺序
+                if (buffer == null) {
+                    break;
+                }
+                slots.lazySet(index, null);
+                list.add(buffer);
+                current++;
+                count++;
+            }
+            head = current;
+            return count;
+        }
+
+        long size() {
+            return Math.max(tail.get() - head, 0);
+        }
+    }
+}
@@ -94,6 +94,12 @@ public class ProduceArchiveService extends Service {
     AtomicBoolean hasStoreError = new AtomicBoolean(false);
     // 读不到消息暂停Map
     private final Map<String, Long> pauseMap = new HashMap<>();
+    // 有待读取消息的归档项，由写入通知和定时检查驱动
+    private final BlockingQueue<SendArchiveItem> readyQueue = new LinkedBlockingQueue<>();
+    // 上次检查归档项的时间
+    private long lastCheckTime;
+    // 每个分区已读取未写入存储的最大消息数
+    private int readAhead;
 
     private PointTracer tracer;
     private AtomicLong updateArchiveMetadataCounter=new AtomicLong(0);
@@ -118,7 +124,7 @@ public class ProduceArchiveService extends Service {
     @Override
     protected void validate() throws Exception {
         super.validate();
-        archiveStore = archiveStore != null ? archiveStore : Plugins.ARCHIVESTORE.get();
+        archiveStore = archiveStore != null ? archiveStore : ArchiveUtils.archiveStore(archiveConfig);
         archiveStore.setNameSpace(archiveConfig.getNamespace());
 
         logger.info("Get archive store namespace [{}] by archive config.", archiveConfig.getNamespace());
@@ -128,6 +134,7 @@ public class ProduceArchiveService extends Service {
 
         this.tracer = Plugins.TRACERERVICE.get(archiveConfig.getTracerType());
         this.batchNum = archiveConfig.getProduceBatchNum();
+        this.readAhead = archiveConfig.getProduceReadAhead();
         this.archiveQueue = new LinkedBlockingDeque<>(archiveConfig.getLogQueueSize());
         this.executorService = new ThreadPoolExecutor(archiveConfig.getWriteThreadNum(), archiveConfig.getWriteThreadNum(),
                 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(archiveConfig.getThreadPoolQueueSize()), new NamedThreadFactory("sendLog-archive"), new ThreadPoolExecutor.CallerRunsPolicy());
@@ -211,71 +218,159 @@ public class ProduceArchiveService extends Service {
         }
     }
 
+    /**
+     * 分区写入消息通知，唤醒对应归档项读取
+     *
+     * @param topic
+     * @param partition
+     */
+    public void onPutMessage(String topic, short partition) {
+        if (!isStarted()) {
+            return;
+        }
+        SendArchiveItem item = itemList.get(topic, partition);
+        if (item != null) {
+            schedule(item);
+        }
+    }
+
+    /**
+     * 归档项加入待读取队列，已在队列中则忽略
+     *
+     * @param item
+     */
+    private void schedule(SendArchiveItem item) {
+        if (item.queued.compareAndSet(false, true)) {
+            readyQueue.offer(item);
+        }
+    }
+
     /**
      * 读取归档消息
      */
     private void readArchiveMsg() throws Exception {
-        int counter = 0;
-        List<SendArchiveItem> all = itemList.getAll();
-        for (SendArchiveItem item : all) {
-            if (isPause(item.getTopic(), item.getPartition())) {
+        int checkInterval = archiveConfig.getProduceCheckInterval();
+        if (SystemClock.now() - lastCheckTime >= checkInterval) {
+            checkArchiveItem();
+            lastCheckTime = SystemClock.now();
+        }
+        SendArchiveItem item = readyQueue.poll(checkInterval, TimeUnit.MILLISECONDS);
+        while (item != null) {
+            readArchiveItem(item);
+            // 持续有消息时也要按间隔检查
+            if (SystemClock.now() - lastCheckTime >= checkInterval) {
+                break;
+            }
+            item = readyQueue.poll();
+        }
+    }
+
+    /**
+     * 检查归档项，兜底事务提交、主从切换等没有写入通知的场景
+     */
+    private void checkArchiveItem() {
+        for (SendArchiveItem item : itemList.getAll()) {
+            if (item.queued.get() || isPause(item.getTopic(), item.getPartition())) {
                 continue;
             }
-            PullResult pullResult;
-            long readIndex = item.getReadIndex();
-            try {
-                pullResult = consume.getMessage(item.topic, item.partition, readIndex, batchNum);
-            } catch (Throwable th) {
-                if (logger.isDebugEnabled()) {
-                    logger.debug("read message from topic:" + item.topic + " partition:" + item.partition
-                            + " index:" + item.getReadIndex() + " error.", th);
-                }
+            long maxIndex = consume.getMaxIndex(new Consumer(item.topic, ""), item.partition);
+            if (item.getReadIndex() < maxIndex) {
+                schedule(item);
+            }
+        }
+    }
 
-                if (th.getCause() instanceof PositionUnderflowException) {
-                    // 如果读取位置小于存储索引的最小位置，将位置重置为可读到的最小位置
+    /**
+     * 读取单个归档项的消息
+     *
+     * @param item
+     */
+    private void readArchiveItem(SendArchiveItem item) throws Exception {
+        // 先清除标记再读取，读取期间的写入通知会重新入队
+        item.queued.set(false);
+        if (isPause(item.getTopic(), item.getPartition())) {
+            return;
+        }
+        // 已读取未写入的消息过多，等写入完成后再读取
+        if (item.inflight.get() >= readAhead) {
+            item.throttled.set(true);
+            if (item.inflight.get() < readAhead && item.throttled.compareAndSet(true, false)) {
+                schedule(item);
+            }
+            return;
+        }
 
-                    long minIndex = consume.getMinIndex(new Consumer(item.topic, ""), item.partition);
-                    item.setReadIndex(minIndex);
+        PullResult pullResult;
+        long readIndex = item.getReadIndex();
+        try {
+            pullResult = consume.getMessage(item.topic, item.partition, readIndex, batchNum);
+        } catch (Throwable th) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("read message from topic:" + item.topic + " partition:" + item.partition
+                        + " index:" + item.getReadIndex() + " error.", th);
+            }
 
-                    logger.debug("repair read message position SendArchiveItem info:[{}], currentIndex:[{}]", item, minIndex);
+            if (th.getCause() instanceof PositionUnderflowException) {
+                // 如果读取位置小于存储索引的最小位置，将位置重置为可读到的最小位置
 
-                }
+                long minIndex = consume.getMinIndex(new Consumer(item.topic, ""), item.partition);
+                item.setReadIndex(minIndex);
 
-                if (th.getCause() instanceof PositionOverflowException) {
-                    // 如果读取位置大于存储索引的最小位置，将位置重置为可读到的最小位置
+                logger.debug("repair read message position SendArchiveItem info:[{}], currentIndex:[{}]", item, minIndex);
 
-                    long maxIndex = consume.getMaxIndex(new Consumer(item.topic, ""), item.partition);
-                    item.setReadIndex(maxIndex);
+            }
 
-                    logger.debug("repair read message position SendArchiveItem info:[{}], currentIndex:[{}]", item, maxIndex);
+            if (th.getCause() instanceof PositionOverflowException) {
+                // 如果读取位置大于存储索引的最小位置，将位置重置为可读到的最小位置
 
-                }
+                long maxIndex = consume.getMaxIndex(new Consumer(item.topic, ""), item.partition);
+                item.setReadIndex(maxIndex);
 
-                // 报错暂停一会
-                put2PauseMap(item.getTopic(), item.getPartition());
-                continue;
-            }
+                logger.debug("repair read message position SendArchiveItem info:[{}], currentIndex:[{}]", item, maxIndex);
 
-            int messageSize = pullResult.getBuffers().size();
-            if (messageSize == 0) {
-                put2PauseMap(item.getTopic(), item.getPartition());
-            } else {
-                // 加入缓存队列
-                int size = putSendLog2Queue(pullResult);
-                if(size>0){
-                    writeMsgThread.wakeup();
-                }
-                // 更新下次拉取位置(当前位置序号 + 拉取到的消息条数, 要避免覆盖写线程回滚的位置)
-                item.setReadIndex(readIndex + size, readIndex);
-                // 计数
-                counter += messageSize;
-                if (logger.isDebugEnabled()) {
-                    logger.debug("produce archive: {} messages put into the archive queue.", size);
-                }
             }
+
+            // 报错暂停一会，由定时检查恢复
+            put2PauseMap(item.getTopic(), item.getPartition());
+            return;
+        }
+
+        int messageSize = pullResult.getBuffers().size();
+        if (messageSize == 0) {
+            return;
+        }
+        // 加入缓存队列
+        int size = putSendLog2Queue(pullResult);
+        item.inflight.addAndGet(size);
+        if (size > 0) {
+            writeMsgThread.wakeup();
+        }
+        // 更新下次拉取位置(当前位置序号 + 拉取到的消息条数, 要避免覆盖写线程回滚的位置)
+        item.setReadIndex(readIndex + size, readIndex);
+        if (logger.isDebugEnabled()) {
+            logger.debug("produce archive: {} messages put into the archive queue.", size);
+        }
+        // 读满一批说明可能还有消息，继续读取
+        if (messageSize >= batchNum) {
+            schedule(item);
         }
-        if (counter == 0) {
-            Thread.sleep(1);
+    }
+
+    /**
+     * 写入存储完成，释放归档项的读取额度
+     *
+     * @param sendLogs
+     */
+    private void release(List<SendLog> sendLogs) {
+        for (SendLog sendLog : sendLogs) {
+            SendArchiveItem item = itemList.get(sendLog.getTopic(), sendLog.getPartition());
+            if (item == null) {
+                continue;
+            }
+            if (item.inflight.updateAndGet(value -> Math.max(0, value - 1)) < readAhead
+                    && item.throttled.compareAndSet(true, false)) {
+                schedule(item);
+            }
         }
     }
 
@@ -314,6 +409,13 @@ public class ProduceArchiveService extends Service {
         int readCount = 0;
         List<ByteBuffer> buffers = pullResult.getBuffers();
         for (ByteBuffer buffer : buffers) {
+            // 优先按偏移量直接读取发送日志
+            SendLog headerSendLog = ArchiveSerializer.readSendLog(buffer, pullResult.getTopic(), clusterManager.getBrokerId());
+            if (headerSendLog != null) {
+                archiveQueue.put(headerSendLog);
+                readCount++;
+                continue;
+            }
 
             List<BrokerMessage> brokerMessageList = parseMessage(buffer);
 
@@ -396,6 +498,8 @@ public class ProduceArchiveService extends Service {
                         hasStoreError.set(true);
                         // 回滚读取位置
                         rollBackReadIndex(sendLogs);
+                    } finally {
+                        release(sendLogs);
                     }
                 });
             }
@@ -491,6 +595,21 @@ public class ProduceArchiveService extends Service {
         return result;
     }
 
+    /**
+     * 获取分区的归档延迟，key为topic:partition，值为未写入存储的消息数
+     *
+     * @return
+     */
+    public Map<String, Long> getArchiveLag() {
+        Map<String, Long> result = new HashMap<>();
+        for (SendArchiveItem item : itemList.getAll()) {
+            long maxIndex = consume.getMaxIndex(new Consumer(item.topic, ""), item.partition);
+            long archiveIndex = item.getReadIndex() - item.inflight.get();
+            result.put(item.topic + separator + item.partition, Math.max(0, maxIndex - archiveIndex));
+        }
+        return result;
+    }
+
     /**
      * 获取当前broker上的待归档的消息数量
      *
@@ -547,6 +666,9 @@ public class ProduceArchiveService extends Service {
         private final String topic;
         private final Short partition;
         private AtomicLong readIndex = new AtomicLong(0); // 读序号
+        private final AtomicBoolean queued = new AtomicBoolean(false); // 是否在待读取队列中
+        private final AtomicBoolean throttled = new AtomicBoolean(false); // 是否因读取额度不足暂停
+        private final AtomicInteger inflight = new AtomicInteger(0); // 已读取未写入存储的消息数
 
         SendArchiveItem(String topic, Short partition) {
             this.topic = topic;
@@ -627,6 +749,8 @@ public class ProduceArchiveService extends Service {
     class ItemList {
         // 发送归档任务容器 TODO 替换成跳跃表结构？？
         private CopyOnWriteArrayList<SendArchiveItem> cpList = new CopyOnWriteArrayList<>();
+        // 按主题、分区索引，写入通知时查找
+        private ConcurrentMap<String, ConcurrentMap<Short, SendArchiveItem>> itemIndex = new ConcurrentHashMap<>();
 
         /**
          * 获取列表中所有归档项
@@ -637,6 +761,18 @@ public class ProduceArchiveService extends Service {
             return cpList;
         }
 
+        /**
+         * 获取指定主题、分区的归档项
+         *
+         * @param topic
+         * @param partition
+         * @return 归档项
+         */
+        public SendArchiveItem get(String topic, short partition) {
+            ConcurrentMap<Short, SendArchiveItem> partitionItems = itemIndex.get(topic);
+            return (partitionItems == null ? null : partitionItems.get(partition));
+        }
+
         /**
          * 移除列表中指定项
          *
@@ -645,6 +781,10 @@ public class ProduceArchiveService extends Service {
         public void remove(SendArchiveItem item) throws JoyQueueException {
             // 移除列表
             cpList.remove(item);
+            ConcurrentMap<Short, SendArchiveItem> partitionItems = itemIndex.get(item.getTopic());
+            if (partitionItems != null) {
+                partitionItems.remove(item.getPartition());
+            }
             // clean archive position from store
             archiveStore.cleanPosition(item.getTopic(),item.getPartition());
         }
@@ -686,6 +826,8 @@ public class ProduceArchiveService extends Service {
                     }
                     item.setReadIndex(index);
                     cpList.add(item);
+                    itemIndex.computeIfAbsent(item.getTopic(), key -> new ConcurrentHashMap<>()).put(item.getPartition(), item);
+                    schedule(item);
                 }
             }
         }
@@ -19,12 +19,14 @@ import org.joyqueue.message.BrokerMessage;
 import org.joyqueue.message.BrokerPrepare;
 import org.joyqueue.message.JoyQueueLog;
 import org.joyqueue.message.Message;
+import org.joyqueue.store.message.MessageParser;
 import org.joyqueue.toolkit.io.Compressors;
 import org.joyqueue.toolkit.io.Zip;
 import org.joyqueue.toolkit.io.ZipUtil;
 import com.google.common.base.Charsets;
 import org.joyqueue.toolkit.serialize.AbstractSerializer;
 import org.joyqueue.toolkit.time.SystemClock;
+import org.apache.commons.lang3.StringUtils;
 import io.netty.buffer.ByteBuf;
 
 import java.io.UnsupportedEncodingException;
@@ -67,48 +69,115 @@ public class Serializer extends AbstractSerializer {
     private static final byte MESSAGE_VERSION_V1 = 1;
     private static final byte CURRENT_MESSAGE_VERSION = MESSAGE_VERSION_V1;
 
-    public static short readPartition(ByteBuffer byteBuffer) {
-        ByteBuffer slice = byteBuffer.slice();
-        slice.position(4);
-        short partition = slice.getShort();
+    // 系统字段中各标识的位置，见write方法中的说明
+    private static final int SYS_COMPRESSED_MASK = 0x1;
+    private static final int SYS_SOURCE_SHIFT = 2;
+    private static final int SYS_COMPRESSION_TYPE_SHIFT = 4;
+    private static final int SYS_VERSION_SHIFT = 8;
+    private static final int SYS_BATCH_SHIFT = 12;
 
-        return partition;
+    public static short readPartition(ByteBuffer byteBuffer) {
+        return MessageParser.getShort(byteBuffer, MessageParser.PARTITION);
     }
 
     public static long readIndex(ByteBuffer byteBuffer) {
-        ByteBuffer slice = byteBuffer.slice();
-        slice.position(6);
-        long index = slice.getLong();
-
-        return index;
+        return MessageParser.getLong(byteBuffer, MessageParser.INDEX);
     }
 
     public static short readFlag(ByteBuffer byteBuffer) {
-        ByteBuffer slice = byteBuffer.slice();
-        slice.position(59);
-        short flag = slice.getShort();
-
-        return flag;
+        return MessageParser.getShort(byteBuffer, MessageParser.FLAG);
     }
 
     public static long readSendTime(ByteBuffer byteBuffer) {
-        ByteBuffer slice = byteBuffer.slice();
-        slice.position(39);
-        long sendTime = slice.getLong();
-
-        return sendTime;
+        return MessageParser.getLong(byteBuffer, MessageParser.CLIENT_TIMESTAMP);
     }
 
     public static void setPartition(ByteBuffer byteBuffer, short partition) {
-        ByteBuffer slice = byteBuffer.slice();
-        slice.position(4);
-        slice.putShort(partition);
+        MessageParser.setShort(byteBuffer, MessageParser.PARTITION, partition);
     }
 
     public static void setIndex(ByteBuffer byteBuffer, long index) {
-        ByteBuffer slice = byteBuffer.slice();
-        slice.position(6);
-        slice.putLong(index);
+        MessageParser.setLong(byteBuffer, MessageParser.INDEX, index);
+    }
+
+    /**
+     * 读取2字节系统字段
+     *
+     * @param byteBuffer 存储的消息
+     * @return 系统字段
+     */
+    public static short readSysCode(ByteBuffer byteBuffer) {
+        return MessageParser.getShort(byteBuffer, MessageParser.SYS);
+    }
+
+    /**
+     * 是否批消息，只读取消息头，不解析消息体
+     *
+     * @param byteBuffer 存储的消息
+     * @return 是否批消息
+     */
+    public static boolean isBatch(ByteBuffer byteBuffer) {
+        return ((readSysCode(byteBuffer) >> SYS_BATCH_SHIFT) & 1) == 1;
+    }
+
+    /**
+     * 是否压缩，只读取消息头，不解析消息体
+     *
+     * @param byteBuffer 存储的消息
+     * @return 是否压缩
+     */
+    public static boolean isCompressed(ByteBuffer byteBuffer) {
+        return (readSysCode(byteBuffer) & SYS_COMPRESSED_MASK) != 0;
+    }
+
+    /**
+     * 读取消息来源
+     *
+     * @param byteBuffer 存储的消息
+     * @return 消息来源
+     */
+    public static byte readSource(ByteBuffer byteBuffer) {
+        return (byte) (readSysCode(byteBuffer) >> SYS_SOURCE_SHIFT & 0x3);
+    }
+
+    /**
+     * 读取压缩算法，未压缩返回null
+     *
+     * @param byteBuffer 存储的消息
+     * @return 压缩算法
+     */
+    public static Message.CompressionType readCompressionType(ByteBuffer byteBuffer) {
+        short sysCode = readSysCode(byteBuffer);
+        if ((sysCode & SYS_COMPRESSED_MASK) == 0) {
+            return null;
+        }
+        byte version = (byte) ((sysCode >> SYS_VERSION_SHIFT) & 15);
+        int mask = (version == MESSAGE_VERSION_V0 ? 3 : 7);
+        return Message.CompressionType.valueOf(sysCode >> SYS_COMPRESSION_TYPE_SHIFT & mask);
+    }
+
+    /**
+     * 读取消息条数，批消息返回批量条数，否则返回1
+     *
+     * @param byteBuffer 存储的消息
+     * @return 消息条数
+     */
+    public static int readMessageCount(ByteBuffer byteBuffer) {
+        return isBatch(byteBuffer) ? readFlag(byteBuffer) : 1;
+    }
+
+    /**
+     * 读取业务ID，只按偏移量读取，不复制消息体
+     *
+     * @param byteBuffer 存储的消息
+     * @return 业务ID
+     */
+    public static String readBusinessId(ByteBuffer byteBuffer) {
+        ByteBuffer businessId = MessageParser.getByteBuffer(byteBuffer, MessageParser.BIZ_ID);
+        if (!businessId.hasRemaining()) {
+            return StringUtils.EMPTY;
+        }
+        return Charsets.UTF_8.decode(businessId).toString();
     }
 
     public static BrokerPrepare readBrokerPrepare(final ByteBuffer in) throws Exception {
@@ -27,6 +27,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.joyqueue.broker.BrokerContext;
 import org.joyqueue.broker.cluster.config.ClusterConfig;
 import org.joyqueue.broker.cluster.entry.ClusterNode;
+import org.joyqueue.broker.cluster.entry.TopicRouting;
 import org.joyqueue.broker.cluster.event.CompensateEvent;
 import org.joyqueue.broker.config.BrokerConfig;
 import org.joyqueue.broker.consumer.ConsumeConfigKey;
@@ -77,7 +78,6 @@ import java.io.FileReader;
 import java.io.FileWriter;
 import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Iterator;
@@ -91,6 +91,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 集群管理
@@ -112,6 +113,11 @@ public class ClusterManager extends Service {
     private NameService nameService;
     // 集群管理本地缓存
     private MetaDataLocalCache localCache;
+
+    // K=主题，V=路由快照; 生产消费请求的检查只做一次查找
+    private final ConcurrentMap<String, TopicRouting> routingCache = new ConcurrentHashMap<>();
+    // 元数据变更版本，构建快照期间发生变更则丢弃快照
+    private final AtomicLong routingVersion = new AtomicLong();
     // 元数据事件
     private EventBus<MetaEvent> eventBus = new EventBus("joyqueue-cluster-eventBus");
 
@@ -349,9 +355,9 @@ public class ClusterManager extends Service {
      * @return
      */
     public PartitionGroup getPartitionGroup(TopicName topic, short partition) {
-        TopicConfig topicConfig = getTopicConfig(topic);
-        if (topicConfig != null) {
-            return topicConfig.fetchPartitionGroupByPartition(partition);
+        TopicRouting routing = getTopicRouting(topic);
+        if (routing != null) {
+            return routing.getPartitionGroup(partition);
         }
         return null;
     }
@@ -443,7 +449,7 @@ public class ClusterManager extends Service {
      * @return
      */
     public Consumer.ConsumerPolicy getConsumerPolicy(TopicName topic, String app) throws JoyQueueException {
-        Consumer consumer = localCache.getConsumerByTopicAndApp(topic, app);
+        Consumer consumer = tryGetConsumer(topic, app);
         if (null == consumer) {
             if (StringUtils.equals(brokerConfig.getAdminUser(), app)) {
                 return brokerContext.getConsumerPolicy();
@@ -499,7 +505,18 @@ public class ClusterManager extends Service {
     }
 
     public Consumer tryGetConsumer(TopicName topic, String app) {
-        return localCache.getConsumerByTopicAndApp(topic, app);
+        TopicRouting routing = routingCache.get(topic.getFullName());
+        if (routing == null) {
+            return localCache.getConsumerByTopicAndApp(topic, app);
+        }
+        Consumer consumer = routing.getConsumer(app);
+        if (consumer == null) {
+            consumer = localCache.getConsumerByTopicAndApp(topic, app);
+            if (consumer != null) {
+                routing.putConsumer(app, consumer);
+            }
+        }
+        return consumer;
     }
 
     /**
@@ -510,7 +527,7 @@ public class ClusterManager extends Service {
      * @return
      */
     public Consumer.ConsumerPolicy tryGetConsumerPolicy(TopicName topic, String app) {
-        Consumer consumer = localCache.getConsumerByTopicAndApp(topic, app);
+        Consumer consumer = tryGetConsumer(topic, app);
         if (consumer == null) {
             if (StringUtils.equals(brokerConfig.getAdminUser(), app)) {
                 return brokerContext.getConsumerPolicy();
@@ -528,7 +545,7 @@ public class ClusterManager extends Service {
      * @return
      */
     public Producer.ProducerPolicy tryGetProducerPolicy(TopicName topic, String app) {
-        Producer producer = localCache.getProducerByTopicAndApp(topic, app);
+        Producer producer = tryGetProducer(topic, app);
         if (producer == null) {
             if (StringUtils.equals(brokerConfig.getAdminUser(), app)) {
                 return brokerContext.getProducerPolicy();
@@ -564,7 +581,18 @@ public class ClusterManager extends Service {
     }
 
     public Producer tryGetProducer(TopicName topic, String app) {
-        return localCache.getProducerByTopicAndApp(topic, app);
+        TopicRouting routing = routingCache.get(topic.getFullName());
+        if (routing == null) {
+            return localCache.getProducerByTopicAndApp(topic, app);
+        }
+        Producer producer = routing.getProducer(app);
+        if (producer == null) {
+            producer = localCache.getProducerByTopicAndApp(topic, app);
+            if (producer != null) {
+                routing.putProducer(app, producer);
+            }
+        }
+        return producer;
     }
 
     /**
@@ -575,7 +603,7 @@ public class ClusterManager extends Service {
      * @return
      */
     public Producer.ProducerPolicy getProducerPolicy(TopicName topic, String app) throws JoyQueueException {
-        Producer producer = localCache.getProducerByTopicAndApp(topic, app);
+        Producer producer = tryGetProducer(topic, app);
         if (null == producer) {
             if (StringUtils.equals(brokerConfig.getAdminUser(), app)) {
                 return brokerContext.getProducerPolicy();
@@ -620,11 +648,11 @@ public class ClusterManager extends Service {
     }
 
     public boolean isLeader(TopicName topic, short partition) {
-        TopicConfig topicConfig = getTopicConfig(topic);
-        if (topicConfig == null) {
+        TopicRouting routing = getTopicRouting(topic);
+        if (routing == null) {
             return false;
         }
-        PartitionGroup partitionGroup = topicConfig.fetchPartitionGroupByPartition(partition);
+        PartitionGroup partitionGroup = routing.getPartitionGroup(partition);
         return (partitionGroup != null && isLeader(partitionGroup));
     }
 
@@ -642,6 +670,68 @@ public class ClusterManager extends Service {
         return (clusterNode.getLeader() == getBrokerId());
     }
 
+    /**
+     * 获取主题路由快照，不存在时根据主题配置构建
+     *
+     * @param topic 主题
+     * @return 路由快照，没有主题配置返回null
+     */
+    protected TopicRouting getTopicRouting(TopicName topic) {
+        TopicRouting routing = routingCache.get(topic.getFullName());
+        if (routing != null) {
+            return routing;
+        }
+        long version = routingVersion.get();
+        TopicConfig topicConfig = getTopicConfig(topic);
+        if (topicConfig == null) {
+            return null;
+        }
+        routing = new TopicRouting(topicConfig, getBrokerId(), version);
+        TopicRouting oldRouting = routingCache.putIfAbsent(topic.getFullName(), routing);
+        if (oldRouting != null) {
+            return oldRouting;
+        }
+        // 构建期间元数据有变更，快照可能是旧的，本次使用后丢弃
+        if (routingVersion.get() != version) {
+            routingCache.remove(topic.getFullName(), routing);
+        }
+        return routing;
+    }
+
+    protected void invalidateTopicRouting(TopicName topic) {
+        routingVersion.incrementAndGet();
+        routingCache.remove(topic.getFullName());
+    }
+
+    protected void invalidateAllTopicRouting() {
+        routingVersion.incrementAndGet();
+        routingCache.clear();
+    }
+
+    /**
+     * 当前broker上是否有分区组是leader
+     */
+    protected boolean hasLeader(PartitionGroup[] partitionGroups) {
+        for (PartitionGroup partitionGroup : partitionGroups) {
+            if (isLeader(partitionGroup)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected boolean isInBlackList(Set<String> blackList, String address) {
+        if (blackList == null || blackList.isEmpty()) {
+            return false;
+        }
+        for (String ip : blackList) {
+            if (ip.trim().equals(address)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * 检查是否能生产数据
      * <br>
@@ -662,12 +752,16 @@ public class ClusterManager extends Service {
             return brokerWritable;
         }
 
-        TopicConfig topicConfig = getTopicConfig(topic);
-        if (topicConfig == null) {
+        TopicRouting routing = getTopicRouting(topic);
+        if (routing == null) {
             // 没有主题配置
             logger.error("topic[{}] app[{}] cant't be write on broker [{}],has no topicConfig", topic, app, broker.getId() + "[" + broker.getIp() + ":" + broker.getPort() + "]");
             return BooleanResponse.failed(JoyQueueCode.FW_TOPIC_NOT_EXIST);
         }
+        return checkWritable(routing, topic, app, address);
+    }
+
+    protected BooleanResponse checkWritable(TopicRouting routing, TopicName topic, String app, String address) {
         Producer.ProducerPolicy producerPolicy = null;
         try {
             producerPolicy = getProducerPolicy(topic, app);
@@ -676,15 +770,12 @@ public class ClusterManager extends Service {
             return BooleanResponse.failed(JoyQueueCode.valueOf(e.getCode()));
         }
         Set<String> blackList = producerPolicy != null ? producerPolicy.getBlackList() : null;
-        if (blackList != null) {
-            if (blackList.stream().anyMatch(ip -> ip.trim().equals(address))) {
-                // 是否在生产黑名单内
-                logger.error("topic[{}] app[{}] cant't be write on broker [] in blacklist", topic, app, broker.getId() + "[" + broker.getIp() + ":" + broker.getPort() + "]");
-                return BooleanResponse.failed(JoyQueueCode.FW_PUT_MESSAGE_TOPIC_NOT_WRITE);
-            }
+        if (isInBlackList(blackList, address)) {
+            // 是否在生产黑名单内
+            logger.error("topic[{}] app[{}] cant't be write on broker [] in blacklist", topic, app, broker.getId() + "[" + broker.getIp() + ":" + broker.getPort() + "]");
+            return BooleanResponse.failed(JoyQueueCode.FW_PUT_MESSAGE_TOPIC_NOT_WRITE);
         }
-        Collection<PartitionGroup> partitionGroups = topicConfig.fetchTopicPartitionGroupsByBrokerId(broker.getId());
-        if (partitionGroups.stream().noneMatch(partitionGroup -> isLeader(partitionGroup))) {
+        if (!hasLeader(routing.getReplicaGroups())) {
             logger.error("topic[{}] cant't be write on broker [] ", topic, app, broker.getId() + "[" + broker.getIp() + ":" + broker.getPort() + "]");
             return BooleanResponse.failed(JoyQueueCode.FW_PRODUCE_MESSAGE_BROKER_NOT_LEADER);
         }
@@ -706,12 +797,20 @@ public class ClusterManager extends Service {
      * @Param partition
      */
     public BooleanResponse checkWritable(TopicName topic, String app, String address, short partition) {
-        BooleanResponse response = checkWritable(topic, app, address);
+        BooleanResponse brokerWritable = checkBrokerWritable();
+        if (!brokerWritable.isSuccess()) {
+            return brokerWritable;
+        }
+        TopicRouting routing = getTopicRouting(topic);
+        if (routing == null) {
+            logger.error("topic[{}] app[{}] cant't be write on broker [{}],has no topicConfig", topic, app, broker.getId() + "[" + broker.getIp() + ":" + broker.getPort() + "]");
+            return BooleanResponse.failed(JoyQueueCode.FW_TOPIC_NOT_EXIST);
+        }
+        BooleanResponse response = checkWritable(routing, topic, app, address);
         if (!response.isSuccess()) {
             return response;
         }
-        TopicConfig topicConfig = getTopicConfig(topic);
-        PartitionGroup group = topicConfig.fetchPartitionGroupByPartition(partition);
+        PartitionGroup group = routing.getPartitionGroup(partition);
         if (group == null || !isLeader(group)) {
             logger.error("topic[{}],app[{}],partition[{}],error[{}]", topic, app,partition, JoyQueueCode.FW_FETCH_TOPIC_MESSAGE_BROKER_NOT_LEADER.getMessage());
             return BooleanResponse.failed(JoyQueueCode.FW_PRODUCE_MESSAGE_BROKER_NOT_LEADER);
@@ -740,11 +839,15 @@ public class ClusterManager extends Service {
             return brokerReadable;
         }
 
-        TopicConfig topicConfig = getTopicConfig(topic);
-        if (topicConfig == null) {
+        TopicRouting routing = getTopicRouting(topic);
+        if (routing == null) {
             // 没有主题配置
             return BooleanResponse.failed(JoyQueueCode.FW_TOPIC_NOT_EXIST);
         }
+        return checkReadable(routing, topic, app, address);
+    }
+
+    protected BooleanResponse checkReadable(TopicRouting routing, TopicName topic, String app, String address) {
         Consumer.ConsumerPolicy consumerPolicy = null;
         try {
             consumerPolicy = getConsumerPolicy(topic, app);
@@ -758,17 +861,13 @@ public class ClusterManager extends Service {
             logger.info("topic is paused, topic: {}, app: {}", topic, app);
             return BooleanResponse.failed(JoyQueueCode.FW_FETCH_TOPIC_MESSAGE_PAUSED);
         }
-        Set<String> blackList = consumerPolicy.getBlackList();
-        if (blackList != null) {
-            // 是否在消费黑名单内
-            if (blackList.stream().anyMatch(ip -> ip.trim().equals(address))) {
-                logger.info("app client ip not readable, topic: {}, app: {}, ip: {}", topic, app, address);
-                return BooleanResponse.failed(JoyQueueCode.FW_GET_MESSAGE_APP_CLIENT_IP_NOT_READ);
-            }
+        // 是否在消费黑名单内
+        if (isInBlackList(consumerPolicy.getBlackList(), address)) {
+            logger.info("app client ip not readable, topic: {}, app: {}, ip: {}", topic, app, address);
+            return BooleanResponse.failed(JoyQueueCode.FW_GET_MESSAGE_APP_CLIENT_IP_NOT_READ);
         }
-        Collection<PartitionGroup> partitionGroups = topicConfig.fetchTopicPartitionGroupsByBrokerId(broker.getId());
         // 当前主题在该broker上有角色是master的分区组
-        if (partitionGroups.stream().noneMatch(partitionGroup -> isLeader(partitionGroup))) {
+        if (!hasLeader(routing.getReplicaGroups())) {
             logger.error("topic[{}],app[{}],error[{}]", topic, app, JoyQueueCode.FW_FETCH_TOPIC_MESSAGE_BROKER_NOT_LEADER.getMessage());
             return BooleanResponse.failed(JoyQueueCode.FW_FETCH_TOPIC_MESSAGE_BROKER_NOT_LEADER);
         }
@@ -789,12 +888,19 @@ public class ClusterManager extends Service {
      * @return 是否可读
      */
     public BooleanResponse checkReadable(TopicName topic, String app, String address, short partition) {
-        BooleanResponse response = checkReadable(topic, app, address);
+        BooleanResponse brokerReadable = checkBrokerReadable();
+        if (!brokerReadable.isSuccess()) {
+            return brokerReadable;
+        }
+        TopicRouting routing = getTopicRouting(topic);
+        if (routing == null) {
+            return BooleanResponse.failed(JoyQueueCode.FW_TOPIC_NOT_EXIST);
+        }
+        BooleanResponse response = checkReadable(routing, topic, app, address);
         if (!response.isSuccess()) {
             return response;
         }
-        TopicConfig topicConfig = getTopicConfig(topic);
-        PartitionGroup group = topicConfig.fetchPartitionGroupByPartition(partition);
+        PartitionGroup group = routing.getPartitionGroup(partition);
         if (group == null || !isLeader(group)) {
             logger.error("topic[{}],app[{}],partition[{}],error[{}]", topic, app,partition, JoyQueueCode.FW_FETCH_TOPIC_MESSAGE_BROKER_NOT_LEADER.getMessage());
             return BooleanResponse.failed(JoyQueueCode.FW_FETCH_TOPIC_MESSAGE_BROKER_NOT_LEADER);
@@ -1443,10 +1549,72 @@ public class ClusterManager extends Service {
                     }
                 }
 
+                // 缓存更新后再让路由快照失效，保证重建时读到新配置
+                invalidateTopicRouting(event);
+
                 if (!event.getEventType().equals(EventType.COMPENSATE)) {
                     publishEvent(event.getMetaEvent());
                 }
             }
+
+            protected void invalidateTopicRouting(NameServerEvent event) {
+                MetaEvent metaEvent = event.getMetaEvent();
+                switch (event.getEventType()) {
+                    case ADD_TOPIC: {
+                        ClusterManager.this.invalidateTopicRouting(((AddTopicEvent) metaEvent).getTopic().getName());
+                        break;
+                    }
+                    case UPDATE_TOPIC: {
+                        ClusterManager.this.invalidateTopicRouting(((UpdateTopicEvent) metaEvent).getOldTopic().getName());
+                        break;
+                    }
+                    case REMOVE_TOPIC: {
+                        ClusterManager.this.invalidateTopicRouting(((RemoveTopicEvent) metaEvent).getTopic().getName());
+                        break;
+                    }
+                    case ADD_PARTITION_GROUP: {
+                        ClusterManager.this.invalidateTopicRouting(((AddPartitionGroupEvent) metaEvent).getTopic());
+                        break;
+                    }
+                    case UPDATE_PARTITION_GROUP: {
+                        ClusterManager.this.invalidateTopicRouting(((UpdatePartitionGroupEvent) metaEvent).getTopic());
+                        break;
+                    }
+                    case REMOVE_PARTITION_GROUP: {
+                        ClusterManager.this.invalidateTopicRouting(((RemovePartitionGroupEvent) metaEvent).getTopic());
+                        break;
+                    }
+                    case ADD_CONSUMER: {
+                        ClusterManager.this.invalidateTopicRouting(((AddConsumerEvent) metaEvent).getTopic());
+                        break;
+                    }
+                    case UPDATE_CONSUMER: {
+                        ClusterManager.this.invalidateTopicRouting(((UpdateConsumerEvent) metaEvent).getTopic());
+                        break;
+                    }
+                    case REMOVE_CONSUMER: {
+                        ClusterManager.this.invalidateTopicRouting(((RemoveConsumerEvent) metaEvent).getTopic());
+                        break;
+                    }
+                    case ADD_PRODUCER: {
+                        ClusterManager.this.invalidateTopicRouting(((AddProducerEvent) metaEvent).getTopic());
+                        break;
+                    }
+                    case UPDATE_PRODUCER: {
+                        ClusterManager.this.invalidateTopicRouting(((UpdateProducerEvent) metaEvent).getTopic());
+                        break;
+                    }
+                    case REMOVE_PRODUCER: {
+                        ClusterManager.this.invalidateTopicRouting(((RemoveProducerEvent) metaEvent).getTopic());
+                        break;
+                    }
+                    case UPDATE_BROKER:
+                    case COMPENSATE: {
+                        invalidateAllTopicRouting();
+                        break;
+                    }
+                }
+            }
         }
 
         private class CacheConsumer {
@@ -0,0 +1,113 @@
+package org.joyqueue.broker.cluster.entry;
+
+import org.joyqueue.domain.Consumer;
+import org.joyqueue.domain.PartitionGroup;
+import org.joyqueue.domain.Producer;
+import org.joyqueue.domain.TopicConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * TopicRouting
+ * 主题路由快照，分区信息创建后不再变化，元数据变更时整体替换
+ * 应用的生产者和消费者按需填充，随快照一起失效
+ * author: gaohaoxiang
+ * date: 2020/4/2
+ */
+public class TopicRouting {
+
+    private static final PartitionGroup[] EMPTY_GROUPS = new PartitionGroup[0];
+
+    private final TopicConfig topicConfig;
+    private final long version;
+    // 下标为分区
+    private final PartitionGroup[] partitionGroups;
+    // 当前broker是副本的分区组
+    private final PartitionGroup[] replicaGroups;
+
+    private final ConcurrentMap<String, Producer> producers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Consumer> consumers = new ConcurrentHashMap<>();
+
+    public TopicRouting(TopicConfig topicConfig, int brokerId, long version) {
+        this.topicConfig = topicConfig;
+        this.version = version;
+
+        int maxPartition = -1;
+        List<PartitionGroup> replicaGroupList = new ArrayList<>();
+        if (topicConfig.getPartitionGroups() != null) {
+            for (PartitionGroup partitionGroup : topicConfig.getPartitionGroups().values()) {
+                if (partitionGroup.getPartitions() != null) {
+                    for (Short partition : partitionGroup.getPartitions()) {
+                        maxPartition = Math.max(maxPartition, partition);
+                    }
+                }
+                if (partitionGroup.getReplicas() != null && partitionGroup.getReplicas().contains(brokerId)) {
+                    replicaGroupList.add(partitionGroup);
+                }
+            }
+        }
+
+        this.partitionGroups = (maxPartition < 0 ? EMPTY_GROUPS : new PartitionGroup[maxPartition + 1]);
+        if (topicConfig.getPartitionGroups() != null) {
+            for (PartitionGroup partitionGroup : topicConfig.getPartitionGroups().values()) {
+                if (partitionGroup.getPartitions() == null) {
+                    continue;
+                }
+                for (Short partition : partitionGroup.getPartitions()) {
+                    if (partition >= 0) {
+                        partitionGroups[partition] = partitionGroup;
+                    }
+                }
+            }
+        }
+        this.replicaGroups = replicaGroupList.toArray(EMPTY_GROUPS);
+    }
+
+    public PartitionGroup getPartitionGroup(short partition) {
+        if (partition < 0 || partition >= partitionGroups.length) {
+            return null;
+        }
+        return partitionGroups[partition];
+    }
+
+    public PartitionGroup[] getReplicaGroups() {
+        return replicaGroups;
+    }
+
+    public Producer getProducer(String app) {
+        return producers.get(app);
+    }
+
+    public void putProducer(String app, Producer producer) {
+        producers.put(app, producer);
+    }
+
+    public Consumer getConsumer(String app) {
+        return consumers.get(app);
+    }
+
+    public void putConsumer(String app, Consumer consumer) {
+        consumers.put(app, consumer);
+    }
+
+    public TopicConfig getTopicConfig() {
+        return topicConfig;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        return "TopicRouting{" +
+                "topic=" + topicConfig.getName() +
+                ", version=" + version +
+                ", partitions=" + partitionGroups.length +
+                ", replicaGroups=" + replicaGroups.length +
+                '}';
+    }
+}
\ No newline at end of file
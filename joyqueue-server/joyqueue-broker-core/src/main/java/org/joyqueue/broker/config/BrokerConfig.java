@@ -171,6 +171,33 @@ public class BrokerConfig implements PropertySupplierAware {
         return propertySupplier.getValue(BrokerConfigKey.FRONTEND_SERVER_PRODUCE_THREAD_QUEUE_SIZE);
     }
 
+    public boolean getServerThreadAdaptive() {
+        return propertySupplier.getValue(BrokerConfigKey.FRONTEND_SERVER_THREAD_ADAPTIVE);
+    }
+
+    public int getServerThreadAdaptiveInterval() {
+        return propertySupplier.getValue(BrokerConfigKey.FRONTEND_SERVER_THREAD_ADAPTIVE_INTERVAL);
+    }
+
+    public int getServerThreadAdaptiveQueueTime() {
+        return propertySupplier.getValue(BrokerConfigKey.FRONTEND_SERVER_THREAD_ADAPTIVE_QUEUE_TIME);
+    }
+
+    public int getServerThreadAdaptiveMaxRatio() {
+        return propertySupplier.getValue(BrokerConfigKey.FRONTEND_SERVER_THREAD_ADAPTIVE_MAX_RATIO);
+    }
+
+    public boolean getServerVirtualThreads() {
+        return propertySupplier.getValue(BrokerConfigKey.FRONTEND_SERVER_VIRTUAL_THREADS);
+    }
+
+    public int getServerVirtualThreadConcurrency(String protocol, int type) {
+        return PropertySupplier.getValue(propertySupplier,
+                BrokerConfigKey.FRONTEND_SERVER_VIRTUAL_THREAD_CONCURRENCY_PREFIX.getName() + protocol + "." + type,
+                BrokerConfigKey.FRONTEND_SERVER_VIRTUAL_THREAD_CONCURRENCY_PREFIX.getType(),
+                propertySupplier.getValue(BrokerConfigKey.FRONTEND_SERVER_VIRTUAL_THREAD_CONCURRENCY));
+    }
+
     public boolean getLogDetail(String app) {
         return (boolean) propertySupplier.getValue(BrokerConfigKey.LOG_DETAIL)
                 || (boolean) PropertySupplier.getValue(propertySupplier,
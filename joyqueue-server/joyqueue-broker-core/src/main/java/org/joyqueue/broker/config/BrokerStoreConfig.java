@@ -49,7 +49,11 @@ public class BrokerStoreConfig {
         CLEAN_SCHEDULE_END("store.clean.schedule.end", DEFAULT_STORE_CLEAN_SCHEDULE_END, Type.LONG),
         FORCE_RESTORE("store.force.restore", true, Type.BOOLEAN),
         STORE_DISK_USAGE_MAX("store.disk.usage.max",DEFAULT_STORE_DISK_USAGE_MAX,Type.INT),
-        STORE_DISK_USAGE_SAFE("store.disk.usage.safe",DEFAULT_STORE_DISK_USAGE_SAFE,Type.INT);
+        STORE_DISK_USAGE_SAFE("store.disk.usage.safe",DEFAULT_STORE_DISK_USAGE_SAFE,Type.INT),
+        // 启动时恢复存储的线程数，0表示按cpu核数计算
+        RECOVER_THREADS("store.recover.threads", 0, Type.INT),
+        // 启动恢复进度日志的输出间隔
+        RECOVER_PROGRESS_INTERVAL("store.recover.progress.interval", 1000 * 10, Type.INT);
         private String name;
         private Object value;
         private Type type;
@@ -150,6 +154,17 @@ public class BrokerStoreConfig {
         return PropertySupplier.getValue(propertySupplier, BrokerStoreConfigKey.STORE_DISK_USAGE_SAFE);
     }
 
+    /**
+     * Store recover threads, 0 means by cores
+     **/
+    public int getRecoverThreads() {
+        return PropertySupplier.getValue(propertySupplier, BrokerStoreConfigKey.RECOVER_THREADS);
+    }
+
+    public int getRecoverProgressInterval() {
+        return PropertySupplier.getValue(propertySupplier, BrokerStoreConfigKey.RECOVER_PROGRESS_INTERVAL);
+    }
+
     /**
      *  Application Data path
      *  @return application data path
@@ -30,7 +30,6 @@ import org.joyqueue.domain.Partition;
 import org.joyqueue.domain.TopicName;
 import org.joyqueue.exception.JoyQueueCode;
 import org.joyqueue.exception.JoyQueueException;
-import org.joyqueue.message.BrokerMessage;
 import org.joyqueue.message.MessageLocation;
 import org.joyqueue.network.session.Connection;
 import org.joyqueue.network.session.Consumer;
@@ -393,12 +392,7 @@ class ConcurrentConsumption extends Service implements ConcurrentConsumer {
         int count = 0;
         List<ByteBuffer> buffers = pullResult.getBuffers();
         for (ByteBuffer buffer : buffers) {
-            BrokerMessage header = Serializer.readBrokerMessageHeader(buffer);
-            if (header.isBatch()) {
-                count += header.getFlag();
-            } else {
-                count += 1;
-            }
+            count += Serializer.readMessageCount(buffer);
         }
         return count;
     }
@@ -106,4 +106,8 @@ public class ConsumeConfig {
     public int getPartitionSelectRetryMax() {
         return propertySupplier.getValue(ConsumeConfigKey.PARTITION_SELECT_RETRY_MAX);
     }
+
+    public String getZstdDictionaries() {
+        return propertySupplier.getValue(ConsumeConfigKey.ZSTD_DICTIONARIES);
+    }
 }
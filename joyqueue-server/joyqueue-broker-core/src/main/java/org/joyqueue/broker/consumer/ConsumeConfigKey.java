@@ -42,6 +42,9 @@ public enum ConsumeConfigKey implements PropertyDef {
 
     PARTITION_SELECT_RETRY_MAX("consume.partition.select.retry.max", 20, Type.INT),
 
+    // zstd字典，格式为 topic:path[,topic:path]，转换其他协议消息时解压使用
+    ZSTD_DICTIONARIES("consume.zstd.dictionaries", "", Type.STRING),
+
     ;
     private String name;
     private Object value;
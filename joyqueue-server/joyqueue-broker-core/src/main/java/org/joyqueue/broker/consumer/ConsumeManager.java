@@ -41,7 +41,6 @@ import org.joyqueue.event.EventType;
 import org.joyqueue.event.MetaEvent;
 import org.joyqueue.exception.JoyQueueCode;
 import org.joyqueue.exception.JoyQueueException;
-import org.joyqueue.message.BrokerMessage;
 import org.joyqueue.message.MessageLocation;
 import org.joyqueue.network.session.Connection;
 import org.joyqueue.network.session.Consumer;
@@ -397,12 +396,7 @@ public class ConsumeManager extends Service implements Consume, BrokerContextAwa
             int messageSize = 0;
             for (ByteBuffer buffer : pullResult.getBuffers()) {
                 messageSize += buffer.limit();
-                BrokerMessage brokerMessage = Serializer.readBrokerMessageHeader(buffer);
-                if (brokerMessage.isBatch()) {
-                    messageCount += brokerMessage.getFlag();
-                } else {
-                    messageCount += 1;
-                }
+                messageCount += Serializer.readMessageCount(buffer);
             }
             brokerMonitor.onGetMessage(consumer.getTopic(), consumer.getApp(), partitionGroup, pullResult.getPartition(), messageCount, messageSize, now - startTime);
         }
@@ -28,7 +28,6 @@ import org.joyqueue.domain.Partition;
 import org.joyqueue.domain.TopicName;
 import org.joyqueue.exception.JoyQueueCode;
 import org.joyqueue.exception.JoyQueueException;
-import org.joyqueue.message.BrokerMessage;
 import org.joyqueue.message.MessageLocation;
 import org.joyqueue.network.session.Connection;
 import org.joyqueue.network.session.Consumer;
@@ -487,12 +486,7 @@ public class SlideWindowConcurrentConsumer extends Service implements Concurrent
     private int count(List<ByteBuffer> buffers) {
         int count = 0;
         for (ByteBuffer buffer : buffers) {
-            BrokerMessage header = Serializer.readBrokerMessageHeader(buffer);
-            if (header.isBatch()) {
-                count += header.getFlag();
-            } else {
-                count += 1;
-            }
+            count += Serializer.readMessageCount(buffer);
         }
         return count;
     }
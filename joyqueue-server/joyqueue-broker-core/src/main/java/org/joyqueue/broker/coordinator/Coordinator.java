@@ -68,6 +68,12 @@ public class Coordinator {
         return config.getGroupTopic().getFullName().equals(topic.getFullName());
     }
 
+    // limit
+
+    public Broker findLimit(String topic) {
+        return coordinatorResolver.findCoordinator(topic, config.getGroupTopic());
+    }
+
     // transaction
 
     public boolean isCurrentTransaction(String key) {
@@ -20,9 +20,12 @@ import org.joyqueue.broker.cluster.ClusterManager;
 import org.joyqueue.broker.coordinator.config.CoordinatorConfig;
 import org.joyqueue.broker.coordinator.config.CoordinatorConfigKey;
 import org.joyqueue.broker.coordinator.group.GroupMetadataManager;
+import org.joyqueue.broker.coordinator.limit.LimitTokenManager;
 import org.joyqueue.broker.coordinator.support.CoordinatorInitializer;
 import org.joyqueue.broker.coordinator.support.CoordinatorResolver;
 import org.joyqueue.broker.coordinator.transaction.TransactionMetadataManager;
+import org.joyqueue.broker.limit.config.LimitConfig;
+import org.joyqueue.broker.limit.support.LimitTokenLeaser;
 import org.joyqueue.broker.network.support.BrokerTransportClientFactory;
 import org.joyqueue.network.transport.config.TransportConfigSupport;
 import org.joyqueue.network.transport.session.session.TransportSessionManager;
@@ -49,6 +52,8 @@ public class CoordinatorService extends Service {
     private CoordinatorResolver coordinatorResolver;
     private TransportSessionManager coordinatorSessionManager;
     private Coordinator coordinator;
+    private LimitTokenManager limitTokenManager;
+    private LimitTokenLeaser limitTokenLeaser;
 
     private final ConcurrentMap<String, GroupMetadataManager> groupMetadataManagerMap = Maps.newConcurrentMap();
     private final ConcurrentMap<String, TransactionMetadataManager> transactionMetadataManagerMap = Maps.newConcurrentMap();
@@ -62,16 +67,27 @@ public class CoordinatorService extends Service {
         this.coordinatorSessionManager = new TransportSessionManager(new TransportSessionConfig(propertySupplier),
                 TransportConfigSupport.buildClientConfig(propertySupplier, CoordinatorConfigKey.TRANSPORT_KEY_PREFIX), new BrokerTransportClientFactory());
         this.coordinator = new Coordinator(config, clusterManager, coordinatorResolver, coordinatorInitializer, coordinatorSessionManager);
+        this.limitTokenManager = new LimitTokenManager();
+        LimitConfig limitConfig = new LimitConfig(propertySupplier);
+        if (LimitConfig.LIMITER_CLUSTER.equals(limitConfig.getLimiterType())) {
+            this.limitTokenLeaser = new LimitTokenLeaser(limitConfig, clusterManager, this);
+        }
     }
 
     @Override
     protected void doStart() throws Exception {
         coordinatorInitializer.init();
         coordinatorSessionManager.start();
+        if (limitTokenLeaser != null) {
+            limitTokenLeaser.start();
+        }
     }
 
     @Override
     protected void doStop() {
+        if (limitTokenLeaser != null) {
+            limitTokenLeaser.stop();
+        }
         if (coordinatorSessionManager != null) {
             coordinatorSessionManager.stop();
         }
@@ -81,6 +97,17 @@ public class CoordinatorService extends Service {
         return coordinator;
     }
 
+    public LimitTokenManager getLimitTokenManager() {
+        return limitTokenManager;
+    }
+
+    /**
+     * 集群限流时向协调者租约令牌，非集群限流时为null
+     */
+    public LimitTokenLeaser getLimitTokenLeaser() {
+        return limitTokenLeaser;
+    }
+
     public GroupMetadataManager getOrCreateGroupMetadataManager(String namespace) {
         GroupMetadataManager groupMetadataManager = groupMetadataManagerMap.get(namespace);
         if (groupMetadataManager == null) {
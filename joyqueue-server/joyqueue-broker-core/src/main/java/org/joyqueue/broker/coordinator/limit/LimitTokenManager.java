@@ -0,0 +1,87 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.coordinator.limit;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.joyqueue.broker.coordinator.limit.domain.LimitTokenMetadata;
+import org.joyqueue.broker.limit.domain.LimitTokenLease;
+import org.joyqueue.toolkit.time.SystemClock;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * LimitTokenManager
+ * 集群限流协调者，各broker周期性上报需求并租约下个周期的令牌，未使用的令牌在下个周期重新分配
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/14
+ */
+public class LimitTokenManager {
+
+    private final ConcurrentMap<String, LimitTokenMetadata> metadataMap = Maps.newConcurrentMap();
+    private volatile long lastExpireTime;
+
+    public List<LimitTokenLease> lease(int brokerId, int interval, List<LimitTokenLease> leases) {
+        long now = SystemClock.now();
+        List<LimitTokenLease> result = Lists.newArrayListWithCapacity(leases.size());
+        for (LimitTokenLease lease : leases) {
+            LimitTokenMetadata metadata = getOrCreateMetadata(lease);
+            result.add(metadata.lease(brokerId, interval, lease, now));
+        }
+        if (now - lastExpireTime >= interval) {
+            lastExpireTime = now;
+            expire(now - (long) interval * LimitTokenMetadata.EXPIRE_INTERVALS);
+        }
+        return result;
+    }
+
+    /**
+     * 移除所有broker都不再续约的限流状态，主题或应用删除后不再占用内存
+     *
+     * @param expireTime 过期时间
+     */
+    protected void expire(long expireTime) {
+        for (Map.Entry<String, LimitTokenMetadata> entry : metadataMap.entrySet()) {
+            if (entry.getValue().isExpired(expireTime)) {
+                metadataMap.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    public int size() {
+        return metadataMap.size();
+    }
+
+    public LimitTokenMetadata getMetadata(String topic, String app, String type) {
+        return metadataMap.get(LimitTokenLease.getKey(topic, app, type));
+    }
+
+    protected LimitTokenMetadata getOrCreateMetadata(LimitTokenLease lease) {
+        String key = lease.getKey();
+        LimitTokenMetadata metadata = metadataMap.get(key);
+        if (metadata == null) {
+            metadata = new LimitTokenMetadata(lease.getTopic(), lease.getApp(), lease.getType());
+            LimitTokenMetadata oldMetadata = metadataMap.putIfAbsent(key, metadata);
+            if (oldMetadata != null) {
+                metadata = oldMetadata;
+            }
+        }
+        return metadata;
+    }
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.coordinator.limit.domain;
+
+import com.google.common.collect.Maps;
+import org.joyqueue.broker.limit.domain.LimitTokenLease;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * LimitTokenMetadata
+ * 单个topic，app，type的集群限流状态，记录各broker上个周期的需求量并按需求分配令牌
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/14
+ */
+public class LimitTokenMetadata {
+
+    // 超过该周期数未续约的broker不再参与分配
+    public static final int EXPIRE_INTERVALS = 5;
+
+    private String topic;
+    private String app;
+    private String type;
+    private final Map<Integer, Demand> demands = Maps.newHashMap();
+
+    public LimitTokenMetadata(String topic, String app, String type) {
+        this.topic = topic;
+        this.app = app;
+        this.type = type;
+    }
+
+    public synchronized LimitTokenLease lease(int brokerId, int interval, LimitTokenLease lease, long now) {
+        Demand demand = demands.get(brokerId);
+        if (demand == null) {
+            demand = new Demand();
+            demands.put(brokerId, demand);
+        }
+        demand.tps = lease.getTpsTokens();
+        demand.traffic = lease.getTrafficTokens();
+        demand.leaseTime = now;
+
+        expire(now - (long) interval * EXPIRE_INTERVALS);
+
+        double[] tpsDemands = new double[demands.size()];
+        double[] trafficDemands = new double[demands.size()];
+        int index = 0;
+        for (Demand value : demands.values()) {
+            tpsDemands[index] = value.tps;
+            trafficDemands[index] = value.traffic;
+            index++;
+        }
+
+        long tpsTokens = round(allocate(budget(lease.getTps(), interval), tpsDemands, demand.tps));
+        long trafficTokens = round(allocate(budget(lease.getTraffic(), interval), trafficDemands, demand.traffic));
+        return new LimitTokenLease(topic, app, type, lease.getTps(), lease.getTraffic(), tpsTokens, trafficTokens);
+    }
+
+    public synchronized int getBrokers() {
+        return demands.size();
+    }
+
+    /**
+     * 所有broker都超过过期时间未续约，说明主题或应用已经删除或不再限流
+     *
+     * @param expireTime 过期时间
+     * @return 是否过期
+     */
+    public synchronized boolean isExpired(long expireTime) {
+        expire(expireTime);
+        return demands.isEmpty();
+    }
+
+    protected void expire(long expireTime) {
+        Iterator<Demand> iterator = demands.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().leaseTime < expireTime) {
+                iterator.remove();
+            }
+        }
+    }
+
+    protected double budget(int limit, int interval) {
+        if (limit <= 0 || limit == Integer.MAX_VALUE) {
+            return 0;
+        }
+        return (double) limit * interval / 1000;
+    }
+
+    /**
+     * 按需求做最大最小公平分配，需求都满足后剩余令牌平均分给各broker作为余量
+     *
+     * @param budget  本周期令牌总数
+     * @param demands 各broker需求
+     * @param demand  当前broker需求
+     * @return 当前broker分配的令牌数
+     */
+    public static double allocate(double budget, double[] demands, double demand) {
+        if (budget <= 0 || demands.length == 0) {
+            return 0;
+        }
+        double[] sorted = demands.clone();
+        Arrays.sort(sorted);
+        double remaining = budget;
+        for (int i = 0; i < sorted.length; i++) {
+            double share = remaining / (sorted.length - i);
+            if (sorted[i] > share) {
+                return Math.min(demand, share);
+            }
+            remaining -= sorted[i];
+        }
+        return demand + remaining / sorted.length;
+    }
+
+    // 小数部分按概率取整，保证分配总数的期望等于预算
+    protected static long round(double tokens) {
+        long result = (long) tokens;
+        if (ThreadLocalRandom.current().nextDouble() < tokens - result) {
+            result++;
+        }
+        return result;
+    }
+
+    protected static class Demand {
+        private long tps;
+        private long traffic;
+        private long leaseTime;
+    }
+}
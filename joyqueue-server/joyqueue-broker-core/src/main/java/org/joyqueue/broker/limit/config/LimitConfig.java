@@ -27,6 +27,10 @@ public class LimitConfig {
 
     public static final int DELAY_DYNAMIC = -1;
 
+    public static final String LIMITER_TOKEN_BUCKET = "token_bucket";
+    public static final String LIMITER_GUAVA = "guava";
+    public static final String LIMITER_CLUSTER = "cluster";
+
     private PropertySupplier propertySupplier;
 
     public LimitConfig(PropertySupplier propertySupplier) {
@@ -52,4 +56,20 @@ public class LimitConfig {
     public String getRejectedStrategy() {
         return propertySupplier.getValue(LimitConfigKey.REJECTED_STRATEGY);
     }
+
+    public String getLimiterType() {
+        return propertySupplier.getValue(LimitConfigKey.LIMITER_TYPE);
+    }
+
+    public int getLimiterStripes() {
+        return propertySupplier.getValue(LimitConfigKey.LIMITER_STRIPES);
+    }
+
+    public int getLimiterClusterLeaseInterval() {
+        return propertySupplier.getValue(LimitConfigKey.LIMITER_CLUSTER_LEASE_INTERVAL);
+    }
+
+    public int getLimiterClusterLeaseTimeout() {
+        return propertySupplier.getValue(LimitConfigKey.LIMITER_CLUSTER_LEASE_TIMEOUT);
+    }
 }
\ No newline at end of file
@@ -40,6 +40,17 @@ public enum LimitConfigKey implements PropertyDef {
     // 拒绝策略
     REJECTED_STRATEGY("limit.rejected.strategy", "delay", PropertyDef.Type.STRING),
 
+    // 限流器实现，token_bucket，guava或cluster
+    LIMITER_TYPE("limit.limiter.type", LimitConfig.LIMITER_TOKEN_BUCKET, PropertyDef.Type.STRING),
+
+    // 令牌桶分段数，0按cpu数分段
+    LIMITER_STRIPES("limit.limiter.stripes", 1, PropertyDef.Type.INT),
+
+    // 集群限流，向协调者租约令牌的周期
+    LIMITER_CLUSTER_LEASE_INTERVAL("limit.limiter.cluster.lease.interval", 200, PropertyDef.Type.INT),
+    // 集群限流，租约超时后退化为单机限流
+    LIMITER_CLUSTER_LEASE_TIMEOUT("limit.limiter.cluster.lease.timeout", 1000, PropertyDef.Type.INT),
+
     ;
 
     private String name;
@@ -0,0 +1,125 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.limit.domain;
+
+/**
+ * LimitTokenLease
+ * 集群限流令牌租约，请求中tpsTokens和trafficTokens为上个周期的需求量，响应中为本周期分配的令牌数
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/14
+ */
+public class LimitTokenLease {
+
+    private String topic;
+    private String app;
+    private String type;
+    private int tps;
+    private int traffic;
+    private long tpsTokens;
+    private long trafficTokens;
+
+    public LimitTokenLease() {
+
+    }
+
+    public LimitTokenLease(String topic, String app, String type, int tps, int traffic, long tpsTokens, long trafficTokens) {
+        this.topic = topic;
+        this.app = app;
+        this.type = type;
+        this.tps = tps;
+        this.traffic = traffic;
+        this.tpsTokens = tpsTokens;
+        this.trafficTokens = trafficTokens;
+    }
+
+    public String getKey() {
+        return getKey(topic, app, type);
+    }
+
+    public static String getKey(String topic, String app, String type) {
+        return topic + ":" + app + ":" + type;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    public String getApp() {
+        return app;
+    }
+
+    public void setApp(String app) {
+        this.app = app;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public int getTps() {
+        return tps;
+    }
+
+    public void setTps(int tps) {
+        this.tps = tps;
+    }
+
+    public int getTraffic() {
+        return traffic;
+    }
+
+    public void setTraffic(int traffic) {
+        this.traffic = traffic;
+    }
+
+    public long getTpsTokens() {
+        return tpsTokens;
+    }
+
+    public void setTpsTokens(long tpsTokens) {
+        this.tpsTokens = tpsTokens;
+    }
+
+    public long getTrafficTokens() {
+        return trafficTokens;
+    }
+
+    public void setTrafficTokens(long trafficTokens) {
+        this.trafficTokens = trafficTokens;
+    }
+
+    @Override
+    public String toString() {
+        return "LimitTokenLease{" +
+                "topic='" + topic + '\'' +
+                ", app='" + app + '\'' +
+                ", type='" + type + '\'' +
+                ", tps=" + tps +
+                ", traffic=" + traffic +
+                ", tpsTokens=" + tpsTokens +
+                ", trafficTokens=" + trafficTokens +
+                '}';
+    }
+}
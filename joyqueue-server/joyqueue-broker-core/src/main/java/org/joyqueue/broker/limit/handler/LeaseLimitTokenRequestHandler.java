@@ -0,0 +1,58 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.limit.handler;
+
+import org.joyqueue.broker.BrokerContext;
+import org.joyqueue.broker.BrokerContextAware;
+import org.joyqueue.broker.coordinator.limit.LimitTokenManager;
+import org.joyqueue.broker.limit.domain.LimitTokenLease;
+import org.joyqueue.broker.limit.network.command.LeaseLimitTokenRequest;
+import org.joyqueue.broker.limit.network.command.LeaseLimitTokenResponse;
+import org.joyqueue.broker.network.BrokerCommandHandler;
+import org.joyqueue.network.command.CommandType;
+import org.joyqueue.network.transport.Transport;
+import org.joyqueue.network.transport.command.Command;
+import org.joyqueue.network.transport.command.Type;
+
+import java.util.List;
+
+/**
+ * LeaseLimitTokenRequestHandler
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/14
+ */
+public class LeaseLimitTokenRequestHandler implements Type, BrokerCommandHandler, BrokerContextAware {
+
+    private LimitTokenManager limitTokenManager;
+
+    @Override
+    public void setBrokerContext(BrokerContext brokerContext) {
+        this.limitTokenManager = brokerContext.getCoordinatorService().getLimitTokenManager();
+    }
+
+    @Override
+    public Command handle(Transport transport, Command command) {
+        LeaseLimitTokenRequest request = (LeaseLimitTokenRequest) command.getPayload();
+        List<LimitTokenLease> leases = limitTokenManager.lease(request.getBrokerId(), request.getInterval(), request.getLeases());
+        return new Command(new LeaseLimitTokenResponse(leases));
+    }
+
+    @Override
+    public int type() {
+        return CommandType.LEASE_LIMIT_TOKEN_REQUEST;
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.limit.network.codec;
+
+import com.google.common.collect.Lists;
+import io.netty.buffer.ByteBuf;
+import org.joyqueue.broker.limit.domain.LimitTokenLease;
+import org.joyqueue.broker.limit.network.command.LeaseLimitTokenRequest;
+import org.joyqueue.broker.network.codec.BrokerPayloadCodec;
+import org.joyqueue.network.command.CommandType;
+import org.joyqueue.network.serializer.Serializer;
+import org.joyqueue.network.transport.codec.JoyQueueHeader;
+import org.joyqueue.network.transport.command.Type;
+
+import java.util.List;
+
+/**
+ * LeaseLimitTokenRequestCodec
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/14
+ */
+public class LeaseLimitTokenRequestCodec implements Type, BrokerPayloadCodec<LeaseLimitTokenRequest> {
+
+    @Override
+    public Object decode(JoyQueueHeader header, ByteBuf buffer) throws Exception {
+        LeaseLimitTokenRequest request = new LeaseLimitTokenRequest();
+        request.setBrokerId(buffer.readInt());
+        request.setInterval(buffer.readInt());
+        int size = buffer.readInt();
+        List<LimitTokenLease> leases = Lists.newArrayListWithCapacity(size);
+        for (int i = 0; i < size; i++) {
+            leases.add(decodeLease(buffer));
+        }
+        request.setLeases(leases);
+        return request;
+    }
+
+    @Override
+    public void encode(LeaseLimitTokenRequest payload, ByteBuf buffer) throws Exception {
+        buffer.writeInt(payload.getBrokerId());
+        buffer.writeInt(payload.getInterval());
+        buffer.writeInt(payload.getLeases().size());
+        for (LimitTokenLease lease : payload.getLeases()) {
+            encodeLease(lease, buffer);
+        }
+    }
+
+    public static LimitTokenLease decodeLease(ByteBuf buffer) throws Exception {
+        LimitTokenLease lease = new LimitTokenLease();
+        lease.setTopic(Serializer.readString(buffer));
+        lease.setApp(Serializer.readString(buffer));
+        lease.setType(Serializer.readString(buffer));
+        lease.setTps(buffer.readInt());
+        lease.setTraffic(buffer.readInt());
+        lease.setTpsTokens(buffer.readLong());
+        lease.setTrafficTokens(buffer.readLong());
+        return lease;
+    }
+
+    public static void encodeLease(LimitTokenLease lease, ByteBuf buffer) throws Exception {
+        Serializer.write(lease.getTopic(), buffer);
+        Serializer.write(lease.getApp(), buffer);
+        Serializer.write(lease.getType(), buffer);
+        buffer.writeInt(lease.getTps());
+        buffer.writeInt(lease.getTraffic());
+        buffer.writeLong(lease.getTpsTokens());
+        buffer.writeLong(lease.getTrafficTokens());
+    }
+
+    @Override
+    public int type() {
+        return CommandType.LEASE_LIMIT_TOKEN_REQUEST;
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.limit.network.codec;
+
+import com.google.common.collect.Lists;
+import io.netty.buffer.ByteBuf;
+import org.joyqueue.broker.limit.domain.LimitTokenLease;
+import org.joyqueue.broker.limit.network.command.LeaseLimitTokenResponse;
+import org.joyqueue.broker.network.codec.BrokerPayloadCodec;
+import org.joyqueue.network.command.CommandType;
+import org.joyqueue.network.transport.codec.JoyQueueHeader;
+import org.joyqueue.network.transport.command.Type;
+
+import java.util.List;
+
+/**
+ * LeaseLimitTokenResponseCodec
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/14
+ */
+public class LeaseLimitTokenResponseCodec implements Type, BrokerPayloadCodec<LeaseLimitTokenResponse> {
+
+    @Override
+    public Object decode(JoyQueueHeader header, ByteBuf buffer) throws Exception {
+        int size = buffer.readInt();
+        List<LimitTokenLease> leases = Lists.newArrayListWithCapacity(size);
+        for (int i = 0; i < size; i++) {
+            leases.add(LeaseLimitTokenRequestCodec.decodeLease(buffer));
+        }
+        return new LeaseLimitTokenResponse(leases);
+    }
+
+    @Override
+    public void encode(LeaseLimitTokenResponse payload, ByteBuf buffer) throws Exception {
+        buffer.writeInt(payload.getLeases().size());
+        for (LimitTokenLease lease : payload.getLeases()) {
+            LeaseLimitTokenRequestCodec.encodeLease(lease, buffer);
+        }
+    }
+
+    @Override
+    public int type() {
+        return CommandType.LEASE_LIMIT_TOKEN_RESPONSE;
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.limit.network.command;
+
+import org.joyqueue.broker.limit.domain.LimitTokenLease;
+import org.joyqueue.network.command.CommandType;
+import org.joyqueue.network.transport.command.JoyQueuePayload;
+
+import java.util.List;
+
+/**
+ * LeaseLimitTokenRequest
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/14
+ */
+public class LeaseLimitTokenRequest extends JoyQueuePayload {
+
+    private int brokerId;
+    private int interval;
+    private List<LimitTokenLease> leases;
+
+    public LeaseLimitTokenRequest() {
+
+    }
+
+    public LeaseLimitTokenRequest(int brokerId, int interval, List<LimitTokenLease> leases) {
+        this.brokerId = brokerId;
+        this.interval = interval;
+        this.leases = leases;
+    }
+
+    public int getBrokerId() {
+        return brokerId;
+    }
+
+    public void setBrokerId(int brokerId) {
+        this.brokerId = brokerId;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public void setInterval(int interval) {
+        this.interval = interval;
+    }
+
+    public List<LimitTokenLease> getLeases() {
+        return leases;
+    }
+
+    public void setLeases(List<LimitTokenLease> leases) {
+        this.leases = leases;
+    }
+
+    @Override
+    public int type() {
+        return CommandType.LEASE_LIMIT_TOKEN_REQUEST;
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.limit.network.command;
+
+import org.joyqueue.broker.limit.domain.LimitTokenLease;
+import org.joyqueue.network.command.CommandType;
+import org.joyqueue.network.transport.command.JoyQueuePayload;
+
+import java.util.List;
+
+/**
+ * LeaseLimitTokenResponse
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/14
+ */
+public class LeaseLimitTokenResponse extends JoyQueuePayload {
+
+    private List<LimitTokenLease> leases;
+
+    public LeaseLimitTokenResponse() {
+
+    }
+
+    public LeaseLimitTokenResponse(List<LimitTokenLease> leases) {
+        this.leases = leases;
+    }
+
+    public List<LimitTokenLease> getLeases() {
+        return leases;
+    }
+
+    public void setLeases(List<LimitTokenLease> leases) {
+        this.leases = leases;
+    }
+
+    @Override
+    public int type() {
+        return CommandType.LEASE_LIMIT_TOKEN_RESPONSE;
+    }
+}
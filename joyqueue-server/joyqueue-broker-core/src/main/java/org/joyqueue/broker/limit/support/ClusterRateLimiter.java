@@ -0,0 +1,169 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.limit.support;
+
+import org.joyqueue.broker.limit.RateLimiter;
+import org.joyqueue.broker.limit.domain.LimitTokenLease;
+import org.joyqueue.toolkit.time.SystemClock;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ClusterRateLimiter
+ * 集群限流器，本地消耗从协调者租约的令牌，不需要每次请求都访问协调者，租约过期后退化为单机限流
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/14
+ */
+public class ClusterRateLimiter implements RateLimiter {
+
+    private String topic;
+    private String app;
+    private String type;
+    private int tps;
+    private int traffic;
+    private RateLimiter localRateLimiter;
+
+    private final TokenLease tpsLease = new TokenLease();
+    private final TokenLease trafficLease = new TokenLease();
+    private volatile long leaseExpireTime;
+
+    public ClusterRateLimiter(String topic, String app, String type, int tps, int traffic, RateLimiter localRateLimiter) {
+        this.topic = topic;
+        this.app = app;
+        this.type = type;
+        this.tps = tps;
+        this.traffic = traffic;
+        this.localRateLimiter = localRateLimiter;
+    }
+
+    @Override
+    public boolean tryAcquireTps() {
+        return tryAcquireTps(1);
+    }
+
+    @Override
+    public boolean tryAcquireTps(int tps) {
+        if (tps <= 0 || !isLimited(this.tps)) {
+            return true;
+        }
+        if (!isLeased()) {
+            tpsLease.addDemand(tps);
+            return localRateLimiter.tryAcquireTps(tps);
+        }
+        return tpsLease.tryAcquire(Math.min(tps, this.tps));
+    }
+
+    @Override
+    public boolean tryAcquireTraffic(int traffic) {
+        if (traffic <= 0 || !isLimited(this.traffic)) {
+            return true;
+        }
+        if (!isLeased()) {
+            trafficLease.addDemand(traffic);
+            return localRateLimiter.tryAcquireTraffic(traffic);
+        }
+        return trafficLease.tryAcquire(Math.min(traffic, this.traffic));
+    }
+
+    @Override
+    public boolean tryAcquireRequire() {
+        return localRateLimiter.tryAcquireRequire();
+    }
+
+    @Override
+    public boolean releaseRequire() {
+        return localRateLimiter.releaseRequire();
+    }
+
+    /**
+     * 取出上个周期的需求量，用于向协调者续约
+     */
+    public LimitTokenLease drain() {
+        return new LimitTokenLease(topic, app, type, tps, traffic, tpsLease.drainDemand(), trafficLease.drainDemand());
+    }
+
+    /**
+     * 更新租约，上个周期未用完的令牌已经由协调者重新分配，这里只保留透支的部分
+     */
+    public void renew(LimitTokenLease lease, long expireTime) {
+        tpsLease.renew(lease.getTpsTokens());
+        trafficLease.renew(lease.getTrafficTokens());
+        leaseExpireTime = expireTime;
+    }
+
+    public boolean isLeased() {
+        return SystemClock.now() < leaseExpireTime;
+    }
+
+    public String getKey() {
+        return LimitTokenLease.getKey(topic, app, type);
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public String getApp() {
+        return app;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    protected boolean isLimited(int limit) {
+        return limit > 0 && limit != Integer.MAX_VALUE;
+    }
+
+    protected static class TokenLease {
+
+        private final AtomicLong tokens = new AtomicLong();
+        private final LongAdder demand = new LongAdder();
+
+        public boolean tryAcquire(long permits) {
+            demand.add(permits);
+            while (true) {
+                long current = tokens.get();
+                // 与令牌桶相同，有剩余令牌即可获取，透支部分从下个租约中扣除
+                if (current <= 0) {
+                    return false;
+                }
+                if (tokens.compareAndSet(current, current - permits)) {
+                    return true;
+                }
+            }
+        }
+
+        public void addDemand(long permits) {
+            demand.add(permits);
+        }
+
+        public long drainDemand() {
+            return demand.sumThenReset();
+        }
+
+        public void renew(long granted) {
+            while (true) {
+                long current = tokens.get();
+                if (tokens.compareAndSet(current, granted + Math.min(current, 0))) {
+                    return;
+                }
+            }
+        }
+    }
+}
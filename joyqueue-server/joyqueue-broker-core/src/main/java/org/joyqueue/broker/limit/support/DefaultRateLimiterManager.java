@@ -18,6 +18,8 @@ package org.joyqueue.broker.limit.support;
 import org.joyqueue.broker.BrokerContext;
 import org.joyqueue.broker.cluster.ClusterManager;
 import org.joyqueue.broker.limit.LimitType;
+import org.joyqueue.broker.limit.RateLimiter;
+import org.joyqueue.broker.limit.config.LimitConfig;
 import org.joyqueue.broker.limit.config.LimiterConfig;
 import org.joyqueue.domain.Consumer;
 import org.joyqueue.domain.Producer;
@@ -47,12 +49,51 @@ public class DefaultRateLimiterManager extends AbstractRateLimiterManager implem
     protected static final Logger logger = LoggerFactory.getLogger(DefaultRateLimiterManager.class);
 
     private ClusterManager clusterManager;
+    private LimitConfig config;
+    private LimitTokenLeaser limitTokenLeaser;
 
     public DefaultRateLimiterManager(BrokerContext brokerContext) {
         this.clusterManager = brokerContext.getClusterManager();
+        this.config = new LimitConfig(brokerContext.getPropertySupplier());
+        // 租约线程由协调服务启动和停止
+        if (LimitConfig.LIMITER_CLUSTER.equals(config.getLimiterType()) && brokerContext.getCoordinatorService() != null) {
+            this.limitTokenLeaser = brokerContext.getCoordinatorService().getLimitTokenLeaser();
+        }
         this.clusterManager.addListener(this);
     }
 
+    @Override
+    protected RateLimiter newRateLimiter(String topic, String app, String type, LimiterConfig limiterConfig) {
+        if (LimitConfig.LIMITER_GUAVA.equals(config.getLimiterType())) {
+            return super.newRateLimiter(topic, app, type, limiterConfig);
+        }
+        RateLimiter rateLimiter = new TokenBucketRateLimiter(limiterConfig.getTps(), limiterConfig.getTraffic(), config.getLimiterStripes());
+        if (limitTokenLeaser != null) {
+            // 集群限流，租约不可用时使用单机限流
+            ClusterRateLimiter clusterRateLimiter = new ClusterRateLimiter(topic, app, type,
+                    limiterConfig.getTps(), limiterConfig.getTraffic(), rateLimiter);
+            limitTokenLeaser.addRateLimiter(clusterRateLimiter);
+            return clusterRateLimiter;
+        }
+        return rateLimiter;
+    }
+
+    @Override
+    protected void removeAppRateLimiter(String topic, String app) {
+        super.removeAppRateLimiter(topic, app);
+        if (limitTokenLeaser != null) {
+            limitTokenLeaser.removeRateLimiter(topic, app);
+        }
+    }
+
+    @Override
+    protected void removeTopicRateLimiter(String topic) {
+        super.removeTopicRateLimiter(topic);
+        if (limitTokenLeaser != null) {
+            limitTokenLeaser.removeRateLimiter(topic);
+        }
+    }
+
     @Override
     protected LimiterConfig getLimiterConfig(String topic, String app, String type) {
         Integer tps = null;
@@ -0,0 +1,160 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.limit.support;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.joyqueue.broker.cluster.ClusterManager;
+import org.joyqueue.broker.coordinator.CoordinatorService;
+import org.joyqueue.broker.limit.config.LimitConfig;
+import org.joyqueue.broker.limit.domain.LimitTokenLease;
+import org.joyqueue.broker.limit.network.command.LeaseLimitTokenRequest;
+import org.joyqueue.broker.limit.network.command.LeaseLimitTokenResponse;
+import org.joyqueue.domain.Broker;
+import org.joyqueue.network.transport.command.Command;
+import org.joyqueue.network.transport.command.CommandCallback;
+import org.joyqueue.network.transport.command.JoyQueueCommand;
+import org.joyqueue.network.transport.session.session.TransportSession;
+import org.joyqueue.toolkit.concurrent.NamedThreadFactory;
+import org.joyqueue.toolkit.service.Service;
+import org.joyqueue.toolkit.time.SystemClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LimitTokenLeaser
+ * 周期性向协调者上报集群限流器的需求并续约令牌，按协调者合并请求
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/14
+ */
+public class LimitTokenLeaser extends Service {
+
+    protected static final Logger logger = LoggerFactory.getLogger(LimitTokenLeaser.class);
+
+    private LimitConfig config;
+    private ClusterManager clusterManager;
+    private CoordinatorService coordinatorService;
+
+    private final ConcurrentMap<String, ClusterRateLimiter> rateLimiters = Maps.newConcurrentMap();
+    private ScheduledExecutorService leaseThread;
+
+    public LimitTokenLeaser(LimitConfig config, ClusterManager clusterManager, CoordinatorService coordinatorService) {
+        this.config = config;
+        this.clusterManager = clusterManager;
+        this.coordinatorService = coordinatorService;
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        int interval = config.getLimiterClusterLeaseInterval();
+        leaseThread = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("joyqueue-limit-token-leaser", true));
+        leaseThread.scheduleWithFixedDelay(() -> {
+            try {
+                lease();
+            } catch (Exception e) {
+                logger.error("lease limit token exception", e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected void doStop() {
+        if (leaseThread != null) {
+            leaseThread.shutdown();
+        }
+    }
+
+    public void addRateLimiter(ClusterRateLimiter rateLimiter) {
+        rateLimiters.put(rateLimiter.getKey(), rateLimiter);
+    }
+
+    public void removeRateLimiter(String topic, String app) {
+        rateLimiters.values().removeIf(rateLimiter -> rateLimiter.getTopic().equals(topic) && rateLimiter.getApp().equals(app));
+    }
+
+    public void removeRateLimiter(String topic) {
+        rateLimiters.values().removeIf(rateLimiter -> rateLimiter.getTopic().equals(topic));
+    }
+
+    protected void lease() {
+        if (rateLimiters.isEmpty()) {
+            return;
+        }
+
+        Map<Broker, List<LimitTokenLease>> coordinatorLeases = Maps.newHashMap();
+        for (ClusterRateLimiter rateLimiter : rateLimiters.values()) {
+            Broker coordinator = coordinatorService.getCoordinator().findLimit(rateLimiter.getTopic());
+            if (coordinator == null) {
+                continue;
+            }
+            List<LimitTokenLease> leases = coordinatorLeases.get(coordinator);
+            if (leases == null) {
+                leases = Lists.newArrayList();
+                coordinatorLeases.put(coordinator, leases);
+            }
+            leases.add(rateLimiter.drain());
+        }
+
+        for (Map.Entry<Broker, List<LimitTokenLease>> entry : coordinatorLeases.entrySet()) {
+            Broker coordinator = entry.getKey();
+            try {
+                if (coordinator.equals(clusterManager.getBroker())) {
+                    renew(coordinatorService.getLimitTokenManager().lease(clusterManager.getBrokerId(),
+                            config.getLimiterClusterLeaseInterval(), entry.getValue()));
+                } else {
+                    doRemoteLease(coordinator, entry.getValue());
+                }
+            } catch (Exception e) {
+                logger.warn("lease limit token exception, coordinator: {}", coordinator, e);
+            }
+        }
+    }
+
+    protected void doRemoteLease(Broker coordinator, List<LimitTokenLease> leases) {
+        int interval = config.getLimiterClusterLeaseInterval();
+        TransportSession session = coordinatorService.getCoordinator().getSessionManager().getOrCreateSession(coordinator);
+        LeaseLimitTokenRequest request = new LeaseLimitTokenRequest(clusterManager.getBrokerId(), interval, leases);
+        session.async(new JoyQueueCommand(request), interval, new CommandCallback() {
+            @Override
+            public void onSuccess(Command request, Command response) {
+                renew(((LeaseLimitTokenResponse) response.getPayload()).getLeases());
+            }
+
+            @Override
+            public void onException(Command request, Throwable cause) {
+                logger.warn("lease limit token failed, coordinator: {}, cause: {}", coordinator, cause.toString());
+            }
+        });
+    }
+
+    protected void renew(List<LimitTokenLease> leases) {
+        long expireTime = SystemClock.now() + config.getLimiterClusterLeaseTimeout();
+        for (LimitTokenLease lease : leases) {
+            ClusterRateLimiter rateLimiter = rateLimiters.get(lease.getKey());
+            if (rateLimiter != null) {
+                rateLimiter.renew(lease, expireTime);
+            }
+        }
+    }
+}
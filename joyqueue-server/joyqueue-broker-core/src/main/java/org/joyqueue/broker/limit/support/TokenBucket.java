@@ -0,0 +1,138 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.limit.support;
+
+import org.joyqueue.toolkit.time.SystemClock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TokenBucket
+ * 无锁令牌桶，每个分段只保存下一个令牌可用的时间，获取令牌时根据SystemClock计算补充量，不需要定时补充
+ * 与guava RateLimiter相同，桶内最多积累1秒的令牌，未透支时允许一次获取超过剩余数量的令牌，透支部分由之后的请求等待
+ * 多个分段时每个分段分配一部分速率，线程优先使用自己的分段，分段透支后再尝试其他分段
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/13
+ */
+public class TokenBucket {
+
+    // 最多积累的令牌时间
+    private static final long MAX_BURST_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final long permitsPerSecond;
+    private final Stripe[] stripes;
+    private final int stripeMask;
+
+    public TokenBucket(long permitsPerSecond) {
+        this(permitsPerSecond, 1);
+    }
+
+    public TokenBucket(long permitsPerSecond, int stripes) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive");
+        }
+        int stripeNum = tableSize(stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors());
+        // 速率太小时不分段，避免每个分段的速率过低
+        while (stripeNum > 1 && permitsPerSecond / stripeNum < 1) {
+            stripeNum >>= 1;
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.stripes = new Stripe[stripeNum];
+        this.stripeMask = stripeNum - 1;
+
+        double intervalNanos = (double) TimeUnit.SECONDS.toNanos(1) * stripeNum / permitsPerSecond;
+        long now = now();
+        for (int i = 0; i < stripeNum; i++) {
+            this.stripes[i] = new Stripe(intervalNanos, now);
+        }
+    }
+
+    /**
+     * 尝试获取令牌，不等待
+     *
+     * @param permits 令牌数
+     * @return 是否获取成功
+     */
+    public boolean tryAcquire(long permits) {
+        if (permits <= 0) {
+            return true;
+        }
+        long now = now();
+        int index = (int) Thread.currentThread().getId() & stripeMask;
+        if (stripes[index].tryAcquire(permits, now)) {
+            return true;
+        }
+        for (int i = 1; i < stripes.length; i++) {
+            if (stripes[(index + i) & stripeMask].tryAcquire(permits, now)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public int getStripes() {
+        return stripes.length;
+    }
+
+    protected long now() {
+        return TimeUnit.MILLISECONDS.toNanos(SystemClock.now());
+    }
+
+    private static int tableSize(int size) {
+        int n = 1;
+        while (n < size && n < (1 << 16)) {
+            n <<= 1;
+        }
+        return n;
+    }
+
+    /**
+     * 分段
+     */
+    static class Stripe {
+
+        // 每个令牌的时间，单位纳秒
+        private final double intervalNanos;
+        // 下一个令牌可用的时间，单位纳秒
+        private final AtomicLong nextFreeTime;
+
+        Stripe(double intervalNanos, long now) {
+            this.intervalNanos = intervalNanos;
+            this.nextFreeTime = new AtomicLong(now);
+        }
+
+        boolean tryAcquire(long permits, long now) {
+            long cost = (long) Math.ceil(permits * intervalNanos);
+            while (true) {
+                long next = nextFreeTime.get();
+                // 已经透支
+                if (next > now) {
+                    return false;
+                }
+                long start = Math.max(next, now - MAX_BURST_NANOS);
+                if (nextFreeTime.compareAndSet(next, start + cost)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.limit.support;
+
+import org.joyqueue.broker.limit.RateLimiter;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * TokenBucketRateLimiter
+ * 基于无锁令牌桶的限流器，语义与DefaultRateLimiter相同，获取令牌时没有锁竞争
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/13
+ */
+public class TokenBucketRateLimiter implements RateLimiter {
+
+    private int tps;
+    private int traffic;
+
+    private TokenBucket tpsBucket;
+    private TokenBucket trafficBucket;
+    private Semaphore semaphore = new Semaphore(1);
+
+    public TokenBucketRateLimiter(int tps) {
+        this(tps, 0, 1);
+    }
+
+    public TokenBucketRateLimiter(int tps, int traffic) {
+        this(tps, traffic, 1);
+    }
+
+    public TokenBucketRateLimiter(int tps, int traffic, int stripes) {
+        this.tps = tps;
+        this.traffic = traffic;
+        if (tps > 0) {
+            this.tpsBucket = new TokenBucket(tps, stripes);
+        }
+        if (traffic > 0) {
+            this.trafficBucket = new TokenBucket(traffic, stripes);
+        }
+    }
+
+    @Override
+    public boolean tryAcquireTps() {
+        return tryAcquireTps(1);
+    }
+
+    @Override
+    public boolean tryAcquireTps(int tps) {
+        if (tps <= 0 || tpsBucket == null) {
+            return true;
+        }
+        return tpsBucket.tryAcquire(Math.min(tps, this.tps));
+    }
+
+    @Override
+    public boolean tryAcquireTraffic(int traffic) {
+        if (traffic <= 0 || trafficBucket == null) {
+            return true;
+        }
+        return trafficBucket.tryAcquire(Math.min(traffic, this.traffic));
+    }
+
+    @Override
+    public boolean tryAcquireRequire() {
+        return semaphore.tryAcquire();
+    }
+
+    @Override
+    public boolean releaseRequire() {
+        semaphore.release();
+        return true;
+    }
+}
@@ -25,6 +25,7 @@ import org.joyqueue.broker.election.ElectionService;
 import org.joyqueue.broker.manage.config.BrokerManageConfig;
 import org.joyqueue.broker.manage.exporter.BrokerManageExporter;
 import org.joyqueue.broker.monitor.BrokerMonitorService;
+import org.joyqueue.broker.store.StoreRecoveryStat;
 import org.joyqueue.nsr.NameService;
 import org.joyqueue.server.retry.api.MessageRetry;
 import org.joyqueue.store.StoreManagementService;
@@ -53,7 +54,7 @@ public class BrokerManageService extends Service {
                                StoreService storeService, Consume consume,
                                MessageRetry retryManager, CoordinatorService coordinatorService,
                                ArchiveManager archiveManager, NameService nameService, ElectionService electionManager,
-                               MessageConvertSupport messageConvertSupport) {
+                               MessageConvertSupport messageConvertSupport, StoreRecoveryStat storeRecoveryStat) {
         this.config = config;
         this.storeService = storeService;
         this.retryManager = retryManager;
@@ -62,7 +63,7 @@ public class BrokerManageService extends Service {
                 clusterManager, clusterNameService, storeManagementService,
                 storeService, consume,
                 retryManager, coordinatorService,
-                archiveManager, nameService, electionManager, messageConvertSupport);
+                archiveManager, nameService, electionManager, messageConvertSupport, storeRecoveryStat);
         this.brokerManageExporter = new BrokerManageExporter(config, brokerManageServiceManager);
     }
 
@@ -44,6 +44,7 @@ import org.joyqueue.broker.monitor.service.support.DefaultPartitionMonitorServic
 import org.joyqueue.broker.monitor.service.support.DefaultProducerMonitorService;
 import org.joyqueue.broker.monitor.service.support.DefaultTopicMonitorService;
 import org.joyqueue.broker.monitor.stat.BrokerStat;
+import org.joyqueue.broker.store.StoreRecoveryStat;
 import org.joyqueue.monitor.BrokerStartupInfo;
 import org.joyqueue.nsr.NameService;
 import org.joyqueue.server.retry.api.MessageRetry;
@@ -77,13 +78,14 @@ public class BrokerManageServiceManager extends Service {
     private NameService nameService;
     private ElectionService electionManager;
     private MessageConvertSupport messageConvertSupport;
+    private StoreRecoveryStat storeRecoveryStat;
 
     public BrokerManageServiceManager(BrokerMonitor brokerMonitor, ClusterManager clusterManager,
                                       ClusterNameService clusterNameService, StoreManagementService storeManagementService,
                                       StoreService storeService, Consume consume,
                                       MessageRetry messageRetry, CoordinatorService coordinatorService,
                                       ArchiveManager archiveManager, NameService nameService, ElectionService electionManager,
-                                      MessageConvertSupport messageConvertSupport) {
+                                      MessageConvertSupport messageConvertSupport, StoreRecoveryStat storeRecoveryStat) {
         this.brokerMonitor = brokerMonitor;
         this.clusterManager = clusterManager;
         this.clusterNameService = clusterNameService;
@@ -96,6 +98,7 @@ public class BrokerManageServiceManager extends Service {
         this.nameService = nameService;
         this.electionManager = electionManager;
         this.messageConvertSupport = messageConvertSupport;
+        this.storeRecoveryStat = storeRecoveryStat;
     }
 
     @Override
@@ -108,7 +111,8 @@ public class BrokerManageServiceManager extends Service {
         BrokerStat brokerStat = brokerMonitor.getBrokerStat();
         BrokerStartupInfo brokerStartupInfo = newBrokerStartInfo();
         DefaultBrokerMonitorInternalService brokerMonitorInternalService = new DefaultBrokerMonitorInternalService(brokerStat, consume,
-                storeManagementService, nameService, storeService, electionManager, clusterManager, brokerStartupInfo,archiveManager);
+                storeManagementService, nameService, storeService, electionManager, clusterManager, brokerStartupInfo,archiveManager,
+                brokerMonitor.getExecutorStatMap(), storeRecoveryStat, brokerMonitor.getStageTracer());
         DefaultConnectionMonitorService connectionMonitorService = new DefaultConnectionMonitorService(brokerStat);
         DefaultConsumerMonitorService consumerMonitorService = new DefaultConsumerMonitorService(brokerStat, consume, storeManagementService, retryManager, clusterManager);
         DefaultProducerMonitorService producerMonitorService = new DefaultProducerMonitorService(brokerStat, storeManagementService, clusterManager);
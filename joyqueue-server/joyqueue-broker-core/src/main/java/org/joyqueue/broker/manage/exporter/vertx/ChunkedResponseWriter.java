@@ -0,0 +1,159 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.manage.exporter.vertx;
+
+import io.vertx.core.Context;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ChunkedResponseWriter
+ * 缓冲到指定大小后以chunk写出，内存占用不超过一个chunk
+ * 写队列满时阻塞写入线程，直到drainHandler通知，不能在event loop线程中使用
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/11
+ */
+public class ChunkedResponseWriter extends Writer {
+
+    // 等待写队列可写时每次检查的间隔，防止设置drainHandler前队列已经可写导致错过通知
+    private static final long DRAIN_CHECK_INTERVAL = 100;
+
+    private final HttpServerResponse response;
+    private final int chunkSize;
+    private final long drainTimeout;
+    private final StringBuilder buffer;
+    private final Object drainLock = new Object();
+    private boolean written = false;
+    private boolean closed = false;
+    private volatile boolean peerClosed = false;
+
+    public ChunkedResponseWriter(HttpServerResponse response, int chunkSize, long drainTimeout) {
+        this.response = response;
+        this.chunkSize = chunkSize;
+        this.drainTimeout = drainTimeout;
+        this.buffer = new StringBuilder(chunkSize);
+        this.response.closeHandler(v -> {
+            peerClosed = true;
+            signalDrain();
+        });
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+        buffer.append(cbuf, off, len);
+        flushIfNecessary();
+    }
+
+    @Override
+    public void write(String str, int off, int len) {
+        buffer.append(str, off, off + len);
+        flushIfNecessary();
+    }
+
+    @Override
+    public Writer append(CharSequence csq) {
+        buffer.append(csq);
+        flushIfNecessary();
+        return this;
+    }
+
+    @Override
+    public void write(int c) {
+        buffer.append((char) c);
+        flushIfNecessary();
+    }
+
+    @Override
+    public void flush() {
+        if (buffer.length() == 0) {
+            return;
+        }
+        if (!written) {
+            response.setChunked(true);
+            written = true;
+        }
+        awaitDrain();
+        response.write(Buffer.buffer(buffer.toString().getBytes(StandardCharsets.UTF_8)));
+        buffer.setLength(0);
+    }
+
+    /**
+     * 写队列满时等待drainHandler通知，客户端读取慢时不会在内存中堆积全部数据
+     */
+    protected void awaitDrain() {
+        if (!response.writeQueueFull() || Context.isOnEventLoopThread()) {
+            return;
+        }
+        response.drainHandler(v -> signalDrain());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(drainTimeout);
+        synchronized (drainLock) {
+            while (response.writeQueueFull()) {
+                if (peerClosed) {
+                    throw new IllegalStateException("response closed by peer");
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new IllegalStateException(String.format("wait response drain timeout, timeout: %s", drainTimeout));
+                }
+                try {
+                    drainLock.wait(Math.min(TimeUnit.NANOSECONDS.toMillis(remaining) + 1, DRAIN_CHECK_INTERVAL));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("wait response drain interrupted", e);
+                }
+            }
+        }
+    }
+
+    protected void signalDrain() {
+        synchronized (drainLock) {
+            drainLock.notifyAll();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (written) {
+            flush();
+            response.end();
+        } else {
+            // 没有超过一个chunk，直接整体输出
+            response.end(buffer.toString());
+        }
+    }
+
+    /**
+     * 是否已经有数据写出，写出后不能再修改响应头
+     */
+    public boolean isWritten() {
+        return written;
+    }
+
+    protected void flushIfNecessary() {
+        if (buffer.length() >= chunkSize) {
+            flush();
+        }
+    }
+}
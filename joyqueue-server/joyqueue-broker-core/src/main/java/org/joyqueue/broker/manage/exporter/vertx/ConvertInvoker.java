@@ -24,6 +24,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -61,7 +62,7 @@ public class ConvertInvoker extends HandlerInvoker {
         if (converter == null) {
             return result;
         }
-        return converter.convert(result);
+        return converter.convert(result, getParams(context));
     }
 
     protected String getTarget(RoutingContext context) {
@@ -69,6 +70,19 @@ public class ConvertInvoker extends HandlerInvoker {
         if (StringUtils.isNotBlank(targetParam)) {
             return targetParam;
         }
-        return context.request().getHeader(CONVERTER_HEADER);
+        String header = context.request().getHeader(CONVERTER_HEADER);
+        if (StringUtils.isBlank(header) || converters.get(header) != null) {
+            return header;
+        }
+        // 例如Prometheus/2.15.2，取产品名
+        return StringUtils.substringBefore(header, "/").toLowerCase();
+    }
+
+    protected Map<String, String> getParams(RoutingContext context) {
+        Map<String, String> params = new HashMap<>();
+        for (Map.Entry<String, String> entry : context.request().params()) {
+            params.put(entry.getKey(), entry.getValue());
+        }
+        return params;
     }
 }
\ No newline at end of file
@@ -18,6 +18,7 @@ package org.joyqueue.broker.manage.exporter.vertx;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.serializer.SerializerFeature;
 import org.joyqueue.monitor.RestResponse;
+import org.joyqueue.monitor.StreamResponse;
 import org.joyqueue.monitor.StringResponse;
 import io.vertx.core.Handler;
 import io.vertx.core.http.HttpServerResponse;
@@ -38,6 +39,11 @@ public class RestHandler implements Handler<RoutingContext> {
 
     protected static final Logger logger = LoggerFactory.getLogger(RestHandler.class);
 
+    // 流式响应每个chunk的大小
+    private static final int STREAM_CHUNK_SIZE = 64 * 1024;
+    // 流式响应等待写队列可写的超时时间
+    private static final long STREAM_DRAIN_TIMEOUT = 1000 * 30;
+
     private HandlerInvoker handlerInvoker;
 
     public RestHandler(HandlerInvoker handlerInvoker) {
@@ -73,9 +79,41 @@ public class RestHandler implements Handler<RoutingContext> {
                 httpResponse.putHeader(entry.getKey(), entry.getValue());
             }
             httpResponse.end(((StringResponse) response.getData()).getBody());
+        } else if (response.getData() instanceof StreamResponse) {
+            writeStream(context, (StreamResponse) response.getData());
         } else {
             httpResponse.putHeader("Content-Type", "application/json;charset=utf-8");
             httpResponse.end(JSON.toJSONString(response, SerializerFeature.PrettyFormat, SerializerFeature.DisableCircularReferenceDetect));
         }
     }
+
+    protected void writeStream(RoutingContext context, StreamResponse response) {
+        HttpServerResponse httpResponse = context.response();
+        for (Map.Entry<String, String> entry : response.getHeaders().entrySet()) {
+            httpResponse.putHeader(entry.getKey(), entry.getValue());
+        }
+        // 写队列满时需要阻塞等待，在worker线程中输出
+        context.vertx().executeBlocking(future -> {
+            doWriteStream(context, response);
+            future.complete();
+        }, false, null);
+    }
+
+    protected void doWriteStream(RoutingContext context, StreamResponse response) {
+        HttpServerResponse httpResponse = context.response();
+        ChunkedResponseWriter writer = new ChunkedResponseWriter(httpResponse, STREAM_CHUNK_SIZE, STREAM_DRAIN_TIMEOUT);
+        try {
+            response.write(writer);
+            writer.close();
+        } catch (Throwable t) {
+            logger.error("request exception, path: {}, params: {}", context.request().path(), context.request().params(), t);
+            if (writer.isWritten()) {
+                // 已经输出了部分数据，只能断开连接
+                httpResponse.close();
+            } else {
+                httpResponse.putHeader("Content-Type", "application/json;charset=utf-8");
+                httpResponse.end(JSON.toJSONString(RestResponse.serverError(t.toString()), SerializerFeature.PrettyFormat, SerializerFeature.DisableCircularReferenceDetect));
+            }
+        }
+    }
 }
\ No newline at end of file
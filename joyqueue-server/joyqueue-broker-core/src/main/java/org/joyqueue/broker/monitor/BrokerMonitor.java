@@ -26,10 +26,12 @@ import org.joyqueue.broker.monitor.stat.AppStat;
 import org.joyqueue.broker.monitor.stat.BrokerStat;
 import org.joyqueue.broker.monitor.stat.ConsumerStat;
 import org.joyqueue.broker.monitor.stat.ElectionEventStat;
+import org.joyqueue.broker.monitor.stat.ExecutorStat;
 import org.joyqueue.broker.monitor.stat.PartitionGroupStat;
 import org.joyqueue.broker.monitor.stat.ProducerStat;
 import org.joyqueue.broker.monitor.stat.ReplicationStat;
 import org.joyqueue.broker.monitor.stat.TopicStat;
+import org.joyqueue.broker.monitor.trace.StageTracer;
 import org.joyqueue.domain.PartitionGroup;
 import org.joyqueue.domain.TopicConfig;
 import org.joyqueue.domain.TopicName;
@@ -38,11 +40,13 @@ import org.joyqueue.monitor.Client;
 import org.joyqueue.network.session.Connection;
 import org.joyqueue.network.session.Consumer;
 import org.joyqueue.network.session.Producer;
+import org.joyqueue.network.transport.command.Command;
 import org.joyqueue.nsr.event.RemoveConsumerEvent;
 import org.joyqueue.nsr.event.RemovePartitionGroupEvent;
 import org.joyqueue.nsr.event.RemoveProducerEvent;
 import org.joyqueue.nsr.event.RemoveTopicEvent;
 import org.joyqueue.nsr.event.UpdatePartitionGroupEvent;
+import org.joyqueue.store.WriteResult;
 import org.joyqueue.toolkit.concurrent.EventListener;
 import org.joyqueue.toolkit.network.IpUtil;
 import org.joyqueue.toolkit.service.Service;
@@ -54,6 +58,8 @@ import java.net.InetSocketAddress;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * BrokerMonitor
@@ -73,6 +79,10 @@ public class BrokerMonitor extends Service implements ConsumerMonitor, ProducerM
 
     // 统计基础汇总信息
     private BrokerStat brokerStat;
+    // 请求处理线程池统计
+    private ConcurrentMap<String, ExecutorStat> executorStatMap = new ConcurrentHashMap<>();
+    // 请求各阶段耗时统计
+    private StageTracer stageTracer;
 
     public BrokerMonitor() {
 
@@ -83,6 +93,7 @@ public class BrokerMonitor extends Service implements ConsumerMonitor, ProducerM
         this.sessionManager = sessionManager;
         this.brokerStatManager = brokerStatManager;
         this.clusterManager = clusterManager;
+        this.stageTracer = new StageTracer(config);
     }
 
     @Override
@@ -442,6 +453,46 @@ public class BrokerMonitor extends Service implements ConsumerMonitor, ProducerM
         return brokerStat;
     }
 
+    public StageTracer getStageTracer() {
+        return stageTracer;
+    }
+
+    /**
+     * 生产请求各阶段耗时
+     */
+    public void onProduceStages(String topic, String app, Command request, long handleTime, long submitTime, WriteResult writeResult) {
+        if (!config.isEnable() || !stageTracer.isEnable()) {
+            return;
+        }
+        stageTracer.onProduce(topic, app, request, handleTime, submitTime, writeResult);
+    }
+
+    /**
+     * 拉取请求各阶段耗时
+     */
+    public void onFetchStages(String topic, String app, Command request, long handleTime, long readTime) {
+        if (!config.isEnable() || !stageTracer.isEnable()) {
+            return;
+        }
+        stageTracer.onFetch(topic, app, request, handleTime, readTime);
+    }
+
+    public ExecutorStat getOrCreateExecutorStat(String name) {
+        ExecutorStat executorStat = executorStatMap.get(name);
+        if (executorStat == null) {
+            executorStat = new ExecutorStat(name);
+            ExecutorStat oldExecutorStat = executorStatMap.putIfAbsent(name, executorStat);
+            if (oldExecutorStat != null) {
+                executorStat = oldExecutorStat;
+            }
+        }
+        return executorStat;
+    }
+
+    public Map<String, ExecutorStat> getExecutorStatMap() {
+        return executorStatMap;
+    }
+
     public SessionManager getSessionManager() {
         return sessionManager;
     }
@@ -532,6 +583,7 @@ public class BrokerMonitor extends Service implements ConsumerMonitor, ProducerM
         private void removeTopic(RemoveTopicEvent removeTopicEvent) {
             try {
                 brokerStat.getTopicStats().remove(removeTopicEvent.getTopic().getName().getFullName());
+                stageTracer.removeTopic(removeTopicEvent.getTopic().getName().getFullName());
             } catch (Throwable th) {
                 logger.error("listen remove topic event exception, topic: {}", removeTopicEvent.getTopic(), th);
             }
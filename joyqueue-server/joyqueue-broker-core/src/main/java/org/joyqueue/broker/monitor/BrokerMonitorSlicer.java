@@ -16,6 +16,7 @@
 package org.joyqueue.broker.monitor;
 
 import org.joyqueue.broker.monitor.stat.AppStat;
+import org.joyqueue.broker.monitor.stat.ExecutorStat;
 import org.joyqueue.broker.monitor.stat.PartitionGroupStat;
 import org.joyqueue.broker.monitor.stat.PartitionStat;
 import org.joyqueue.broker.monitor.stat.TopicStat;
@@ -116,8 +117,13 @@ public class BrokerMonitorSlicer extends Service implements Runnable {
         brokerMonitor.getBrokerStat().getJvmStat().snapshot();
         brokerMonitor.getBrokerStat().getReplicationStat().getAppendStat().slice();
         brokerMonitor.getBrokerStat().getReplicationStat().getReplicaStat().slice();
+        brokerMonitor.getStageTracer().slice();
 
         brokerMonitor.getBrokerStat().getEnQueueStat().slice();
         brokerMonitor.getBrokerStat().getDeQueueStat().slice();
+
+        for (Map.Entry<String, ExecutorStat> executorEntry : brokerMonitor.getExecutorStatMap().entrySet()) {
+            executorEntry.getValue().slice();
+        }
     }
 }
\ No newline at end of file
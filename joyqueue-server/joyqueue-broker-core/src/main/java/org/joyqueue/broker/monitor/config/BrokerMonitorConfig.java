@@ -50,4 +50,16 @@ public class BrokerMonitorConfig {
         return propertySupplier.getValue(BrokerMonitorConfigKey.STAT_SAVE_INTERVAL);
     }
 
+    public boolean isStageTraceEnable() {
+        return propertySupplier.getValue(BrokerMonitorConfigKey.STAGE_TRACE_ENABLE);
+    }
+
+    public int getStageTraceSlowThreshold() {
+        return propertySupplier.getValue(BrokerMonitorConfigKey.STAGE_TRACE_SLOW_THRESHOLD);
+    }
+
+    public int getStageTraceSlowLogSample() {
+        return propertySupplier.getValue(BrokerMonitorConfigKey.STAGE_TRACE_SLOW_LOG_SAMPLE);
+    }
+
 }
\ No newline at end of file
@@ -30,6 +30,13 @@ public enum BrokerMonitorConfigKey implements PropertyDef {
     STAT_SAVE_FILE_NEW("stat.save.file.new", "/monitor/stat", PropertyDef.Type.STRING),
     STAT_SAVE_INTERVAL("stat.save.interval", 1000 * 30, PropertyDef.Type.INT),
 
+    // 请求各阶段耗时统计
+    STAGE_TRACE_ENABLE("stat.stage.trace.enable", true, PropertyDef.Type.BOOLEAN),
+    // 慢请求阈值，单位毫秒
+    STAGE_TRACE_SLOW_THRESHOLD("stat.stage.trace.slow.threshold", 1000, PropertyDef.Type.INT),
+    // 慢请求日志采样率，每N个慢请求打印一个，0不打印
+    STAGE_TRACE_SLOW_LOG_SAMPLE("stat.stage.trace.slow.log.sample", 100, PropertyDef.Type.INT),
+
     ;
 
     private String name;
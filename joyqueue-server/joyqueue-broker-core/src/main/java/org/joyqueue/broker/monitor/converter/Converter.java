@@ -17,10 +17,23 @@ package org.joyqueue.broker.monitor.converter;
 
 import com.jd.laf.extension.Type;
 
+import java.util.Map;
+
 /**
  * @author lining11
  * Date: 2018/12/20
  */
 public interface Converter<T, R> extends Type {
     R convert(T t);
+
+    /**
+     * 带请求参数的转换
+     *
+     * @param t      数据
+     * @param params 请求参数
+     * @return 转换结果
+     */
+    default R convert(T t, Map<String, String> params) {
+        return convert(t);
+    }
 }
@@ -15,11 +15,7 @@
  */
 package org.joyqueue.broker.monitor.metrics;
 
-import com.codahale.metrics.ExponentiallyDecayingReservoir;
-import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Meter;
-import com.codahale.metrics.Reservoir;
-import com.codahale.metrics.Snapshot;
 
 /**
  * metrics
@@ -29,9 +25,8 @@ import com.codahale.metrics.Snapshot;
  */
 public class Metrics {
 
-    private Meter meter;
-    private Reservoir reservoir;
-    private Histogram histogram;
+    private volatile Meter meter;
+    private volatile LatencyRecorder recorder;
 
     private long oneMinuteRate;
 
@@ -50,8 +45,7 @@ public class Metrics {
 
     protected void init() {
         this.meter = new Meter();
-        this.reservoir = new ExponentiallyDecayingReservoir();
-        this.histogram = new Histogram(reservoir);
+        this.recorder = new LatencyRecorder();
     }
 
     public void mark() {
@@ -64,7 +58,7 @@ public class Metrics {
 
     public void mark(double time, long count) {
         this.meter.mark(count);
-        this.histogram.update((long) time);
+        this.recorder.record((long) time);
     }
 
     public void setCount(long count) {
@@ -88,23 +82,23 @@ public class Metrics {
     }
 
     public double getTp999() {
-        return this.getSnapshot().get999thPercentile();
+        return this.getSnapshot().getValue(0.999);
     }
 
     public double getTp99() {
-        return this.getSnapshot().get99thPercentile();
+        return this.getSnapshot().getValue(0.99);
     }
 
     public double getTp95() {
-        return this.getSnapshot().get95thPercentile();
+        return this.getSnapshot().getValue(0.95);
     }
 
     public double getTp75() {
-        return this.getSnapshot().get75thPercentile();
+        return this.getSnapshot().getValue(0.75);
     }
 
     public double getTp90() {
-        return this.getSnapshot().getMean();
+        return this.getSnapshot().getValue(0.90);
     }
 
     public double getMax() {
@@ -119,7 +113,7 @@ public class Metrics {
         return this.getSnapshot().getMean();
     }
 
-    protected Snapshot getSnapshot() {
-        return this.histogram.getSnapshot();
+    protected LatencyRecorder.Snapshot getSnapshot() {
+        return this.recorder.snapshot();
     }
 }
\ No newline at end of file
@@ -45,6 +45,13 @@ public interface ArchiveMonitorService {
      */
     Map<String, Long> getSendBackLogNumByTopic();
 
+    /**
+     * 按分区获取发送归档延迟
+     *
+     * @return
+     */
+    Map<String, Long> getSendArchiveLag();
+
     /**
      * 获取归档监控
      *
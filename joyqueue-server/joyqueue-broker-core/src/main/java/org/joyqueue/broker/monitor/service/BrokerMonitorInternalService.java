@@ -16,11 +16,16 @@
 package org.joyqueue.broker.monitor.service;
 
 import org.joyqueue.broker.monitor.stat.BrokerStatExt;
+import org.joyqueue.broker.monitor.stat.ExecutorStat;
 import org.joyqueue.broker.monitor.stat.JVMStat;
+import org.joyqueue.broker.monitor.stat.StageTraceStat;
+import org.joyqueue.broker.store.StoreRecoveryStat;
 import org.joyqueue.monitor.BrokerMonitorInfo;
 import org.joyqueue.monitor.BrokerStartupInfo;
 import org.joyqueue.toolkit.vm.GCEventListener;
 
+import java.util.Map;
+
 /**
  * broker monitor service
  *
@@ -65,4 +70,33 @@ public interface BrokerMonitorInternalService {
      *
      **/
     JVMStat getJVMState();
-}
\ No newline at end of file
+
+    /**
+     * 获取请求处理线程池统计，按协议和命令类型区分
+     *
+     * @return 线程池名称对应的统计
+     */
+    Map<String, ExecutorStat> getExecutorStats();
+
+    /**
+     * 获取启动时存储恢复的进度和耗时
+     *
+     * @return 存储恢复统计
+     */
+    StoreRecoveryStat getStoreRecoveryStat();
+
+    /**
+     * 获取所有主题当前分钟内生产和拉取请求各阶段的耗时
+     *
+     * @return 主题对应的统计
+     */
+    Map<String, StageTraceStat> getStageTraceStats();
+
+    /**
+     * 获取主题当前分钟内生产和拉取请求各阶段的耗时
+     *
+     * @param topic 主题
+     * @return 统计，没有请求时为null
+     */
+    StageTraceStat getStageTraceStat(String topic);
+}
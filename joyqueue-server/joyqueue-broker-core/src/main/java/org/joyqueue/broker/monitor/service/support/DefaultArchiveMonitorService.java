@@ -47,6 +47,11 @@ public class DefaultArchiveMonitorService implements ArchiveMonitorService {
         return archiveManager.getSendBacklogNumByTopic();
     }
 
+    @Override
+    public Map<String, Long> getSendArchiveLag() {
+        return archiveManager.getSendArchiveLag();
+    }
+
     @Override
     public ArchiveMonitorInfo getArchiveMonitorInfo() {
         long consumeBacklogNum = getConsumeBacklogNum();
@@ -55,6 +60,7 @@ public class DefaultArchiveMonitorService implements ArchiveMonitorService {
         info.setConsumeBacklog(consumeBacklogNum);
         info.setConsumeBacklog(sendBackLogNum);
         info.setTopicProduceBacklog(archiveManager.getSendBacklogNumByTopic());
+        info.setPartitionProduceBacklog(getSendArchiveLag());
 
         return info;
     }
@@ -25,12 +25,16 @@ import org.joyqueue.broker.monitor.service.BrokerMonitorInternalService;
 import org.joyqueue.broker.monitor.stat.BrokerStat;
 import org.joyqueue.broker.monitor.stat.BrokerStatExt;
 import org.joyqueue.broker.monitor.stat.ConsumerPendingStat;
+import org.joyqueue.broker.monitor.stat.ExecutorStat;
 import org.joyqueue.broker.monitor.stat.JVMStat;
 import org.joyqueue.broker.monitor.stat.PartitionGroupPendingStat;
 import org.joyqueue.broker.monitor.stat.PartitionGroupStat;
 import org.joyqueue.broker.monitor.stat.PartitionStat;
+import org.joyqueue.broker.monitor.stat.StageTraceStat;
 import org.joyqueue.broker.monitor.stat.TopicPendingStat;
 import org.joyqueue.broker.monitor.stat.TopicStat;
+import org.joyqueue.broker.monitor.trace.StageTracer;
+import org.joyqueue.broker.store.StoreRecoveryStat;
 import org.joyqueue.domain.TopicConfig;
 import org.joyqueue.monitor.BrokerMonitorInfo;
 import org.joyqueue.monitor.BrokerStartupInfo;
@@ -78,12 +82,16 @@ public class DefaultBrokerMonitorInternalService implements BrokerMonitorInterna
     private JVMMonitorService jvmMonitorService;
     private ArchiveManager archiveManager;
     private DefaultGCNotificationParser gcNotificationParser;
+    private Map<String, ExecutorStat> executorStatMap;
+    private StoreRecoveryStat storeRecoveryStat;
+    private StageTracer stageTracer;
 
 
     public DefaultBrokerMonitorInternalService(BrokerStat brokerStat, Consume consume,
                                                StoreManagementService storeManagementService,
                                                NameService nameService, StoreService storeService,
-                                               ElectionService electionManager, ClusterManager clusterManager, BrokerStartupInfo brokerStartupInfo, ArchiveManager archiveManager) {
+                                               ElectionService electionManager, ClusterManager clusterManager, BrokerStartupInfo brokerStartupInfo, ArchiveManager archiveManager,
+                                               Map<String, ExecutorStat> executorStatMap, StoreRecoveryStat storeRecoveryStat, StageTracer stageTracer) {
         this.brokerStat = brokerStat;
         this.consume = consume;
         this.storeManagementService = storeManagementService;
@@ -97,6 +105,9 @@ public class DefaultBrokerMonitorInternalService implements BrokerMonitorInterna
         this.gcNotificationParser.addListener(new DefaultGCEventListener(brokerStat.getJvmStat()));
         this.jvmMonitorService.addGCEventListener(gcNotificationParser);
         this.archiveManager = archiveManager;
+        this.executorStatMap = executorStatMap;
+        this.storeRecoveryStat = storeRecoveryStat;
+        this.stageTracer = stageTracer;
 
     }
 
@@ -211,6 +222,10 @@ public class DefaultBrokerMonitorInternalService implements BrokerMonitorInterna
         statExt.setArchiveConsumePending(archiveManager.getConsumeBacklogNum());
         statExt.setArchiveProducePending(archiveManager.getSendBacklogNum());
         statExt.setTopicArchiveProducePending(archiveManager.getSendBacklogNumByTopic());
+        if (stageTracer.isEnable()) {
+            statExt.setProduceStageRecorders(stageTracer.getProduceRecorders());
+            statExt.setFetchStageRecorders(stageTracer.getFetchRecorders());
+        }
         return statExt;
     }
 
@@ -274,6 +289,26 @@ public class DefaultBrokerMonitorInternalService implements BrokerMonitorInterna
         return jvmStat;
     }
 
+    @Override
+    public Map<String, ExecutorStat> getExecutorStats() {
+        return executorStatMap;
+    }
+
+    @Override
+    public StoreRecoveryStat getStoreRecoveryStat() {
+        return storeRecoveryStat;
+    }
+
+    @Override
+    public Map<String, StageTraceStat> getStageTraceStats() {
+        return stageTracer.getStats();
+    }
+
+    @Override
+    public StageTraceStat getStageTraceStat(String topic) {
+        return stageTracer.getStat(topic);
+    }
+
     @Override
     public BrokerStartupInfo getStartInfo() {
         return brokerStartupInfo;
@@ -29,9 +29,12 @@ import org.joyqueue.broker.monitor.service.PartitionMonitorService;
 import org.joyqueue.broker.monitor.service.ProducerMonitorService;
 import org.joyqueue.broker.monitor.service.TopicMonitorService;
 import org.joyqueue.broker.monitor.stat.BrokerStatExt;
+import org.joyqueue.broker.monitor.stat.ExecutorStat;
 import org.joyqueue.broker.monitor.stat.ElectionEventStat;
 import org.joyqueue.broker.monitor.stat.JVMStat;
 import org.joyqueue.broker.monitor.stat.ReplicaNodeStat;
+import org.joyqueue.broker.monitor.stat.StageTraceStat;
+import org.joyqueue.broker.store.StoreRecoveryStat;
 import org.joyqueue.domain.Consumer;
 import org.joyqueue.domain.Producer;
 import org.joyqueue.domain.TopicConfig;
@@ -304,6 +307,11 @@ public class DefaultBrokerMonitorService implements BrokerMonitorService {
         return archiveMonitorService.getSendBackLogNumByTopic();
     }
 
+    @Override
+    public Map<String, Long> getSendArchiveLag() {
+        return archiveMonitorService.getSendArchiveLag();
+    }
+
     @Override
     public ArchiveMonitorInfo getArchiveMonitorInfo() {
         return archiveMonitorService.getArchiveMonitorInfo();
@@ -314,6 +322,26 @@ public class DefaultBrokerMonitorService implements BrokerMonitorService {
         return brokerMonitorInternalService.getExtendBrokerStat(timeStamp);
     }
 
+    @Override
+    public Map<String, ExecutorStat> getExecutorStats() {
+        return brokerMonitorInternalService.getExecutorStats();
+    }
+
+    @Override
+    public StoreRecoveryStat getStoreRecoveryStat() {
+        return brokerMonitorInternalService.getStoreRecoveryStat();
+    }
+
+    @Override
+    public Map<String, StageTraceStat> getStageTraceStats() {
+        return brokerMonitorInternalService.getStageTraceStats();
+    }
+
+    @Override
+    public StageTraceStat getStageTraceStat(String topic) {
+        return brokerMonitorInternalService.getStageTraceStat(topic);
+    }
+
     @Override
     public TopicConfig getTopicMetadata(String topic, boolean isCluster) {
         return metadataMonitorService.getTopicMetadata(topic, isCluster);
@@ -15,6 +15,10 @@
  */
 package org.joyqueue.broker.monitor.stat;
 
+import org.joyqueue.broker.monitor.trace.FetchStage;
+import org.joyqueue.broker.monitor.trace.ProduceStage;
+import org.joyqueue.broker.monitor.trace.StageRecorder;
+
 import java.io.Serializable;
 import java.lang.management.MemoryUsage;
 import java.util.HashMap;
@@ -36,6 +40,10 @@ public class BrokerStatExt implements Serializable {
     private long archiveProducePending;
     private Map<String,Long> topicArchiveProducePending;
 
+    // 请求各阶段耗时直方图，只用于输出Prometheus分桶，不参与序列化
+    private transient Map<String/*topic*/, StageRecorder<ProduceStage>> produceStageRecorders;
+    private transient Map<String/*topic*/, StageRecorder<FetchStage>> fetchStageRecorders;
+
     public BrokerStatExt(BrokerStat brokerStat) {
         setBrokerStat(brokerStat);
     }
@@ -114,4 +122,20 @@ public class BrokerStatExt implements Serializable {
     public void setTopicArchiveProducePending(Map<String, Long> topicArchiveProducePending) {
         this.topicArchiveProducePending = topicArchiveProducePending;
     }
+
+    public Map<String, StageRecorder<ProduceStage>> getProduceStageRecorders() {
+        return produceStageRecorders;
+    }
+
+    public void setProduceStageRecorders(Map<String, StageRecorder<ProduceStage>> produceStageRecorders) {
+        this.produceStageRecorders = produceStageRecorders;
+    }
+
+    public Map<String, StageRecorder<FetchStage>> getFetchStageRecorders() {
+        return fetchStageRecorders;
+    }
+
+    public void setFetchStageRecorders(Map<String, StageRecorder<FetchStage>> fetchStageRecorders) {
+        this.fetchStageRecorders = fetchStageRecorders;
+    }
 }
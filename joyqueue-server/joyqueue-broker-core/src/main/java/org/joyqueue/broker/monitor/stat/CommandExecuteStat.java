@@ -0,0 +1,105 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.monitor.stat;
+
+import org.joyqueue.broker.monitor.metrics.Metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 命令执行统计
+ * 排队时间和执行时间单位为微秒
+ *
+ * author: gaohaoxiang
+ * date: 2020/3/9
+ */
+public class CommandExecuteStat {
+
+    private String protocol;
+    private int type;
+
+    private LongAdder total = new LongAdder();
+    private LongAdder rejected = new LongAdder();
+
+    private Metrics queueTime;
+    private Metrics serviceTime;
+
+    public CommandExecuteStat(String protocol, int type) {
+        this.protocol = protocol;
+        this.type = type;
+        this.queueTime = new Metrics();
+        this.serviceTime = new Metrics();
+    }
+
+    public void slice() {
+        this.queueTime.slice();
+        this.serviceTime.slice();
+    }
+
+    public void mark(long queueTime, long serviceTime) {
+        this.total.increment();
+        this.queueTime.mark(queueTime, 1);
+        this.serviceTime.mark(serviceTime, 1);
+    }
+
+    public void markRejected() {
+        this.rejected.increment();
+    }
+
+    public String getProtocol() {
+        return protocol;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public long getTotal() {
+        return total.longValue();
+    }
+
+    public long getRejected() {
+        return rejected.longValue();
+    }
+
+    public long getTps() {
+        return queueTime.getMeanRate();
+    }
+
+    public double getQueueTimeAvg() {
+        return queueTime.getAvg();
+    }
+
+    public double getQueueTimeTp99() {
+        return queueTime.getTp99();
+    }
+
+    public double getQueueTimeMax() {
+        return queueTime.getMax();
+    }
+
+    public double getServiceTimeAvg() {
+        return serviceTime.getAvg();
+    }
+
+    public double getServiceTimeTp99() {
+        return serviceTime.getTp99();
+    }
+
+    public double getServiceTimeMax() {
+        return serviceTime.getMax();
+    }
+}
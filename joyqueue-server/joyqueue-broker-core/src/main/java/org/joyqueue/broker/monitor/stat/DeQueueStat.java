@@ -75,6 +75,10 @@ public class DeQueueStat {
         return this.count.getOneMinuteRate();
     }
 
+    public double getTp999() {
+        return this.count.getTp999();
+    }
+
     public double getTp99() {
         return this.count.getTp99();
     }
@@ -0,0 +1,88 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.monitor.stat;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 请求处理线程池统计
+ * 按协议和命令类型区分排队时间、执行时间和拒绝次数，用于区分网络、排队和存储的耗时
+ * 不同协议的命令类型会重复，所以统计按协议加命令类型区分
+ *
+ * author: gaohaoxiang
+ * date: 2020/3/9
+ */
+public class ExecutorStat {
+
+    private String name;
+    private ThreadPoolExecutor executor;
+
+    private ConcurrentMap<String /** protocol.type **/, CommandExecuteStat> commandStatMap = new ConcurrentHashMap<>();
+
+    public ExecutorStat(String name) {
+        this.name = name;
+    }
+
+    public CommandExecuteStat getOrCreateCommandStat(String protocol, int type) {
+        String key = protocol + "." + type;
+        CommandExecuteStat commandStat = commandStatMap.get(key);
+        if (commandStat == null) {
+            commandStat = new CommandExecuteStat(protocol, type);
+            CommandExecuteStat oldCommandStat = commandStatMap.putIfAbsent(key, commandStat);
+            if (oldCommandStat != null) {
+                commandStat = oldCommandStat;
+            }
+        }
+        return commandStat;
+    }
+
+    public void slice() {
+        for (Map.Entry<String, CommandExecuteStat> entry : commandStatMap.entrySet()) {
+            entry.getValue().slice();
+        }
+    }
+
+    public void setExecutor(ThreadPoolExecutor executor) {
+        this.executor = executor;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Map<String, CommandExecuteStat> getCommandStatMap() {
+        return commandStatMap;
+    }
+
+    public int getCorePoolSize() {
+        return (executor == null ? 0 : executor.getCorePoolSize());
+    }
+
+    public int getPoolSize() {
+        return (executor == null ? 0 : executor.getPoolSize());
+    }
+
+    public int getActiveCount() {
+        return (executor == null ? 0 : executor.getActiveCount());
+    }
+
+    public int getQueueSize() {
+        return (executor == null ? 0 : executor.getQueue().size());
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.monitor.stat;
+
+import org.joyqueue.broker.monitor.metrics.LatencyRecorder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 请求各阶段耗时统计
+ * 主题当前分钟内生产和拉取请求各阶段的耗时分布，单位微秒
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/12
+ */
+public class StageTraceStat {
+
+    private String topic;
+    private Map<String /** stage **/, StageLatencyStat> produceStages = new LinkedHashMap<>();
+    private Map<String /** stage **/, StageLatencyStat> fetchStages = new LinkedHashMap<>();
+
+    public StageTraceStat(String topic) {
+        this.topic = topic;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public Map<String, StageLatencyStat> getProduceStages() {
+        return produceStages;
+    }
+
+    public Map<String, StageLatencyStat> getFetchStages() {
+        return fetchStages;
+    }
+
+    /**
+     * 单个阶段的耗时分布
+     */
+    public static class StageLatencyStat {
+
+        private long count;
+        private double mean;
+        private long min;
+        private long max;
+        private long tp50;
+        private long tp90;
+        private long tp99;
+        private long tp999;
+
+        public StageLatencyStat(LatencyRecorder.Snapshot snapshot) {
+            this.count = snapshot.getCount();
+            this.mean = snapshot.getMean();
+            this.min = snapshot.getMin();
+            this.max = snapshot.getMax();
+            this.tp50 = snapshot.getValue(0.5);
+            this.tp90 = snapshot.getValue(0.9);
+            this.tp99 = snapshot.getValue(0.99);
+            this.tp999 = snapshot.getValue(0.999);
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        public long getMin() {
+            return min;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public long getTp50() {
+            return tp50;
+        }
+
+        public long getTp90() {
+            return tp90;
+        }
+
+        public long getTp99() {
+            return tp99;
+        }
+
+        public long getTp999() {
+            return tp999;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.monitor.trace;
+
+/**
+ * FetchStage
+ * 拉取请求的处理阶段
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/12
+ */
+public enum FetchStage {
+
+    // 网络解码
+    DECODE,
+
+    // 在处理线程池中排队
+    QUEUE,
+
+    // 权限和消费者检查
+    CHECK,
+
+    // 选择分区并读取消息
+    READ,
+
+    // 总耗时
+    TOTAL,
+
+    ;
+}
@@ -0,0 +1,55 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.monitor.trace;
+
+/**
+ * ProduceStage
+ * 生产请求的处理阶段
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/12
+ */
+public enum ProduceStage {
+
+    // 网络解码
+    DECODE,
+
+    // 在处理线程池中排队
+    QUEUE,
+
+    // 权限和集群状态检查
+    CHECK,
+
+    // 在存储写入队列中排队
+    STORE_QUEUE,
+
+    // 脏数据过多，等待刷盘
+    FLUSH_WAIT,
+
+    // 写入消息和索引
+    STORE_WRITE,
+
+    // 等待刷盘或复制确认
+    ACK,
+
+    // 回调处理
+    CALLBACK,
+
+    // 总耗时
+    TOTAL,
+
+    ;
+}
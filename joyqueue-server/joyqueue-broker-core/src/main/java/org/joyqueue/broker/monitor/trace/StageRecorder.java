@@ -0,0 +1,60 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.monitor.trace;
+
+import org.joyqueue.broker.monitor.metrics.LatencyRecorder;
+
+/**
+ * StageRecorder
+ * 按阶段记录耗时直方图，单位微秒
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/12
+ */
+public class StageRecorder<S extends Enum<S>> {
+
+    private final S[] stages;
+    private final LatencyRecorder[] recorders;
+
+    public StageRecorder(Class<S> type) {
+        this.stages = type.getEnumConstants();
+        this.recorders = new LatencyRecorder[stages.length];
+        for (int i = 0; i < recorders.length; i++) {
+            recorders[i] = new LatencyRecorder();
+        }
+    }
+
+    /**
+     * 记录一次请求的各阶段耗时
+     *
+     * @param times 各阶段耗时，下标为阶段序号，单位纳秒，小于0的阶段不记录
+     */
+    public void record(long[] times) {
+        for (int i = 0; i < times.length && i < recorders.length; i++) {
+            if (times[i] >= 0) {
+                recorders[i].record(times[i] / 1000);
+            }
+        }
+    }
+
+    public LatencyRecorder.Snapshot snapshot(S stage) {
+        return recorders[stage.ordinal()].snapshot();
+    }
+
+    public S[] getStages() {
+        return stages;
+    }
+}
@@ -0,0 +1,247 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.monitor.trace;
+
+import org.joyqueue.broker.monitor.config.BrokerMonitorConfig;
+import org.joyqueue.broker.monitor.stat.StageTraceStat;
+import org.joyqueue.network.transport.command.Command;
+import org.joyqueue.store.WriteResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * StageTracer
+ * 按主题统计生产和拉取请求各阶段的耗时，超过阈值的请求按采样率打印各阶段耗时
+ * 统计按分钟切片，由BrokerMonitorSlicer定时重置，通过/monitor/broker/stages和Prometheus的/metrics输出
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/12
+ */
+public class StageTracer {
+
+    protected static final Logger logger = LoggerFactory.getLogger(StageTracer.class);
+
+    private static final int PRODUCE_STAGES = ProduceStage.values().length;
+    private static final int FETCH_STAGES = FetchStage.values().length;
+
+    private final BrokerMonitorConfig config;
+
+    private volatile ConcurrentMap<String, StageRecorder<ProduceStage>> produceRecorders = new ConcurrentHashMap<>();
+    private volatile ConcurrentMap<String, StageRecorder<FetchStage>> fetchRecorders = new ConcurrentHashMap<>();
+
+    public StageTracer(BrokerMonitorConfig config) {
+        this.config = config;
+    }
+
+    public boolean isEnable() {
+        return config.isStageTraceEnable();
+    }
+
+    /**
+     * 生产请求完成
+     *
+     * @param topic       主题
+     * @param app         应用
+     * @param request     请求
+     * @param handleTime  开始处理的时间，单位纳秒
+     * @param submitTime  检查完成提交写入的时间，单位纳秒
+     * @param writeResult 写入结果
+     */
+    public void onProduce(String topic, String app, Command request, long handleTime, long submitTime, WriteResult writeResult) {
+        long now = System.nanoTime();
+        long[] times = new long[PRODUCE_STAGES];
+        fillRequestStages(times, request, handleTime);
+        times[ProduceStage.CHECK.ordinal()] = submitTime - handleTime;
+
+        long storeTime = now - submitTime;
+        long[] metrics = writeResult.getMetrics();
+        if (metrics != null && metrics.length >= WriteResult.METRIC_SIZE) {
+            times[ProduceStage.STORE_QUEUE.ordinal()] = metrics[WriteResult.METRIC_QUEUE];
+            times[ProduceStage.FLUSH_WAIT.ordinal()] = metrics[WriteResult.METRIC_FLUSH_WAIT];
+            times[ProduceStage.STORE_WRITE.ordinal()] = metrics[WriteResult.METRIC_WRITE];
+            times[ProduceStage.ACK.ordinal()] = metrics[WriteResult.METRIC_ACK];
+            storeTime -= metrics[WriteResult.METRIC_QUEUE] + metrics[WriteResult.METRIC_FLUSH_WAIT]
+                    + metrics[WriteResult.METRIC_WRITE] + metrics[WriteResult.METRIC_ACK];
+        } else {
+            // 没有经过存储写入线程，例如QosLevel.RECEIVE
+            times[ProduceStage.STORE_QUEUE.ordinal()] = -1;
+            times[ProduceStage.FLUSH_WAIT.ordinal()] = -1;
+            times[ProduceStage.STORE_WRITE.ordinal()] = -1;
+            times[ProduceStage.ACK.ordinal()] = -1;
+        }
+        times[ProduceStage.CALLBACK.ordinal()] = Math.max(storeTime, 0);
+        times[ProduceStage.TOTAL.ordinal()] = now - getStartTime(request, handleTime);
+
+        getOrCreateRecorder(produceRecorders, topic, ProduceStage.class).record(times);
+        if (isSlow(times[ProduceStage.TOTAL.ordinal()])) {
+            logger.warn("slow produce, topic: {}, app: {}, stages: {}", topic, app, format(ProduceStage.values(), times));
+        }
+    }
+
+    /**
+     * 拉取请求完成
+     *
+     * @param topic      主题
+     * @param app        应用
+     * @param request    请求
+     * @param handleTime 开始处理的时间，单位纳秒
+     * @param readTime   检查完成开始读取的时间，单位纳秒
+     */
+    public void onFetch(String topic, String app, Command request, long handleTime, long readTime) {
+        long now = System.nanoTime();
+        long[] times = new long[FETCH_STAGES];
+        fillRequestStages(times, request, handleTime);
+        times[FetchStage.CHECK.ordinal()] = readTime - handleTime;
+        times[FetchStage.READ.ordinal()] = now - readTime;
+        times[FetchStage.TOTAL.ordinal()] = now - getStartTime(request, handleTime);
+
+        getOrCreateRecorder(fetchRecorders, topic, FetchStage.class).record(times);
+        if (isSlow(times[FetchStage.TOTAL.ordinal()])) {
+            logger.warn("slow fetch, topic: {}, app: {}, stages: {}", topic, app, format(FetchStage.values(), times));
+        }
+    }
+
+    public StageRecorder<ProduceStage> getProduceRecorder(String topic) {
+        return produceRecorders.get(topic);
+    }
+
+    public StageRecorder<FetchStage> getFetchRecorder(String topic) {
+        return fetchRecorders.get(topic);
+    }
+
+    public Map<String, StageRecorder<ProduceStage>> getProduceRecorders() {
+        return produceRecorders;
+    }
+
+    public Map<String, StageRecorder<FetchStage>> getFetchRecorders() {
+        return fetchRecorders;
+    }
+
+    /**
+     * 所有主题的各阶段耗时
+     *
+     * @return 主题对应的统计
+     */
+    public Map<String, StageTraceStat> getStats() {
+        Map<String, StageTraceStat> result = new HashMap<>();
+        for (Map.Entry<String, StageRecorder<ProduceStage>> entry : produceRecorders.entrySet()) {
+            fillStages(result.computeIfAbsent(entry.getKey(), StageTraceStat::new).getProduceStages(), entry.getValue());
+        }
+        for (Map.Entry<String, StageRecorder<FetchStage>> entry : fetchRecorders.entrySet()) {
+            fillStages(result.computeIfAbsent(entry.getKey(), StageTraceStat::new).getFetchStages(), entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * 主题的各阶段耗时
+     *
+     * @param topic 主题
+     * @return 统计，没有请求时为null
+     */
+    public StageTraceStat getStat(String topic) {
+        StageRecorder<ProduceStage> produceRecorder = produceRecorders.get(topic);
+        StageRecorder<FetchStage> fetchRecorder = fetchRecorders.get(topic);
+        if (produceRecorder == null && fetchRecorder == null) {
+            return null;
+        }
+        StageTraceStat stat = new StageTraceStat(topic);
+        if (produceRecorder != null) {
+            fillStages(stat.getProduceStages(), produceRecorder);
+        }
+        if (fetchRecorder != null) {
+            fillStages(stat.getFetchStages(), fetchRecorder);
+        }
+        return stat;
+    }
+
+    public void removeTopic(String topic) {
+        produceRecorders.remove(topic);
+        fetchRecorders.remove(topic);
+    }
+
+    /**
+     * 切片，丢弃之前的统计
+     */
+    public void slice() {
+        produceRecorders = new ConcurrentHashMap<>();
+        fetchRecorders = new ConcurrentHashMap<>();
+    }
+
+    // 解码和排队阶段，两种请求的前两个阶段相同，请求不是通过网络收到时不记录
+    protected void fillRequestStages(long[] times, Command request, long handleTime) {
+        if (request != null && request.getReceiveTime() > 0) {
+            times[ProduceStage.DECODE.ordinal()] = request.getDecodeTime();
+            times[ProduceStage.QUEUE.ordinal()] = handleTime - request.getReceiveTime();
+        } else {
+            times[ProduceStage.DECODE.ordinal()] = -1;
+            times[ProduceStage.QUEUE.ordinal()] = -1;
+        }
+    }
+
+    protected long getStartTime(Command request, long handleTime) {
+        if (request != null && request.getReceiveTime() > 0) {
+            return request.getReceiveTime() - request.getDecodeTime();
+        }
+        return handleTime;
+    }
+
+    protected boolean isSlow(long total) {
+        int sampleRate = config.getStageTraceSlowLogSample();
+        if (sampleRate <= 0 || total < config.getStageTraceSlowThreshold() * 1000L * 1000L) {
+            return false;
+        }
+        return sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0;
+    }
+
+    protected <S extends Enum<S>> StageRecorder<S> getOrCreateRecorder(ConcurrentMap<String, StageRecorder<S>> recorders, String topic, Class<S> type) {
+        StageRecorder<S> recorder = recorders.get(topic);
+        if (recorder == null) {
+            recorder = new StageRecorder<>(type);
+            StageRecorder<S> oldRecorder = recorders.putIfAbsent(topic, recorder);
+            if (oldRecorder != null) {
+                recorder = oldRecorder;
+            }
+        }
+        return recorder;
+    }
+
+    protected <S extends Enum<S>> void fillStages(Map<String, StageTraceStat.StageLatencyStat> stages, StageRecorder<S> recorder) {
+        for (S stage : recorder.getStages()) {
+            stages.put(stage.name().toLowerCase(), new StageTraceStat.StageLatencyStat(recorder.snapshot(stage)));
+        }
+    }
+
+    protected String format(Enum<?>[] stages, long[] times) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < stages.length; i++) {
+            if (times[i] < 0) {
+                continue;
+            }
+            if (builder.length() != 0) {
+                builder.append(", ");
+            }
+            builder.append(stages[i].name().toLowerCase()).append('=').append(times[i] / 1000).append("us");
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.network.protocol;
+
+import org.joyqueue.broker.network.protocol.support.CommandHandlerWrapper;
+import org.joyqueue.network.transport.command.Command;
+import org.joyqueue.network.transport.command.support.CommandExecuteTask;
+
+import java.util.Objects;
+
+/**
+ * 协议命令类型
+ * 不同协议的命令类型会重复，统计和并发限制需要按协议加命令类型区分
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/20
+ */
+public class ProtocolCommandType {
+
+    public static final String UNKNOWN_PROTOCOL = "unknown";
+    public static final int UNKNOWN_TYPE = -1;
+
+    private final String protocol;
+    private final int type;
+
+    public ProtocolCommandType(String protocol, int type) {
+        this.protocol = protocol;
+        this.type = type;
+    }
+
+    /**
+     * 从处理任务中解析协议和命令类型，无法解析时返回unknown
+     *
+     * @param command 任务
+     * @return 协议命令类型
+     */
+    public static ProtocolCommandType valueOf(Runnable command) {
+        if (!(command instanceof CommandExecuteTask)) {
+            return new ProtocolCommandType(UNKNOWN_PROTOCOL, UNKNOWN_TYPE);
+        }
+        CommandExecuteTask commandExecuteTask = (CommandExecuteTask) command;
+        String protocol = UNKNOWN_PROTOCOL;
+        if (commandExecuteTask.getCommandHandler() instanceof CommandHandlerWrapper) {
+            protocol = ((CommandHandlerWrapper) commandExecuteTask.getCommandHandler()).getProtocol();
+        }
+        Command request = commandExecuteTask.getRequest();
+        if (request == null || request.getHeader() == null) {
+            return new ProtocolCommandType(protocol, UNKNOWN_TYPE);
+        }
+        return new ProtocolCommandType(protocol, request.getHeader().getType());
+    }
+
+    public String getProtocol() {
+        return protocol;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ProtocolCommandType that = (ProtocolCommandType) o;
+        return type == that.type && Objects.equals(protocol, that.protocol);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(protocol, type);
+    }
+
+    @Override
+    public String toString() {
+        return protocol + "." + type;
+    }
+}
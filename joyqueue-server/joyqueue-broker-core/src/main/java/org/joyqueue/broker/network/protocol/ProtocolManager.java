@@ -19,13 +19,14 @@ import com.google.common.collect.Lists;
 import com.jd.laf.extension.ExtensionManager;
 import org.joyqueue.broker.BrokerContext;
 import org.joyqueue.broker.BrokerContextAware;
+import org.joyqueue.broker.config.BrokerConfig;
+import org.joyqueue.broker.monitor.stat.ExecutorStat;
 import org.joyqueue.broker.network.protocol.support.ProtocolServerWrapper;
 import org.joyqueue.broker.network.protocol.support.ProtocolServiceWrapper;
 import org.joyqueue.network.protocol.Protocol;
 import org.joyqueue.network.protocol.ProtocolException;
 import org.joyqueue.network.protocol.ProtocolServer;
 import org.joyqueue.network.protocol.ProtocolService;
-import org.joyqueue.toolkit.concurrent.NamedThreadFactory;
 import org.joyqueue.toolkit.lang.LifeCycle;
 import org.joyqueue.toolkit.service.Service;
 import org.slf4j.Logger;
@@ -33,9 +34,6 @@ import org.slf4j.LoggerFactory;
 
 import java.util.List;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 
 /**
  * ProtocolManager
@@ -51,25 +49,58 @@ public class ProtocolManager extends Service {
     private ExecutorService commonThreadPool;
     private ExecutorService fetchThreadPool;
     private ExecutorService produceThreadPool;
+    private ProtocolThreadPoolAdjuster threadPoolAdjuster;
 
     private List<Protocol> protocols = Lists.newLinkedList();
     private List<ProtocolService> protocolServices = Lists.newLinkedList();
     private List<ProtocolServer> protocolServers = Lists.newLinkedList();
 
     public ProtocolManager(BrokerContext brokerContext) {
+        BrokerConfig brokerConfig = brokerContext.getBrokerConfig();
         this.brokerContext = brokerContext;
-        this.commonThreadPool = new ThreadPoolExecutor(brokerContext.getBrokerConfig().getServerCommonThreads(), brokerContext.getBrokerConfig().getServerCommonThreads(),
-                brokerContext.getBrokerConfig().getServerCommonThreadKeepalive(), TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(brokerContext.getBrokerConfig().getServerCommonThreadQueueSize()),
-                new NamedThreadFactory("joyqueue-frontend-common-threads"), new ProtocolRejectedExecutionHandler("common"));
-        this.fetchThreadPool = new ThreadPoolExecutor(brokerContext.getBrokerConfig().getServerFetchThreads(), brokerContext.getBrokerConfig().getServerFetchThreads(),
-                brokerContext.getBrokerConfig().getServerFetchThreadKeepalive(), TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(brokerContext.getBrokerConfig().getServerFetchThreadQueueSize()),
-                new NamedThreadFactory("joyqueue-frontend-fetch-threads"), new ProtocolRejectedExecutionHandler("fetch"));
-        this.produceThreadPool = new ThreadPoolExecutor(brokerContext.getBrokerConfig().getServerProduceThreads(), brokerContext.getBrokerConfig().getServerProduceThreads(),
-                brokerContext.getBrokerConfig().getServerProduceThreadKeepalive(), TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(brokerContext.getBrokerConfig().getServerProduceThreadQueueSize()),
-                new NamedThreadFactory("joyqueue-frontend-produce-threads"), new ProtocolRejectedExecutionHandler("produce"));
+        if (brokerConfig.getServerVirtualThreads() && VirtualThreadExecutor.isSupported()) {
+            // 虚拟线程下所有处理器共用一个执行器，按协议和命令类型限制并发
+            VirtualThreadExecutor virtualThreadExecutor = new VirtualThreadExecutor(
+                    type -> brokerConfig.getServerVirtualThreadConcurrency(type.getProtocol(), type.getType()), getExecutorStat("virtual"));
+            this.commonThreadPool = virtualThreadExecutor;
+            this.fetchThreadPool = virtualThreadExecutor;
+            this.produceThreadPool = virtualThreadExecutor;
+            logger.info("frontend handlers run on virtual threads");
+        } else {
+            if (brokerConfig.getServerVirtualThreads()) {
+                logger.warn("virtual thread is not supported, fallback to thread pools");
+            }
+            ProtocolThreadPoolExecutor commonThreadPool = newThreadPool("common", brokerConfig.getServerCommonThreads(),
+                    brokerConfig.getServerCommonThreadKeepalive(), brokerConfig.getServerCommonThreadQueueSize());
+            ProtocolThreadPoolExecutor fetchThreadPool = newThreadPool("fetch", brokerConfig.getServerFetchThreads(),
+                    brokerConfig.getServerFetchThreadKeepalive(), brokerConfig.getServerFetchThreadQueueSize());
+            ProtocolThreadPoolExecutor produceThreadPool = newThreadPool("produce", brokerConfig.getServerProduceThreads(),
+                    brokerConfig.getServerProduceThreadKeepalive(), brokerConfig.getServerProduceThreadQueueSize());
+            if (brokerConfig.getServerThreadAdaptive()) {
+                this.threadPoolAdjuster = new ProtocolThreadPoolAdjuster(Lists.newArrayList(commonThreadPool, fetchThreadPool, produceThreadPool),
+                        brokerConfig.getServerThreadAdaptiveInterval(), brokerConfig.getServerThreadAdaptiveQueueTime());
+            }
+            this.commonThreadPool = commonThreadPool;
+            this.fetchThreadPool = fetchThreadPool;
+            this.produceThreadPool = produceThreadPool;
+        }
         loadProtocols();
     }
 
+    protected ProtocolThreadPoolExecutor newThreadPool(String name, int threads, int keepalive, int queueSize) {
+        BrokerConfig brokerConfig = brokerContext.getBrokerConfig();
+        int maxThreads = (brokerConfig.getServerThreadAdaptive() ? threads * brokerConfig.getServerThreadAdaptiveMaxRatio() : threads);
+        return new ProtocolThreadPoolExecutor(name, threads, maxThreads, keepalive, queueSize, getExecutorStat(name));
+    }
+
+    protected ExecutorStat getExecutorStat(String name) {
+        // getBrokerMonitor依赖brokerMonitorService，两个都需要判断
+        if (brokerContext.getBrokerMonitorService() == null || brokerContext.getBrokerMonitor() == null) {
+            return new ExecutorStat(name);
+        }
+        return brokerContext.getBrokerMonitor().getOrCreateExecutorStat(name);
+    }
+
     public List<ProtocolService> getProtocolServices() {
         return protocolServices;
     }
@@ -97,10 +128,16 @@ public class ProtocolManager extends Service {
                 throw new ProtocolException(String.format("protocol %s init failed", protocol.type()), e);
             }
         }
+        if (threadPoolAdjuster != null) {
+            threadPoolAdjuster.start();
+        }
     }
 
     @Override
     protected void doStop() {
+        if (threadPoolAdjuster != null) {
+            threadPoolAdjuster.stop();
+        }
         for (Protocol protocol : protocols) {
             try {
                 stopProtocol(protocol);
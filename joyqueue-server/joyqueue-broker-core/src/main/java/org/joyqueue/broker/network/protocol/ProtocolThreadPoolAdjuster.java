@@ -0,0 +1,91 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.network.protocol;
+
+import org.joyqueue.toolkit.concurrent.NamedThreadFactory;
+import org.joyqueue.toolkit.service.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 处理线程池调整
+ * 平均排队时间超过阈值时扩容，线程池空闲时缩容
+ *
+ * author: gaohaoxiang
+ * date: 2020/3/9
+ */
+public class ProtocolThreadPoolAdjuster extends Service implements Runnable {
+
+    protected static final Logger logger = LoggerFactory.getLogger(ProtocolThreadPoolAdjuster.class);
+
+    private List<ProtocolThreadPoolExecutor> executors;
+    private int interval;
+    private int queueTimeThreshold;
+
+    private ScheduledExecutorService adjustThread;
+
+    public ProtocolThreadPoolAdjuster(List<ProtocolThreadPoolExecutor> executors, int interval, int queueTimeThreshold) {
+        this.executors = executors;
+        this.interval = interval;
+        this.queueTimeThreshold = queueTimeThreshold;
+    }
+
+    @Override
+    protected void validate() throws Exception {
+        this.adjustThread = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("joyqueue-frontend-threads-adjuster", true));
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        this.adjustThread.scheduleWithFixedDelay(this, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected void doStop() {
+        this.adjustThread.shutdown();
+    }
+
+    @Override
+    public void run() {
+        for (ProtocolThreadPoolExecutor executor : executors) {
+            try {
+                adjust(executor);
+            } catch (Exception e) {
+                logger.error("adjust threads exception, name: {}", executor.getName(), e);
+            }
+        }
+    }
+
+    protected void adjust(ProtocolThreadPoolExecutor executor) {
+        double queueTime = executor.pollQueueTime();
+        int threads = executor.getCorePoolSize();
+        int step = Math.max(executor.getMinThreads() / 4, 1);
+
+        if (queueTime >= queueTimeThreshold && threads < executor.getMaxThreads()) {
+            int newThreads = executor.resize(threads + step);
+            logger.info("increase threads, name: {}, queueTime: {}, threads: {}, newThreads: {}", executor.getName(), queueTime, threads, newThreads);
+        } else if (queueTime * 2 < queueTimeThreshold && threads > executor.getMinThreads()
+                && executor.getQueue().isEmpty() && executor.getActiveCount() < threads / 2) {
+            int newThreads = executor.resize(threads - step);
+            logger.info("decrease threads, name: {}, queueTime: {}, threads: {}, newThreads: {}", executor.getName(), queueTime, threads, newThreads);
+        }
+    }
+}
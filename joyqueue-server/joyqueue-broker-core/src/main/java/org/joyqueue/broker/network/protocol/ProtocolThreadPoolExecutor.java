@@ -0,0 +1,146 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.network.protocol;
+
+import org.joyqueue.broker.monitor.stat.CommandExecuteStat;
+import org.joyqueue.broker.monitor.stat.ExecutorStat;
+import org.joyqueue.toolkit.concurrent.NamedThreadFactory;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 请求处理线程池
+ * 按协议和命令类型记录排队时间、执行时间和拒绝次数，线程数可以在minThreads和maxThreads之间调整
+ *
+ * author: gaohaoxiang
+ * date: 2020/3/9
+ */
+public class ProtocolThreadPoolExecutor extends ThreadPoolExecutor {
+
+    private String name;
+    private int minThreads;
+    private int maxThreads;
+    private ExecutorStat executorStat;
+
+    // 上次调整后的排队时间，单位纳秒
+    private LongAdder queueTime = new LongAdder();
+    private LongAdder queueCount = new LongAdder();
+
+    public ProtocolThreadPoolExecutor(String name, int minThreads, int maxThreads, int keepalive, int queueSize, ExecutorStat executorStat) {
+        super(minThreads, minThreads, keepalive, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(queueSize),
+                new NamedThreadFactory(String.format("joyqueue-frontend-%s-threads", name)), new ProtocolRejectedExecutionHandler(name));
+        this.name = name;
+        this.minThreads = minThreads;
+        this.maxThreads = Math.max(minThreads, maxThreads);
+        this.executorStat = executorStat;
+        this.executorStat.setExecutor(this);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        ProtocolCommandType type = ProtocolCommandType.valueOf(command);
+        try {
+            super.execute(new ProtocolTask(command, type, System.nanoTime()));
+        } catch (RejectedExecutionException e) {
+            executorStat.getOrCreateCommandStat(type.getProtocol(), type.getType()).markRejected();
+            throw e;
+        }
+    }
+
+    /**
+     * 调整线程数，超出范围时取边界值
+     *
+     * @param threads 线程数
+     * @return 调整后的线程数
+     */
+    public synchronized int resize(int threads) {
+        threads = Math.min(Math.max(threads, minThreads), maxThreads);
+        if (threads > getCorePoolSize()) {
+            setMaximumPoolSize(threads);
+            setCorePoolSize(threads);
+        } else if (threads < getCorePoolSize()) {
+            setCorePoolSize(threads);
+            setMaximumPoolSize(threads);
+        }
+        return threads;
+    }
+
+    /**
+     * 返回上次调用后的平均排队时间并重置，单位毫秒
+     */
+    public double pollQueueTime() {
+        long time = queueTime.sumThenReset();
+        long count = queueCount.sumThenReset();
+        if (count == 0) {
+            return 0;
+        }
+        return (double) time / count / 1000 / 1000;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMinThreads() {
+        return minThreads;
+    }
+
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    public ExecutorStat getExecutorStat() {
+        return executorStat;
+    }
+
+    protected class ProtocolTask implements Runnable {
+
+        private Runnable delegate;
+        private ProtocolCommandType type;
+        private long submitTime;
+
+        public ProtocolTask(Runnable delegate, ProtocolCommandType type, long submitTime) {
+            this.delegate = delegate;
+            this.type = type;
+            this.submitTime = submitTime;
+        }
+
+        @Override
+        public void run() {
+            long startTime = System.nanoTime();
+            try {
+                delegate.run();
+            } finally {
+                long waitTime = startTime - submitTime;
+                long serviceTime = System.nanoTime() - startTime;
+                queueTime.add(waitTime);
+                queueCount.increment();
+
+                CommandExecuteStat commandStat = executorStat.getOrCreateCommandStat(type.getProtocol(), type.getType());
+                commandStat.mark(TimeUnit.NANOSECONDS.toMicros(waitTime), TimeUnit.NANOSECONDS.toMicros(serviceTime));
+            }
+        }
+
+        @Override
+        public String toString() {
+            return delegate.toString();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.network.protocol;
+
+import com.google.common.collect.Maps;
+import org.joyqueue.broker.monitor.stat.ExecutorStat;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * 虚拟线程执行器
+ * 每个请求在独立的虚拟线程上执行，适合阻塞的处理器，按协议和命令类型限制并发数，超过后拒绝
+ * 虚拟线程通过反射创建，运行时不支持时isSupported返回false
+ *
+ * author: gaohaoxiang
+ * date: 2020/3/10
+ */
+public class VirtualThreadExecutor extends AbstractExecutorService {
+
+    private static final String NEW_VIRTUAL_THREAD_EXECUTOR_METHOD = "newVirtualThreadPerTaskExecutor";
+
+    private ExecutorService delegate;
+    private ToIntFunction<ProtocolCommandType> concurrency;
+    private ExecutorStat executorStat;
+
+    private ConcurrentMap<ProtocolCommandType, Semaphore> permitsMap = Maps.newConcurrentMap();
+
+    /**
+     * @param concurrency 协议和命令类型对应的最大并发数
+     * @param executorStat 统计
+     */
+    public VirtualThreadExecutor(ToIntFunction<ProtocolCommandType> concurrency, ExecutorStat executorStat) {
+        this(newVirtualThreadExecutor(), concurrency, executorStat);
+    }
+
+    protected VirtualThreadExecutor(ExecutorService delegate, ToIntFunction<ProtocolCommandType> concurrency, ExecutorStat executorStat) {
+        this.delegate = delegate;
+        this.concurrency = concurrency;
+        this.executorStat = executorStat;
+    }
+
+    public static boolean isSupported() {
+        try {
+            Executors.class.getMethod(NEW_VIRTUAL_THREAD_EXECUTOR_METHOD);
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    protected static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method method = Executors.class.getMethod(NEW_VIRTUAL_THREAD_EXECUTOR_METHOD);
+            return (ExecutorService) method.invoke(null);
+        } catch (Exception e) {
+            throw new UnsupportedOperationException("virtual thread is not supported", e);
+        }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        ProtocolCommandType type = ProtocolCommandType.valueOf(command);
+        Semaphore permits = getOrCreatePermits(type);
+        if (!permits.tryAcquire()) {
+            executorStat.getOrCreateCommandStat(type.getProtocol(), type.getType()).markRejected();
+            throw new RejectedExecutionException(String.format("reject virtual request, type: %s, concurrency: %s, task: %s",
+                    type, concurrency.applyAsInt(type), command));
+        }
+
+        long submitTime = System.nanoTime();
+        try {
+            delegate.execute(() -> {
+                long startTime = System.nanoTime();
+                try {
+                    command.run();
+                } finally {
+                    permits.release();
+                    executorStat.getOrCreateCommandStat(type.getProtocol(), type.getType()).mark(TimeUnit.NANOSECONDS.toMicros(startTime - submitTime),
+                            TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            executorStat.getOrCreateCommandStat(type.getProtocol(), type.getType()).markRejected();
+            throw e;
+        }
+    }
+
+    protected Semaphore getOrCreatePermits(ProtocolCommandType type) {
+        Semaphore permits = permitsMap.get(type);
+        if (permits == null) {
+            permits = new Semaphore(concurrency.applyAsInt(type));
+            Semaphore oldPermits = permitsMap.putIfAbsent(type, permits);
+            if (oldPermits != null) {
+                permits = oldPermits;
+            }
+        }
+        return permits;
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+}
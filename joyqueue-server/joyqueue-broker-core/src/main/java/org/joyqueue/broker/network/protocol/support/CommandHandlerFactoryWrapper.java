@@ -17,6 +17,7 @@ package org.joyqueue.broker.network.protocol.support;
 
 import com.google.common.collect.Maps;
 import org.joyqueue.network.protocol.annotation.CommonHandler;
+import org.joyqueue.network.protocol.annotation.DirectHandler;
 import org.joyqueue.network.protocol.annotation.FetchHandler;
 import org.joyqueue.network.protocol.annotation.ProduceHandler;
 import org.joyqueue.network.transport.command.Command;
@@ -34,6 +35,7 @@ import java.util.concurrent.ExecutorService;
  */
 public class CommandHandlerFactoryWrapper implements CommandHandlerFactory {
 
+    private String protocol;
     private CommandHandlerFactory delegate;
     private ExecutorService commonThreadPool;
     private ExecutorService fetchThreadPool;
@@ -41,7 +43,8 @@ public class CommandHandlerFactoryWrapper implements CommandHandlerFactory {
 
     private ConcurrentMap<CommandHandler /** source **/, CommandHandler /** wrapper **/> commandHandlerMap = Maps.newConcurrentMap();
 
-    public CommandHandlerFactoryWrapper(CommandHandlerFactory delegate, ExecutorService commonThreadPool, ExecutorService fetchThreadPool, ExecutorService produceThreadPool) {
+    public CommandHandlerFactoryWrapper(String protocol, CommandHandlerFactory delegate, ExecutorService commonThreadPool, ExecutorService fetchThreadPool, ExecutorService produceThreadPool) {
+        this.protocol = protocol;
         this.delegate = delegate;
         this.commonThreadPool = commonThreadPool;
         this.fetchThreadPool = fetchThreadPool;
@@ -66,14 +69,17 @@ public class CommandHandlerFactoryWrapper implements CommandHandlerFactory {
         if (commandHandler instanceof ExecutorServiceProvider) {
             return commandHandler;
         }
+        if (commandHandler.getClass().getAnnotation(DirectHandler.class) != null) {
+            return commandHandler;
+        }
         if (commandHandler.getClass().getAnnotation(CommonHandler.class) != null) {
-            return new CommandHandlerWrapper(commandHandler, commonThreadPool);
+            return new CommandHandlerWrapper(protocol, commandHandler, commonThreadPool);
         } else if (commandHandler.getClass().getAnnotation(FetchHandler.class) != null) {
-            return new CommandHandlerWrapper(commandHandler, fetchThreadPool);
+            return new CommandHandlerWrapper(protocol, commandHandler, fetchThreadPool);
         } else if (commandHandler.getClass().getAnnotation(ProduceHandler.class) != null) {
-            return new CommandHandlerWrapper(commandHandler, produceThreadPool);
+            return new CommandHandlerWrapper(protocol, commandHandler, produceThreadPool);
         } else {
-            return new CommandHandlerWrapper(commandHandler, commonThreadPool);
+            return new CommandHandlerWrapper(protocol, commandHandler, commonThreadPool);
         }
     }
 }
\ No newline at end of file
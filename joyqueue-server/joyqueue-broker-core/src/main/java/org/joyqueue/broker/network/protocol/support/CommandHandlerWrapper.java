@@ -29,10 +29,12 @@ import java.util.concurrent.ExecutorService;
  */
 public class CommandHandlerWrapper implements CommandHandler, ExecutorServiceProvider {
 
+    private String protocol;
     private CommandHandler delegate;
     private ExecutorService threadPool;
 
-    public CommandHandlerWrapper(CommandHandler delegate, ExecutorService threadPool) {
+    public CommandHandlerWrapper(String protocol, CommandHandler delegate, ExecutorService threadPool) {
+        this.protocol = protocol;
         this.delegate = delegate;
         this.threadPool = threadPool;
     }
@@ -46,4 +48,8 @@ public class CommandHandlerWrapper implements CommandHandler, ExecutorServicePro
     public ExecutorService getExecutorService(Transport transport, Command command) {
         return threadPool;
     }
-}
\ No newline at end of file
+
+    public String getProtocol() {
+        return protocol;
+    }
+}
@@ -114,7 +114,7 @@ public class ProtocolServerWrapper implements LifeCycle, ProtocolServer, BrokerC
 
     @Override
     public CommandHandlerFactory createCommandHandlerFactory() {
-        return new CommandHandlerFactoryWrapper(delegate.createCommandHandlerFactory(), commonThreadPool, fetchThreadPool, produceThreadPool);
+        return new CommandHandlerFactoryWrapper(delegate.type(), delegate.createCommandHandlerFactory(), commonThreadPool, fetchThreadPool, produceThreadPool);
     }
 
     @Override
@@ -20,6 +20,7 @@ import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.joyqueue.broker.BrokerContext;
 import org.joyqueue.broker.BrokerContextAware;
+import org.joyqueue.broker.archive.ArchiveManager;
 import org.joyqueue.broker.buffer.Serializer;
 import org.joyqueue.broker.cluster.ClusterManager;
 import org.joyqueue.broker.monitor.BrokerMonitor;
@@ -84,6 +85,8 @@ public class ProduceManager extends Service implements Produce, BrokerContextAwa
 
     private BrokerContext brokerContext;
 
+    private ArchiveManager archiveManager;
+
     private Metric metrics = null;
     private Metric.MetricInstance metric = null;
     private LoopThread metricThread = null;
@@ -125,6 +128,9 @@ public class ProduceManager extends Service implements Produce, BrokerContextAwa
         if (brokerMonitor == null && brokerContext != null) {
             brokerMonitor = brokerContext.getBrokerMonitor();
         }
+        if (archiveManager == null && brokerContext != null) {
+            archiveManager = brokerContext.getArchiveManager();
+        }
 
         Preconditions.checkArgument(store != null, "store service can not be null");
         Preconditions.checkArgument(clusterManager != null, "cluster manager can not be null");
@@ -382,6 +388,10 @@ public class ProduceManager extends Service implements Produce, BrokerContextAwa
         long now = SystemClock.now();
         writeRequests.forEach(writeRequest -> {
             brokerMonitor.onPutMessage(topic, app, partitionGroup, writeRequest.getPartition(), writeRequest.getBatchSize(), writeRequest.getBuffer().limit(), now - startTime);
+            // 通知发送归档读取新消息
+            if (archiveManager != null) {
+                archiveManager.onPutMessage(topic, writeRequest.getPartition());
+            }
         });
     }
 
@@ -7,7 +7,7 @@ import org.joyqueue.broker.cluster.ClusterManager;
 import org.joyqueue.broker.consumer.ConsumeConfig;
 import org.joyqueue.broker.consumer.ConsumeConfigKey;
 import org.joyqueue.broker.limit.RateLimiter;
-import org.joyqueue.broker.limit.support.DefaultRateLimiter;
+import org.joyqueue.broker.limit.support.TokenBucketRateLimiter;
 import org.joyqueue.domain.Config;
 import org.joyqueue.event.MetaEvent;
 import org.joyqueue.nsr.event.RemoveConfigEvent;
@@ -50,7 +50,7 @@ public class BrokerRetryRateLimiterManager implements RetryRateLimiter{
         if(consumerRetryRateLimiter==null){
             int tps=consumerRetryRate(topic,app);
             if(tps>0) { // ulimit
-                consumerRetryRateLimiter = new DefaultRateLimiter(tps);
+                consumerRetryRateLimiter = new TokenBucketRateLimiter(tps);
                 RateLimiter oldRateLimiter = topicRateLimiters.putIfAbsent(app, consumerRetryRateLimiter);
                 if (oldRateLimiter != null) {
                     consumerRetryRateLimiter = oldRateLimiter;
@@ -42,6 +42,7 @@ import org.joyqueue.store.StoreService;
 import org.joyqueue.toolkit.concurrent.EventListener;
 import org.joyqueue.toolkit.concurrent.NamedThreadFactory;
 import org.joyqueue.toolkit.service.Service;
+import org.joyqueue.toolkit.time.SystemClock;
 import org.apache.commons.collections.CollectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -55,6 +56,8 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * StoreInitializer
@@ -70,6 +73,7 @@ public class StoreInitializer extends Service implements EventListener<MetaEvent
     private ClusterManager clusterManager;
     private StoreService storeService;
     private ElectionService electionService;
+    private final StoreRecoveryStat recoveryStat = new StoreRecoveryStat();
 
     public StoreInitializer(BrokerStoreConfig config, NameService nameService, ClusterManager clusterManager, StoreService storeService, ElectionService electionService) {
         this.config = config;
@@ -91,33 +95,81 @@ public class StoreInitializer extends Service implements EventListener<MetaEvent
         if (CollectionUtils.isEmpty(replicas)) {
             return;
         }
-        // 并行恢复所有的PartitionGroup
-        ExecutorService executor = Executors.newFixedThreadPool(32, new NamedThreadFactory("Store-recover-threads"));
+
+        // 当前broker是leader的PartitionGroup优先恢复
+        List<RestoreTask> leaderTasks = new ArrayList<>();
+        List<RestoreTask> followerTasks = new ArrayList<>();
+        for (Replica replica : replicas) {
+            PartitionGroup group = clusterManager.getPartitionGroupByGroup(replica.getTopic(), replica.getGroup());
+            if (group == null) {
+                logger.warn("group is null topic {},replica {}", replica.getTopic(), replica.getGroup());
+                throw new RuntimeException(String.format("group is null topic %s,replica %s", replica.getTopic(), replica.getGroup()));
+            }
+            if (!group.getReplicas().contains(broker.getId())) {
+                continue;
+            }
+            if (group.getLeader() != null && group.getLeader().equals(broker.getId())) {
+                leaderTasks.add(new RestoreTask(group, replica, true));
+            } else {
+                followerTasks.add(new RestoreTask(group, replica, false));
+            }
+        }
+        List<RestoreTask> tasks = new ArrayList<>(leaderTasks.size() + followerTasks.size());
+        tasks.addAll(leaderTasks);
+        tasks.addAll(followerTasks);
+        if (tasks.isEmpty()) {
+            return;
+        }
+
+        int threads = getRecoverThreads(tasks.size());
+        recoveryStat.start(tasks.size(), leaderTasks.size(), threads, SystemClock.now());
+        logger.info("restore store start, groups: {}, leaders: {}, threads: {}", tasks.size(), leaderTasks.size(), threads);
+
+        // 并行恢复所有的PartitionGroup，线程池按提交顺序执行，leader先开始恢复
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new NamedThreadFactory("Store-recover-threads"));
         try {
-            CompletableFuture.allOf(
-                    replicas.stream()
-                            .map(replica -> CompletableFuture.runAsync(() -> {
+            CompletableFuture<Void> future = CompletableFuture.allOf(
+                    tasks.stream()
+                            .map(task -> CompletableFuture.runAsync(() -> {
+                                long startTime = SystemClock.now();
                                 try {
-                                    PartitionGroup group = clusterManager.getPartitionGroupByGroup(replica.getTopic(), replica.getGroup());
-                                    if (group == null) {
-                                        logger.warn("group is null topic {},replica {}", replica.getTopic(), replica.getGroup());
-                                        throw new RuntimeException(String.format("group is null topic %s,replica %s", replica.getTopic(), replica.getGroup()));
-                                    }
-                                    if (!group.getReplicas().contains(broker.getId())) {
-                                        return;
-                                    }
-                                    doRestore(group, replica, broker);
+                                    doRestore(task.group, task.replica, broker);
+                                    recoveryStat.onRecovered(task.group.getTopic().getFullName(), task.group.getGroup(), task.leader, SystemClock.now() - startTime);
                                 } catch (Exception e) {
+                                    recoveryStat.onFailed(task.group.getTopic().getFullName(), task.group.getGroup());
                                     throw new CompletionException(e);
                                 }
-                                    }, executor)
-                            ).toArray(CompletableFuture[]::new)
-            ).get();
+                            }, executor))
+                            .toArray(CompletableFuture[]::new));
+
+            while (true) {
+                try {
+                    future.get(config.getRecoverProgressInterval(), TimeUnit.MILLISECONDS);
+                    break;
+                } catch (TimeoutException e) {
+                    logger.info("restore store progress, recovered: {}/{}, leaders: {}/{}, failed: {}, elapsed: {}ms",
+                            recoveryStat.getRecovered(), recoveryStat.getTotal(), recoveryStat.getLeaderRecovered(), recoveryStat.getLeaderTotal(),
+                            recoveryStat.getFailed(), recoveryStat.getElapsed(SystemClock.now()));
+                }
+            }
         } finally {
             executor.shutdown();
+            recoveryStat.finish(SystemClock.now());
+            logger.info("restore store finished, elapsed: {}ms, stat: {}", recoveryStat.getElapsed(SystemClock.now()), recoveryStat);
         }
     }
 
+    /**
+     * 恢复线程数，未配置时按cpu核数计算，恢复过程中读索引和校验消息交替进行，取核数的2倍
+     */
+    protected int getRecoverThreads(int groups) {
+        int threads = config.getRecoverThreads();
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors() * 2;
+        }
+        return Math.max(1, Math.min(threads, groups));
+    }
+
     protected void doRestore(PartitionGroup group, Replica replica, Broker broker) throws Exception {
         if (config.getForceRestore()) { // 强制恢复，如果磁盘上没有这个PartitionGroup，则新建一个
             logger.info("force restore topic {}, group.no {} group {}", replica.getTopic().getFullName(), replica.getGroup(), group);
@@ -133,6 +185,10 @@ public class StoreInitializer extends Service implements EventListener<MetaEvent
         }
     }
 
+    public StoreRecoveryStat getRecoveryStat() {
+        return recoveryStat;
+    }
+
     @Override
     public void onEvent(MetaEvent event) {
         try {
@@ -340,4 +396,17 @@ public class StoreInitializer extends Service implements EventListener<MetaEvent
         logger.info("onLeaderChange, topic: {}, partitionGroup: {}", topicName, newPartitionGroup);
         electionService.onLeaderChange(topicName, newPartitionGroup.getGroup(), newPartitionGroup.getLeader());
     }
+
+    private static class RestoreTask {
+
+        private final PartitionGroup group;
+        private final Replica replica;
+        private final boolean leader;
+
+        RestoreTask(PartitionGroup group, Replica replica, boolean leader) {
+            this.group = group;
+            this.replica = replica;
+            this.leader = leader;
+        }
+    }
 }
@@ -0,0 +1,158 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.store;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * StoreRecoveryStat
+ * 启动时存储恢复的进度和耗时
+ * author: gaohaoxiang
+ * date: 2020/4/9
+ */
+public class StoreRecoveryStat {
+
+    private volatile int total;
+    private volatile int leaderTotal;
+    private volatile int threads;
+    private volatile long startTime;
+    private volatile long endTime;
+
+    private final AtomicInteger recovered = new AtomicInteger();
+    private final AtomicInteger leaderRecovered = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicLong totalCost = new AtomicLong();
+    private final AtomicLong maxCost = new AtomicLong();
+    private volatile String maxCostGroup;
+
+    // topic/group -> 耗时，单位毫秒
+    private final Map<String, Long> groupCosts = new ConcurrentHashMap<>();
+
+    public void start(int total, int leaderTotal, int threads, long startTime) {
+        this.total = total;
+        this.leaderTotal = leaderTotal;
+        this.threads = threads;
+        this.startTime = startTime;
+    }
+
+    public void finish(long endTime) {
+        this.endTime = endTime;
+    }
+
+    public void onRecovered(String topic, int group, boolean leader, long cost) {
+        String key = topic + "/" + group;
+        groupCosts.put(key, cost);
+        totalCost.addAndGet(cost);
+        recovered.incrementAndGet();
+        if (leader) {
+            leaderRecovered.incrementAndGet();
+        }
+        long max;
+        while (cost > (max = maxCost.get())) {
+            if (maxCost.compareAndSet(max, cost)) {
+                maxCostGroup = key;
+                break;
+            }
+        }
+    }
+
+    public void onFailed(String topic, int group) {
+        failed.incrementAndGet();
+    }
+
+    public boolean isFinished() {
+        return endTime != 0;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getLeaderTotal() {
+        return leaderTotal;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getRecovered() {
+        return recovered.get();
+    }
+
+    public int getLeaderRecovered() {
+        return leaderRecovered.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getEndTime() {
+        return endTime;
+    }
+
+    public long getElapsed(long now) {
+        if (startTime == 0) {
+            return 0;
+        }
+        return (endTime != 0 ? endTime : now) - startTime;
+    }
+
+    public long getAvgCost() {
+        int count = recovered.get();
+        return count == 0 ? 0 : totalCost.get() / count;
+    }
+
+    public long getMaxCost() {
+        return maxCost.get();
+    }
+
+    public String getMaxCostGroup() {
+        return maxCostGroup;
+    }
+
+    public Long getGroupCost(String topic, int group) {
+        return groupCosts.get(topic + "/" + group);
+    }
+
+    public Map<String, Long> getGroupCosts() {
+        return Collections.unmodifiableMap(groupCosts);
+    }
+
+    @Override
+    public String toString() {
+        return "StoreRecoveryStat{" +
+                "total=" + total +
+                ", recovered=" + recovered +
+                ", failed=" + failed +
+                ", leaderTotal=" + leaderTotal +
+                ", leaderRecovered=" + leaderRecovered +
+                ", threads=" + threads +
+                ", avgCost=" + getAvgCost() +
+                ", maxCost=" + maxCost +
+                ", maxCostGroup=" + maxCostGroup +
+                '}';
+    }
+}
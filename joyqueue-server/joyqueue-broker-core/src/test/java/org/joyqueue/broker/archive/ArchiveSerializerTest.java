@@ -16,11 +16,18 @@
 package org.joyqueue.broker.archive;
 
 import org.joyqueue.broker.archive.ArchiveSerializer;
+import org.joyqueue.broker.buffer.Serializer;
+import org.joyqueue.message.BrokerMessage;
+import org.joyqueue.message.SourceType;
 import org.joyqueue.server.archive.store.model.ConsumeLog;
+import org.joyqueue.server.archive.store.model.SendLog;
+import org.joyqueue.toolkit.network.IpUtil;
 import org.joyqueue.toolkit.time.SystemClock;
 import org.apache.commons.lang.builder.ToStringBuilder;
+import org.junit.Assert;
 import org.junit.Test;
 
+import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 
 /**
@@ -62,4 +69,40 @@ public class ArchiveSerializerTest {
         System.out.println(ToStringBuilder.reflectionToString(log));
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void readSendLog() throws Exception {
+        BrokerMessage message = new BrokerMessage();
+        message.setPartition((short) 3);
+        message.setMsgIndexNo(100);
+        message.setStartTime(SystemClock.now());
+        message.setClientIp(IpUtil.toByte(new InetSocketAddress("127.0.0.1", 50088)));
+        message.setSource(SourceType.JOYQUEUE.getValue());
+        message.setText("text");
+        message.setBusinessId("business_id");
+        message.setApp("app_test");
+        message.setAttribute("key", "value");
+        message.setExtension("extension".getBytes());
+
+        int size = Serializer.sizeOf(message);
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        Serializer.write(message, buffer, size);
+
+        SendLog sendLog = ArchiveSerializer.readSendLog(buffer, "topic_test", 1);
+        BrokerMessage parsed = Serializer.readBrokerMessage(buffer.duplicate());
+
+        Assert.assertEquals("topic_test", sendLog.getTopic());
+        Assert.assertEquals(parsed.getPartition(), sendLog.getPartition());
+        Assert.assertEquals(parsed.getMsgIndexNo(), sendLog.getIndex());
+        Assert.assertEquals(parsed.getStartTime(), sendLog.getSendTime());
+        Assert.assertEquals(parsed.getBusinessId(), sendLog.getBusinessId());
+        Assert.assertEquals(parsed.getApp(), sendLog.getApp());
+        Assert.assertArrayEquals(parsed.getClientIp(), sendLog.getClientIp());
+        Assert.assertEquals(ArchiveUtils.messageId("topic_test", (short) 3, 100), sendLog.getMessageId());
+
+        message.setSource(SourceType.KAFKA.getValue());
+        buffer = ByteBuffer.allocate(size);
+        Serializer.write(message, buffer, size);
+        Assert.assertNull(ArchiveSerializer.readSendLog(buffer, "topic_test", 1));
+    }
+}
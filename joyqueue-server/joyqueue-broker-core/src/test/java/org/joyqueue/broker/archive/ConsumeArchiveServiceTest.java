@@ -120,6 +120,65 @@ public class ConsumeArchiveServiceTest {
         }
     }
 
+    @Test
+    public void appendConsumeLogConcurrently() throws Exception {
+        String testPath = getTestPath();
+        delTestFolder(testPath);
+        ConsumeArchiveService.ArchiveMappedFileRepository archiveMappedFileRepository = new ConsumeArchiveService.ArchiveMappedFileRepository(testPath);
+        // 缓冲较小，覆盖写满后直接写文件的情况
+        ConsumeLogAppender appender = new ConsumeLogAppender(archiveMappedFileRepository, 4, 16);
+
+        int threadNum = 4;
+        int recordNum = 1000;
+        Thread[] threads = new Thread[threadNum];
+        for (int t = 0; t < threadNum; t++) {
+            final int brokerId = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < recordNum; i++) {
+                    ConsumeLog consumeLog = new ConsumeLog();
+                    consumeLog.setBrokerId(brokerId);
+                    consumeLog.setBytesMessageId(new byte[16]);
+                    consumeLog.setClientIp(new byte[16]);
+                    consumeLog.setConsumeTime(i);
+                    consumeLog.setApp("test");
+                    appender.append(ArchiveSerializer.write(consumeLog));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        appender.close(1000);
+        Assert.assertEquals(0, appender.size());
+
+        // 关闭后不再接收追加
+        ConsumeLog closedLog = new ConsumeLog();
+        closedLog.setBytesMessageId(new byte[16]);
+        closedLog.setClientIp(new byte[16]);
+        closedLog.setApp("test");
+        ByteBuffer closedBuffer = ArchiveSerializer.write(closedLog);
+        Assert.assertFalse(appender.append(closedBuffer));
+        ArchiveSerializer.release(closedBuffer);
+        Assert.assertEquals(0, appender.size());
+
+        // 新建一个写文件，使已写入的文件可读
+        new File(testPath, String.valueOf(SystemClock.now() + 1000 * 60)).createNewFile();
+
+        int[] counts = new int[threadNum];
+        int total = 0;
+        byte[] bytes;
+        while ((bytes = archiveMappedFileRepository.readOne()).length > 0) {
+            ConsumeLog read = ArchiveSerializer.read(ByteBuffer.wrap(bytes));
+            counts[read.getBrokerId()]++;
+            total++;
+        }
+        for (int count : counts) {
+            Assert.assertEquals(recordNum, count);
+        }
+        Assert.assertEquals(threadNum * recordNum, total);
+    }
+
     /**
      * 删除临时目录
      *
@@ -17,6 +17,7 @@ package org.joyqueue.broker.buffer;
 
 import org.joyqueue.broker.buffer.Serializer;
 import org.joyqueue.message.BrokerMessage;
+import org.joyqueue.message.Message;
 import org.joyqueue.toolkit.network.IpUtil;
 import org.junit.Assert;
 import org.junit.Test;
@@ -127,4 +128,37 @@ public class SerializerTest {
         Assert.assertEquals(sendTime, 100l);
     }
 
+    @Test
+    public void readCompressedBatchHeader() throws Exception {
+        message.setClientIp(IpUtil.toByte(new InetSocketAddress(50088)));
+        message.setBody(new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        message.setBusinessId("businessId");
+        message.setMsgIndexNo(1000);
+        message.setStartTime(100L);
+        message.setCompressed(true);
+        message.setCompressionType(Message.CompressionType.ZSTD);
+        message.setBatch(true);
+        message.setFlag((short) 20);
+
+        int size = Serializer.sizeOf(message);
+        ByteBuffer buffer = ByteBuffer.allocate(size + 10);
+        buffer.position(10);
+        ByteBuffer slice = buffer.slice();
+        Serializer.write(message, slice, size);
+        byte[] bytes = slice.array().clone();
+        buffer.position(10);
+
+        Assert.assertTrue(Serializer.isBatch(buffer));
+        Assert.assertTrue(Serializer.isCompressed(buffer));
+        Assert.assertEquals(Message.CompressionType.ZSTD, Serializer.readCompressionType(buffer));
+        Assert.assertEquals(20, Serializer.readMessageCount(buffer));
+        Assert.assertEquals("businessId", Serializer.readBusinessId(buffer));
+        Assert.assertEquals(1000, Serializer.readIndex(buffer));
+        Assert.assertEquals(100L, Serializer.readSendTime(buffer));
+
+        // 只读取消息头，不修改消息
+        Assert.assertEquals(10, buffer.position());
+        Assert.assertArrayEquals(bytes, buffer.array());
+    }
+
 }
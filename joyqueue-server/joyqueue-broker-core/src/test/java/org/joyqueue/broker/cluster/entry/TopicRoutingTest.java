@@ -0,0 +1,72 @@
+package org.joyqueue.broker.cluster.entry;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.joyqueue.domain.PartitionGroup;
+import org.joyqueue.domain.Topic;
+import org.joyqueue.domain.TopicConfig;
+import org.joyqueue.domain.TopicName;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * TopicRoutingTest
+ * author: gaohaoxiang
+ * date: 2020/4/2
+ */
+public class TopicRoutingTest {
+
+    @Test
+    public void testRouting() {
+        Topic topic = new Topic();
+        topic.setName(TopicName.parse("test_topic"));
+        topic.setPartitions((short) 6);
+
+        PartitionGroup partitionGroup0 = newPartitionGroup(0, Sets.newHashSet((short) 0, (short) 1, (short) 2), Sets.newHashSet(1, 2));
+        PartitionGroup partitionGroup1 = newPartitionGroup(1, Sets.newHashSet((short) 3, (short) 5), Sets.newHashSet(2, 3));
+        Map<Integer, PartitionGroup> partitionGroups = Maps.newHashMap();
+        partitionGroups.put(0, partitionGroup0);
+        partitionGroups.put(1, partitionGroup1);
+
+        TopicConfig topicConfig = TopicConfig.toTopicConfig(topic);
+        topicConfig.setPartitionGroups(partitionGroups);
+
+        TopicRouting routing = new TopicRouting(topicConfig, 1, 10);
+        Assert.assertEquals(10, routing.getVersion());
+        Assert.assertSame(partitionGroup0, routing.getPartitionGroup((short) 0));
+        Assert.assertSame(partitionGroup0, routing.getPartitionGroup((short) 2));
+        Assert.assertSame(partitionGroup1, routing.getPartitionGroup((short) 3));
+        Assert.assertSame(partitionGroup1, routing.getPartitionGroup((short) 5));
+        Assert.assertNull(routing.getPartitionGroup((short) 4));
+        Assert.assertNull(routing.getPartitionGroup((short) 6));
+        Assert.assertNull(routing.getPartitionGroup((short) -1));
+
+        Assert.assertEquals(1, routing.getReplicaGroups().length);
+        Assert.assertSame(partitionGroup0, routing.getReplicaGroups()[0]);
+        Assert.assertEquals(2, new TopicRouting(topicConfig, 2, 0).getReplicaGroups().length);
+        Assert.assertEquals(0, new TopicRouting(topicConfig, 4, 0).getReplicaGroups().length);
+    }
+
+    @Test
+    public void testEmpty() {
+        Topic topic = new Topic();
+        topic.setName(TopicName.parse("test_topic"));
+        TopicConfig topicConfig = TopicConfig.toTopicConfig(topic);
+
+        TopicRouting routing = new TopicRouting(topicConfig, 1, 0);
+        Assert.assertNull(routing.getPartitionGroup((short) 0));
+        Assert.assertEquals(0, routing.getReplicaGroups().length);
+    }
+
+    protected PartitionGroup newPartitionGroup(int group, Set<Short> partitions, Set<Integer> replicas) {
+        PartitionGroup partitionGroup = new PartitionGroup();
+        partitionGroup.setTopic(TopicName.parse("test_topic"));
+        partitionGroup.setGroup(group);
+        partitionGroup.setPartitions(partitions);
+        partitionGroup.setReplicas(replicas);
+        return partitionGroup;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,139 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.limit.support;
+
+import com.google.common.collect.Lists;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.joyqueue.broker.coordinator.limit.LimitTokenManager;
+import org.joyqueue.broker.coordinator.limit.domain.LimitTokenMetadata;
+import org.joyqueue.broker.limit.domain.LimitTokenLease;
+import org.joyqueue.broker.limit.network.codec.LeaseLimitTokenRequestCodec;
+import org.joyqueue.broker.limit.network.command.LeaseLimitTokenRequest;
+import org.joyqueue.toolkit.time.SystemClock;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * ClusterRateLimiterTest
+ * author: gaohaoxiang
+ * date: 2020/4/14
+ */
+public class ClusterRateLimiterTest {
+
+    @Test
+    public void allocateTest() {
+        // 需求超过预算，小需求全部满足，其余平分
+        double[] demands = {10, 200, 300};
+        Assert.assertEquals(10, LimitTokenMetadata.allocate(100, demands, 10), 0.0001);
+        Assert.assertEquals(45, LimitTokenMetadata.allocate(100, demands, 200), 0.0001);
+        Assert.assertEquals(45, LimitTokenMetadata.allocate(100, demands, 300), 0.0001);
+
+        // 需求都满足，剩余令牌平分
+        demands = new double[] {10, 20};
+        Assert.assertEquals(45, LimitTokenMetadata.allocate(100, demands, 10), 0.0001);
+        Assert.assertEquals(55, LimitTokenMetadata.allocate(100, demands, 20), 0.0001);
+    }
+
+    @Test
+    public void leaseTest() {
+        LimitTokenManager limitTokenManager = new LimitTokenManager();
+        long[] demands = {100, 2000, 2000};
+        long[] granted = new long[demands.length];
+
+        // 第一轮各broker陆续上报需求，之后按需求重新分配
+        for (int round = 0; round < 2; round++) {
+            for (int broker = 0; broker < demands.length; broker++) {
+                List<LimitTokenLease> leases = limitTokenManager.lease(broker, 1000,
+                        Lists.newArrayList(new LimitTokenLease("test_topic", "test_app", "produce", 1000, Integer.MAX_VALUE, demands[broker], 0)));
+                granted[broker] = leases.get(0).getTpsTokens();
+                Assert.assertEquals(0, leases.get(0).getTrafficTokens());
+            }
+        }
+        Assert.assertEquals(3, limitTokenManager.getMetadata("test_topic", "test_app", "produce").getBrokers());
+        Assert.assertEquals(100, granted[0]);
+        Assert.assertEquals(450, granted[1]);
+        Assert.assertEquals(450, granted[2]);
+    }
+
+    @Test
+    public void expireTest() throws Exception {
+        LimitTokenManager limitTokenManager = new LimitTokenManager();
+        limitTokenManager.lease(1, 1,
+                Lists.newArrayList(new LimitTokenLease("removed_topic", "test_app", "produce", 1000, Integer.MAX_VALUE, 100, 0)));
+        Assert.assertEquals(1, limitTokenManager.size());
+
+        // 超过过期周期没有broker续约的主题被移除
+        Thread.sleep(50);
+        limitTokenManager.lease(1, 1,
+                Lists.newArrayList(new LimitTokenLease("test_topic", "test_app", "produce", 1000, Integer.MAX_VALUE, 100, 0)));
+        Assert.assertEquals(1, limitTokenManager.size());
+        Assert.assertNull(limitTokenManager.getMetadata("removed_topic", "test_app", "produce"));
+        Assert.assertNotNull(limitTokenManager.getMetadata("test_topic", "test_app", "produce"));
+    }
+
+    @Test
+    public void rateLimiterTest() {
+        ClusterRateLimiter rateLimiter = new ClusterRateLimiter("test_topic", "test_app", "produce", 100, 0, new TokenBucketRateLimiter(1));
+
+        // 没有租约时使用单机限流
+        Assert.assertFalse(rateLimiter.isLeased());
+        Assert.assertTrue(rateLimiter.tryAcquireTps());
+        Assert.assertFalse(rateLimiter.tryAcquireTps());
+        Assert.assertTrue(rateLimiter.tryAcquireTraffic(Integer.MAX_VALUE));
+
+        rateLimiter.renew(new LimitTokenLease("test_topic", "test_app", "produce", 100, 0, 5, 0), SystemClock.now() + 1000 * 10);
+        Assert.assertTrue(rateLimiter.isLeased());
+        for (int i = 0; i < 5; i++) {
+            Assert.assertTrue(rateLimiter.tryAcquireTps());
+        }
+        Assert.assertFalse(rateLimiter.tryAcquireTps());
+        Assert.assertEquals(2 + 6, rateLimiter.drain().getTpsTokens());
+        Assert.assertEquals(0, rateLimiter.drain().getTpsTokens());
+
+        // 透支的令牌从下个租约中扣除，未用完的令牌不保留
+        rateLimiter.renew(new LimitTokenLease("test_topic", "test_app", "produce", 100, 0, 5, 0), SystemClock.now() + 1000 * 10);
+        Assert.assertTrue(rateLimiter.tryAcquireTps(8));
+        Assert.assertFalse(rateLimiter.tryAcquireTps());
+        rateLimiter.renew(new LimitTokenLease("test_topic", "test_app", "produce", 100, 0, 5, 0), SystemClock.now() + 1000 * 10);
+        Assert.assertTrue(rateLimiter.tryAcquireTps());
+        Assert.assertTrue(rateLimiter.tryAcquireTps());
+        Assert.assertFalse(rateLimiter.tryAcquireTps());
+        rateLimiter.renew(new LimitTokenLease("test_topic", "test_app", "produce", 100, 0, 1, 0), SystemClock.now() + 1000 * 10);
+        Assert.assertTrue(rateLimiter.tryAcquireTps());
+        Assert.assertFalse(rateLimiter.tryAcquireTps());
+    }
+
+    @Test
+    public void codecTest() throws Exception {
+        LeaseLimitTokenRequest request = new LeaseLimitTokenRequest(1, 200,
+                Lists.newArrayList(new LimitTokenLease("test_topic", "test_app", "fetch", 100, 1024, 10, 2048)));
+        ByteBuf buffer = Unpooled.buffer();
+        new LeaseLimitTokenRequestCodec().encode(request, buffer);
+        request = (LeaseLimitTokenRequest) new LeaseLimitTokenRequestCodec().decode(null, buffer);
+
+        Assert.assertEquals(1, request.getBrokerId());
+        Assert.assertEquals(200, request.getInterval());
+        LimitTokenLease lease = request.getLeases().get(0);
+        Assert.assertEquals(LimitTokenLease.getKey("test_topic", "test_app", "fetch"), lease.getKey());
+        Assert.assertEquals(100, lease.getTps());
+        Assert.assertEquals(1024, lease.getTraffic());
+        Assert.assertEquals(10, lease.getTpsTokens());
+        Assert.assertEquals(2048, lease.getTrafficTokens());
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.limit.support;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TokenBucketTest
+ * author: gaohaoxiang
+ * date: 2020/4/13
+ */
+public class TokenBucketTest {
+
+    private static final AtomicLong NOW = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+
+    @Test
+    public void acquireTest() {
+        TokenBucket bucket = new TestTokenBucket(10, 1);
+
+        // 未透支时允许获取，之后等待补充
+        Assert.assertTrue(bucket.tryAcquire(1));
+        Assert.assertFalse(bucket.tryAcquire(1));
+        advance(100);
+        Assert.assertTrue(bucket.tryAcquire(1));
+
+        // 一次获取超过剩余令牌，透支部分由之后的请求等待
+        advance(100);
+        Assert.assertTrue(bucket.tryAcquire(5));
+        advance(400);
+        Assert.assertFalse(bucket.tryAcquire(1));
+        advance(100);
+        Assert.assertTrue(bucket.tryAcquire(1));
+
+        // 最多积累1秒的令牌
+        advance(10 * 1000);
+        int acquired = 0;
+        while (bucket.tryAcquire(1)) {
+            acquired++;
+        }
+        Assert.assertEquals(11, acquired);
+    }
+
+    @Test
+    public void stripeTest() {
+        TokenBucket bucket = new TestTokenBucket(1000, 4);
+        Assert.assertEquals(4, bucket.getStripes());
+
+        // 自己的分段透支后使用其他分段
+        advance(1000);
+        int acquired = 0;
+        while (bucket.tryAcquire(1)) {
+            acquired++;
+        }
+        Assert.assertEquals(1000 + 4, acquired);
+
+        Assert.assertEquals(1, new TestTokenBucket(1, 4).getStripes());
+    }
+
+    @Test
+    public void concurrentAcquireTest() throws Exception {
+        TokenBucket bucket = new TestTokenBucket(100000, 4);
+        advance(1000);
+        AtomicLong acquired = new AtomicLong();
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 100000; j++) {
+                    if (bucket.tryAcquire(1)) {
+                        acquired.incrementAndGet();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(100000 + 4, acquired.get());
+    }
+
+    @Test
+    public void rateLimiterTest() {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(10, 0);
+        Assert.assertTrue(rateLimiter.tryAcquireTraffic(Integer.MAX_VALUE));
+        Assert.assertTrue(rateLimiter.tryAcquireTps(100));
+        Assert.assertFalse(rateLimiter.tryAcquireTps());
+        Assert.assertTrue(rateLimiter.tryAcquireRequire());
+        Assert.assertFalse(rateLimiter.tryAcquireRequire());
+        Assert.assertTrue(rateLimiter.releaseRequire());
+    }
+
+    protected void advance(long millis) {
+        NOW.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    static class TestTokenBucket extends TokenBucket {
+
+        TestTokenBucket(long permitsPerSecond, int stripes) {
+            super(permitsPerSecond, stripes);
+        }
+
+        @Override
+        protected long now() {
+            return NOW.get();
+        }
+    }
+}
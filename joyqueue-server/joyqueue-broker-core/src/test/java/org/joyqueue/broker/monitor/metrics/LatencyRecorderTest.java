@@ -0,0 +1,99 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.monitor.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * LatencyRecorderTest
+ * author: gaohaoxiang
+ * date: 2020/4/10
+ */
+public class LatencyRecorderTest {
+
+    @Test
+    public void bucketTest() {
+        for (long value = 0; value < 1000000; value++) {
+            long bucketValue = LatencyRecorder.bucketValue(LatencyRecorder.bucketIndex(value));
+            Assert.assertTrue(bucketValue >= value);
+            Assert.assertTrue(bucketValue - value <= value / 32);
+        }
+    }
+
+    @Test
+    public void concurrentRecordTest() throws Exception {
+        LatencyRecorder recorder = new LatencyRecorder();
+        int threadNum = 8;
+        int valueNum = 100000;
+        Thread[] threads = new Thread[threadNum];
+        for (int i = 0; i < threadNum; i++) {
+            threads[i] = new Thread(() -> {
+                for (int value = 1; value <= valueNum; value++) {
+                    recorder.record(value);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        LatencyRecorder.Snapshot snapshot = recorder.snapshot();
+        Assert.assertEquals(threadNum * valueNum, snapshot.getCount());
+        Assert.assertEquals(1, snapshot.getMin());
+        Assert.assertEquals(valueNum, snapshot.getMax());
+        Assert.assertEquals((valueNum + 1) / 2.0, snapshot.getMean(), 0.001);
+
+        assertQuantile(snapshot, 0.5, valueNum / 2);
+        assertQuantile(snapshot, 0.99, valueNum * 99 / 100);
+        assertQuantile(snapshot, 0.999, valueNum * 999 / 1000);
+    }
+
+    @Test
+    public void cumulativeCountTest() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        for (int value = 1; value <= 1000; value++) {
+            recorder.record(value);
+        }
+
+        LatencyRecorder.Snapshot snapshot = recorder.snapshot();
+        Assert.assertEquals(0, snapshot.getCount(0));
+        Assert.assertEquals(31, snapshot.getCount(31));
+        Assert.assertEquals(1000, snapshot.getCount(1000));
+        Assert.assertEquals(1000, snapshot.getCount(Long.MAX_VALUE));
+        Assert.assertEquals(1000 * 1001 / 2, snapshot.getSum());
+
+        long count = snapshot.getCount(500);
+        Assert.assertTrue(count >= 500);
+        Assert.assertTrue(count - 500 <= 500 / 32);
+    }
+
+    @Test
+    public void emptyTest() {
+        LatencyRecorder.Snapshot snapshot = new LatencyRecorder().snapshot();
+        Assert.assertEquals(0, snapshot.getCount());
+        Assert.assertEquals(0, snapshot.getValue(0.99));
+        Assert.assertEquals(0, snapshot.getMax());
+        Assert.assertEquals(0, snapshot.getMin());
+    }
+
+    protected void assertQuantile(LatencyRecorder.Snapshot snapshot, double quantile, long expected) {
+        long value = snapshot.getValue(quantile);
+        Assert.assertTrue(value >= expected);
+        Assert.assertTrue(value - expected <= expected / 32);
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.monitor.trace;
+
+import org.joyqueue.broker.monitor.config.BrokerMonitorConfig;
+import org.joyqueue.broker.monitor.stat.StageTraceStat;
+import org.joyqueue.exception.JoyQueueCode;
+import org.joyqueue.network.transport.command.Command;
+import org.joyqueue.store.WriteResult;
+import org.joyqueue.toolkit.config.PropertySupplier;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StageTracerTest
+ * author: gaohaoxiang
+ * date: 2020/4/12
+ */
+public class StageTracerTest {
+
+    private StageTracer stageTracer = new StageTracer(new BrokerMonitorConfig(new PropertySupplier.MapSupplier(new HashMap<>()), null));
+
+    @Test
+    public void produceTest() {
+        long handleTime = System.nanoTime();
+        Command request = new Command();
+        request.setDecodeTime(TimeUnit.MICROSECONDS.toNanos(10));
+        request.setReceiveTime(handleTime - TimeUnit.MILLISECONDS.toNanos(2));
+
+        long[] metrics = new long[WriteResult.METRIC_SIZE];
+        metrics[WriteResult.METRIC_QUEUE] = TimeUnit.MILLISECONDS.toNanos(1);
+        metrics[WriteResult.METRIC_WRITE] = TimeUnit.MICROSECONDS.toNanos(100);
+        metrics[WriteResult.METRIC_ACK] = TimeUnit.MILLISECONDS.toNanos(3);
+        stageTracer.onProduce("test_topic", "test_app", request, handleTime, handleTime, new WriteResult(JoyQueueCode.SUCCESS, null, metrics));
+
+        StageRecorder<ProduceStage> recorder = stageTracer.getProduceRecorder("test_topic");
+        Assert.assertEquals(10, recorder.snapshot(ProduceStage.DECODE).getMax());
+        assertRange(2000, recorder.snapshot(ProduceStage.QUEUE).getMax());
+        assertRange(1000, recorder.snapshot(ProduceStage.STORE_QUEUE).getMax());
+        Assert.assertEquals(100, recorder.snapshot(ProduceStage.STORE_WRITE).getMax());
+        assertRange(3000, recorder.snapshot(ProduceStage.ACK).getMax());
+        Assert.assertTrue(recorder.snapshot(ProduceStage.TOTAL).getMax() >= 2010);
+
+        // 没有经过存储写入线程的请求不记录存储阶段
+        stageTracer.onProduce("test_topic", "test_app", null, handleTime, handleTime, new WriteResult(JoyQueueCode.SUCCESS, null));
+        Assert.assertEquals(1, recorder.snapshot(ProduceStage.STORE_WRITE).getCount());
+        Assert.assertEquals(1, recorder.snapshot(ProduceStage.DECODE).getCount());
+        Assert.assertEquals(2, recorder.snapshot(ProduceStage.TOTAL).getCount());
+    }
+
+    @Test
+    public void fetchTest() {
+        long handleTime = System.nanoTime();
+        stageTracer.onFetch("test_topic", "test_app", null, handleTime, handleTime + TimeUnit.MILLISECONDS.toNanos(1));
+
+        StageRecorder<FetchStage> recorder = stageTracer.getFetchRecorder("test_topic");
+        assertRange(1000, recorder.snapshot(FetchStage.CHECK).getMax());
+        Assert.assertEquals(0, recorder.snapshot(FetchStage.QUEUE).getCount());
+
+        stageTracer.slice();
+        Assert.assertNull(stageTracer.getFetchRecorder("test_topic"));
+    }
+
+    @Test
+    public void statTest() {
+        long handleTime = System.nanoTime();
+        stageTracer.onProduce("test_topic", "test_app", null, handleTime, handleTime, new WriteResult(JoyQueueCode.SUCCESS, null));
+        stageTracer.onFetch("test_topic", "test_app", null, handleTime, handleTime + TimeUnit.MILLISECONDS.toNanos(1));
+        stageTracer.onFetch("test_topic2", "test_app", null, handleTime, handleTime);
+
+        Map<String, StageTraceStat> stats = stageTracer.getStats();
+        Assert.assertEquals(2, stats.size());
+        Assert.assertEquals(ProduceStage.values().length, stats.get("test_topic").getProduceStages().size());
+        Assert.assertEquals(FetchStage.values().length, stats.get("test_topic").getFetchStages().size());
+        Assert.assertTrue(stats.get("test_topic2").getProduceStages().isEmpty());
+
+        StageTraceStat stat = stageTracer.getStat("test_topic");
+        Assert.assertEquals(1, stat.getProduceStages().get("total").getCount());
+        Assert.assertEquals(0, stat.getProduceStages().get("store_write").getCount());
+        assertRange(1000, stat.getFetchStages().get("check").getTp99());
+        Assert.assertNull(stageTracer.getStat("test_topic3"));
+    }
+
+    protected void assertRange(long expected, long value) {
+        Assert.assertTrue(value >= expected - expected / 32);
+        Assert.assertTrue(value <= expected + expected / 32);
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.network.protocol;
+
+import com.google.common.collect.Lists;
+import org.joyqueue.broker.monitor.stat.CommandExecuteStat;
+import org.joyqueue.broker.monitor.stat.ExecutorStat;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProtocolThreadPoolExecutorTest
+ *
+ * author: gaohaoxiang
+ * date: 2020/3/9
+ */
+public class ProtocolThreadPoolExecutorTest {
+
+    private ProtocolThreadPoolExecutor executor;
+
+    @After
+    public void after() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void statTest() throws Exception {
+        ExecutorStat executorStat = new ExecutorStat("test");
+        executor = new ProtocolThreadPoolExecutor("test", 2, 2, 1000 * 60, 100, executorStat);
+        for (int i = 0; i < 10; i++) {
+            executor.execute(() -> {
+            });
+        }
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // 无法解析的任务记录到unknown
+        CommandExecuteStat commandStat = executorStat.getOrCreateCommandStat(ProtocolCommandType.UNKNOWN_PROTOCOL, ProtocolCommandType.UNKNOWN_TYPE);
+        Assert.assertEquals(10, commandStat.getTotal());
+        Assert.assertEquals(0, commandStat.getRejected());
+        Assert.assertEquals(1, executorStat.getCommandStatMap().size());
+        Assert.assertTrue(executor.pollQueueTime() >= 0);
+        Assert.assertEquals(0, executor.pollQueueTime(), 0);
+    }
+
+    @Test
+    public void rejectTest() throws Exception {
+        ExecutorStat executorStat = new ExecutorStat("test");
+        executor = new ProtocolThreadPoolExecutor("test", 1, 1, 1000 * 60, 1, executorStat);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+            }
+        });
+        Assert.assertTrue(running.await(10, TimeUnit.SECONDS));
+
+        // 线程被占用，第一个任务排队，第二个任务被拒绝
+        executor.execute(() -> {
+        });
+        try {
+            executor.execute(() -> {
+            });
+            Assert.fail();
+        } catch (RejectedExecutionException e) {
+        }
+        release.countDown();
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        CommandExecuteStat commandStat = executorStat.getOrCreateCommandStat(ProtocolCommandType.UNKNOWN_PROTOCOL, ProtocolCommandType.UNKNOWN_TYPE);
+        Assert.assertEquals(2, commandStat.getTotal());
+        Assert.assertEquals(1, commandStat.getRejected());
+    }
+
+    @Test
+    public void resizeTest() {
+        executor = new ProtocolThreadPoolExecutor("test", 2, 8, 1000 * 60, 100, new ExecutorStat("test"));
+        Assert.assertEquals(5, executor.resize(5));
+        Assert.assertEquals(5, executor.getCorePoolSize());
+        Assert.assertEquals(5, executor.getMaximumPoolSize());
+
+        // 超出范围时取边界值
+        Assert.assertEquals(8, executor.resize(100));
+        Assert.assertEquals(8, executor.getCorePoolSize());
+        Assert.assertEquals(2, executor.resize(0));
+        Assert.assertEquals(2, executor.getCorePoolSize());
+        Assert.assertEquals(2, executor.getMaximumPoolSize());
+    }
+
+    @Test
+    public void adjustTest() {
+        executor = new ProtocolThreadPoolExecutor("test", 4, 6, 1000 * 60, 100, new ExecutorStat("test"));
+
+        // 排队时间超过阈值时扩容，到最大线程数为止
+        ProtocolThreadPoolAdjuster increaseAdjuster = new ProtocolThreadPoolAdjuster(Lists.newArrayList(executor), 1000, 0);
+        increaseAdjuster.run();
+        Assert.assertEquals(5, executor.getCorePoolSize());
+        increaseAdjuster.run();
+        increaseAdjuster.run();
+        Assert.assertEquals(6, executor.getCorePoolSize());
+
+        // 空闲时缩容，到最小线程数为止
+        ProtocolThreadPoolAdjuster decreaseAdjuster = new ProtocolThreadPoolAdjuster(Lists.newArrayList(executor), 1000, 1000);
+        decreaseAdjuster.run();
+        Assert.assertEquals(5, executor.getCorePoolSize());
+        decreaseAdjuster.run();
+        decreaseAdjuster.run();
+        Assert.assertEquals(4, executor.getCorePoolSize());
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.network.protocol;
+
+import org.joyqueue.broker.monitor.stat.CommandExecuteStat;
+import org.joyqueue.broker.monitor.stat.ExecutorStat;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * VirtualThreadExecutorTest
+ *
+ * author: gaohaoxiang
+ * date: 2020/3/10
+ */
+public class VirtualThreadExecutorTest {
+
+    private ExecutorService delegate;
+
+    @After
+    public void after() {
+        if (delegate != null) {
+            delegate.shutdownNow();
+        }
+    }
+
+    @Test
+    public void unsupportedTest() {
+        // jdk8等不支持虚拟线程的运行时
+        Assume.assumeFalse(VirtualThreadExecutor.isSupported());
+        try {
+            new VirtualThreadExecutor(type -> 1, new ExecutorStat("test"));
+            Assert.fail();
+        } catch (UnsupportedOperationException e) {
+        }
+    }
+
+    @Test
+    public void concurrencyTest() throws Exception {
+        delegate = Executors.newCachedThreadPool();
+        ExecutorStat executorStat = new ExecutorStat("test");
+        VirtualThreadExecutor executor = new VirtualThreadExecutor(delegate, type -> 2, executorStat);
+
+        CountDownLatch running = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 2; i++) {
+            executor.execute(() -> {
+                running.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                }
+            });
+        }
+        Assert.assertTrue(running.await(10, TimeUnit.SECONDS));
+
+        // 超过并发数拒绝
+        try {
+            executor.execute(() -> {
+            });
+            Assert.fail();
+        } catch (RejectedExecutionException e) {
+        }
+
+        CommandExecuteStat commandStat = executorStat.getOrCreateCommandStat(ProtocolCommandType.UNKNOWN_PROTOCOL, ProtocolCommandType.UNKNOWN_TYPE);
+        Assert.assertEquals(1, commandStat.getRejected());
+
+        // 执行完成后释放许可
+        release.countDown();
+        CountDownLatch executed = new CountDownLatch(1);
+        long timeout = System.currentTimeMillis() + 1000 * 10;
+        boolean submitted = false;
+        while (!submitted && System.currentTimeMillis() < timeout) {
+            try {
+                executor.execute(executed::countDown);
+                submitted = true;
+            } catch (RejectedExecutionException e) {
+                Thread.sleep(10);
+            }
+        }
+        Assert.assertTrue(executed.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        Assert.assertEquals(3, commandStat.getTotal());
+    }
+
+    @Test
+    public void delegateRejectTest() {
+        delegate = Executors.newSingleThreadExecutor();
+        delegate.shutdown();
+        ExecutorStat executorStat = new ExecutorStat("test");
+        VirtualThreadExecutor executor = new VirtualThreadExecutor(delegate, type -> 1, executorStat);
+
+        // 底层执行器拒绝时释放许可
+        for (int i = 0; i < 2; i++) {
+            try {
+                executor.execute(() -> {
+                });
+                Assert.fail();
+            } catch (RejectedExecutionException e) {
+            }
+        }
+        CommandExecuteStat commandStat = executorStat.getOrCreateCommandStat(ProtocolCommandType.UNKNOWN_PROTOCOL, ProtocolCommandType.UNKNOWN_TYPE);
+        Assert.assertEquals(2, commandStat.getRejected());
+        Assert.assertEquals(1, executor.getOrCreatePermits(new ProtocolCommandType(ProtocolCommandType.UNKNOWN_PROTOCOL, ProtocolCommandType.UNKNOWN_TYPE)).availablePermits());
+    }
+}
@@ -92,6 +92,18 @@ public class KafkaConfig {
         return getConfig(KafkaConfigKey.OFFSET_SYNC_TIMEOUT);
     }
 
+    public boolean getOffsetCacheEnable() {
+        return getConfig(KafkaConfigKey.OFFSET_CACHE_ENABLE);
+    }
+
+    public int getOffsetCacheFlushInterval() {
+        return getConfig(KafkaConfigKey.OFFSET_CACHE_FLUSH_INTERVAL);
+    }
+
+    public int getOffsetCacheExpireTime() {
+        return getConfig(KafkaConfigKey.OFFSET_CACHE_EXPIRE_TIME);
+    }
+
     public int getTransactionSyncTimeout() {
         return getConfig(KafkaConfigKey.TRANSACTION_SYNC_TIMEOUT);
     }
@@ -38,6 +38,12 @@ public enum KafkaConfigKey implements PropertyDef {
 
     // offset同步超时
     OFFSET_SYNC_TIMEOUT("kafka.offset.sync.timeout", 1000 * 3, Type.INT),
+    // 协调者是否缓存offset
+    OFFSET_CACHE_ENABLE("kafka.offset.cache.enable", true, Type.BOOLEAN),
+    // offset缓存异步写入分区leader的间隔
+    OFFSET_CACHE_FLUSH_INTERVAL("kafka.offset.cache.flush.interval", 1000 * 1, Type.INT),
+    // offset缓存过期时间，group在该时间内没有提交则移除
+    OFFSET_CACHE_EXPIRE_TIME("kafka.offset.cache.expire.time", 1000 * 60 * 10, Type.INT),
 
     // 事务同步超时
     TRANSACTION_SYNC_TIMEOUT("kafka.transaction.sync.timeout", 1000 * 3, Type.INT),
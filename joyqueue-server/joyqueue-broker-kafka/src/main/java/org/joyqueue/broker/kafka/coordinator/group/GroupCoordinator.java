@@ -86,6 +86,10 @@ public class GroupCoordinator extends Service {
         return groupOffsetHandler.fetchOffsets(groupId, topicAndPartitions);
     }
 
+    public boolean handleTransactionOffsetsCommitted(String groupId, Map<String, List<OffsetAndMetadata>> offsets) {
+        return groupOffsetHandler.updateTransactionOffsets(groupId, offsets);
+    }
+
     public short handleHeartbeat(String groupId, String memberId, int generationId) {
         return groupBalanceHandler.heartbeat(groupId, memberId, generationId);
     }
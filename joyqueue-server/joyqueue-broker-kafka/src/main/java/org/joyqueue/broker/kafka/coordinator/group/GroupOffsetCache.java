@@ -0,0 +1,79 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.kafka.coordinator.group;
+
+import com.google.common.collect.Maps;
+import org.joyqueue.broker.kafka.coordinator.group.domain.GroupOffsets;
+import org.joyqueue.broker.kafka.model.OffsetAndMetadata;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * GroupOffsetCache
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/15
+ */
+public class GroupOffsetCache {
+
+    private final ConcurrentMap<String, GroupOffsets> groups = Maps.newConcurrentMap();
+
+    public void commit(String groupId, String topic, OffsetAndMetadata offset, long now) {
+        while (!getOrCreateGroup(groupId).commit(topic, offset, now)) {
+            // group刚被移除，重新创建
+        }
+    }
+
+    public OffsetAndMetadata get(String groupId, String topic, int partition) {
+        GroupOffsets group = groups.get(groupId);
+        if (group == null) {
+            return null;
+        }
+        return group.get(topic, partition);
+    }
+
+    public GroupOffsets getGroup(String groupId) {
+        return groups.get(groupId);
+    }
+
+    public GroupOffsets getOrCreateGroup(String groupId) {
+        GroupOffsets group = groups.get(groupId);
+        if (group == null) {
+            group = new GroupOffsets(groupId);
+            GroupOffsets oldGroup = groups.putIfAbsent(groupId, group);
+            if (oldGroup != null) {
+                group = oldGroup;
+            }
+        }
+        return group;
+    }
+
+    public Collection<GroupOffsets> getGroups() {
+        return groups.values();
+    }
+
+    /**
+     * 移除group，移除后不再接受提交，调用方需要写入剩余的脏数据
+     */
+    public boolean removeGroup(GroupOffsets group) {
+        if (!groups.remove(group.getId(), group)) {
+            return false;
+        }
+        group.close();
+        return true;
+    }
+}
@@ -109,6 +109,10 @@ public class GroupOffsetHandler extends Service {
         return groupOffsetManager.saveOffsets(groupId, offsets);
     }
 
+    public boolean updateTransactionOffsets(String groupId, Map<String, List<OffsetAndMetadata>> offsets) {
+        return groupOffsetManager.updateTransactionOffsets(groupId, offsets);
+    }
+
     public Map<String, List<OffsetMetadataAndError>> fetchOffsets(String groupId, Map<String, List<Integer>> topicAndPartitions) {
         if (!isStarted()) {
             return buildFetchError(topicAndPartitions, KafkaErrorCode.COORDINATOR_NOT_AVAILABLE.getCode());
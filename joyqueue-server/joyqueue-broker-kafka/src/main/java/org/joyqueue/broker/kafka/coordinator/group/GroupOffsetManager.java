@@ -17,6 +17,7 @@ package org.joyqueue.broker.kafka.coordinator.group;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.joyqueue.broker.cluster.ClusterNameService;
 import org.joyqueue.broker.index.command.ConsumeIndexQueryRequest;
 import org.joyqueue.broker.index.command.ConsumeIndexQueryResponse;
@@ -26,7 +27,10 @@ import org.joyqueue.broker.index.model.IndexAndMetadata;
 import org.joyqueue.broker.index.model.IndexMetadataAndError;
 import org.joyqueue.broker.kafka.KafkaErrorCode;
 import org.joyqueue.broker.kafka.config.KafkaConfig;
+import org.joyqueue.broker.kafka.coordinator.Coordinator;
 import org.joyqueue.broker.kafka.coordinator.group.domain.GroupMetadata;
+import org.joyqueue.broker.kafka.coordinator.group.domain.GroupOffsets;
+import org.joyqueue.broker.kafka.coordinator.group.network.command.TransactionOffsetsCommittedRequest;
 import org.joyqueue.broker.kafka.model.OffsetAndMetadata;
 import org.joyqueue.broker.kafka.model.OffsetMetadataAndError;
 import org.joyqueue.domain.Broker;
@@ -38,13 +42,18 @@ import org.joyqueue.network.transport.command.CommandCallback;
 import org.joyqueue.network.transport.command.JoyQueueCommand;
 import org.joyqueue.network.transport.session.session.TransportSession;
 import org.joyqueue.network.transport.session.session.TransportSessionManager;
+import org.joyqueue.toolkit.concurrent.NamedThreadFactory;
 import org.joyqueue.toolkit.service.Service;
+import org.joyqueue.toolkit.time.SystemClock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -58,18 +67,95 @@ public class GroupOffsetManager extends Service {
     protected static final Logger logger = LoggerFactory.getLogger(GroupOffsetManager.class);
 
     private KafkaConfig config;
+    private Coordinator coordinator;
     private ClusterNameService clusterNameService;
     private GroupMetadataManager groupMetadataManager;
     private TransportSessionManager sessionManager;
 
-    public GroupOffsetManager(KafkaConfig config, ClusterNameService clusterNameService, GroupMetadataManager groupMetadataManager, TransportSessionManager sessionManager) {
+    private GroupOffsetCache offsetCache;
+    private ScheduledExecutorService flushThread;
+
+    public GroupOffsetManager(KafkaConfig config, Coordinator coordinator, ClusterNameService clusterNameService,
+                              GroupMetadataManager groupMetadataManager, TransportSessionManager sessionManager) {
         this.config = config;
+        this.coordinator = coordinator;
         this.clusterNameService = clusterNameService;
         this.groupMetadataManager = groupMetadataManager;
         this.sessionManager = sessionManager;
+        this.offsetCache = new GroupOffsetCache();
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        int interval = config.getOffsetCacheFlushInterval();
+        flushThread = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("joyqueue-kafka-offset-flush", true));
+        flushThread.scheduleWithFixedDelay(() -> {
+            try {
+                flushOffsets(false);
+            } catch (Exception e) {
+                logger.error("flush offset exception", e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected void doStop() {
+        if (flushThread != null) {
+            flushThread.shutdown();
+        }
+        flushOffsets(true);
     }
 
     public Map<String, List<OffsetMetadataAndError>> getOffsets(String groupId, Map<String, List<Integer>> topicAndPartitions) {
+        if (!config.getOffsetCacheEnable() || !coordinator.isCurrentGroup(groupId)) {
+            return doGetOffsets(groupId, topicAndPartitions);
+        }
+
+        // 协调者提交过的offset直接从缓存读取，其余的从分区leader读取
+        Map<String, List<OffsetMetadataAndError>> result = Maps.newHashMapWithExpectedSize(topicAndPartitions.size());
+        Map<String, List<Integer>> missedPartitions = null;
+        for (Map.Entry<String, List<Integer>> entry : topicAndPartitions.entrySet()) {
+            String topic = entry.getKey();
+            for (Integer partition : entry.getValue()) {
+                OffsetAndMetadata offset = offsetCache.get(groupId, topic, partition);
+                if (offset != null) {
+                    List<OffsetMetadataAndError> partitions = result.get(topic);
+                    if (partitions == null) {
+                        partitions = Lists.newLinkedList();
+                        result.put(topic, partitions);
+                    }
+                    partitions.add(new OffsetMetadataAndError(partition, offset.getOffset(),
+                            (offset.getMetadata() == null ? OffsetAndMetadata.NO_METADATA : offset.getMetadata()), KafkaErrorCode.NONE.getCode()));
+                } else {
+                    if (missedPartitions == null) {
+                        missedPartitions = Maps.newHashMap();
+                    }
+                    List<Integer> partitions = missedPartitions.get(topic);
+                    if (partitions == null) {
+                        partitions = Lists.newLinkedList();
+                        missedPartitions.put(topic, partitions);
+                    }
+                    partitions.add(partition);
+                }
+            }
+        }
+
+        if (missedPartitions == null) {
+            return result;
+        }
+
+        for (Map.Entry<String, List<OffsetMetadataAndError>> entry : doGetOffsets(groupId, missedPartitions).entrySet()) {
+            List<OffsetMetadataAndError> partitions = result.get(entry.getKey());
+            if (partitions == null) {
+                result.put(entry.getKey(), entry.getValue());
+            } else {
+                partitions.addAll(entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    protected Map<String, List<OffsetMetadataAndError>> doGetOffsets(String groupId, Map<String, List<Integer>> topicAndPartitions) {
         Map<Broker, Map<String, List<Integer>>> brokerTopicPartitionMap = splitPartitionByBroker(topicAndPartitions);
         CountDownLatch latch = new CountDownLatch(brokerTopicPartitionMap.size());
         Map<String, List<OffsetMetadataAndError>> result = Maps.newHashMapWithExpectedSize(topicAndPartitions.size());
@@ -177,6 +263,186 @@ public class GroupOffsetManager extends Service {
     }
 
     public Map<String, List<OffsetMetadataAndError>> saveOffsets(String groupId, Map<String, List<OffsetAndMetadata>> offsets) {
+        if (!config.getOffsetCacheEnable()) {
+            return doSaveOffsets(groupId, offsets);
+        }
+
+        // 只写入缓存，由后台线程异步写入分区leader
+        long now = SystemClock.now();
+        Map<String, List<OffsetMetadataAndError>> result = Maps.newHashMapWithExpectedSize(offsets.size());
+        for (Map.Entry<String, List<OffsetAndMetadata>> entry : offsets.entrySet()) {
+            String topic = entry.getKey();
+            TopicConfig topicConfig = clusterNameService.getNameService().getTopicConfig(TopicName.parse(topic));
+            short code = (topicConfig == null ? KafkaErrorCode.UNKNOWN_TOPIC_OR_PARTITION.getCode() : KafkaErrorCode.NONE.getCode());
+            List<OffsetMetadataAndError> partitions = Lists.newArrayListWithCapacity(entry.getValue().size());
+            result.put(topic, partitions);
+
+            for (OffsetAndMetadata offset : entry.getValue()) {
+                if (topicConfig != null) {
+                    offsetCache.commit(groupId, topic, offset, now);
+                }
+                partitions.add(new OffsetMetadataAndError(offset.getPartition(), OffsetAndMetadata.INVALID_OFFSET, OffsetAndMetadata.NO_METADATA, code));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 事务提交的offset已经写入分区leader，更新group协调者的缓存，避免读到旧的offset
+     * 当前broker不是group协调者时，通知协调者更新缓存
+     */
+    public void onTransactionOffsetsCommitted(String groupId, String topic, List<OffsetAndMetadata> offsets) {
+        if (!config.getOffsetCacheEnable()) {
+            return;
+        }
+        Map<String, List<OffsetAndMetadata>> topicOffsets = Maps.newHashMap();
+        topicOffsets.put(topic, offsets);
+        if (coordinator.isCurrentGroup(groupId)) {
+            updateTransactionOffsets(groupId, topicOffsets);
+            return;
+        }
+
+        Broker broker = coordinator.findGroup(groupId);
+        if (broker == null) {
+            logger.warn("group coordinator not found, transaction offsets not updated, group: {}, topic: {}, offsets: {}", groupId, topic, offsets);
+            return;
+        }
+        sendTransactionOffsets(broker, new TransactionOffsetsCommittedRequest(groupId, topicOffsets));
+    }
+
+    /**
+     * 更新事务提交的offset，只有group协调者更新
+     * 更新后标记为脏会再写一次相同的offset，覆盖在途的旧offset刷盘结果
+     *
+     * @return 是否更新
+     */
+    public boolean updateTransactionOffsets(String groupId, Map<String, List<OffsetAndMetadata>> offsets) {
+        if (!config.getOffsetCacheEnable() || !coordinator.isCurrentGroup(groupId)) {
+            return false;
+        }
+        long now = SystemClock.now();
+        for (Map.Entry<String, List<OffsetAndMetadata>> entry : offsets.entrySet()) {
+            for (OffsetAndMetadata offset : entry.getValue()) {
+                offsetCache.commit(groupId, entry.getKey(), offset, now);
+            }
+        }
+        return true;
+    }
+
+    protected void sendTransactionOffsets(Broker broker, TransactionOffsetsCommittedRequest request) {
+        try {
+            TransportSession session = sessionManager.getOrCreateSession(broker);
+            session.async(new JoyQueueCommand(request), config.getOffsetSyncTimeout(), new CommandCallback() {
+                @Override
+                public void onSuccess(Command request, Command response) {
+                    if (response.getHeader().getStatus() != JoyQueueCode.SUCCESS.getCode()) {
+                        logger.warn("update transaction offsets error, broker: {}, request: {}, code: {}",
+                                broker, request.getPayload(), JoyQueueCode.valueOf(response.getHeader().getStatus()));
+                    }
+                }
+
+                @Override
+                public void onException(Command request, Throwable cause) {
+                    logger.error("update transaction offsets failed, async transport exception, broker: {}, request: {}", broker, request.getPayload(), cause);
+                }
+            });
+        } catch (Throwable t) {
+            logger.error("update transaction offsets failed, broker: {}, request: {}", broker, request, t);
+        }
+    }
+
+    /**
+     * 把缓存中的offset写入分区leader，不再是协调者或长时间没有提交的group写入后从缓存移除
+     *
+     * @param sync 是否同步写入，停止时使用
+     */
+    protected void flushOffsets(boolean sync) {
+        long now = SystemClock.now();
+        for (GroupOffsets group : offsetCache.getGroups()) {
+            boolean expired = (now - group.getLastCommitTime() > config.getOffsetCacheExpireTime());
+            if (sync || expired || !coordinator.isCurrentGroup(group.getId())) {
+                if (offsetCache.removeGroup(group)) {
+                    Map<String, List<OffsetAndMetadata>> offsets = group.drainDirty();
+                    if (!offsets.isEmpty()) {
+                        doSaveOffsets(group.getId(), offsets);
+                    }
+                }
+                continue;
+            }
+
+            Map<String, List<OffsetAndMetadata>> offsets = group.drainDirty();
+            if (!offsets.isEmpty()) {
+                doFlushOffsets(group, offsets);
+            }
+        }
+    }
+
+    protected void doFlushOffsets(GroupOffsets group, Map<String, List<OffsetAndMetadata>> offsets) {
+        String groupId = group.getId();
+        Map<Broker, Map<String, List<OffsetAndMetadata>>> brokerTopicPartitionMap = splitOffsetByBroker(offsets);
+
+        // 没有leader的分区下次重新写入
+        Set<OffsetAndMetadata> routedOffsets = Sets.newIdentityHashSet();
+        for (Map<String, List<OffsetAndMetadata>> brokerOffsets : brokerTopicPartitionMap.values()) {
+            for (List<OffsetAndMetadata> topicOffsets : brokerOffsets.values()) {
+                routedOffsets.addAll(topicOffsets);
+            }
+        }
+        for (Map.Entry<String, List<OffsetAndMetadata>> entry : offsets.entrySet()) {
+            for (OffsetAndMetadata offset : entry.getValue()) {
+                if (!routedOffsets.contains(offset)) {
+                    group.markDirty(entry.getKey(), offset);
+                }
+            }
+        }
+
+        for (Map.Entry<Broker, Map<String, List<OffsetAndMetadata>>> entry : brokerTopicPartitionMap.entrySet()) {
+            Broker broker = entry.getKey();
+            Map<String, List<OffsetAndMetadata>> brokerOffsets = entry.getValue();
+
+            try {
+                TransportSession session = sessionManager.getOrCreateSession(broker);
+                ConsumeIndexStoreRequest indexStoreRequest = new ConsumeIndexStoreRequest(groupId, buildSaveOffsetParam(brokerOffsets));
+
+                session.async(new JoyQueueCommand(indexStoreRequest), config.getOffsetSyncTimeout(), new CommandCallback() {
+                    @Override
+                    public void onSuccess(Command request, Command response) {
+                        ConsumeIndexStoreResponse payload = (ConsumeIndexStoreResponse) response.getPayload();
+                        for (Map.Entry<String, List<OffsetAndMetadata>> topicEntry : brokerOffsets.entrySet()) {
+                            Map<Integer, Short> status = payload.getIndexStoreStatus().get(topicEntry.getKey());
+                            for (OffsetAndMetadata offset : topicEntry.getValue()) {
+                                Short code = (status == null ? null : status.get(offset.getPartition()));
+                                if (code == null || code != JoyQueueCode.SUCCESS.getCode()) {
+                                    logger.warn("flush offset failed, broker: {}, topic: {}, partition: {}, group: {}, code: {}",
+                                            broker, topicEntry.getKey(), offset.getPartition(), groupId, code);
+                                    group.markDirty(topicEntry.getKey(), offset);
+                                }
+                            }
+                        }
+                    }
+
+                    @Override
+                    public void onException(Command request, Throwable cause) {
+                        logger.warn("flush offset failed, async transport exception, broker: {}, group: {}", broker, groupId, cause);
+                        markDirty(group, brokerOffsets);
+                    }
+                });
+            } catch (Throwable cause) {
+                logger.warn("flush offset failed, async transport exception, broker: {}, group: {}", broker, groupId, cause);
+                markDirty(group, brokerOffsets);
+            }
+        }
+    }
+
+    protected void markDirty(GroupOffsets group, Map<String, List<OffsetAndMetadata>> offsets) {
+        for (Map.Entry<String, List<OffsetAndMetadata>> entry : offsets.entrySet()) {
+            for (OffsetAndMetadata offset : entry.getValue()) {
+                group.markDirty(entry.getKey(), offset);
+            }
+        }
+    }
+
+    protected Map<String, List<OffsetMetadataAndError>> doSaveOffsets(String groupId, Map<String, List<OffsetAndMetadata>> offsets) {
         Map<Broker, Map<String, List<OffsetAndMetadata>>> brokerTopicPartitionMap = splitOffsetByBroker(offsets);
         CountDownLatch latch = new CountDownLatch(brokerTopicPartitionMap.size());
         Map<String, List<OffsetMetadataAndError>> result = Maps.newHashMapWithExpectedSize(offsets.size());
@@ -0,0 +1,132 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.kafka.coordinator.group.domain;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.joyqueue.broker.kafka.model.OffsetAndMetadata;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * GroupOffsets
+ * 协调者缓存的group offset，提交时只更新缓存并标记为脏，由后台线程异步写入分区leader
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/15
+ */
+public class GroupOffsets {
+
+    private String id;
+    private final ConcurrentMap<String, ConcurrentMap<Integer, Entry>> topics = Maps.newConcurrentMap();
+    private volatile long lastCommitTime;
+    private boolean closed = false;
+
+    public GroupOffsets(String id) {
+        this.id = id;
+    }
+
+    /**
+     * 提交offset，group已关闭时返回false
+     */
+    public synchronized boolean commit(String topic, OffsetAndMetadata offset, long now) {
+        if (closed) {
+            return false;
+        }
+        ConcurrentMap<Integer, Entry> partitions = topics.get(topic);
+        if (partitions == null) {
+            partitions = Maps.newConcurrentMap();
+            topics.put(topic, partitions);
+        }
+        Entry entry = partitions.get(offset.getPartition());
+        if (entry == null) {
+            entry = new Entry();
+            partitions.put(offset.getPartition(), entry);
+        }
+        // 先更新offset再标记，保证刷盘线程不会漏掉新的offset
+        entry.offset = offset;
+        entry.dirty = true;
+        lastCommitTime = now;
+        return true;
+    }
+
+    public OffsetAndMetadata get(String topic, int partition) {
+        Map<Integer, Entry> partitions = topics.get(topic);
+        if (partitions == null) {
+            return null;
+        }
+        Entry entry = partitions.get(partition);
+        if (entry == null) {
+            return null;
+        }
+        return entry.offset;
+    }
+
+    /**
+     * 取出未写入分区leader的offset
+     */
+    public Map<String, List<OffsetAndMetadata>> drainDirty() {
+        Map<String, List<OffsetAndMetadata>> result = Maps.newHashMap();
+        for (Map.Entry<String, ConcurrentMap<Integer, Entry>> topicEntry : topics.entrySet()) {
+            List<OffsetAndMetadata> offsets = null;
+            for (Entry entry : topicEntry.getValue().values()) {
+                if (!entry.dirty) {
+                    continue;
+                }
+                entry.dirty = false;
+                if (offsets == null) {
+                    offsets = Lists.newLinkedList();
+                    result.put(topicEntry.getKey(), offsets);
+                }
+                offsets.add(entry.offset);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 写入失败时重新标记，期间已经有新提交的不需要处理
+     */
+    public void markDirty(String topic, OffsetAndMetadata offset) {
+        Map<Integer, Entry> partitions = topics.get(topic);
+        if (partitions == null) {
+            return;
+        }
+        Entry entry = partitions.get(offset.getPartition());
+        if (entry != null && entry.offset == offset) {
+            entry.dirty = true;
+        }
+    }
+
+    public synchronized void close() {
+        closed = true;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getLastCommitTime() {
+        return lastCommitTime;
+    }
+
+    protected static class Entry {
+        private volatile OffsetAndMetadata offset;
+        private volatile boolean dirty;
+    }
+}
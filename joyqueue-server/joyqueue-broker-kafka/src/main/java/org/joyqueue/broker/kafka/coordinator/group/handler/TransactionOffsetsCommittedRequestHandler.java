@@ -0,0 +1,67 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.kafka.coordinator.group.handler;
+
+import org.joyqueue.broker.kafka.KafkaContext;
+import org.joyqueue.broker.kafka.KafkaContextAware;
+import org.joyqueue.broker.kafka.coordinator.group.GroupCoordinator;
+import org.joyqueue.broker.kafka.coordinator.group.network.command.TransactionOffsetsCommittedRequest;
+import org.joyqueue.broker.network.BrokerCommandHandler;
+import org.joyqueue.exception.JoyQueueCode;
+import org.joyqueue.network.command.BooleanAck;
+import org.joyqueue.network.command.CommandType;
+import org.joyqueue.network.transport.Transport;
+import org.joyqueue.network.transport.command.Command;
+import org.joyqueue.network.transport.command.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 事务协调者通知group协调者事务offset已经写入分区leader
+ * 通过broker的SPI加载，kafka协议启动时注入上下文
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/15
+ */
+public class TransactionOffsetsCommittedRequestHandler implements Type, BrokerCommandHandler, KafkaContextAware {
+
+    protected static final Logger logger = LoggerFactory.getLogger(TransactionOffsetsCommittedRequestHandler.class);
+
+    private volatile GroupCoordinator groupCoordinator;
+
+    @Override
+    public void setKafkaContext(KafkaContext kafkaContext) {
+        this.groupCoordinator = kafkaContext.getGroupCoordinator();
+    }
+
+    @Override
+    public Command handle(Transport transport, Command command) {
+        TransactionOffsetsCommittedRequest request = (TransactionOffsetsCommittedRequest) command.getPayload();
+        GroupCoordinator groupCoordinator = this.groupCoordinator;
+        if (groupCoordinator == null) {
+            return BooleanAck.build(JoyQueueCode.CN_SERVICE_NOT_AVAILABLE);
+        }
+        if (!groupCoordinator.handleTransactionOffsetsCommitted(request.getGroupId(), request.getOffsets())) {
+            logger.info("update transaction offsets ignored, not group coordinator or cache disabled, request: {}", request);
+        }
+        return BooleanAck.build();
+    }
+
+    @Override
+    public int type() {
+        return CommandType.TRANSACTION_OFFSETS_COMMITTED_REQUEST;
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.kafka.coordinator.group.network.codec;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import io.netty.buffer.ByteBuf;
+import org.joyqueue.broker.kafka.coordinator.group.network.command.TransactionOffsetsCommittedRequest;
+import org.joyqueue.broker.kafka.model.OffsetAndMetadata;
+import org.joyqueue.broker.network.codec.BrokerPayloadCodec;
+import org.joyqueue.network.command.CommandType;
+import org.joyqueue.network.serializer.Serializer;
+import org.joyqueue.network.transport.codec.JoyQueueHeader;
+import org.joyqueue.network.transport.command.Type;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TransactionOffsetsCommittedRequestCodec
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/15
+ */
+public class TransactionOffsetsCommittedRequestCodec implements Type, BrokerPayloadCodec<TransactionOffsetsCommittedRequest> {
+
+    @Override
+    public Object decode(JoyQueueHeader header, ByteBuf buffer) throws Exception {
+        TransactionOffsetsCommittedRequest request = new TransactionOffsetsCommittedRequest();
+        request.setGroupId(Serializer.readString(buffer, Serializer.SHORT_SIZE));
+        int topicSize = buffer.readInt();
+        Map<String, List<OffsetAndMetadata>> offsets = Maps.newHashMapWithExpectedSize(topicSize);
+        for (int i = 0; i < topicSize; i++) {
+            String topic = Serializer.readString(buffer, Serializer.SHORT_SIZE);
+            int partitionSize = buffer.readInt();
+            List<OffsetAndMetadata> partitions = Lists.newArrayListWithCapacity(partitionSize);
+            for (int j = 0; j < partitionSize; j++) {
+                int partition = buffer.readInt();
+                long offset = buffer.readLong();
+                String metadata = Serializer.readString(buffer, Serializer.SHORT_SIZE);
+                long offsetCommitTime = buffer.readLong();
+                partitions.add(new OffsetAndMetadata(partition, offset, metadata, offsetCommitTime));
+            }
+            offsets.put(topic, partitions);
+        }
+        request.setOffsets(offsets);
+        return request;
+    }
+
+    @Override
+    public void encode(TransactionOffsetsCommittedRequest payload, ByteBuf buffer) throws Exception {
+        Serializer.write(payload.getGroupId(), buffer, Serializer.SHORT_SIZE);
+        buffer.writeInt(payload.getOffsets().size());
+        for (Map.Entry<String, List<OffsetAndMetadata>> entry : payload.getOffsets().entrySet()) {
+            Serializer.write(entry.getKey(), buffer, Serializer.SHORT_SIZE);
+            buffer.writeInt(entry.getValue().size());
+            for (OffsetAndMetadata offset : entry.getValue()) {
+                buffer.writeInt(offset.getPartition());
+                buffer.writeLong(offset.getOffset());
+                Serializer.write(offset.getMetadata(), buffer, Serializer.SHORT_SIZE);
+                buffer.writeLong(offset.getOffsetCommitTime());
+            }
+        }
+    }
+
+    @Override
+    public int type() {
+        return CommandType.TRANSACTION_OFFSETS_COMMITTED_REQUEST;
+    }
+}
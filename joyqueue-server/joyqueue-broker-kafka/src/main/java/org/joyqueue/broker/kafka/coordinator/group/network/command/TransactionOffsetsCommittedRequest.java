@@ -0,0 +1,73 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.kafka.coordinator.group.network.command;
+
+import org.joyqueue.broker.kafka.model.OffsetAndMetadata;
+import org.joyqueue.network.command.CommandType;
+import org.joyqueue.network.transport.command.JoyQueuePayload;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TransactionOffsetsCommittedRequest
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/15
+ */
+public class TransactionOffsetsCommittedRequest extends JoyQueuePayload {
+
+    private String groupId;
+    private Map<String, List<OffsetAndMetadata>> offsets;
+
+    public TransactionOffsetsCommittedRequest() {
+
+    }
+
+    public TransactionOffsetsCommittedRequest(String groupId, Map<String, List<OffsetAndMetadata>> offsets) {
+        this.groupId = groupId;
+        this.offsets = offsets;
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    public void setGroupId(String groupId) {
+        this.groupId = groupId;
+    }
+
+    public Map<String, List<OffsetAndMetadata>> getOffsets() {
+        return offsets;
+    }
+
+    public void setOffsets(Map<String, List<OffsetAndMetadata>> offsets) {
+        this.offsets = offsets;
+    }
+
+    @Override
+    public int type() {
+        return CommandType.TRANSACTION_OFFSETS_COMMITTED_REQUEST;
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionOffsetsCommittedRequest{" +
+                "groupId='" + groupId + '\'' +
+                ", offsets=" + offsets +
+                '}';
+    }
+}
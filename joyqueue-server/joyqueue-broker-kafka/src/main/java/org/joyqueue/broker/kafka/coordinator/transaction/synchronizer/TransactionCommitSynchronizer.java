@@ -22,11 +22,13 @@ import org.joyqueue.broker.index.command.ConsumeIndexStoreRequest;
 import org.joyqueue.broker.index.command.ConsumeIndexStoreResponse;
 import org.joyqueue.broker.index.model.IndexAndMetadata;
 import org.joyqueue.broker.kafka.config.KafkaConfig;
+import org.joyqueue.broker.kafka.coordinator.group.GroupOffsetManager;
 import org.joyqueue.broker.kafka.coordinator.transaction.TransactionIdManager;
 import org.joyqueue.broker.kafka.coordinator.transaction.domain.TransactionMetadata;
 import org.joyqueue.broker.kafka.coordinator.transaction.domain.TransactionOffset;
 import org.joyqueue.broker.kafka.coordinator.transaction.domain.TransactionPrepare;
 import org.joyqueue.broker.kafka.coordinator.transaction.helper.TransactionHelper;
+import org.joyqueue.broker.kafka.model.OffsetAndMetadata;
 import org.joyqueue.broker.producer.transaction.command.TransactionCommitRequest;
 import org.joyqueue.domain.Broker;
 import org.joyqueue.domain.PartitionGroup;
@@ -39,6 +41,7 @@ import org.joyqueue.network.transport.command.JoyQueueCommand;
 import org.joyqueue.network.transport.session.session.TransportSession;
 import org.joyqueue.network.transport.session.session.TransportSessionManager;
 import org.joyqueue.toolkit.service.Service;
+import org.joyqueue.toolkit.time.SystemClock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -62,12 +65,15 @@ public class TransactionCommitSynchronizer extends Service {
     private TransportSessionManager sessionManager;
     private TransactionIdManager transactionIdManager;
     private ClusterNameService clusterNameService;
+    private GroupOffsetManager groupOffsetManager;
 
-    public TransactionCommitSynchronizer(KafkaConfig config, TransportSessionManager sessionManager, TransactionIdManager transactionIdManager, ClusterNameService clusterNameService) {
+    public TransactionCommitSynchronizer(KafkaConfig config, TransportSessionManager sessionManager, TransactionIdManager transactionIdManager,
+                                         ClusterNameService clusterNameService, GroupOffsetManager groupOffsetManager) {
         this.config = config;
         this.sessionManager = sessionManager;
         this.transactionIdManager = transactionIdManager;
         this.clusterNameService = clusterNameService;
+        this.groupOffsetManager = groupOffsetManager;
     }
 
     public boolean commitPrepare(TransactionMetadata transactionMetadata, Set<TransactionPrepare> prepareList) throws Exception {
@@ -137,11 +143,23 @@ public class TransactionCommitSynchronizer extends Service {
                         ConsumeIndexStoreResponse payload = (ConsumeIndexStoreResponse) response.getPayload();
                         for (Map.Entry<String, Map<Integer, Short>> topicEntry : payload.getIndexStoreStatus().entrySet()) {
                             String topic = topicEntry.getKey();
+                            Map<Integer, IndexAndMetadata> topicOffsetParam = saveOffsetParam.get(topic);
+                            List<OffsetAndMetadata> committedOffsets = Lists.newLinkedList();
                             for (Map.Entry<Integer, Short> partitionEntry : topicEntry.getValue().entrySet()) {
                                 if (partitionEntry.getValue() != JoyQueueCode.SUCCESS.getCode()) {
                                     logger.error("commit transaction offset error, broker: {}, topic: {}, partition: {}, code: {}",
                                             broker, topic, partitionEntry.getKey(), JoyQueueCode.valueOf(partitionEntry.getValue()));
+                                    continue;
                                 }
+                                IndexAndMetadata indexAndMetadata = (topicOffsetParam == null ? null : topicOffsetParam.get(partitionEntry.getKey()));
+                                if (indexAndMetadata != null) {
+                                    committedOffsets.add(new OffsetAndMetadata(partitionEntry.getKey(), indexAndMetadata.getIndex(),
+                                            OffsetAndMetadata.NO_METADATA, SystemClock.now()));
+                                }
+                            }
+                            // 事务offset绕过了协调者的offset缓存，写入成功后更新缓存
+                            if (groupOffsetManager != null && !committedOffsets.isEmpty()) {
+                                groupOffsetManager.onTransactionOffsetsCommitted(transactionMetadata.getApp(), topic, committedOffsets);
                             }
                         }
                         latch.countDown();
@@ -18,6 +18,7 @@ package org.joyqueue.broker.kafka.coordinator.transaction.synchronizer;
 import org.apache.commons.collections.CollectionUtils;
 import org.joyqueue.broker.cluster.ClusterNameService;
 import org.joyqueue.broker.kafka.config.KafkaConfig;
+import org.joyqueue.broker.kafka.coordinator.group.GroupOffsetManager;
 import org.joyqueue.broker.kafka.coordinator.transaction.TransactionIdManager;
 import org.joyqueue.broker.kafka.coordinator.transaction.domain.TransactionMarker;
 import org.joyqueue.broker.kafka.coordinator.transaction.domain.TransactionMetadata;
@@ -48,22 +49,24 @@ public class TransactionSynchronizer extends Service {
     private TransactionLog transactionLog;
     private TransportSessionManager sessionManager;
     private ClusterNameService clusterNameService;
+    private GroupOffsetManager groupOffsetManager;
 
     private TransactionCommitSynchronizer transactionCommitSynchronizer;
     private TransactionAbortSynchronizer transactionAbortSynchronizer;
 
     public TransactionSynchronizer(KafkaConfig config, TransactionIdManager transactionIdManager, TransactionLog transactionLog,
-                                   TransportSessionManager sessionManager, ClusterNameService clusterNameService) {
+                                   TransportSessionManager sessionManager, ClusterNameService clusterNameService, GroupOffsetManager groupOffsetManager) {
         this.config = config;
         this.transactionIdManager = transactionIdManager;
         this.transactionLog = transactionLog;
         this.sessionManager = sessionManager;
         this.clusterNameService = clusterNameService;
+        this.groupOffsetManager = groupOffsetManager;
     }
 
     @Override
     protected void validate() throws Exception {
-        transactionCommitSynchronizer = new TransactionCommitSynchronizer(config, sessionManager, transactionIdManager, clusterNameService);
+        transactionCommitSynchronizer = new TransactionCommitSynchronizer(config, sessionManager, transactionIdManager, clusterNameService, groupOffsetManager);
         transactionAbortSynchronizer = new TransactionAbortSynchronizer(config, sessionManager, transactionIdManager);
     }
 
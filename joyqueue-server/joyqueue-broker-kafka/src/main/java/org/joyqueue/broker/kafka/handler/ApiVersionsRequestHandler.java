@@ -21,6 +21,7 @@ import org.joyqueue.broker.kafka.KafkaErrorCode;
 import org.joyqueue.broker.kafka.command.ApiVersionsRequest;
 import org.joyqueue.broker.kafka.command.ApiVersionsResponse;
 import org.joyqueue.broker.kafka.model.ApiVersion;
+import org.joyqueue.network.protocol.annotation.DirectHandler;
 import org.joyqueue.network.transport.Transport;
 import org.joyqueue.network.transport.command.Command;
 import org.slf4j.Logger;
@@ -35,6 +36,7 @@ import java.util.List;
  * author: gaohaoxiang
  * date: 2018/11/5
  */
+@DirectHandler
 public class ApiVersionsRequestHandler extends AbstractKafkaCommandHandler {
 
     protected static final Logger logger = LoggerFactory.getLogger(ApiVersionsRequestHandler.class);
@@ -255,6 +255,9 @@ public class ProduceRequestHandler extends AbstractKafkaCommandHandler implement
     }
 
     protected short checkAndFillMessages(List<KafkaBrokerMessage> messages) {
+        if (messages.isEmpty()) {
+            return KafkaErrorCode.CORRUPT_MESSAGE.getCode();
+        }
         for (KafkaBrokerMessage message : messages) {
             if (ArrayUtils.getLength(message.getKey()) > produceConfig.getBusinessIdLength()) {
                 return KafkaErrorCode.MESSAGE_TOO_LARGE.getCode();
@@ -45,6 +45,11 @@ public class KafkaBrokerMessage {
     private int baseSequence = NO_SEQUENCE;
     private short producerEpoch;
 
+    // v2批量消息头，rawHeader为true时是客户端原始值，可以连同crc原样返回给消费者
+    private int lastOffsetDelta;
+    private long maxTimestamp;
+    private boolean rawHeader;
+
     public void setSize(int size) {
         this.size = size;
     }
@@ -164,4 +169,28 @@ public class KafkaBrokerMessage {
     public void setProducerEpoch(short producerEpoch) {
         this.producerEpoch = producerEpoch;
     }
+
+    public int getLastOffsetDelta() {
+        return lastOffsetDelta;
+    }
+
+    public void setLastOffsetDelta(int lastOffsetDelta) {
+        this.lastOffsetDelta = lastOffsetDelta;
+    }
+
+    public long getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    public void setMaxTimestamp(long maxTimestamp) {
+        this.maxTimestamp = maxTimestamp;
+    }
+
+    public boolean isRawHeader() {
+        return rawHeader;
+    }
+
+    public void setRawHeader(boolean rawHeader) {
+        this.rawHeader = rawHeader;
+    }
 }
\ No newline at end of file
@@ -25,6 +25,7 @@ import io.netty.buffer.ByteBuf;
 import org.apache.commons.collections.CollectionUtils;
 
 import java.nio.ByteBuffer;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -116,6 +117,20 @@ public class KafkaMessageSerializer extends AbstractKafkaMessageSerializer {
         }
     }
 
+    public static List<KafkaBrokerMessage> readMessages(ByteBuf buffer, int length) throws Exception {
+        if (length <= MAGIC_OFFSET) {
+            buffer.skipBytes(length);
+            return Collections.emptyList();
+        }
+        byte magic = buffer.getByte(buffer.readerIndex() + MAGIC_OFFSET);
+        if (magic == MESSAGE_MAGIC_V2) {
+            return KafkaMessageV2Serializer.readMessages(buffer, length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.readBytes(bytes);
+        return readMessages(ByteBuffer.wrap(bytes));
+    }
+
     public static List<KafkaBrokerMessage> readMessages(ByteBuffer buffer) throws Exception {
         byte magic = buffer.get(MAGIC_OFFSET);
         if (magic == MESSAGE_MAGIC_V0) {
@@ -0,0 +1,372 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.kafka.message.compressor;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+import net.jpountz.xxhash.XXHash32;
+import net.jpountz.xxhash.XXHashFactory;
+import org.joyqueue.broker.kafka.message.compressor.lz4.KafkaLZ4BlockInputStream;
+import org.joyqueue.broker.kafka.message.compressor.lz4.KafkaLZ4BlockOutputStream;
+import org.joyqueue.broker.kafka.message.exception.UnknownCodecException;
+import org.xerial.snappy.Snappy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * 基于池化ByteBuf的解压
+ * 直接在ByteBuf之间解压，不产生中间的字节数组，线程内复用lz4、snappy和gzip的上下文
+ * 返回的ByteBuf由调用方释放
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/20
+ */
+public final class KafkaBufferCompressor {
+
+    private static final ByteBufAllocator ALLOCATOR = PooledByteBufAllocator.DEFAULT;
+
+    // 解压时按压缩前大小的倍数预分配
+    private static final int DECOMPRESS_ESTIMATE_RATIO = 4;
+    private static final int CHUNK_SIZE = 32 * 1024;
+
+    private static final LZ4SafeDecompressor LZ4_DECOMPRESSOR = LZ4Factory.fastestInstance().safeDecompressor();
+    private static final XXHash32 XXHASH32 = XXHashFactory.fastestInstance().hash32();
+
+    // 和SnappyOutputStream的格式保持一致
+    private static final byte[] SNAPPY_MAGIC = {-126, 'S', 'N', 'A', 'P', 'P', 'Y', 0};
+    private static final int SNAPPY_HEADER_SIZE = SNAPPY_MAGIC.length + 4 + 4;
+
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int GZIP_HEADER_SIZE = 10;
+    private static final int GZIP_FHCRC = 2;
+    private static final int GZIP_FEXTRA = 4;
+    private static final int GZIP_FNAME = 8;
+    private static final int GZIP_FCOMMENT = 16;
+
+    private static final ThreadLocal<CompressContext> CONTEXT = ThreadLocal.withInitial(CompressContext::new);
+
+    private KafkaBufferCompressor() {
+    }
+
+    /**
+     * 解压source中可读的数据到新的池化ByteBuf
+     */
+    public static ByteBuf decompress(KafkaCompressionCodec codec, ByteBuf source, byte messageMagic) throws IOException {
+        ByteBuf target = ALLOCATOR.directBuffer(source.readableBytes() * DECOMPRESS_ESTIMATE_RATIO);
+        try {
+            switch (codec) {
+                case GZIPCompressionCodec:
+                    gzipDecompress(source, target);
+                    break;
+                case SnappyCompressionCodec:
+                    snappyDecompress(source, target);
+                    break;
+                case LZ4CompressionCodec:
+                    lz4Decompress(source, target, messageMagic == 0); // RecordBatch.MAGIC_VALUE_V0
+                    break;
+                default:
+                    throw new UnknownCodecException(String.format("unknown codec: %s", codec));
+            }
+            return target;
+        } catch (Exception e) {
+            target.release();
+            throw e;
+        }
+    }
+
+    protected static void lz4Decompress(ByteBuf source, ByteBuf target, boolean ignoreFlagDescriptorChecksum) throws IOException {
+        int headerIndex = source.readerIndex();
+        checkReadable(source, 7);
+        if (source.readIntLE() != KafkaLZ4BlockOutputStream.MAGIC) {
+            throw new IOException(KafkaLZ4BlockInputStream.NOT_SUPPORTED);
+        }
+
+        KafkaLZ4BlockOutputStream.FLG flg = KafkaLZ4BlockOutputStream.FLG.fromByte(source.readByte());
+        KafkaLZ4BlockOutputStream.BD bd = KafkaLZ4BlockOutputStream.BD.fromByte(source.readByte());
+        if (flg.isContentSizeSet()) {
+            checkReadable(source, 8 + 1);
+            source.skipBytes(8);
+        }
+
+        // 老版本的描述符校验和不正确，直接跳过
+        if (ignoreFlagDescriptorChecksum) {
+            source.skipBytes(1);
+        } else {
+            int descriptorLength = source.readerIndex() - headerIndex - 4;
+            byte hash = (byte) ((xxhash32(source, headerIndex + 4, descriptorLength) >> 8) & 0xFF);
+            if (hash != source.readByte()) {
+                throw new IOException(KafkaLZ4BlockInputStream.DESCRIPTOR_HASH_MISMATCH);
+            }
+        }
+
+        int maxBlockSize = bd.getBlockMaximumSize();
+        while (true) {
+            checkReadable(source, 4);
+            int blockSize = source.readIntLE();
+            if (blockSize == 0) {
+                break;
+            }
+
+            boolean compressed = (blockSize & KafkaLZ4BlockOutputStream.LZ4_FRAME_INCOMPRESSIBLE_MASK) == 0;
+            blockSize &= ~KafkaLZ4BlockOutputStream.LZ4_FRAME_INCOMPRESSIBLE_MASK;
+            if (blockSize > maxBlockSize) {
+                throw new IOException(String.format("Block size %s exceeded max: %s", blockSize, maxBlockSize));
+            }
+
+            checkReadable(source, blockSize);
+            int blockIndex = source.readerIndex();
+            source.skipBytes(blockSize);
+
+            if (flg.isBlockChecksumSet()) {
+                checkReadable(source, 4);
+                if (source.readIntLE() != xxhash32(source, blockIndex, blockSize)) {
+                    throw new IOException(KafkaLZ4BlockInputStream.BLOCK_HASH_MISMATCH);
+                }
+            }
+
+            if (!compressed) {
+                target.writeBytes(source, blockIndex, blockSize);
+                continue;
+            }
+
+            target.ensureWritable(maxBlockSize);
+            try {
+                int length = lz4Decompress(source, blockIndex, blockSize, target, target.writerIndex(), maxBlockSize);
+                target.writerIndex(target.writerIndex() + length);
+            } catch (LZ4Exception e) {
+                throw new IOException(e);
+            }
+        }
+
+        if (flg.isContentChecksumSet()) {
+            checkReadable(source, 4);
+            source.skipBytes(4);
+        }
+    }
+
+    // lz4 1.3.0的ByteBuffer接口会忽略arrayOffset，堆内数据使用完整数组加偏移量
+    protected static int lz4Decompress(ByteBuf source, int sourceIndex, int length, ByteBuf target, int targetIndex, int maxLength) {
+        ByteBuffer output = target.nioBuffer(targetIndex, maxLength);
+        if (source.hasArray()) {
+            return LZ4_DECOMPRESSOR.decompress(ByteBuffer.wrap(source.array()), source.arrayOffset() + sourceIndex, length, output, 0, maxLength);
+        }
+        return LZ4_DECOMPRESSOR.decompress(source.nioBuffer(sourceIndex, length), 0, length, output, 0, maxLength);
+    }
+
+    protected static int xxhash32(ByteBuf buffer, int index, int length) {
+        if (buffer.hasArray()) {
+            return XXHASH32.hash(buffer.array(), buffer.arrayOffset() + index, length, 0);
+        }
+        return XXHASH32.hash(buffer.nioBuffer(index, length), 0, length, 0);
+    }
+
+    protected static void snappyDecompress(ByteBuf source, ByteBuf target) throws IOException {
+        CompressContext context = CONTEXT.get();
+
+        // 没有头的按单个原始snappy块处理，和SnappyInputStream保持一致
+        if (!isSnappyHeader(source)) {
+            snappyDecompressBlock(context, source, source.readableBytes(), target);
+            return;
+        }
+
+        while (source.isReadable()) {
+            // 多个流拼接时会出现多个头
+            if (isSnappyHeader(source)) {
+                source.skipBytes(SNAPPY_HEADER_SIZE);
+                continue;
+            }
+            checkReadable(source, 4);
+            int blockSize = source.readInt();
+            checkReadable(source, blockSize);
+            snappyDecompressBlock(context, source, blockSize, target);
+        }
+    }
+
+    protected static void snappyDecompressBlock(CompressContext context, ByteBuf source, int blockSize, ByteBuf target) throws IOException {
+        ByteBuffer block = context.directBuffer(source, blockSize);
+        source.skipBytes(blockSize);
+
+        int length = Snappy.uncompressedLength(block);
+        target.ensureWritable(length);
+        ByteBuffer output = target.nioBuffer(target.writerIndex(), length);
+        length = Snappy.uncompress(block, output);
+        target.writerIndex(target.writerIndex() + length);
+    }
+
+    protected static boolean isSnappyHeader(ByteBuf source) {
+        if (source.readableBytes() < SNAPPY_HEADER_SIZE) {
+            return false;
+        }
+        int index = source.readerIndex();
+        for (int i = 0; i < SNAPPY_MAGIC.length; i++) {
+            if (source.getByte(index + i) != SNAPPY_MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    protected static void gzipDecompress(ByteBuf source, ByteBuf target) throws IOException {
+        CompressContext context = CONTEXT.get();
+        Inflater inflater = context.inflater;
+        CRC32 crc = context.crc;
+        byte[] output = context.output;
+
+        // 多个gzip成员拼接时依次解压
+        do {
+            readGzipHeader(source);
+            inflater.reset();
+            crc.reset();
+            int startIndex = target.writerIndex();
+
+            try {
+                while (!inflater.finished()) {
+                    if (inflater.needsInput()) {
+                        if (!source.isReadable()) {
+                            throw new IOException("Unexpected end of ZLIB input stream");
+                        }
+                        context.setInput(inflater, source);
+                    }
+                    int length = inflater.inflate(output);
+                    if (length == 0 && inflater.needsDictionary()) {
+                        throw new ZipException("Unsupported ZLIB dictionary");
+                    }
+                    crc.update(output, 0, length);
+                    target.writeBytes(output, 0, length);
+                }
+            } catch (DataFormatException e) {
+                throw new ZipException(e.getMessage());
+            }
+
+            // 退回没有消费的数据
+            source.readerIndex(source.readerIndex() - inflater.getRemaining());
+
+            checkReadable(source, 8);
+            if (source.readIntLE() != (int) crc.getValue()) {
+                throw new ZipException("Corrupt GZIP trailer");
+            }
+            if (source.readIntLE() != target.writerIndex() - startIndex) {
+                throw new ZipException("Corrupt GZIP trailer");
+            }
+        } while (source.readableBytes() >= GZIP_HEADER_SIZE && source.getUnsignedShortLE(source.readerIndex()) == GZIP_MAGIC);
+    }
+
+    protected static void readGzipHeader(ByteBuf source) throws IOException {
+        checkReadable(source, GZIP_HEADER_SIZE);
+        if (source.readUnsignedShortLE() != GZIP_MAGIC) {
+            throw new ZipException("Not in GZIP format");
+        }
+        if (source.readByte() != Deflater.DEFLATED) {
+            throw new ZipException("Unsupported compression method");
+        }
+        int flag = source.readUnsignedByte();
+        // mtime, xfl, os
+        source.skipBytes(6);
+
+        if ((flag & GZIP_FEXTRA) != 0) {
+            checkReadable(source, 2);
+            int length = source.readUnsignedShortLE();
+            checkReadable(source, length);
+            source.skipBytes(length);
+        }
+        if ((flag & GZIP_FNAME) != 0) {
+            skipZeroTerminated(source);
+        }
+        if ((flag & GZIP_FCOMMENT) != 0) {
+            skipZeroTerminated(source);
+        }
+        if ((flag & GZIP_FHCRC) != 0) {
+            checkReadable(source, 2);
+            source.skipBytes(2);
+        }
+    }
+
+    protected static void skipZeroTerminated(ByteBuf source) throws IOException {
+        int index = source.bytesBefore((byte) 0);
+        if (index < 0) {
+            throw new IOException(KafkaLZ4BlockInputStream.PREMATURE_EOS);
+        }
+        source.skipBytes(index + 1);
+    }
+
+    protected static void checkReadable(ByteBuf source, int length) throws IOException {
+        if (source.readableBytes() < length) {
+            throw new IOException(KafkaLZ4BlockInputStream.PREMATURE_EOS);
+        }
+    }
+
+    /**
+     * 线程内复用的压缩上下文
+     */
+    protected static class CompressContext {
+
+        private final Inflater inflater = new Inflater(true);
+        private final CRC32 crc = new CRC32();
+        private final byte[] input = new byte[CHUNK_SIZE];
+        private final byte[] output = new byte[CHUNK_SIZE];
+        private ByteBuffer directBuffer = ByteBuffer.allocateDirect(CHUNK_SIZE);
+
+        /**
+         * snappy只支持堆外内存，非堆外的数据先复制到线程内的堆外缓冲区
+         */
+        protected ByteBuffer directBuffer(ByteBuf source, int length) {
+            if (source.isDirect() && source.nioBufferCount() == 1) {
+                return source.nioBuffer(source.readerIndex(), length);
+            }
+            if (directBuffer.capacity() < length) {
+                directBuffer = ByteBuffer.allocateDirect(length);
+            }
+            directBuffer.clear();
+            directBuffer.limit(length);
+            source.getBytes(source.readerIndex(), directBuffer);
+            directBuffer.flip();
+            return directBuffer;
+        }
+
+        /**
+         * 堆内数据直接作为输入，否则分段复制，返回本次输入的数据供计算crc
+         */
+        protected ByteBuffer setInput(Inflater inflater, ByteBuf source) {
+            ByteBuffer input = nextInput(source);
+            inflater.setInput(input.array(), input.arrayOffset() + input.position(), input.remaining());
+            return input;
+        }
+
+        protected ByteBuffer nextInput(ByteBuf source) {
+            ByteBuffer result;
+            if (source.hasArray()) {
+                int length = source.readableBytes();
+                result = ByteBuffer.wrap(source.array(), source.arrayOffset() + source.readerIndex(), length);
+                source.skipBytes(length);
+            } else {
+                int length = Math.min(source.readableBytes(), input.length);
+                source.readBytes(input, 0, length);
+                result = ByteBuffer.wrap(input, 0, length);
+            }
+            return result;
+        }
+    }
+}
@@ -216,6 +216,8 @@ public final class KafkaLZ4BlockOutputStream extends FilterOutputStream {
     @Override
     public void close() throws IOException {
         if (!finished) {
+            // 先写出剩余的数据块，再写结束标记
+            writeBlock();
             writeEndMark();
             flush();
             finished = true;
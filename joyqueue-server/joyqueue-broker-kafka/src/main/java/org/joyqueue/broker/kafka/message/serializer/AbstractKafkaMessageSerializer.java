@@ -15,14 +15,13 @@
  */
 package org.joyqueue.broker.kafka.message.serializer;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.joyqueue.broker.kafka.message.compressor.KafkaBufferCompressor;
 import org.joyqueue.broker.kafka.message.compressor.KafkaCompressionCodec;
-import org.joyqueue.broker.kafka.message.compressor.KafkaCompressionCodecFactory;
-import org.joyqueue.broker.kafka.message.compressor.stream.ByteBufferInputStream;
 import org.joyqueue.broker.kafka.util.KafkaBufferUtils;
 import org.apache.commons.lang3.ArrayUtils;
 
-import java.io.ByteArrayOutputStream;
-import java.io.InputStream;
 import java.nio.ByteBuffer;
 
 /**
@@ -56,8 +55,6 @@ public abstract class AbstractKafkaMessageSerializer {
     public static final byte CONTROL_FLAG_MASK = 0x20;
     public static final byte TIMESTAMP_TYPE_MASK = 0x08;
 
-    protected static final int DECOMPRESS_BUFFER_SIZE = 1024;
-
     public static byte getExtensionMagic(byte[] extension) {
         if (ArrayUtils.isEmpty(extension)) {
             return INVALID_EXTENSION_MAGIC;
@@ -101,23 +98,10 @@ public abstract class AbstractKafkaMessageSerializer {
         return attribute & TIMESTAMP_TYPE_MASK;
     }
 
-    public static byte[] decompress(KafkaCompressionCodec compressionCodec, ByteBuffer buffer, byte messageMagic) throws Exception {
-        byte[] intermediateBuffer = new byte[DECOMPRESS_BUFFER_SIZE];
-        ByteBufferInputStream sourceInputStream = new ByteBufferInputStream(buffer);
-        InputStream inputStream = KafkaCompressionCodecFactory.apply(compressionCodec, sourceInputStream, messageMagic);
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        try {
-            int count;
-            while ((count = inputStream.read(intermediateBuffer)) > 0) {
-                outputStream.write(intermediateBuffer, 0, count);
-            }
-        } finally {
-            inputStream.close();
-        }
-        return outputStream.toByteArray();
-    }
-
-    public static ByteBuffer decompressBuffer(KafkaCompressionCodec compressionCodec, ByteBuffer buffer, byte messageMagic) throws Exception {
-        return ByteBuffer.wrap(decompress(compressionCodec, buffer, messageMagic));
+    /**
+     * 解压到池化的ByteBuf，使用后需要释放
+     */
+    public static ByteBuf decompress(KafkaCompressionCodec compressionCodec, ByteBuffer buffer, byte messageMagic) throws Exception {
+        return KafkaBufferCompressor.decompress(compressionCodec, Unpooled.wrappedBuffer(buffer), messageMagic);
     }
 }
\ No newline at end of file
@@ -98,16 +98,24 @@ public class KafkaMessageV1Serializer extends AbstractKafkaMessageSerializer {
     public static List<KafkaBrokerMessage> readMessages(ByteBuffer buffer) throws Exception {
         byte attribute = buffer.get(ATTRIBUTE_OFFSET);
         KafkaCompressionCodec compressionCodec = KafkaCompressionCodec.valueOf(getCompressionCodecType(attribute));
+        ByteBuf decompressed = null;
         if (!compressionCodec.equals(KafkaCompressionCodec.NoCompressionCodec)) {
             buffer.position(ATTRIBUTE_OFFSET + 1 + 8 + 4 + 4); // attribute, timestamp, key, valueLength
-            buffer = ByteBuffer.wrap(decompress(compressionCodec, buffer, CURRENT_MAGIC));
+            decompressed = decompress(compressionCodec, buffer, CURRENT_MAGIC);
+            buffer = decompressed.nioBuffer();
         }
-        List<KafkaBrokerMessage> result = Lists.newLinkedList();
-        while (buffer.hasRemaining()) {
-            KafkaBrokerMessage message = doReadMessage(buffer);
-            result.add(message);
+        try {
+            List<KafkaBrokerMessage> result = Lists.newLinkedList();
+            while (buffer.hasRemaining()) {
+                KafkaBrokerMessage message = doReadMessage(buffer);
+                result.add(message);
+            }
+            return result;
+        } finally {
+            if (decompressed != null) {
+                decompressed.release();
+            }
         }
-        return result;
     }
 
     protected static KafkaBrokerMessage doReadMessage(ByteBuffer buffer) throws Exception {
@@ -26,6 +26,7 @@ import io.netty.buffer.ByteBuf;
 import org.apache.commons.lang3.ArrayUtils;
 
 import java.nio.ByteBuffer;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -39,15 +40,39 @@ public class KafkaMessageV2Serializer extends AbstractKafkaMessageSerializer {
 
     private static final int EXTENSION_V0_LENGTH = 1; // magic
     private static final int EXTENSION_V1_LENGTH = 1 + 8 + 8; // magic + timestamp + attribute
-    private static final int CURRENT_EXTENSION_LENGTH = EXTENSION_V1_LENGTH;
+    // v1 + lastOffsetDelta + maxTimestamp + producerId + producerEpoch + baseSequence + crc
+    private static final int EXTENSION_V2_LENGTH = EXTENSION_V1_LENGTH + 4 + 8 + 8 + 2 + 4 + 4;
+
+    private static final int EXTENSION_LAST_OFFSET_DELTA_OFFSET = EXTENSION_V1_LENGTH;
+    private static final int EXTENSION_MAX_TIMESTAMP_OFFSET = EXTENSION_LAST_OFFSET_DELTA_OFFSET + 4;
+    private static final int EXTENSION_PRODUCER_ID_OFFSET = EXTENSION_MAX_TIMESTAMP_OFFSET + 8;
+    private static final int EXTENSION_PRODUCER_EPOCH_OFFSET = EXTENSION_PRODUCER_ID_OFFSET + 8;
+    private static final int EXTENSION_BASE_SEQUENCE_OFFSET = EXTENSION_PRODUCER_EPOCH_OFFSET + 2;
+    private static final int EXTENSION_CRC_OFFSET = EXTENSION_BASE_SEQUENCE_OFFSET + 4;
+
+    // partitionLeaderEpoch + magic + crc + attribute + lastOffsetDelta + firstTimestamp + maxTimestamp + producerId + producerEpoch + baseSequence + messageCount
+    private static final int BATCH_HEADER_SIZE = 4 + 1 + 4 + 2 + 4 + 8 + 8 + 8 + 2 + 4 + 4;
+    // baseOffset + size
+    private static final int BATCH_OVERHEAD = 8 + 4;
 
     private static final byte CURRENT_MAGIC = MESSAGE_MAGIC_V2;
 
     public static void writeExtension(BrokerMessage brokerMessage, KafkaBrokerMessage kafkaBrokerMessage) {
-        byte[] extension = new byte[CURRENT_EXTENSION_LENGTH];
+        byte[] extension = new byte[kafkaBrokerMessage.isRawHeader() ? EXTENSION_V2_LENGTH : EXTENSION_V1_LENGTH];
         writeExtensionMagic(extension, CURRENT_MAGIC);
         writeExtensionTimestamp(extension, kafkaBrokerMessage.getTimestamp());
         writeExtensionAttribute(extension, kafkaBrokerMessage.getAttribute());
+
+        // 保存客户端的原始批量消息头，拉取时连同crc原样返回
+        if (kafkaBrokerMessage.isRawHeader()) {
+            ByteBuffer buffer = ByteBuffer.wrap(extension);
+            buffer.putInt(EXTENSION_LAST_OFFSET_DELTA_OFFSET, kafkaBrokerMessage.getLastOffsetDelta());
+            buffer.putLong(EXTENSION_MAX_TIMESTAMP_OFFSET, kafkaBrokerMessage.getMaxTimestamp());
+            buffer.putLong(EXTENSION_PRODUCER_ID_OFFSET, kafkaBrokerMessage.getProducerId());
+            buffer.putShort(EXTENSION_PRODUCER_EPOCH_OFFSET, kafkaBrokerMessage.getProducerEpoch());
+            buffer.putInt(EXTENSION_BASE_SEQUENCE_OFFSET, kafkaBrokerMessage.getBaseSequence());
+            buffer.putInt(EXTENSION_CRC_OFFSET, kafkaBrokerMessage.getCrc());
+        }
         brokerMessage.setExtension(extension);
     }
 
@@ -57,10 +82,21 @@ public class KafkaMessageV2Serializer extends AbstractKafkaMessageSerializer {
             return;
         }
 
-        if (extension.length == EXTENSION_V1_LENGTH) {
+        if (extension.length == EXTENSION_V1_LENGTH || extension.length == EXTENSION_V2_LENGTH) {
             kafkaBrokerMessage.setTimestamp(readExtensionTimestamp(extension));
             kafkaBrokerMessage.setAttribute(readExtensionAttribute(extension));
         }
+
+        if (extension.length == EXTENSION_V2_LENGTH) {
+            ByteBuffer buffer = ByteBuffer.wrap(extension);
+            kafkaBrokerMessage.setLastOffsetDelta(buffer.getInt(EXTENSION_LAST_OFFSET_DELTA_OFFSET));
+            kafkaBrokerMessage.setMaxTimestamp(buffer.getLong(EXTENSION_MAX_TIMESTAMP_OFFSET));
+            kafkaBrokerMessage.setProducerId(buffer.getLong(EXTENSION_PRODUCER_ID_OFFSET));
+            kafkaBrokerMessage.setProducerEpoch(buffer.getShort(EXTENSION_PRODUCER_EPOCH_OFFSET));
+            kafkaBrokerMessage.setBaseSequence(buffer.getInt(EXTENSION_BASE_SEQUENCE_OFFSET));
+            kafkaBrokerMessage.setCrc(buffer.getInt(EXTENSION_CRC_OFFSET));
+            kafkaBrokerMessage.setRawHeader(true);
+        }
     }
 
     public static void writeMessages(ByteBuf buffer, List<KafkaBrokerMessage> messages) throws Exception {
@@ -70,6 +106,11 @@ public class KafkaMessageV2Serializer extends AbstractKafkaMessageSerializer {
     }
 
     public static void writeMessage(ByteBuf buffer, KafkaBrokerMessage message) throws Exception {
+        if (message.isRawHeader()) {
+            writeRawMessage(buffer, message);
+            return;
+        }
+
         buffer.writeLong(message.getOffset()); // baseOffset
         int sizeIndex = buffer.writerIndex();
         buffer.writeInt(0); // size
@@ -106,14 +147,81 @@ public class KafkaMessageV2Serializer extends AbstractKafkaMessageSerializer {
         buffer.setInt(crcIndex, (int) (crc & 0xffffffffL));
     }
 
+    /**
+     * 原始批量消息头不变，crc只覆盖attribute之后的部分，只需要替换baseOffset，不用重新计算crc
+     */
+    protected static void writeRawMessage(ByteBuf buffer, KafkaBrokerMessage message) {
+        buffer.writeLong(message.getOffset()); // baseOffset
+        buffer.writeInt(BATCH_HEADER_SIZE + message.getValue().length); // size
+        buffer.writeInt(-1); // partitionLeaderEpoch
+        buffer.writeByte(CURRENT_MAGIC);
+        buffer.writeInt(message.getCrc());
+        buffer.writeShort(message.getAttribute());
+        buffer.writeInt(message.getLastOffsetDelta());
+        buffer.writeLong(message.getTimestamp()); // firstTimestamp
+        buffer.writeLong(message.getMaxTimestamp());
+        buffer.writeLong(message.getProducerId());
+        buffer.writeShort(message.getProducerEpoch());
+        buffer.writeInt(message.getBaseSequence());
+        buffer.writeInt(message.getFlag()); // messageCount
+        buffer.writeBytes(message.getValue());
+    }
+
     public static List<KafkaBrokerMessage> readMessages(ByteBuffer buffer) throws Exception {
-        long baseOffset = buffer.getLong();
-        int size = buffer.getInt();
+        List<KafkaBrokerMessage> result = Lists.newLinkedList();
+        while (buffer.remaining() >= BATCH_OVERHEAD + BATCH_HEADER_SIZE) {
+            long baseOffset = buffer.getLong();
+            int size = buffer.getInt();
+            if (size < BATCH_HEADER_SIZE || size > buffer.remaining()) {
+                break;
+            }
+            KafkaBrokerMessage message = readBatchHeader(baseOffset, buffer);
+            byte[] value = new byte[size - BATCH_HEADER_SIZE];
+            buffer.get(value);
+            message.setValue(value);
+            result.add(message);
+        }
+        // 有不完整的批量消息时整个messageSet作为损坏的消息处理
+        if (buffer.hasRemaining()) {
+            return Collections.emptyList();
+        }
+        return result;
+    }
+
+    /**
+     * 直接从请求中读取，一个messageSet可能包含多个批量消息，每个批量消息只拷贝一次records
+     */
+    public static List<KafkaBrokerMessage> readMessages(ByteBuf buffer, int length) throws Exception {
+        int endIndex = buffer.readerIndex() + length;
+        List<KafkaBrokerMessage> result = Lists.newLinkedList();
+        while (endIndex - buffer.readerIndex() >= BATCH_OVERHEAD + BATCH_HEADER_SIZE) {
+            long baseOffset = buffer.readLong();
+            int size = buffer.readInt();
+            if (size < BATCH_HEADER_SIZE || size > endIndex - buffer.readerIndex()) {
+                break;
+            }
+            KafkaBrokerMessage message = readBatchHeader(baseOffset, buffer.nioBuffer(buffer.readerIndex(), BATCH_HEADER_SIZE));
+            buffer.skipBytes(BATCH_HEADER_SIZE);
+            byte[] value = new byte[size - BATCH_HEADER_SIZE];
+            buffer.readBytes(value);
+            message.setValue(value);
+            result.add(message);
+        }
+        // 有不完整的批量消息时跳过整个messageSet，返回空作为损坏的消息处理，不能只保存前面的批量消息
+        boolean corrupted = (buffer.readerIndex() != endIndex);
+        buffer.readerIndex(endIndex);
+        if (corrupted) {
+            return Collections.emptyList();
+        }
+        return result;
+    }
+
+    protected static KafkaBrokerMessage readBatchHeader(long baseOffset, ByteBuffer buffer) {
         int partitionLeaderEpoch = buffer.getInt();
         byte magic = buffer.get();
         int crc = buffer.getInt();
         short attribute = buffer.getShort();
-        int lastOffsetDeltaLength = buffer.getInt();
+        int lastOffsetDelta = buffer.getInt();
         long firstTimestamp = buffer.getLong();
         long maxTimestamp = buffer.getLong();
         long producerId = buffer.getLong();
@@ -121,16 +229,12 @@ public class KafkaMessageV2Serializer extends AbstractKafkaMessageSerializer {
         int baseSequence = buffer.getInt();
         int messageCount = buffer.getInt();
 
-        byte[] value = new byte[buffer.remaining()];
-        buffer.get(value);
-
 //        KafkaCompressionCodec compressionCodec = KafkaCompressionCodec.valueOf(getCompressionCodecType(attribute));
         KafkaBrokerMessage message = new KafkaBrokerMessage();
         message.setMagic(magic);
         message.setAttribute(attribute);
         message.setTimestamp(firstTimestamp);
         message.setOffset(baseOffset);
-        message.setValue(value);
         message.setBatch(true);
         message.setMagic(CURRENT_MAGIC);
         message.setFlag((short) messageCount);
@@ -141,26 +245,36 @@ public class KafkaMessageV2Serializer extends AbstractKafkaMessageSerializer {
         message.setProducerEpoch(producerEpoch);
         message.setBaseSequence(baseSequence);
 
-        return Lists.newArrayList(message);
+        // 非事务且条数没有溢出的批量消息保存原始消息头，拉取时不需要重新计算crc
+        message.setLastOffsetDelta(lastOffsetDelta);
+        message.setMaxTimestamp(maxTimestamp);
+        message.setRawHeader(!message.isTransaction() && messageCount <= Short.MAX_VALUE);
+        return message;
     }
 
     public static List<KafkaBrokerMessage> readMessages(KafkaBrokerMessage message) throws Exception {
         short attribute = message.getAttribute();
         KafkaCompressionCodec compressionType = KafkaCompressionCodec.valueOf(getCompressionCodecType(attribute));
-        byte[] body = message.getValue();
+        ByteBuffer bodyBuffer = ByteBuffer.wrap(message.getValue());
+        ByteBuf decompressed = null;
 
         if (!compressionType.equals(KafkaCompressionCodec.NoCompressionCodec)) {
-            body = decompress(compressionType, ByteBuffer.wrap(body), CURRENT_MAGIC);
+            decompressed = decompress(compressionType, bodyBuffer, CURRENT_MAGIC);
+            bodyBuffer = decompressed.nioBuffer();
         }
 
-        ByteBuffer bodyBuffer = ByteBuffer.wrap(body);
-        List<KafkaBrokerMessage> result = Lists.newArrayListWithCapacity(message.getFlag());
-
-        for (int i = 0; i < message.getFlag(); i++) {
-            KafkaBrokerMessage brokerMessage = readMessage(message, bodyBuffer);
-            result.add(brokerMessage);
+        try {
+            List<KafkaBrokerMessage> result = Lists.newArrayListWithCapacity(message.getFlag());
+            for (int i = 0; i < message.getFlag(); i++) {
+                KafkaBrokerMessage brokerMessage = readMessage(message, bodyBuffer);
+                result.add(brokerMessage);
+            }
+            return result;
+        } finally {
+            if (decompressed != null) {
+                decompressed.release();
+            }
         }
-        return result;
     }
 
     protected static KafkaBrokerMessage readMessage(KafkaBrokerMessage message, ByteBuffer buffer) throws Exception {
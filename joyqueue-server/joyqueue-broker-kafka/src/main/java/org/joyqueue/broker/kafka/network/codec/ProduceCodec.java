@@ -29,7 +29,6 @@ import org.joyqueue.network.transport.command.Type;
 import org.joyqueue.network.transport.exception.TransportException;
 import io.netty.buffer.ByteBuf;
 
-import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Map;
 
@@ -65,10 +64,7 @@ public class ProduceCodec implements KafkaPayloadCodec<ProduceResponse>, Type {
                 int partition = buffer.readInt();
                 int messageSetSize = buffer.readInt();
 
-                byte[] bytes = new byte[messageSetSize];
-                buffer.readBytes(bytes);
-
-                List<KafkaBrokerMessage> messages = KafkaMessageSerializer.readMessages(ByteBuffer.wrap(bytes));
+                List<KafkaBrokerMessage> messages = KafkaMessageSerializer.readMessages(buffer, messageSetSize);
                 if (!produceRequest.isTransaction()) {
                     for (KafkaBrokerMessage message : messages) {
                         if (message.isTransaction()) {
@@ -15,6 +15,7 @@
  */
 package org.joyqueue.broker.kafka.network.protocol;
 
+import com.jd.laf.extension.ExtensionManager;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandler;
@@ -23,6 +24,7 @@ import org.joyqueue.broker.BrokerContext;
 import org.joyqueue.broker.BrokerContextAware;
 import org.joyqueue.broker.kafka.KafkaConsts;
 import org.joyqueue.broker.kafka.KafkaContext;
+import org.joyqueue.broker.kafka.KafkaContextAware;
 import org.joyqueue.broker.kafka.config.KafkaConfig;
 import org.joyqueue.broker.kafka.coordinator.Coordinator;
 import org.joyqueue.broker.kafka.coordinator.group.GroupBalanceHandler;
@@ -47,6 +49,7 @@ import org.joyqueue.broker.kafka.network.helper.KafkaProtocolHelper;
 import org.joyqueue.broker.kafka.session.KafkaConnectionHandler;
 import org.joyqueue.broker.kafka.session.KafkaConnectionManager;
 import org.joyqueue.broker.kafka.session.KafkaTransportHandler;
+import org.joyqueue.broker.network.BrokerCommandHandler;
 import org.joyqueue.network.protocol.CommandHandlerProvider;
 import org.joyqueue.network.protocol.ExceptionHandlerProvider;
 import org.joyqueue.network.protocol.ProtocolService;
@@ -104,7 +107,7 @@ public class KafkaProtocol extends Service implements ProtocolService, BrokerCon
         this.coordinator = new Coordinator(brokerContext.getCoordinatorService().getCoordinator());
 
         this.groupMetadataManager = new GroupMetadataManager(config, groupMetadataManager);
-        this.groupOffsetManager = new GroupOffsetManager(config, brokerContext.getClusterNameService(), this.groupMetadataManager, coordinator.getSessionManager());
+        this.groupOffsetManager = new GroupOffsetManager(config, coordinator, brokerContext.getClusterNameService(), this.groupMetadataManager, coordinator.getSessionManager());
         this.groupBalanceManager = new GroupBalanceManager(config, this.groupMetadataManager);
         this.groupOffsetHandler = new GroupOffsetHandler(config, coordinator, this.groupMetadataManager, groupBalanceManager, groupOffsetManager);
         this.groupBalanceHandler = new GroupBalanceHandler(brokerContext.getPropertySupplier(), config, this.groupMetadataManager, groupBalanceManager);
@@ -115,7 +118,8 @@ public class KafkaProtocol extends Service implements ProtocolService, BrokerCon
         this.producerSequenceManager = new ProducerSequenceManager(config);
         this.transactionMetadataManager = new TransactionMetadataManager(config, transactionMetadataManager);
         this.transactionLog = new TransactionLog(config, brokerContext.getProduce(), brokerContext.getConsume(), coordinator, brokerContext.getClusterManager());
-        this.transactionSynchronizer = new TransactionSynchronizer(config, transactionIdManager, transactionLog, coordinator.getSessionManager(), brokerContext.getClusterNameService());
+        this.transactionSynchronizer = new TransactionSynchronizer(config, transactionIdManager, transactionLog, coordinator.getSessionManager(),
+                brokerContext.getClusterNameService(), groupOffsetManager);
         this.transactionCompletionHandler = new TransactionCompletionHandler(config, coordinator, this.transactionMetadataManager, transactionLog, transactionSynchronizer);
         this.transactionCompletionScheduler = new TransactionCompletionScheduler(config, transactionCompletionHandler);
         this.transactionHandler = new TransactionHandler(coordinator, this.transactionMetadataManager, producerIdManager, transactionSynchronizer, brokerContext.getClusterNameService());
@@ -129,6 +133,18 @@ public class KafkaProtocol extends Service implements ProtocolService, BrokerCon
 
         this.kafkaContext = new KafkaContext(config, groupCoordinator, transactionCoordinator, transactionIdManager, producerSequenceManager, brokerContext);
         registerManage(brokerContext, kafkaContext);
+        initBrokerCommandHandlers(kafkaContext);
+    }
+
+    /**
+     * broker之间的命令处理器通过broker的SPI加载，这里注入kafka上下文
+     */
+    protected void initBrokerCommandHandlers(KafkaContext kafkaContext) {
+        for (BrokerCommandHandler commandHandler : ExtensionManager.getOrLoadExtensions(BrokerCommandHandler.class)) {
+            if (commandHandler instanceof KafkaContextAware) {
+                ((KafkaContextAware) commandHandler).setKafkaContext(kafkaContext);
+            }
+        }
     }
 
     protected void registerManage(BrokerContext brokerContext, KafkaContext kafkaContext) {
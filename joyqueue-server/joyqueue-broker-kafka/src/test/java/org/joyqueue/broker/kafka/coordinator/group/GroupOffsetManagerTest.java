@@ -0,0 +1,188 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.kafka.coordinator.group;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.joyqueue.broker.config.Configuration;
+import org.joyqueue.broker.kafka.KafkaContext;
+import org.joyqueue.broker.kafka.config.KafkaConfig;
+import org.joyqueue.broker.kafka.coordinator.Coordinator;
+import org.joyqueue.broker.kafka.coordinator.group.handler.TransactionOffsetsCommittedRequestHandler;
+import org.joyqueue.broker.kafka.coordinator.group.network.codec.TransactionOffsetsCommittedRequestCodec;
+import org.joyqueue.broker.kafka.coordinator.group.network.command.TransactionOffsetsCommittedRequest;
+import org.joyqueue.broker.kafka.model.OffsetAndMetadata;
+import org.joyqueue.broker.kafka.model.OffsetMetadataAndError;
+import org.joyqueue.domain.Broker;
+import org.joyqueue.exception.JoyQueueCode;
+import org.joyqueue.network.transport.command.Command;
+import org.joyqueue.network.transport.command.JoyQueueCommand;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GroupOffsetManagerTest
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/15
+ */
+public class GroupOffsetManagerTest {
+
+    private static final String GROUP = "test_group";
+    private static final String TOPIC = "test_topic";
+
+    @Test
+    public void localCoordinatorTest() {
+        TestGroupOffsetManager offsetManager = new TestGroupOffsetManager(true);
+        offsetManager.updateTransactionOffsets(GROUP, newOffsets(0, 10));
+
+        // 当前broker是group协调者，直接更新缓存
+        offsetManager.onTransactionOffsetsCommitted(GROUP, TOPIC, Collections.singletonList(newOffset(0, 20)));
+        Assert.assertTrue(offsetManager.requests.isEmpty());
+        Assert.assertEquals(20, getOffset(offsetManager, 0));
+    }
+
+    @Test
+    public void remoteCoordinatorTest() throws Exception {
+        // 事务协调者和group协调者在不同的broker上
+        TestGroupOffsetManager transactionBroker = new TestGroupOffsetManager(false);
+        TestGroupOffsetManager groupBroker = new TestGroupOffsetManager(true);
+        groupBroker.updateTransactionOffsets(GROUP, newOffsets(0, 10));
+
+        transactionBroker.onTransactionOffsetsCommitted(GROUP, TOPIC, Lists.newArrayList(newOffset(0, 20), newOffset(1, 30)));
+        Assert.assertEquals(1, transactionBroker.requests.size());
+        Assert.assertEquals(2, transactionBroker.brokers.get(0).getId().intValue());
+
+        // 经过编解码后由group协调者处理
+        TransactionOffsetsCommittedRequest request = transferRequest(transactionBroker.requests.get(0));
+        Assert.assertEquals(GROUP, request.getGroupId());
+        Command response = newHandler(groupBroker).handle(null, new JoyQueueCommand(request));
+        Assert.assertEquals(JoyQueueCode.SUCCESS.getCode(), (int) response.getHeader().getStatus());
+
+        // 协调者的缓存不再返回事务前的offset
+        Assert.assertEquals(20, getOffset(groupBroker, 0));
+        Assert.assertEquals(30, getOffset(groupBroker, 1));
+    }
+
+    @Test
+    public void coordinatorChangedTest() throws Exception {
+        // 通知到达时已经不是group协调者，忽略
+        TestGroupOffsetManager groupBroker = new TestGroupOffsetManager(false);
+        TransactionOffsetsCommittedRequest request = new TransactionOffsetsCommittedRequest(GROUP, newOffsets(0, 20));
+        Command response = newHandler(groupBroker).handle(null, new JoyQueueCommand(request));
+        Assert.assertEquals(JoyQueueCode.SUCCESS.getCode(), (int) response.getHeader().getStatus());
+        Assert.assertFalse(groupBroker.updateTransactionOffsets(GROUP, newOffsets(0, 20)));
+
+        // 没有注入上下文时返回服务不可用
+        response = new TransactionOffsetsCommittedRequestHandler().handle(null, new JoyQueueCommand(request));
+        Assert.assertEquals(JoyQueueCode.CN_SERVICE_NOT_AVAILABLE.getCode(), (int) response.getHeader().getStatus());
+    }
+
+    protected TransactionOffsetsCommittedRequest transferRequest(TransactionOffsetsCommittedRequest request) throws Exception {
+        TransactionOffsetsCommittedRequestCodec codec = new TransactionOffsetsCommittedRequestCodec();
+        ByteBuf buffer = Unpooled.buffer();
+        codec.encode(request, buffer);
+        return (TransactionOffsetsCommittedRequest) codec.decode(null, buffer);
+    }
+
+    protected TransactionOffsetsCommittedRequestHandler newHandler(GroupOffsetManager offsetManager) {
+        GroupOffsetHandler offsetHandler = new GroupOffsetHandler(new TestKafkaConfig(), null, null, null, offsetManager);
+        GroupCoordinator groupCoordinator = new GroupCoordinator(null, null, offsetHandler, null);
+        TransactionOffsetsCommittedRequestHandler handler = new TransactionOffsetsCommittedRequestHandler();
+        handler.setKafkaContext(new KafkaContext(new TestKafkaConfig(), groupCoordinator, null, null, null, null));
+        return handler;
+    }
+
+    protected long getOffset(GroupOffsetManager offsetManager, int partition) {
+        Map<String, List<Integer>> partitions = Maps.newHashMap();
+        partitions.put(TOPIC, Collections.singletonList(partition));
+        List<OffsetMetadataAndError> offsets = offsetManager.getOffsets(GROUP, partitions).get(TOPIC);
+        Assert.assertEquals(1, offsets.size());
+        return offsets.get(0).getOffset();
+    }
+
+    protected Map<String, List<OffsetAndMetadata>> newOffsets(int partition, long offset) {
+        Map<String, List<OffsetAndMetadata>> offsets = Maps.newHashMap();
+        offsets.put(TOPIC, Lists.newArrayList(newOffset(partition, offset)));
+        return offsets;
+    }
+
+    protected OffsetAndMetadata newOffset(int partition, long offset) {
+        return new OffsetAndMetadata(partition, offset, OffsetAndMetadata.NO_METADATA, 0);
+    }
+
+    protected static class TestGroupOffsetManager extends GroupOffsetManager {
+
+        private List<Broker> brokers = Lists.newArrayList();
+        private List<TransactionOffsetsCommittedRequest> requests = Lists.newArrayList();
+
+        public TestGroupOffsetManager(boolean currentGroup) {
+            super(new TestKafkaConfig(), new TestCoordinator(currentGroup), null, null, null);
+        }
+
+        @Override
+        protected void sendTransactionOffsets(Broker broker, TransactionOffsetsCommittedRequest request) {
+            brokers.add(broker);
+            requests.add(request);
+        }
+    }
+
+    protected static class TestCoordinator extends Coordinator {
+
+        private boolean currentGroup;
+
+        public TestCoordinator(boolean currentGroup) {
+            super(null);
+            this.currentGroup = currentGroup;
+        }
+
+        @Override
+        public boolean isCurrentGroup(String groupId) {
+            return currentGroup;
+        }
+
+        @Override
+        public Broker findGroup(String groupId) {
+            Broker broker = new Broker();
+            broker.setId(2);
+            broker.setIp("127.0.0.2");
+            return broker;
+        }
+    }
+
+    protected static class TestKafkaConfig extends KafkaConfig {
+
+        public TestKafkaConfig() {
+            super(new Configuration());
+        }
+
+        @Override
+        public boolean getOffsetCacheEnable() {
+            return true;
+        }
+
+        @Override
+        public int getOffsetSyncTimeout() {
+            return 1000;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.kafka.coordinator.group;
+
+import org.joyqueue.broker.kafka.coordinator.group.domain.GroupOffsets;
+import org.joyqueue.broker.kafka.model.OffsetAndMetadata;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GroupOffsetsTest
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/15
+ */
+public class GroupOffsetsTest {
+
+    private static final String GROUP = "test_group";
+    private static final String TOPIC = "test_topic";
+
+    @Test
+    public void commitDuringFlushTest() {
+        GroupOffsets groupOffsets = new GroupOffsets(GROUP);
+        OffsetAndMetadata oldOffset = newOffset(0, 10);
+        groupOffsets.commit(TOPIC, oldOffset, 0);
+
+        Map<String, List<OffsetAndMetadata>> dirty = groupOffsets.drainDirty();
+        Assert.assertSame(oldOffset, dirty.get(TOPIC).get(0));
+        Assert.assertTrue(groupOffsets.drainDirty().isEmpty());
+
+        // 刷盘过程中有新的提交
+        OffsetAndMetadata newOffset = newOffset(0, 20);
+        groupOffsets.commit(TOPIC, newOffset, 1);
+
+        // 旧offset写入失败，不能覆盖新的提交
+        groupOffsets.markDirty(TOPIC, oldOffset);
+        Assert.assertSame(newOffset, groupOffsets.get(TOPIC, 0));
+
+        dirty = groupOffsets.drainDirty();
+        Assert.assertEquals(1, dirty.get(TOPIC).size());
+        Assert.assertSame(newOffset, dirty.get(TOPIC).get(0));
+        Assert.assertTrue(groupOffsets.drainDirty().isEmpty());
+    }
+
+    @Test
+    public void newerCommitReplacedTest() {
+        GroupOffsets groupOffsets = new GroupOffsets(GROUP);
+        OffsetAndMetadata oldOffset = newOffset(0, 10);
+        groupOffsets.commit(TOPIC, oldOffset, 0);
+        groupOffsets.drainDirty();
+
+        OffsetAndMetadata newOffset = newOffset(0, 20);
+        groupOffsets.commit(TOPIC, newOffset, 1);
+        groupOffsets.drainDirty();
+
+        // 新的offset已经写入，旧offset失败后不需要重新标记
+        groupOffsets.markDirty(TOPIC, oldOffset);
+        Assert.assertTrue(groupOffsets.drainDirty().isEmpty());
+        Assert.assertSame(newOffset, groupOffsets.get(TOPIC, 0));
+    }
+
+    @Test
+    public void markDirtyTest() {
+        GroupOffsets groupOffsets = new GroupOffsets(GROUP);
+        OffsetAndMetadata offset = newOffset(1, 10);
+        groupOffsets.commit(TOPIC, offset, 0);
+        groupOffsets.drainDirty();
+
+        // 写入失败，重新标记后再次写入
+        groupOffsets.markDirty(TOPIC, offset);
+        Map<String, List<OffsetAndMetadata>> dirty = groupOffsets.drainDirty();
+        Assert.assertSame(offset, dirty.get(TOPIC).get(0));
+
+        // 不存在的topic和partition忽略
+        groupOffsets.markDirty("unknown_topic", offset);
+        groupOffsets.markDirty(TOPIC, newOffset(2, 10));
+        Assert.assertTrue(groupOffsets.drainDirty().isEmpty());
+    }
+
+    @Test
+    public void removeGroupTest() {
+        GroupOffsetCache offsetCache = new GroupOffsetCache();
+        offsetCache.commit(GROUP, TOPIC, newOffset(0, 10), 0);
+        GroupOffsets groupOffsets = offsetCache.getGroup(GROUP);
+        Assert.assertNotNull(groupOffsets);
+
+        Assert.assertTrue(offsetCache.removeGroup(groupOffsets));
+        Assert.assertFalse(offsetCache.removeGroup(groupOffsets));
+        Assert.assertNull(offsetCache.getGroup(GROUP));
+
+        // 已移除的group不再接受提交
+        Assert.assertFalse(groupOffsets.commit(TOPIC, newOffset(0, 20), 1));
+        Assert.assertEquals(10, groupOffsets.get(TOPIC, 0).getOffset());
+
+        // 再次提交时重新创建group
+        offsetCache.commit(GROUP, TOPIC, newOffset(0, 30), 2);
+        GroupOffsets newGroupOffsets = offsetCache.getGroup(GROUP);
+        Assert.assertNotSame(groupOffsets, newGroupOffsets);
+        Assert.assertEquals(30, offsetCache.get(GROUP, TOPIC, 0).getOffset());
+        Assert.assertEquals(2, newGroupOffsets.getLastCommitTime());
+    }
+
+    protected OffsetAndMetadata newOffset(int partition, long offset) {
+        return new OffsetAndMetadata(partition, offset, OffsetAndMetadata.NO_METADATA, 0);
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.kafka.message.compressor;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+/**
+ * KafkaBufferCompressorTest
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/20
+ */
+public class KafkaBufferCompressorTest {
+
+    private static final KafkaCompressionCodec[] CODECS = {
+            KafkaCompressionCodec.GZIPCompressionCodec,
+            KafkaCompressionCodec.SnappyCompressionCodec,
+            KafkaCompressionCodec.LZ4CompressionCodec
+    };
+
+    private static final byte MAGIC_V0 = 0;
+    private static final byte MAGIC_V2 = 2;
+
+    @Test
+    public void decompressTest() throws Exception {
+        byte[] data = newData(1024 * 1024);
+        for (KafkaCompressionCodec codec : CODECS) {
+            // 原有的lz4输出流使用老版本的描述符校验和
+            byte magic = (codec == KafkaCompressionCodec.LZ4CompressionCodec ? MAGIC_V0 : MAGIC_V2);
+            byte[] compressed = streamCompress(codec, data, magic);
+
+            ByteBuf heap = Unpooled.wrappedBuffer(compressed);
+            assertData(codec, data, KafkaBufferCompressor.decompress(codec, heap, magic));
+            Assert.assertFalse(heap.isReadable());
+
+            ByteBuf direct = Unpooled.directBuffer(compressed.length);
+            direct.writeBytes(compressed);
+            assertData(codec, data, KafkaBufferCompressor.decompress(codec, direct, magic));
+            direct.release();
+        }
+    }
+
+    @Test
+    public void blockBoundaryTest() throws Exception {
+        // 数据正好是整数个lz4块时，最后一个块在关闭时写出
+        byte[] data = newData(4 * 64 * 1024);
+        for (KafkaCompressionCodec codec : CODECS) {
+            byte magic = (codec == KafkaCompressionCodec.LZ4CompressionCodec ? MAGIC_V0 : MAGIC_V2);
+            byte[] compressed = streamCompress(codec, data, magic);
+            Assert.assertArrayEquals(codec.getName(), data, streamDecompress(codec, compressed, magic));
+            assertData(codec, data, KafkaBufferCompressor.decompress(codec, Unpooled.wrappedBuffer(compressed), magic));
+        }
+    }
+
+    @Test
+    public void corruptTest() throws Exception {
+        byte[] data = newData(64 * 1024);
+        for (KafkaCompressionCodec codec : CODECS) {
+            byte magic = (codec == KafkaCompressionCodec.LZ4CompressionCodec ? MAGIC_V0 : MAGIC_V2);
+            byte[] compressed = streamCompress(codec, data, magic);
+            ByteBuf truncated = Unpooled.wrappedBuffer(compressed, 0, compressed.length / 2);
+            try {
+                KafkaBufferCompressor.decompress(codec, truncated, magic).release();
+                Assert.fail(codec.getName());
+            } catch (Exception e) {
+            }
+        }
+    }
+
+    protected void assertData(KafkaCompressionCodec codec, byte[] expected, ByteBuf decompressed) {
+        try {
+            byte[] actual = new byte[decompressed.readableBytes()];
+            decompressed.readBytes(actual);
+            Assert.assertArrayEquals(codec.getName(), expected, actual);
+        } finally {
+            decompressed.release();
+        }
+    }
+
+    protected byte[] newData(int size) {
+        // 部分可压缩的数据
+        Random random = new Random(size);
+        byte[] result = new byte[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = (byte) (i % 7 == 0 ? random.nextInt() : i % 31);
+        }
+        return result;
+    }
+
+    protected byte[] streamCompress(KafkaCompressionCodec codec, byte[] data, byte magic) throws Exception {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (OutputStream outputStream = KafkaCompressionCodecFactory.apply(codec, result, magic)) {
+            outputStream.write(data);
+        }
+        return result.toByteArray();
+    }
+
+    protected byte[] streamDecompress(KafkaCompressionCodec codec, byte[] data, byte magic) throws Exception {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        try (InputStream inputStream = KafkaCompressionCodecFactory.apply(codec, new ByteArrayInputStream(data), magic)) {
+            int count;
+            while ((count = inputStream.read(buffer)) > 0) {
+                result.write(buffer, 0, count);
+            }
+        }
+        return result.toByteArray();
+    }
+}
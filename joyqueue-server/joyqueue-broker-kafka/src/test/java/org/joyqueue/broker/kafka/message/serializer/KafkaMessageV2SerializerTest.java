@@ -0,0 +1,144 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.kafka.message.serializer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.joyqueue.broker.kafka.message.KafkaBrokerMessage;
+import org.joyqueue.broker.kafka.message.KafkaMessageSerializer;
+import org.joyqueue.broker.kafka.util.PureJavaCrc32C;
+import org.joyqueue.message.BrokerMessage;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * KafkaMessageV2SerializerTest
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/16
+ */
+public class KafkaMessageV2SerializerTest {
+
+    @Test
+    public void rawBatchTest() throws Exception {
+        ByteBuf request = Unpooled.buffer();
+        KafkaMessageV2Serializer.writeMessage(request, newMessage(new byte[] {1, 2, 3}, (short) 3));
+        KafkaMessageV2Serializer.writeMessage(request, newMessage(new byte[] {4, 5}, (short) 2));
+        byte[] requestBytes = new byte[request.readableBytes()];
+        request.getBytes(0, requestBytes);
+
+        // 一个messageSet中的多个批量消息都需要读取
+        List<KafkaBrokerMessage> messages = KafkaMessageSerializer.readMessages(request, request.readableBytes());
+        Assert.assertEquals(0, request.readableBytes());
+        Assert.assertEquals(2, messages.size());
+        Assert.assertTrue(messages.get(0).isRawHeader());
+        Assert.assertArrayEquals(new byte[] {1, 2, 3}, messages.get(0).getValue());
+        Assert.assertEquals(3, messages.get(0).getFlag());
+        Assert.assertArrayEquals(new byte[] {4, 5}, messages.get(1).getValue());
+
+        // 存储后拉取，除了baseOffset外和原始批量消息完全相同，crc仍然有效
+        KafkaBrokerMessage message = messages.get(0);
+        BrokerMessage brokerMessage = new BrokerMessage();
+        KafkaMessageV2Serializer.writeExtension(brokerMessage, message);
+
+        KafkaBrokerMessage fetchMessage = new KafkaBrokerMessage();
+        fetchMessage.setOffset(100);
+        fetchMessage.setValue(message.getValue());
+        fetchMessage.setFlag(message.getFlag());
+        fetchMessage.setBatch(true);
+        fetchMessage.setMagic(AbstractKafkaMessageSerializer.MESSAGE_MAGIC_V2);
+        KafkaMessageV2Serializer.readExtension(brokerMessage, fetchMessage);
+        Assert.assertTrue(fetchMessage.isRawHeader());
+
+        ByteBuf response = Unpooled.buffer();
+        KafkaMessageV2Serializer.writeMessage(response, fetchMessage);
+        byte[] responseBytes = new byte[response.readableBytes()];
+        response.getBytes(0, responseBytes);
+
+        Assert.assertEquals(100, response.getLong(0));
+        int batchLength = 8 + 4 + response.getInt(8);
+        Assert.assertEquals(batchLength, responseBytes.length);
+        for (int i = 8; i < batchLength; i++) {
+            Assert.assertEquals(requestBytes[i], responseBytes[i]);
+        }
+
+        PureJavaCrc32C crc32c = new PureJavaCrc32C();
+        crc32c.update(responseBytes, 21, responseBytes.length - 21);
+        Assert.assertEquals((int) crc32c.getValue(), response.getInt(17));
+    }
+
+    @Test
+    public void transactionTest() throws Exception {
+        KafkaBrokerMessage message = newMessage(new byte[] {1}, (short) 1);
+        message.setAttribute(AbstractKafkaMessageSerializer.TRANSACTIONAL_FLAG_MASK);
+        ByteBuf request = Unpooled.buffer();
+        KafkaMessageV2Serializer.writeMessage(request, message);
+
+        // 事务消息不保存原始消息头
+        List<KafkaBrokerMessage> messages = KafkaMessageSerializer.readMessages(request, request.readableBytes());
+        Assert.assertTrue(messages.get(0).isTransaction());
+        Assert.assertFalse(messages.get(0).isRawHeader());
+    }
+
+    @Test
+    public void corruptTest() throws Exception {
+        ByteBuf messageSet = Unpooled.buffer();
+        KafkaMessageV2Serializer.writeMessage(messageSet, newMessage(new byte[] {1, 2, 3}, (short) 3));
+        int firstLength = messageSet.readableBytes();
+        KafkaMessageV2Serializer.writeMessage(messageSet, newMessage(new byte[] {4, 5}, (short) 2));
+
+        // 第二个批量消息不完整
+        assertCorrupt(messageSet.slice(0, messageSet.readableBytes() - 1));
+
+        // 第二个批量消息的长度错误
+        ByteBuf badSize = messageSet.copy();
+        badSize.setInt(firstLength + 8, 1);
+        assertCorrupt(badSize);
+
+        // messageSet末尾有多余的数据
+        ByteBuf trailing = messageSet.copy();
+        trailing.writeBytes(new byte[] {0, 0, 0});
+        assertCorrupt(trailing);
+    }
+
+    protected void assertCorrupt(ByteBuf messageSet) throws Exception {
+        int length = messageSet.readableBytes();
+        ByteBuf request = Unpooled.buffer();
+        request.writeBytes(messageSet, messageSet.readerIndex(), length);
+        request.writeInt(Integer.MAX_VALUE);
+
+        // 不能只返回前面完整的批量消息，后面的数据仍然可以继续读取
+        List<KafkaBrokerMessage> messages = KafkaMessageSerializer.readMessages(request, length);
+        Assert.assertTrue(messages.isEmpty());
+        Assert.assertEquals(Integer.MAX_VALUE, request.readInt());
+
+        byte[] bytes = new byte[length];
+        messageSet.getBytes(messageSet.readerIndex(), bytes);
+        Assert.assertTrue(KafkaMessageSerializer.readMessages(ByteBuffer.wrap(bytes)).isEmpty());
+    }
+
+    protected KafkaBrokerMessage newMessage(byte[] value, short count) {
+        KafkaBrokerMessage message = new KafkaBrokerMessage();
+        message.setTimestamp(System.currentTimeMillis());
+        message.setValue(value);
+        message.setFlag(count);
+        message.setBatch(true);
+        return message;
+    }
+}
@@ -17,90 +17,57 @@ package org.joyqueue.broker.monitor.convert;
 
 
 import org.joyqueue.broker.monitor.converter.Converter;
-import org.joyqueue.broker.monitor.converter.DefaultConverter;
 import org.joyqueue.broker.monitor.stat.BrokerStatExt;
-import org.joyqueue.model.MonitorRecord;
-import org.joyqueue.monitor.StringResponse;
+import org.joyqueue.monitor.StreamResponse;
 import org.joyqueue.toolkit.time.SystemClock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
 import java.util.Date;
-import java.util.List;
+import java.util.Map;
 
 /**
  * @author lining11
  * Date: 2019/1/9
  */
-public class PrometheusConvert implements Converter<BrokerStatExt, StringResponse> {
+public class PrometheusConvert implements Converter<BrokerStatExt, StreamResponse> {
 
     private static final Logger logger = LoggerFactory.getLogger(PrometheusConvert.class);
 
-    private DefaultConverter converter = new DefaultConverter();
-
     @Override
-    public StringResponse convert(BrokerStatExt brokerStatExt) {
-
-        List<MonitorRecord> records = converter.convert(brokerStatExt);
+    public StreamResponse convert(BrokerStatExt brokerStatExt) {
+        return convert(brokerStatExt, Collections.emptyMap());
+    }
 
-        StringResponse response = buildResponse(records);
+    @Override
+    public StreamResponse convert(BrokerStatExt brokerStatExt, Map<String, String> params) {
+        PrometheusOptions options = PrometheusOptions.parse(params);
 
         long time = brokerStatExt.getTimeStamp();
         if (time <= 0) {
             time = SystemClock.now() / 1000;
         }
 
-        response.addHeader("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
-        response.addHeader("Date", new Date(time * 1000).toString());
-        response.addHeader("Transfer-Encoding", "chunked");
-
-        logger.info("Report Prometheus Convert");
-
-        return response;
-    }
-
-    private StringResponse buildResponse(List<MonitorRecord> records) {
-        StringResponse response = new StringResponse();
-
-        String body = buildPrometheusResult(records);
-        response.setBody(body);
-
-        return response;
-    }
-
-    private String buildPrometheusResult(List<MonitorRecord> records) {
-
-        StringBuilder buffer = new StringBuilder();
-
-
-        try {
-            for (MonitorRecord mr : records) {
-
-                buffer.append(mr.getMetric());
-                buffer.append("{");
-
-                for (int index = 1; index < 6; index++) {
-                    String tag = mr.getTag("t" + index);
-                    if (tag != null && tag.length() > 0) {
-                        buffer.append("t" + index).append("=\"").append(tag).append("\"").append(",");
-                    }
+        StreamResponse response = new StreamResponse() {
+            @Override
+            public void write(Writer writer) throws IOException {
+                long startTime = SystemClock.now();
+                PrometheusWriter prometheusWriter = new PrometheusWriter(writer, options);
+                prometheusWriter.write(brokerStatExt);
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Report Prometheus Convert, series: {}, dropped: {}, cost: {}ms",
+                            prometheusWriter.getSeries(), prometheusWriter.getDropped(), SystemClock.now() - startTime);
                 }
-
-                buffer.append("}");
-                buffer.append(" ");
-                buffer.append(mr.getValue() + "");
-                buffer.append("\n");
-
             }
-        } catch (Exception e) {
-            logger.error("Convert metrics error!", e);
-            return "\n";
-        }
-
-        return buffer.toString();
+        };
+        response.addHeader("Content-Type", PrometheusWriter.CONTENT_TYPE);
+        response.addHeader("Date", new Date(time * 1000).toString());
+        return response;
     }
 
-
     @Override
     public String type() {
         return "prometheus";
@@ -0,0 +1,131 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.monitor.convert;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * PrometheusOptions
+ * 控制输出的指标粒度和数量，避免标签基数过大
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/11
+ */
+public class PrometheusOptions {
+
+    public static final String LEVEL_PARAM = "level";
+    public static final String TOPIC_PARAM = "topic";
+    public static final String MAX_SERIES_PARAM = "maxSeries";
+
+    public static final Level DEFAULT_LEVEL = Level.APP;
+    public static final int DEFAULT_MAX_SERIES = 50000;
+
+    private Level level = DEFAULT_LEVEL;
+    // 为空时输出所有主题
+    private Set<String> topics = Collections.emptySet();
+    private int maxSeries = DEFAULT_MAX_SERIES;
+
+    public PrometheusOptions() {
+
+    }
+
+    public PrometheusOptions(Level level, Set<String> topics, int maxSeries) {
+        this.level = level;
+        this.topics = topics;
+        this.maxSeries = maxSeries;
+    }
+
+    public static PrometheusOptions parse(Map<String, String> params) {
+        PrometheusOptions options = new PrometheusOptions();
+        if (params == null || params.isEmpty()) {
+            return options;
+        }
+        Level level = Level.parse(params.get(LEVEL_PARAM));
+        if (level != null) {
+            options.level = level;
+        }
+        String topic = params.get(TOPIC_PARAM);
+        if (StringUtils.isNotBlank(topic)) {
+            Set<String> topics = new HashSet<>();
+            for (String item : StringUtils.split(topic, ',')) {
+                if (StringUtils.isNotBlank(item)) {
+                    topics.add(item.trim());
+                }
+            }
+            options.topics = topics;
+        }
+        int maxSeries = NumberUtils.toInt(params.get(MAX_SERIES_PARAM), DEFAULT_MAX_SERIES);
+        if (maxSeries > 0) {
+            options.maxSeries = maxSeries;
+        }
+        return options;
+    }
+
+    public boolean isOutput(Level level) {
+        return this.level.ordinal() >= level.ordinal();
+    }
+
+    public boolean isOutputTopic(String topic) {
+        return topics.isEmpty() || topics.contains(topic);
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public Set<String> getTopics() {
+        return topics;
+    }
+
+    public int getMaxSeries() {
+        return maxSeries;
+    }
+
+    /**
+     * 指标粒度，后面的粒度包含前面的粒度
+     */
+    public enum Level {
+
+        BROKER,
+
+        TOPIC,
+
+        APP,
+
+        PARTITION_GROUP,
+
+        ;
+
+        public static Level parse(String value) {
+            if (StringUtils.isBlank(value)) {
+                return null;
+            }
+            String name = StringUtils.remove(value.trim(), '_');
+            for (Level level : values()) {
+                if (StringUtils.remove(level.name(), '_').equalsIgnoreCase(name)) {
+                    return level;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,465 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.monitor.convert;
+
+import org.joyqueue.broker.monitor.metrics.LatencyRecorder;
+import org.joyqueue.broker.monitor.stat.AppStat;
+import org.joyqueue.broker.monitor.stat.BrokerStat;
+import org.joyqueue.broker.monitor.stat.BrokerStatExt;
+import org.joyqueue.broker.monitor.stat.ConsumerPendingStat;
+import org.joyqueue.broker.monitor.stat.DeQueueStat;
+import org.joyqueue.broker.monitor.stat.EnQueueStat;
+import org.joyqueue.broker.monitor.stat.PartitionGroupPendingStat;
+import org.joyqueue.broker.monitor.stat.PartitionGroupStat;
+import org.joyqueue.broker.monitor.stat.TopicPendingStat;
+import org.joyqueue.broker.monitor.stat.TopicStat;
+import org.joyqueue.broker.monitor.trace.StageRecorder;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * PrometheusWriter
+ * 直接遍历实时统计，按Prometheus文本格式边生成边输出，不构造中间对象
+ * 同一指标的样本连续输出，超过最大序列数的样本丢弃并通过joyqueue_scrape_series_dropped输出丢弃数量
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/11
+ */
+public class PrometheusWriter {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final String PREFIX = "joyqueue_";
+    private static final String COUNTER = "counter";
+    private static final String GAUGE = "gauge";
+    private static final String HISTOGRAM = "histogram";
+
+    private static final String TOPIC_LABEL = "topic";
+    private static final String APP_LABEL = "app";
+    private static final String PARTITION_GROUP_LABEL = "partition_group";
+    private static final String QUANTILE_LABEL = "quantile";
+    private static final String STAGE_LABEL = "stage";
+    private static final String LE_LABEL = "le";
+
+    private static final String[] QUANTILES = {"0.9", "0.99", "0.999"};
+
+    // 阶段耗时分桶上限，单位毫秒
+    private static final String[] STAGE_BUCKETS = {"0.1", "0.5", "1", "5", "10", "50", "100", "500", "1000", "5000"};
+    private static final long[] STAGE_BUCKET_MICROS = {100, 500, 1000, 5000, 10000, 50000, 100000, 500000, 1000000, 5000000};
+
+    private final Writer writer;
+    private final PrometheusOptions options;
+
+    private int series;
+    private int dropped;
+
+    public PrometheusWriter(Writer writer, PrometheusOptions options) {
+        this.writer = writer;
+        this.options = options;
+    }
+
+    public void write(BrokerStatExt statExt) throws IOException {
+        BrokerStat brokerStat = statExt.getBrokerStat();
+        Map<String, TopicStat> topicStats = (brokerStat != null ? brokerStat.getTopicStats() : Collections.emptyMap());
+        Map<String, TopicPendingStat> topicPendingStats = (statExt.getTopicPendingStatMap() != null ? statExt.getTopicPendingStatMap() : Collections.emptyMap());
+
+        if (brokerStat != null) {
+            writeBroker(statExt, brokerStat);
+        }
+        if (options.isOutput(PrometheusOptions.Level.TOPIC)) {
+            writeTopic(topicStats, topicPendingStats);
+            writeStage("topic_produce_stage_latency_ms", "Produce latency of each request stage in milliseconds", statExt.getProduceStageRecorders());
+            writeStage("topic_fetch_stage_latency_ms", "Fetch latency of each request stage in milliseconds", statExt.getFetchStageRecorders());
+        }
+        if (options.isOutput(PrometheusOptions.Level.APP)) {
+            writeApp(topicStats, topicPendingStats);
+        }
+        if (options.isOutput(PrometheusOptions.Level.PARTITION_GROUP)) {
+            writePartitionGroup(topicStats, topicPendingStats);
+        }
+
+        family("scrape_series_dropped", GAUGE, "Series dropped because of maxSeries");
+        writer.write(PREFIX);
+        writer.write("scrape_series_dropped ");
+        writer.write(String.valueOf(dropped));
+        writer.write('\n');
+    }
+
+    protected void writeBroker(BrokerStatExt statExt, BrokerStat brokerStat) throws IOException {
+        EnQueueStat enQueueStat = brokerStat.getEnQueueStat();
+        DeQueueStat deQueueStat = brokerStat.getDeQueueStat();
+
+        family("broker_enqueue_messages_total", COUNTER, "Messages produced to the broker");
+        sample("broker_enqueue_messages_total", enQueueStat.getTotal());
+        family("broker_enqueue_bytes_total", COUNTER, "Bytes produced to the broker");
+        sample("broker_enqueue_bytes_total", enQueueStat.getTotalSize());
+        family("broker_dequeue_messages_total", COUNTER, "Messages consumed from the broker");
+        sample("broker_dequeue_messages_total", deQueueStat.getTotal());
+        family("broker_dequeue_bytes_total", COUNTER, "Bytes consumed from the broker");
+        sample("broker_dequeue_bytes_total", deQueueStat.getTotalSize());
+
+        family("broker_enqueue_latency_ms", GAUGE, "Produce latency quantiles in milliseconds");
+        latency("broker_enqueue_latency_ms", null, enQueueStat.getTp90(), enQueueStat.getTp99(), enQueueStat.getTp999());
+        family("broker_dequeue_latency_ms", GAUGE, "Consume latency quantiles in milliseconds");
+        latency("broker_dequeue_latency_ms", null, deQueueStat.getTp90(), deQueueStat.getTp99(), deQueueStat.getTp999());
+
+        family("broker_connections", GAUGE, "Client connections");
+        sample("broker_connections", brokerStat.getConnectionStat().getConnection());
+        family("broker_archive_consume_pending", GAUGE, "Consume logs waiting to be archived");
+        sample("broker_archive_consume_pending", statExt.getArchiveConsumePending());
+        family("broker_archive_produce_pending", GAUGE, "Messages waiting to be archived");
+        sample("broker_archive_produce_pending", statExt.getArchiveProducePending());
+
+        if (statExt.getHeap() != null) {
+            family("jvm_heap_used_bytes", GAUGE, "Used heap memory");
+            sample("jvm_heap_used_bytes", statExt.getHeap().getUsed());
+        }
+    }
+
+    protected void writeTopic(Map<String, TopicStat> topicStats, Map<String, TopicPendingStat> topicPendingStats) throws IOException {
+        family("topic_enqueue_messages_total", COUNTER, "Messages produced to the topic");
+        for (TopicStat topicStat : topicStats.values()) {
+            if (options.isOutputTopic(topicStat.getTopic())) {
+                sample("topic_enqueue_messages_total", TOPIC_LABEL, topicStat.getTopic(), topicStat.getEnQueueStat().getTotal());
+            }
+        }
+        family("topic_enqueue_bytes_total", COUNTER, "Bytes produced to the topic");
+        for (TopicStat topicStat : topicStats.values()) {
+            if (options.isOutputTopic(topicStat.getTopic())) {
+                sample("topic_enqueue_bytes_total", TOPIC_LABEL, topicStat.getTopic(), topicStat.getEnQueueStat().getTotalSize());
+            }
+        }
+        family("topic_dequeue_messages_total", COUNTER, "Messages consumed from the topic");
+        for (TopicStat topicStat : topicStats.values()) {
+            if (options.isOutputTopic(topicStat.getTopic())) {
+                sample("topic_dequeue_messages_total", TOPIC_LABEL, topicStat.getTopic(), topicStat.getDeQueueStat().getTotal());
+            }
+        }
+        family("topic_dequeue_bytes_total", COUNTER, "Bytes consumed from the topic");
+        for (TopicStat topicStat : topicStats.values()) {
+            if (options.isOutputTopic(topicStat.getTopic())) {
+                sample("topic_dequeue_bytes_total", TOPIC_LABEL, topicStat.getTopic(), topicStat.getDeQueueStat().getTotalSize());
+            }
+        }
+        family("topic_enqueue_latency_ms", GAUGE, "Produce latency quantiles of the topic in milliseconds");
+        for (TopicStat topicStat : topicStats.values()) {
+            if (options.isOutputTopic(topicStat.getTopic())) {
+                EnQueueStat enQueueStat = topicStat.getEnQueueStat();
+                latency("topic_enqueue_latency_ms", topicStat.getTopic(), enQueueStat.getTp90(), enQueueStat.getTp99(), enQueueStat.getTp999());
+            }
+        }
+        family("topic_dequeue_latency_ms", GAUGE, "Consume latency quantiles of the topic in milliseconds");
+        for (TopicStat topicStat : topicStats.values()) {
+            if (options.isOutputTopic(topicStat.getTopic())) {
+                DeQueueStat deQueueStat = topicStat.getDeQueueStat();
+                latency("topic_dequeue_latency_ms", topicStat.getTopic(), deQueueStat.getTp90(), deQueueStat.getTp99(), deQueueStat.getTp999());
+            }
+        }
+        family("topic_store_bytes", GAUGE, "Physical storage size of the topic on this broker");
+        for (TopicStat topicStat : topicStats.values()) {
+            if (options.isOutputTopic(topicStat.getTopic())) {
+                sample("topic_store_bytes", TOPIC_LABEL, topicStat.getTopic(), topicStat.getStoreSize());
+            }
+        }
+        family("topic_pending", GAUGE, "Messages not yet acknowledged by all consumers of the topic");
+        for (TopicPendingStat topicPendingStat : topicPendingStats.values()) {
+            if (options.isOutputTopic(topicPendingStat.getTopic())) {
+                sample("topic_pending", TOPIC_LABEL, topicPendingStat.getTopic(), topicPendingStat.getPending());
+            }
+        }
+    }
+
+    protected void writeApp(Map<String, TopicStat> topicStats, Map<String, TopicPendingStat> topicPendingStats) throws IOException {
+        family("producer_enqueue_messages_total", COUNTER, "Messages produced by the app");
+        for (TopicStat topicStat : topicStats.values()) {
+            if (!options.isOutputTopic(topicStat.getTopic())) {
+                continue;
+            }
+            for (AppStat appStat : topicStat.getAppStats().values()) {
+                sample("producer_enqueue_messages_total", TOPIC_LABEL, topicStat.getTopic(), APP_LABEL, appStat.getApp(),
+                        appStat.getProducerStat().getEnQueueStat().getTotal());
+            }
+        }
+        family("producer_enqueue_bytes_total", COUNTER, "Bytes produced by the app");
+        for (TopicStat topicStat : topicStats.values()) {
+            if (!options.isOutputTopic(topicStat.getTopic())) {
+                continue;
+            }
+            for (AppStat appStat : topicStat.getAppStats().values()) {
+                sample("producer_enqueue_bytes_total", TOPIC_LABEL, topicStat.getTopic(), APP_LABEL, appStat.getApp(),
+                        appStat.getProducerStat().getEnQueueStat().getTotalSize());
+            }
+        }
+        family("consumer_dequeue_messages_total", COUNTER, "Messages consumed by the app");
+        for (TopicStat topicStat : topicStats.values()) {
+            if (!options.isOutputTopic(topicStat.getTopic())) {
+                continue;
+            }
+            for (AppStat appStat : topicStat.getAppStats().values()) {
+                sample("consumer_dequeue_messages_total", TOPIC_LABEL, topicStat.getTopic(), APP_LABEL, appStat.getApp(),
+                        appStat.getConsumerStat().getDeQueueStat().getTotal());
+            }
+        }
+        family("consumer_dequeue_bytes_total", COUNTER, "Bytes consumed by the app");
+        for (TopicStat topicStat : topicStats.values()) {
+            if (!options.isOutputTopic(topicStat.getTopic())) {
+                continue;
+            }
+            for (AppStat appStat : topicStat.getAppStats().values()) {
+                sample("consumer_dequeue_bytes_total", TOPIC_LABEL, topicStat.getTopic(), APP_LABEL, appStat.getApp(),
+                        appStat.getConsumerStat().getDeQueueStat().getTotalSize());
+            }
+        }
+        family("consumer_pending", GAUGE, "Messages not yet acknowledged by the app");
+        for (TopicPendingStat topicPendingStat : topicPendingStats.values()) {
+            if (!options.isOutputTopic(topicPendingStat.getTopic())) {
+                continue;
+            }
+            for (ConsumerPendingStat consumerPendingStat : topicPendingStat.getPendingStatSubMap().values()) {
+                sample("consumer_pending", TOPIC_LABEL, topicPendingStat.getTopic(), APP_LABEL, consumerPendingStat.getApp(),
+                        consumerPendingStat.getPending());
+            }
+        }
+    }
+
+    protected void writePartitionGroup(Map<String, TopicStat> topicStats, Map<String, TopicPendingStat> topicPendingStats) throws IOException {
+        family("partition_group_enqueue_messages_total", COUNTER, "Messages produced to the partition group");
+        for (TopicStat topicStat : topicStats.values()) {
+            if (!options.isOutputTopic(topicStat.getTopic())) {
+                continue;
+            }
+            for (PartitionGroupStat partitionGroupStat : topicStat.getPartitionGroupStatMap().values()) {
+                sample("partition_group_enqueue_messages_total", TOPIC_LABEL, topicStat.getTopic(), PARTITION_GROUP_LABEL,
+                        String.valueOf(partitionGroupStat.getPartitionGroup()), partitionGroupStat.getEnQueueStat().getTotal());
+            }
+        }
+        family("partition_group_dequeue_messages_total", COUNTER, "Messages consumed from the partition group");
+        for (TopicStat topicStat : topicStats.values()) {
+            if (!options.isOutputTopic(topicStat.getTopic())) {
+                continue;
+            }
+            for (PartitionGroupStat partitionGroupStat : topicStat.getPartitionGroupStatMap().values()) {
+                sample("partition_group_dequeue_messages_total", TOPIC_LABEL, topicStat.getTopic(), PARTITION_GROUP_LABEL,
+                        String.valueOf(partitionGroupStat.getPartitionGroup()), partitionGroupStat.getDeQueueStat().getTotal());
+            }
+        }
+        family("consumer_partition_group_pending", GAUGE, "Messages of the partition group not yet acknowledged by the app");
+        for (TopicPendingStat topicPendingStat : topicPendingStats.values()) {
+            if (!options.isOutputTopic(topicPendingStat.getTopic())) {
+                continue;
+            }
+            for (ConsumerPendingStat consumerPendingStat : topicPendingStat.getPendingStatSubMap().values()) {
+                for (PartitionGroupPendingStat partitionGroupPendingStat : consumerPendingStat.getPendingStatSubMap().values()) {
+                    sample("consumer_partition_group_pending", TOPIC_LABEL, topicPendingStat.getTopic(), APP_LABEL, consumerPendingStat.getApp(),
+                            PARTITION_GROUP_LABEL, String.valueOf(partitionGroupPendingStat.getPartitionGroup()), partitionGroupPendingStat.getPending());
+                }
+            }
+        }
+    }
+
+    // 关闭阶段耗时统计时没有数据，不输出
+    protected <S extends Enum<S>> void writeStage(String name, String help, Map<String, ? extends StageRecorder<S>> recorders) throws IOException {
+        if (recorders == null || recorders.isEmpty()) {
+            return;
+        }
+        family(name, HISTOGRAM, help);
+        for (Map.Entry<String, ? extends StageRecorder<S>> entry : recorders.entrySet()) {
+            if (!options.isOutputTopic(entry.getKey())) {
+                continue;
+            }
+            StageRecorder<S> recorder = entry.getValue();
+            for (S stage : recorder.getStages()) {
+                LatencyRecorder.Snapshot snapshot = recorder.snapshot(stage);
+                if (snapshot.getCount() != 0) {
+                    histogram(name, entry.getKey(), stage.name().toLowerCase(), snapshot);
+                }
+            }
+        }
+    }
+
+    protected void histogram(String name, String topic, String stage, LatencyRecorder.Snapshot snapshot) throws IOException {
+        for (int i = 0; i <= STAGE_BUCKETS.length; i++) {
+            if (!acquire()) {
+                return;
+            }
+            writer.write(PREFIX);
+            writer.write(name);
+            writer.write("_bucket{");
+            label(TOPIC_LABEL, topic);
+            writer.write(',');
+            label(STAGE_LABEL, stage);
+            writer.write(',');
+            if (i < STAGE_BUCKETS.length) {
+                label(LE_LABEL, STAGE_BUCKETS[i]);
+                writer.write("} ");
+                writer.write(String.valueOf(snapshot.getCount(STAGE_BUCKET_MICROS[i])));
+            } else {
+                label(LE_LABEL, "+Inf");
+                writer.write("} ");
+                writer.write(String.valueOf(snapshot.getCount()));
+            }
+            writer.write('\n');
+        }
+        if (!acquire()) {
+            return;
+        }
+        writer.write(PREFIX);
+        writer.write(name);
+        writer.write("_sum{");
+        label(TOPIC_LABEL, topic);
+        writer.write(',');
+        label(STAGE_LABEL, stage);
+        writer.write("} ");
+        value(snapshot.getSum() / 1000.0);
+        sample(name + "_count", TOPIC_LABEL, topic, STAGE_LABEL, stage, snapshot.getCount());
+    }
+
+    protected void family(String name, String type, String help) throws IOException {
+        writer.write("# HELP ");
+        writer.write(PREFIX);
+        writer.write(name);
+        writer.write(' ');
+        writer.write(help);
+        writer.write("\n# TYPE ");
+        writer.write(PREFIX);
+        writer.write(name);
+        writer.write(' ');
+        writer.write(type);
+        writer.write('\n');
+    }
+
+    protected void latency(String name, String topic, double tp90, double tp99, double tp999) throws IOException {
+        double[] values = {tp90, tp99, tp999};
+        for (int i = 0; i < QUANTILES.length; i++) {
+            if (!acquire()) {
+                return;
+            }
+            writer.write(PREFIX);
+            writer.write(name);
+            writer.write('{');
+            if (topic != null) {
+                label(TOPIC_LABEL, topic);
+                writer.write(',');
+            }
+            label(QUANTILE_LABEL, QUANTILES[i]);
+            writer.write("} ");
+            value(values[i]);
+        }
+    }
+
+    protected void sample(String name, long value) throws IOException {
+        if (!acquire()) {
+            return;
+        }
+        writer.write(PREFIX);
+        writer.write(name);
+        writer.write(' ');
+        writer.write(String.valueOf(value));
+        writer.write('\n');
+    }
+
+    protected void sample(String name, String label, String labelValue, long value) throws IOException {
+        sample(name, label, labelValue, null, null, null, null, value);
+    }
+
+    protected void sample(String name, String label1, String value1, String label2, String value2, long value) throws IOException {
+        sample(name, label1, value1, label2, value2, null, null, value);
+    }
+
+    protected void sample(String name, String label1, String value1, String label2, String value2,
+                          String label3, String value3, long value) throws IOException {
+        if (!acquire()) {
+            return;
+        }
+        writer.write(PREFIX);
+        writer.write(name);
+        writer.write('{');
+        label(label1, value1);
+        if (label2 != null) {
+            writer.write(',');
+            label(label2, value2);
+        }
+        if (label3 != null) {
+            writer.write(',');
+            label(label3, value3);
+        }
+        writer.write("} ");
+        writer.write(String.valueOf(value));
+        writer.write('\n');
+    }
+
+    protected void label(String name, String value) throws IOException {
+        writer.write(name);
+        writer.write("=\"");
+        if (value != null) {
+            escape(value);
+        }
+        writer.write('"');
+    }
+
+    protected void value(double value) throws IOException {
+        if (Double.isNaN(value)) {
+            writer.write("NaN");
+        } else if (Double.isInfinite(value)) {
+            writer.write(value > 0 ? "+Inf" : "-Inf");
+        } else if (value == (long) value) {
+            writer.write(String.valueOf((long) value));
+        } else {
+            writer.write(String.valueOf(value));
+        }
+        writer.write('\n');
+    }
+
+    protected void escape(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                default:
+                    writer.write(c);
+            }
+        }
+    }
+
+    // 超过最大序列数后丢弃
+    protected boolean acquire() {
+        if (series >= options.getMaxSeries()) {
+            dropped++;
+            return false;
+        }
+        series++;
+        return true;
+    }
+
+    public int getSeries() {
+        return series;
+    }
+
+    public int getDropped() {
+        return dropped;
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.monitor.convert;
+
+import org.joyqueue.broker.monitor.stat.BrokerStat;
+import org.joyqueue.broker.monitor.stat.BrokerStatExt;
+import org.joyqueue.broker.monitor.stat.TopicStat;
+import org.joyqueue.broker.monitor.trace.FetchStage;
+import org.joyqueue.broker.monitor.trace.ProduceStage;
+import org.joyqueue.broker.monitor.trace.StageRecorder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PrometheusWriterTest
+ * author: gaohaoxiang
+ * date: 2020/4/11
+ */
+public class PrometheusWriterTest {
+
+    @Test
+    public void writeTest() throws Exception {
+        String output = write(buildStat(), new PrometheusOptions());
+        Assert.assertTrue(output.contains("# TYPE joyqueue_broker_enqueue_messages_total counter\n"));
+        Assert.assertTrue(output.contains("joyqueue_broker_enqueue_messages_total 30\n"));
+        Assert.assertTrue(output.contains("joyqueue_topic_enqueue_messages_total{topic=\"test_topic_0\"} 10\n"));
+        Assert.assertTrue(output.contains("joyqueue_producer_enqueue_messages_total{topic=\"test_topic_1\",app=\"test_app\\\"x\"} 20\n"));
+        Assert.assertTrue(output.contains("joyqueue_broker_enqueue_latency_ms{quantile=\"0.99\"} "));
+        Assert.assertTrue(output.contains("joyqueue_scrape_series_dropped 0\n"));
+        Assert.assertFalse(output.contains("joyqueue_partition_group_enqueue_messages_total{"));
+    }
+
+    @Test
+    public void optionsTest() throws Exception {
+        Map<String, String> params = new HashMap<>();
+        params.put(PrometheusOptions.LEVEL_PARAM, "topic");
+        params.put(PrometheusOptions.TOPIC_PARAM, "test_topic_1");
+        String output = write(buildStat(), PrometheusOptions.parse(params));
+        Assert.assertTrue(output.contains("joyqueue_topic_enqueue_messages_total{topic=\"test_topic_1\"} 20\n"));
+        Assert.assertFalse(output.contains("test_topic_0"));
+        Assert.assertFalse(output.contains("joyqueue_producer_enqueue_messages_total{"));
+
+        params.clear();
+        params.put(PrometheusOptions.MAX_SERIES_PARAM, "3");
+        output = write(buildStat(), PrometheusOptions.parse(params));
+        Assert.assertTrue(output.contains("joyqueue_broker_dequeue_messages_total 0\n"));
+        Assert.assertFalse(output.contains("joyqueue_broker_dequeue_bytes_total 0\n"));
+        Assert.assertFalse(output.contains("joyqueue_scrape_series_dropped 0\n"));
+
+        Assert.assertEquals(PrometheusOptions.Level.PARTITION_GROUP, PrometheusOptions.Level.parse("partitionGroup"));
+        Assert.assertNull(PrometheusOptions.Level.parse("unknown"));
+    }
+
+    @Test
+    public void stageTest() throws Exception {
+        BrokerStatExt statExt = buildStat();
+        String output = write(statExt, new PrometheusOptions());
+        Assert.assertFalse(output.contains("joyqueue_topic_produce_stage_latency_ms"));
+
+        StageRecorder<ProduceStage> recorder = new StageRecorder<>(ProduceStage.class);
+        long[] times = new long[ProduceStage.values().length];
+        Arrays.fill(times, -1);
+        times[ProduceStage.TOTAL.ordinal()] = TimeUnit.MILLISECONDS.toNanos(2);
+        recorder.record(times);
+        times[ProduceStage.TOTAL.ordinal()] = TimeUnit.MILLISECONDS.toNanos(20);
+        recorder.record(times);
+        statExt.setProduceStageRecorders(Collections.singletonMap("test_topic_0", recorder));
+        statExt.setFetchStageRecorders(Collections.singletonMap("test_topic_0", new StageRecorder<>(FetchStage.class)));
+
+        output = write(statExt, new PrometheusOptions());
+        Assert.assertTrue(output.contains("# TYPE joyqueue_topic_produce_stage_latency_ms histogram\n"));
+        Assert.assertTrue(output.contains("joyqueue_topic_produce_stage_latency_ms_bucket{topic=\"test_topic_0\",stage=\"total\",le=\"1\"} 0\n"));
+        Assert.assertTrue(output.contains("joyqueue_topic_produce_stage_latency_ms_bucket{topic=\"test_topic_0\",stage=\"total\",le=\"5\"} 1\n"));
+        Assert.assertTrue(output.contains("joyqueue_topic_produce_stage_latency_ms_bucket{topic=\"test_topic_0\",stage=\"total\",le=\"+Inf\"} 2\n"));
+        Assert.assertTrue(output.contains("joyqueue_topic_produce_stage_latency_ms_sum{topic=\"test_topic_0\",stage=\"total\"} 22\n"));
+        Assert.assertTrue(output.contains("joyqueue_topic_produce_stage_latency_ms_count{topic=\"test_topic_0\",stage=\"total\"} 2\n"));
+        Assert.assertFalse(output.contains("stage=\"decode\""));
+        Assert.assertFalse(output.contains("joyqueue_topic_fetch_stage_latency_ms_bucket"));
+    }
+
+    protected String write(BrokerStatExt statExt, PrometheusOptions options) throws Exception {
+        StringWriter writer = new StringWriter();
+        new PrometheusWriter(writer, options).write(statExt);
+        return writer.toString();
+    }
+
+    protected BrokerStatExt buildStat() {
+        BrokerStat brokerStat = new BrokerStat(1);
+        brokerStat.getEnQueueStat().setTotal(30);
+        for (int i = 0; i < 2; i++) {
+            TopicStat topicStat = brokerStat.getOrCreateTopicStat("test_topic_" + i);
+            topicStat.getEnQueueStat().setTotal(10 * (i + 1));
+            topicStat.getOrCreateAppStat("test_app\"x").getProducerStat().getEnQueueStat().setTotal(10 * (i + 1));
+            topicStat.getOrCreatePartitionGroupStat(0);
+        }
+        BrokerStatExt statExt = new BrokerStatExt(brokerStat);
+        statExt.setTopicArchiveProducePending(Collections.emptyMap());
+        return statExt;
+    }
+}
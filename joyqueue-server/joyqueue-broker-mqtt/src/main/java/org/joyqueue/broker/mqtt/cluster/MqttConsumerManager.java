@@ -15,7 +15,7 @@
  */
 package org.joyqueue.broker.mqtt.cluster;
 
-import org.joyqueue.broker.consumer.Consume;
+import org.joyqueue.broker.mqtt.config.MqttConfig;
 import org.joyqueue.broker.mqtt.connection.MqttConnection;
 import org.joyqueue.broker.mqtt.session.MqttSession;
 import org.joyqueue.broker.mqtt.publish.MessagePublisher;
@@ -32,6 +32,8 @@ import org.joyqueue.toolkit.service.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -45,32 +47,33 @@ public class MqttConsumerManager extends Service {
     private static final Logger LOG = LoggerFactory.getLogger(MqttConsumerManager.class);
 
     private static int CONSUME_THREAD_TOTAL = 10;
-    private static int ASYNC_PUB_THREAD_TOTAL = 100;
     private static int ASYNC_ACK_THREAD_TOTAL = 50;
     private Selector selector = new PollSelector();
     private ExecutorService executorService;
-    private ExecutorService asyncPublishExecutorService;
     private ExecutorService asyncAcknowledgeExecutorService;
     private ConcurrentMap<Integer, Runnable> consumeThreadMap = new ConcurrentHashMap<>();
     private ConcurrentMap<String, Runnable> clientConsumeThreadMap = new ConcurrentHashMap<>();
+    // 主题到订阅客户端的索引，消息写入后只唤醒这些客户端所在的推送线程
+    private ConcurrentMap<String, Set<String>> topicClientsMap = new ConcurrentHashMap<>();
+    private ConcurrentMap<String, Set<String>> clientTopicsMap = new ConcurrentHashMap<>();
     private ConcurrentMap<String, Consumer> consumers = new ConcurrentHashMap<>();
-    private Consume consume;
     private MqttConnectionManager connectionManager;
     private MqttSessionManager sessionManager;
     private MessagePublisher messagePublisher;
+    private MqttConfig mqttConfig;
 
     public MqttConsumerManager(BrokerContext brokerContext, MqttConnectionManager connectionManager, MqttSessionManager sessionManager, MessagePublisher messagePublisher) {
-        this.consume = brokerContext.getConsume();
         this.connectionManager = connectionManager;
         this.sessionManager = sessionManager;
         this.messagePublisher = messagePublisher;
+        this.mqttConfig = new MqttConfig(brokerContext.getPropertySupplier());
+        this.messagePublisher.setPublishListener(this::wakeupSubscribers);
     }
 
     @Override
     protected void validate() throws Exception {
         super.validate();
         executorService = Executors.newFixedThreadPool(CONSUME_THREAD_TOTAL, new NamedThreadFactory("mqtt-consume"));
-        asyncPublishExecutorService = Executors.newFixedThreadPool(ASYNC_PUB_THREAD_TOTAL, new NamedThreadFactory("mqtt-async-publish"));
         asyncAcknowledgeExecutorService = Executors.newFixedThreadPool(ASYNC_ACK_THREAD_TOTAL, new NamedThreadFactory("mqtt-async-acknowledge"));
     }
 
@@ -104,6 +107,58 @@ public class MqttConsumerManager extends Service {
         MqttSession session = sessionManager.getSession(clientID);
         ConsumeTask consumeTask = selectThreadConsume(clientID, session);
         clientConsumeThreadMap.put(clientID, consumeTask);
+        refreshSubscriptions(clientID);
+    }
+
+    /**
+     * 客户端订阅变化后更新主题索引
+     */
+    public void refreshSubscriptions(String clientID) {
+        MqttSession session = sessionManager.getSession(clientID);
+        Set<String> topics = new HashSet<>();
+        if (session != null) {
+            for (MqttSubscription subscription : session.listSubsciptions()) {
+                topics.add(subscription.getTopicFilter().toString());
+            }
+        }
+        Set<String> oldTopics = topics.isEmpty() ? clientTopicsMap.remove(clientID) : clientTopicsMap.put(clientID, topics);
+        if (oldTopics != null) {
+            for (String topic : oldTopics) {
+                if (!topics.contains(topic)) {
+                    removeTopicClient(topic, clientID);
+                }
+            }
+        }
+        for (String topic : topics) {
+            topicClientsMap.computeIfAbsent(topic, key -> ConcurrentHashMap.newKeySet()).add(clientID);
+        }
+    }
+
+    private void removeTopicClient(String topic, String clientID) {
+        topicClientsMap.computeIfPresent(topic, (key, clients) -> {
+            clients.remove(clientID);
+            return clients.isEmpty() ? null : clients;
+        });
+    }
+
+    /**
+     * 只唤醒有客户端订阅该主题的推送线程
+     */
+    public void wakeupSubscribers(String topic) {
+        Set<String> clients = topicClientsMap.get(topic);
+        if (clients == null) {
+            return;
+        }
+        Set<ConsumeTask> consumeTasks = new HashSet<>();
+        for (String clientID : clients) {
+            ConsumeTask consumeTask = (ConsumeTask) clientConsumeThreadMap.get(clientID);
+            if (consumeTask != null && consumeTasks.add(consumeTask)) {
+                consumeTask.wakeup();
+                if (consumeTasks.size() >= CONSUME_THREAD_TOTAL) {
+                    break;
+                }
+            }
+        }
     }
 
     public void stopConsume(String clientID) {
@@ -112,23 +167,35 @@ public class MqttConsumerManager extends Service {
             consumeTask.removeClientConsume(clientID);
             clientConsumeThreadMap.remove(clientID);
         }
+        Set<String> topics = clientTopicsMap.remove(clientID);
+        if (topics != null) {
+            for (String topic : topics) {
+                removeTopicClient(topic, clientID);
+            }
+        }
         removeConsumer(clientID);
     }
 
     public void acknowledge(String clientID, int packageId) {
         MqttSession session = sessionManager.getSession(clientID);
         if (session != null) {
-            BrokerMessage brokerMessage = session.getMessageAcknowledgedZone().acquireAcknowledgedMessage(packageId);
+            MqttSession.MessageAcknowledgedZone acknowledgedZone = session.getMessageAcknowledgedZone();
+            BrokerMessage brokerMessage = acknowledgedZone.acquireAcknowledgedMessage(packageId);
             if (brokerMessage != null) {
                 short partition = brokerMessage.getPartition();
-                long index = brokerMessage.getMsgIndexNo();
                 String topic = brokerMessage.getTopic();
                 Consumer consumer = getConsumer(clientID, topic);
                 if (consumer != null) {
+                    // 只提交连续已确认的前缀，之前还有在途消息时等待其确认后再提交
                     asyncAcknowledgeExecutorService.submit(
-                            () -> commitAcknowledge(consumer, partition, index)
+                            () -> commitAcknowledge(acknowledgedZone, consumer, partition)
                     );
                 }
+                // 确认后窗口有空余，唤醒推送线程
+                ConsumeTask consumeTask = (ConsumeTask) clientConsumeThreadMap.get(clientID);
+                if (consumeTask != null) {
+                    consumeTask.wakeup();
+                }
             }
         } else {
             LOG.warn("ClientId: {} has removed session.", clientID);
@@ -188,9 +255,9 @@ public class MqttConsumerManager extends Service {
         return String.format("%s_consumer_%s_%s_%s", clientID, application, topic, clientGroup);
     }
 
-    private void commitAcknowledge(Consumer consumer, short partition, long index) {
+    private void commitAcknowledge(MqttSession.MessageAcknowledgedZone acknowledgedZone, Consumer consumer, short partition) {
         try {
-            consume.setAckIndex(consumer, partition, index);
+            messagePublisher.commitAcknowledged(acknowledgedZone, consumer, partition);
         } catch (JoyQueueException e) {
             LOG.error(e.getMessage(), e);
         }
@@ -198,7 +265,9 @@ public class MqttConsumerManager extends Service {
 
     private class ConsumeTask implements Runnable {
         private String name = "consume-";
-        private boolean isRunning = true;
+        private volatile boolean isRunning = true;
+        private final Object signal = new Object();
+        private boolean signaled = false;
 
         private ConcurrentMap<String, MqttSession> clientConsumeMap = new ConcurrentHashMap<>();
 
@@ -212,74 +281,91 @@ public class MqttConsumerManager extends Service {
 
         public void setRunning(boolean running) {
             isRunning = running;
+            wakeup();
         }
 
         public void addClientConsume(String clientID, MqttSession session) {
             clientConsumeMap.put(clientID, session);
+            wakeup();
         }
 
         public void removeClientConsume(String clientID) {
             MqttSession session = clientConsumeMap.remove(clientID);
         }
 
+        public void wakeup() {
+            synchronized (signal) {
+                signaled = true;
+                signal.notifyAll();
+            }
+        }
+
+        private void await(long timeout) throws InterruptedException {
+            synchronized (signal) {
+                if (!signaled) {
+                    signal.wait(timeout);
+                }
+                signaled = false;
+            }
+        }
+
         @Override
         public void run() {
             while (isRunning) {
                 try {
-                    if (clientConsumeMap.size() > 0) {
-                        clientConsumeMap.forEach(
-                                (clientID, session) -> {
-                                    Set<MqttSubscription> subscriptions = session.listSubsciptions();
-                                    if (subscriptions != null && subscriptions.size() > 0) {
-                                        subscriptions.forEach(
-                                                subscription -> {
-                                                    String topic = subscription.getTopicFilter().toString();
-                                                    int qos = subscription.getRequestedQos().value();
-                                                    Consumer consumer = getConsumer(clientID, topic);
-                                                    if (consumer != null) {
-                                                        try {
-                                                            asyncPublishExecutorService.execute(
-                                                                    () -> {
-                                                                        try {
-                                                                            messagePublisher.publish2Subscriber(
-                                                                                    name,
-                                                                                    clientID,
-                                                                                    session,
-                                                                                    consumer,
-                                                                                    qos
-                                                                            );
-                                                                        } catch (Exception e) {
-                                                                            LOG.error(e.getMessage(), e);
-                                                                        }
-                                                                    }
-                                                            );
-                                                        } catch (Exception e) {
-                                                            LOG.error(e.getMessage(), e);
-                                                        }
-                                                    }
-                                                }
-                                        );
-                                    }
-                                }
-                        );
-                        // help cpu
-                        try {
-                            Thread.sleep(800);
-                        } catch (InterruptedException e) {
-                            LOG.warn("mqtt consumer manager thread: <{}> interrupted, exception: {}", name, e.getMessage());
-                        }
-                    } else {
-                        try {
-                            Thread.sleep(2000);
-                        } catch (InterruptedException e) {
-                            LOG.warn("mqtt consumer manager thread: <{}> interrupted, exception: {}", name, e.getMessage());
-                        }
+                    // 没有推送任何消息时等待，有新消息写入、确认或者新客户端时唤醒
+                    if (deliver() == 0) {
+                        await(mqttConfig.getDeliveryIdleInterval());
                     }
+                } catch (InterruptedException e) {
+                    LOG.warn("mqtt consumer manager thread: <{}> interrupted, exception: {}", name, e.getMessage());
+                    break;
                 } catch (Exception e) {
-                    LOG.error("Thread: <{}>, mqtt consume client message consume error, topic: <{}>, cause: <{}>", name, e.getMessage());
+                    LOG.error("Thread: <{}>, mqtt consume client message consume error, cause: <{}>", name, e.getMessage(), e);
                 }
             }
             LOG.info("mqtt consumer manager thread: <{}> stop.", name);
         }
+
+        private int deliver() {
+            int delivered = 0;
+            int receiveMaximum = mqttConfig.getDeliveryReceiveMaximum();
+            int batchSize = mqttConfig.getDeliveryBatchSize();
+
+            for (Map.Entry<String, MqttSession> entry : clientConsumeMap.entrySet()) {
+                String clientID = entry.getKey();
+                MqttSession session = entry.getValue();
+                Set<MqttSubscription> subscriptions = session.listSubsciptions();
+                if (subscriptions == null || subscriptions.isEmpty()) {
+                    continue;
+                }
+                for (MqttSubscription subscription : subscriptions) {
+                    // 在途消息达到receiveMaximum后等待客户端确认
+                    int window = receiveMaximum - session.getMessageAcknowledgedZone().zoneSize();
+                    if (window <= 0) {
+                        break;
+                    }
+                    String topic = subscription.getTopicFilter().toString();
+                    int qos = subscription.getRequestedQos().value();
+                    Consumer consumer = getConsumer(clientID, topic);
+                    if (consumer == null) {
+                        continue;
+                    }
+                    try {
+                        delivered += messagePublisher.publish2Subscriber(
+                                name,
+                                clientID,
+                                session,
+                                consumer,
+                                qos,
+                                Math.min(batchSize, window)
+                        );
+                    } catch (Exception e) {
+                        LOG.error("Thread: <{}>, clientID: <{}>, topic: <{}>, publish message error", name, clientID, topic, e);
+                    }
+                }
+            }
+            return delivered;
+        }
     }
 }
@@ -15,6 +15,7 @@
  */
 package org.joyqueue.broker.mqtt.cluster;
 
+import org.joyqueue.broker.mqtt.subscriptions.SubscriptionTrie;
 import org.joyqueue.broker.mqtt.subscriptions.TopicFilter;
 import org.joyqueue.broker.BrokerContext;
 import org.joyqueue.broker.mqtt.subscriptions.MqttSubscription;
@@ -44,6 +45,9 @@ public class MqttSubscriptionManager extends Service {
     private Set<String> topics = new ConcurrentSet<>();
     private ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
     private NameService nameService;
+    // 客户端订阅的topic filter，用于新增topic时查找匹配的订阅
+    private SubscriptionTrie subscriptionTrie = new SubscriptionTrie();
+    private volatile TopicListener topicListener;
 
     public MqttSubscriptionManager(BrokerContext brokerContext) {
         this.nameService = brokerContext.getNameService();
@@ -61,7 +65,20 @@ public class MqttSubscriptionManager extends Service {
         super.doStop();
     }
 
+    public void setTopicListener(TopicListener topicListener) {
+        this.topicListener = topicListener;
+    }
+
     public Set<MqttSubscription> subscribes(String clientGroupName, List<MqttSubscription> topicFilters) throws Exception {
+        if (topicFilters != null) {
+            for (MqttSubscription subscription : topicFilters) {
+                subscriptionTrie.add(subscription);
+            }
+        }
+        return doSubscribes(clientGroupName, topicFilters);
+    }
+
+    public Set<MqttSubscription> doSubscribes(String clientGroupName, List<MqttSubscription> topicFilters) throws Exception {
         Set<MqttSubscription> needSubscriptions = new HashSet<>();
         if (topicFilters == null || topicFilters.isEmpty()) {
             LOG.info("Subscribe topic list empty, please check topicFilters: {}", topicFilters);
@@ -96,21 +113,35 @@ public class MqttSubscriptionManager extends Service {
         nameService.unSubscribe(unSubscriptionList);
     }
 
+    public void removeSubscriptions(String clientID, List<String> topicFilters) {
+        for (String topicFilter : topicFilters) {
+            subscriptionTrie.remove(new MqttSubscription(clientID, new TopicFilter(topicFilter), null));
+        }
+    }
+
+    public void removeClient(String clientID) {
+        subscriptionTrie.removeClient(clientID);
+    }
+
+    public Set<MqttSubscription> matchSubscriptions(String topic) {
+        return subscriptionTrie.match(topic);
+    }
+
     private void filterTopics(Set<MqttSubscription> list, List<MqttSubscription> topicFilters) {
         if (topics.size() == 0) {
             list.addAll(topicFilters);
         } else {
+            SubscriptionTrie filterTrie = new SubscriptionTrie();
             for (MqttSubscription subscription : topicFilters) {
-                for (String topic : topics) {
-                    TopicFilter newTopicFilter = new TopicFilter(topic);
-                    try {
-                        if (newTopicFilter.match(subscription.getTopicFilter())) {
-                            MqttSubscription newSubscription = new MqttSubscription(subscription.getClientId(), newTopicFilter, subscription.getRequestedQos());
-                            list.add(newSubscription);
-                        }
-                    } catch (Exception e) {
-                        LOG.error("Topic meta data <{}> filter match subscription <{}> filter error: {}", topic, subscription.getTopicFilter(), e);
+                filterTrie.add(subscription);
+            }
+            for (String topic : topics) {
+                try {
+                    for (MqttSubscription subscription : filterTrie.match(topic)) {
+                        list.add(new MqttSubscription(subscription.getClientId(), new TopicFilter(topic), subscription.getRequestedQos()));
                     }
+                } catch (Exception e) {
+                    LOG.error("Topic meta data <{}> filter match subscriptions <{}> error: {}", topic, topicFilters, e);
                 }
             }
         }
@@ -125,11 +156,36 @@ public class MqttSubscriptionManager extends Service {
             if (origTopics != null && origTopics.size() > 0) {
                 LOG.info("Topic updater data size: {}", origTopics.size());
                 for (String tn : origTopics) {
-                    topics.add(tn);
+                    if (topics.add(tn)) {
+                        onTopicAdded(tn);
+                    }
                 }
             } else {
                 LOG.info("Topic updater data empty.");
             }
         }
     }
+
+    private void onTopicAdded(String topic) {
+        TopicListener listener = topicListener;
+        if (listener == null) {
+            return;
+        }
+        try {
+            Set<MqttSubscription> subscriptions = subscriptionTrie.match(topic);
+            if (!subscriptions.isEmpty()) {
+                listener.onTopicAdded(topic, subscriptions);
+            }
+        } catch (Exception e) {
+            LOG.error("Topic <{}> added, notify subscriptions error", topic, e);
+        }
+    }
+
+    /**
+     * 发现新topic时回调匹配的订阅
+     */
+    public interface TopicListener {
+
+        void onTopicAdded(String topic, Set<MqttSubscription> subscriptions);
+    }
 }
@@ -84,6 +84,30 @@ public class MqttConfig {
         return getConfig(MqttConfigKey.MAX_PAYLOAD_SIZE);
     }
 
+    public int getDeliveryBatchSize() {
+        return getConfig(MqttConfigKey.DELIVERY_BATCH_SIZE);
+    }
+
+    public int getDeliveryReceiveMaximum() {
+        return getConfig(MqttConfigKey.DELIVERY_RECEIVE_MAXIMUM);
+    }
+
+    public int getDeliveryIdleInterval() {
+        return getConfig(MqttConfigKey.DELIVERY_IDLE_INTERVAL);
+    }
+
+    public boolean isPublishBatchEnable() {
+        return getConfig(MqttConfigKey.PUBLISH_BATCH_ENABLE);
+    }
+
+    public int getPublishBatchSize() {
+        return getConfig(MqttConfigKey.PUBLISH_BATCH_SIZE);
+    }
+
+    public int getPublishBatchLinger() {
+        return getConfig(MqttConfigKey.PUBLISH_BATCH_LINGER);
+    }
+
     protected <T> T getConfig(PropertyDef key) {
         return PropertySupplier.getValue(this.propertySupplier, key);
     }
@@ -34,7 +34,13 @@ public enum MqttConfigKey implements PropertyDef {
     EXECUTOR_SERVICE_PING_QUEUESIZE("mqtt.executor.service.ping.queuesize", 10000, Type.INT),
     EXECUTOR_SERVICE_SUBSCRIPTION_QUEUESIZE("mqtt.executor.service.subscription.queuesize", 10000, Type.INT),
     EXECUTOR_SERVICE_PUBLISH_QUEUESIZE("mqtt.executor.service.publish.queuesize", 10000, Type.INT),
-    MAX_PAYLOAD_SIZE("mqtt.max.payload.size", 8092, Type.INT);
+    MAX_PAYLOAD_SIZE("mqtt.max.payload.size", 8092, Type.INT),
+    DELIVERY_BATCH_SIZE("mqtt.delivery.batch.size", 32, Type.INT),
+    DELIVERY_RECEIVE_MAXIMUM("mqtt.delivery.receive.maximum", 100, Type.INT),
+    DELIVERY_IDLE_INTERVAL("mqtt.delivery.idle.interval", 1000, Type.INT),
+    PUBLISH_BATCH_ENABLE("mqtt.publish.batch.enable", false, Type.BOOLEAN),
+    PUBLISH_BATCH_SIZE("mqtt.publish.batch.size", 100, Type.INT),
+    PUBLISH_BATCH_LINGER("mqtt.publish.batch.linger", 2, Type.INT);
 
     private String name;
     private Object value;
@@ -94,6 +94,7 @@ public class MqttProtocolHandler extends Service {
         producerManager = new MqttProducerManager(connectionManager);
         consumerManager = new MqttConsumerManager(brokerContext, connectionManager, sessionManager, messagePublisher);
         subscriptionManager = new MqttSubscriptionManager(brokerContext);
+        subscriptionManager.setTopicListener(this::subscribeAddedTopic);
         nameService = brokerContext.getNameService();
     }
 
@@ -113,6 +114,7 @@ public class MqttProtocolHandler extends Service {
     public void start() throws Exception {
         super.start();
         connectionManager.start();
+        messagePublisher.start();
         sessionManager.start();
         producerManager.start();
         consumerManager.start();
@@ -127,6 +129,7 @@ public class MqttProtocolHandler extends Service {
         producerManager.stop();
         consumerManager.stop();
         subscriptionManager.stop();
+        messagePublisher.stop();
     }
 
     public void processConnect(Channel client, MqttConnectMessage connectMessage) {
@@ -155,6 +158,9 @@ public class MqttProtocolHandler extends Service {
         initializeKeepAliveTimeout(client, connectMessage, clientId);
         storeWillMessage(clientId, connectMessage);
 
+        if (isCleanSession) {
+            subscriptionManager.removeClient(clientId);
+        }
         sessionManager.addSession(clientId, isCleanSession);
 
         MqttConnAckMessage okResp = sendAckToClient(client, connectMessage, MqttConnectReturnCode.CONNECTION_ACCEPTED, !isCleanSession);
@@ -330,7 +336,7 @@ public class MqttProtocolHandler extends Service {
 
     public void processPubAck(Channel client, MqttPubAckMessage pubAckMessage) {
         MqttMessageIdVariableHeader pubAckVariableMessage = pubAckMessage.variableHeader();
-        short packageId = (short) pubAckVariableMessage.messageId();
+        int packageId = pubAckVariableMessage.messageId();
         String clientId = NettyAttrManager.getAttrClientId(client);
 
         consumerManager.acknowledge(clientId, packageId);
@@ -361,6 +367,7 @@ public class MqttProtocolHandler extends Service {
                         for (MqttSubscription subscription : topicFilters) {
                             session.addSubscription(subscription);
                         }
+                        consumerManager.refreshSubscriptions(clientID);
                     }
                 } else {
                     // The payload of a SUBSCRIBE packet MUST contain at least one Topic Filter / QoS pair. A SUBSCRIBE packet with no payload is a protocol violation
@@ -432,6 +439,7 @@ public class MqttProtocolHandler extends Service {
                         for (MqttSubscription subscription : unSubcriptions) {
                             session.removeSubscription(subscription);
                         }
+                        consumerManager.refreshSubscriptions(clientID);
                     }
                 } else {
                     // The Payload of an UNSUBSCRIBE packet MUST contain at least one Topic Filter. An UNSUBSCRIBE packet with no payload is a protocol violation
@@ -480,6 +488,7 @@ public class MqttProtocolHandler extends Service {
                 }
             }
         }
+        subscriptionManager.removeSubscriptions(clientID, topicFilters);
         if (needUnSubscriptions.isEmpty()) {
             LOG.warn("topic filter for client: <{}> may be null, the topicFilters is <{}>", clientID, topicFilters);
             return new HashSet<>();
@@ -488,4 +497,33 @@ public class MqttProtocolHandler extends Service {
         subscriptionManager.unSubscribe(clientGroup, needUnSubscriptions);
         return needUnSubscriptions;
     }
+
+    /**
+     * 新增的topic匹配客户端已有的订阅时，自动订阅该topic
+     */
+    private void subscribeAddedTopic(String topic, Set<MqttSubscription> subscriptions) {
+        for (MqttSubscription subscription : subscriptions) {
+            String clientID = subscription.getClientId();
+            MqttSession session = sessionManager.getSession(clientID);
+            if (session == null) {
+                subscriptionManager.removeClient(clientID);
+                continue;
+            }
+            if (!connectionManager.isConnected(clientID)) {
+                continue;
+            }
+            MqttConnection connection = connectionManager.getConnection(clientID);
+            try {
+                List<MqttSubscription> topicSubscriptions = new ArrayList<>(1);
+                topicSubscriptions.add(new MqttSubscription(clientID, new TopicFilter(topic), subscription.getRequestedQos()));
+                for (MqttSubscription topicSubscription : subscriptionManager.doSubscribes(connection.getClientGroupName(), topicSubscriptions)) {
+                    session.addSubscription(topicSubscription);
+                }
+                consumerManager.refreshSubscriptions(clientID);
+                LOG.info("Subscribe added topic: {}, clientID: {}, topic filter: {}", topic, clientID, subscription.getTopicFilter());
+            } catch (Exception e) {
+                LOG.error("Subscribe added topic: {} error, clientID: {}", topic, clientID, e);
+            }
+        }
+    }
 }
@@ -20,6 +20,7 @@ import org.joyqueue.broker.buffer.Serializer;
 import org.joyqueue.broker.consumer.Consume;
 import org.joyqueue.broker.consumer.model.PullResult;
 import org.joyqueue.broker.mqtt.cluster.MqttConnectionManager;
+import org.joyqueue.broker.mqtt.config.MqttConfig;
 import org.joyqueue.broker.mqtt.connection.MqttConnection;
 import org.joyqueue.broker.mqtt.session.MqttSession;
 import org.joyqueue.broker.producer.Produce;
@@ -28,6 +29,9 @@ import org.joyqueue.exception.JoyQueueException;
 import org.joyqueue.message.BrokerMessage;
 import org.joyqueue.network.session.Consumer;
 import org.joyqueue.network.session.Producer;
+import org.joyqueue.store.WriteResult;
+import org.joyqueue.toolkit.concurrent.EventListener;
+import org.joyqueue.toolkit.service.Service;
 import org.joyqueue.broker.mqtt.util.MqttMessageSerializer;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
@@ -45,35 +49,77 @@ import org.slf4j.LoggerFactory;
 
 import java.nio.ByteBuffer;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static io.netty.channel.ChannelFutureListener.CLOSE_ON_FAILURE;
 
 /**
  * @author majun8
  */
-public class MessagePublisher {
+public class MessagePublisher extends Service {
     private static final Logger LOG = LoggerFactory.getLogger(MessagePublisher.class);
     private Produce produce;
     private Consume consume;
     private MqttConnectionManager connectionManager;
+    // 消息写入后按主题回调，用于唤醒订阅该主题的推送线程
+    private volatile EventListener<String> publishListener;
+    // 合并多个设备的PUBLISH后批量写入
+    private MqttPublishAggregator publishAggregator;
 
     public MessagePublisher(BrokerContext brokerContext, MqttConnectionManager connectionManager) {
         this.produce = brokerContext.getProduce();
         this.consume = brokerContext.getConsume();
         this.connectionManager = connectionManager;
+        MqttConfig mqttConfig = new MqttConfig(brokerContext.getPropertySupplier());
+        if (mqttConfig.isPublishBatchEnable()) {
+            this.publishAggregator = new MqttPublishAggregator(produce, brokerContext.getClusterManager(), mqttConfig.getPublishBatchSize(), mqttConfig.getPublishBatchLinger());
+        }
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        super.doStart();
+        if (publishAggregator != null) {
+            publishAggregator.start();
+        }
+    }
+
+    @Override
+    protected void doStop() {
+        if (publishAggregator != null) {
+            publishAggregator.stop();
+        }
+        super.doStop();
+    }
+
+    public void setPublishListener(EventListener<String> publishListener) {
+        this.publishListener = publishListener;
     }
 
     public void publishMessage(Producer producer, Channel client, MqttPublishMessage publishMessage) throws JoyQueueException {
         final MqttQoS qos = publishMessage.fixedHeader().qosLevel();
         final int packageID = publishMessage.variableHeader().packetId();
 
-        produce.putMessageAsync(
-                producer,
-                Collections.singletonList(MqttMessageSerializer.convertToBrokerMsg(client, publishMessage)),
-                QosLevel.RECEIVE,
-                event -> processPublishResult(client, qos, packageID)
-        );
+        BrokerMessage brokerMessage = MqttMessageSerializer.convertToBrokerMsg(client, publishMessage);
+        EventListener<WriteResult> listener = event -> {
+            processPublishResult(client, qos, packageID);
+            if (publishListener != null) {
+                publishListener.onEvent(producer.getTopic());
+            }
+        };
+
+        if (publishAggregator != null) {
+            publishAggregator.append(producer, brokerMessage, listener);
+        } else {
+            produce.putMessageAsync(
+                    producer,
+                    Collections.singletonList(brokerMessage),
+                    QosLevel.RECEIVE,
+                    listener
+            );
+        }
     }
 
     private void processPublishResult(Channel client, MqttQoS qos, int packageID) {
@@ -110,45 +156,94 @@ public class MessagePublisher {
         }
     }
 
-    public void publish2Subscriber(String name, String clientID, MqttSession session, Consumer consumer, int qos) throws Exception {
+    /**
+     * 批量拉取并推送消息，所有PUBLISH写入后只flush一次
+     *
+     * @param count 最多拉取的消息数
+     * @return 推送的消息数
+     */
+    public int publish2Subscriber(String name, String clientID, MqttSession session, Consumer consumer, int qos, int count) throws Exception {
+        if (!connectionManager.isConnected(clientID)) {
+            return 0;
+        }
+        MqttConnection connection = connectionManager.getConnection(clientID);
+        if (connection == null) {
+            return 0;
+        }
+        Channel channel = connection.getChannel();
+        if (!channel.isActive() || !channel.isOpen()) {
+            return 0;
+        }
+
         PullResult result = consume.getMessage(
                 consumer,
-                1,
+                count,
                 1000 * 60 * 2
         );
         String topicName = result.getTopic();
         List<ByteBuffer> buffers = result.getBuffers();
-        if (buffers != null && buffers.size() > 0) {
-            BrokerMessage brokerMessage = Serializer.readBrokerMessage(buffers.get(0));
+        if (buffers == null || buffers.isEmpty()) {
+            return 0;
+        }
+
+        MqttSession.MessageAcknowledgedZone acknowledgedZone = session.getMessageAcknowledgedZone();
+        Set<Short> atMostOncePartitions = null;
+        for (ByteBuffer buffer : buffers) {
+            BrokerMessage brokerMessage = Serializer.readBrokerMessage(buffer);
+            // 存储中不包含主题，确认时按订阅的主题查找消费者
+            brokerMessage.setTopic(consumer.getTopic());
+            MqttQoS messageQos = MqttQoS.valueOf(MqttMessageSerializer.getLowerQos(MqttMessageSerializer.readExtension(brokerMessage), qos));
             MqttFixedHeader mqttFixedHeader = new MqttFixedHeader(
                     MqttMessageType.PUBLISH,
                     false,
-                    MqttQoS.valueOf(MqttMessageSerializer.getLowerQos(MqttMessageSerializer.readExtension(brokerMessage), qos)),
+                    messageQos,
                     false,
                     0
             );
-            int packageId = session.getMessageAcknowledgedZone().acquireAcknowledgedPosition(brokerMessage);
+            int packageId = 0;
+            if (messageQos == MqttQoS.AT_MOST_ONCE) {
+                // qos0的消息客户端不会确认，之前没有在途消息时才能提交
+                acknowledgedZone.acknowledgeAtMostOnce(brokerMessage);
+                if (atMostOncePartitions == null) {
+                    atMostOncePartitions = new HashSet<>();
+                }
+                atMostOncePartitions.add(brokerMessage.getPartition());
+            } else {
+                packageId = acknowledgedZone.acquireAcknowledgedPosition(brokerMessage);
+            }
             MqttPublishMessage publishMsg = (MqttPublishMessage) MqttMessageFactory.newMessage(
                     mqttFixedHeader,
                     new MqttPublishVariableHeader(topicName, packageId),
                     Unpooled.wrappedBuffer(brokerMessage.getByteBody()));
 
-            boolean isActive = connectionManager.isConnected(clientID);
-            if (isActive) {
-                MqttConnection connection = connectionManager.getConnection(clientID);
-                Channel channel = connection.getChannel();
-                if (channel.isActive() && channel.isOpen()) {
-                    channel.writeAndFlush(publishMsg).addListener((ChannelFutureListener) channelFuture -> {
-                        if (channelFuture.isSuccess()) {
-                            if (LOG.isDebugEnabled()) {
-                                LOG.debug("推送消息成功: {}", publishMsg);
-                            }
-                        } else {
-                            LOG.error("publish message error, thread: <{}>, clientID: <{}>, message: <{}>, cause: <{}>", name, clientID, brokerMessage, channelFuture.cause());
-                            throw new Exception(channelFuture.cause());
-                        }
-                    });
+            channel.write(publishMsg).addListener((ChannelFutureListener) channelFuture -> {
+                if (channelFuture.isSuccess()) {
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("推送消息成功: {}", publishMsg);
+                    }
+                } else {
+                    LOG.error("publish message error, thread: <{}>, clientID: <{}>, message: <{}>, cause: <{}>", name, clientID, brokerMessage, channelFuture.cause());
                 }
+            });
+        }
+        channel.flush();
+
+        if (atMostOncePartitions != null) {
+            for (Short partition : atMostOncePartitions) {
+                commitAcknowledged(acknowledgedZone, consumer, partition);
+            }
+        }
+        return buffers.size();
+    }
+
+    /**
+     * 提交连续已确认的消息序号，在确认区上加锁保证提交顺序
+     */
+    public void commitAcknowledged(MqttSession.MessageAcknowledgedZone acknowledgedZone, Consumer consumer, short partition) throws JoyQueueException {
+        synchronized (acknowledgedZone) {
+            long index = acknowledgedZone.pollAcknowledgedIndex(consumer.getTopic(), partition);
+            if (index >= 0) {
+                consume.setAckIndex(consumer, partition, index);
             }
         }
     }
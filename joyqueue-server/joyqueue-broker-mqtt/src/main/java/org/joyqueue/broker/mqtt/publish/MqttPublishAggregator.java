@@ -0,0 +1,211 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.mqtt.publish;
+
+import org.apache.commons.lang3.StringUtils;
+import org.joyqueue.broker.cluster.ClusterManager;
+import org.joyqueue.broker.producer.Produce;
+import org.joyqueue.domain.QosLevel;
+import org.joyqueue.domain.TopicName;
+import org.joyqueue.message.BrokerMessage;
+import org.joyqueue.network.session.Producer;
+import org.joyqueue.store.WriteResult;
+import org.joyqueue.toolkit.concurrent.EventListener;
+import org.joyqueue.toolkit.concurrent.NamedThreadFactory;
+import org.joyqueue.toolkit.service.Service;
+import org.joyqueue.toolkit.time.SystemClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按topic、应用和分区合并设备的PUBLISH，达到batchSize或者等待超过linger后整批写入存储
+ * 没有指定分区的消息在合并时轮询选择本地分区，热点topic的消息分散到多个分区的批次并行写入
+ * 批次写入完成后逐条回调，每个设备仍然单独收到PUBACK
+ * 批次由多个设备的消息组成，使用不属于任何设备连接的应用级生产者写入
+ *
+ * @author majun8
+ */
+public class MqttPublishAggregator extends Service {
+    private static final Logger LOG = LoggerFactory.getLogger(MqttPublishAggregator.class);
+
+    private Produce produce;
+    private ClusterManager clusterManager;
+    private int batchSize;
+    private int linger;
+
+    private ConcurrentMap<String /** topic:app:partition **/, PublishBatch> batches = new ConcurrentHashMap<>();
+    private ConcurrentMap<String /** topic **/, AtomicInteger> partitionSequences = new ConcurrentHashMap<>();
+    private ScheduledExecutorService lingerTimer;
+
+    public MqttPublishAggregator(Produce produce, ClusterManager clusterManager, int batchSize, int linger) {
+        this.produce = produce;
+        this.clusterManager = clusterManager;
+        this.batchSize = batchSize;
+        this.linger = linger;
+    }
+
+    @Override
+    protected void validate() throws Exception {
+        lingerTimer = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("mqtt-publish-aggregator", true));
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        lingerTimer.scheduleWithFixedDelay(() -> {
+            try {
+                flushExpired();
+            } catch (Exception e) {
+                LOG.error("Flush expired publish batches error", e);
+            }
+        }, linger, linger, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected void doStop() {
+        if (lingerTimer != null) {
+            lingerTimer.shutdown();
+        }
+        for (Map.Entry<String, PublishBatch> entry : batches.entrySet()) {
+            flush(entry.getKey(), entry.getValue());
+        }
+    }
+
+    public void append(Producer producer, BrokerMessage message, EventListener<WriteResult> listener) {
+        short partition = selectPartition(producer.getTopic(), message);
+        message.setPartition(partition);
+        String key = producer.getTopic() + ":" + producer.getApp() + ":" + partition;
+        while (true) {
+            PublishBatch batch = batches.get(key);
+            if (batch == null) {
+                batch = new PublishBatch(new Producer(producer.getTopic(), producer.getApp(), Producer.ProducerType.MQTT), SystemClock.now());
+                PublishBatch oldBatch = batches.putIfAbsent(key, batch);
+                if (oldBatch != null) {
+                    batch = oldBatch;
+                }
+            }
+            if (batch.tryAppend(message, listener, batchSize)) {
+                if (batch.size() >= batchSize) {
+                    flush(key, batch);
+                }
+                return;
+            }
+            // 批次已关闭，重新创建
+            batches.remove(key, batch);
+        }
+    }
+
+    /**
+     * 选择写入分区，和ProduceManager一致：指定了分区的使用指定分区，顺序消息按业务ID选择，其他的轮询本地分区
+     */
+    protected short selectPartition(String topic, BrokerMessage message) {
+        if (message.getPartition() >= 0) {
+            return message.getPartition();
+        }
+        List<Short> partitions = getPartitions(topic);
+        if (partitions == null || partitions.isEmpty()) {
+            return message.getPartition();
+        }
+        if (message.isOrdered()) {
+            String businessId = message.getBusinessId();
+            if (StringUtils.isEmpty(businessId)) {
+                return partitions.get(0);
+            }
+            int hashCode = businessId.hashCode();
+            hashCode = hashCode > Integer.MIN_VALUE ? hashCode : Integer.MIN_VALUE + 1;
+            return partitions.get(Math.abs(hashCode) % partitions.size());
+        }
+        AtomicInteger sequence = partitionSequences.computeIfAbsent(topic, k -> new AtomicInteger());
+        return partitions.get((sequence.getAndIncrement() & Integer.MAX_VALUE) % partitions.size());
+    }
+
+    protected List<Short> getPartitions(String topic) {
+        return clusterManager.getLocalPartitions(TopicName.parse(topic));
+    }
+
+    protected void flushExpired() {
+        long now = SystemClock.now();
+        for (Map.Entry<String, PublishBatch> entry : batches.entrySet()) {
+            if (now - entry.getValue().createTime >= linger) {
+                flush(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    protected void flush(String key, PublishBatch batch) {
+        batches.remove(key, batch);
+        if (!batch.close()) {
+            return;
+        }
+        try {
+            produce.putMessageAsync(batch.producer, batch.messages, QosLevel.RECEIVE, event -> {
+                for (EventListener<WriteResult> listener : batch.listeners) {
+                    try {
+                        listener.onEvent(event);
+                    } catch (Exception e) {
+                        LOG.error("Publish batch callback error, topic: {}", batch.producer.getTopic(), e);
+                    }
+                }
+            });
+        } catch (Exception e) {
+            // 不返回PUBACK，由设备重发
+            LOG.error("Put publish batch error, topic: {}, app: {}, size: {}", batch.producer.getTopic(), batch.producer.getApp(), batch.messages.size(), e);
+        }
+    }
+
+    protected static class PublishBatch {
+        private Producer producer;
+        private long createTime;
+        private List<BrokerMessage> messages = new ArrayList<>();
+        private List<EventListener<WriteResult>> listeners = new ArrayList<>();
+        private boolean closed;
+
+        PublishBatch(Producer producer, long createTime) {
+            this.producer = producer;
+            this.createTime = createTime;
+        }
+
+        synchronized boolean tryAppend(BrokerMessage message, EventListener<WriteResult> listener, int batchSize) {
+            if (closed || messages.size() >= batchSize) {
+                return false;
+            }
+            messages.add(message);
+            listeners.add(listener);
+            return true;
+        }
+
+        synchronized int size() {
+            return messages.size();
+        }
+
+        synchronized boolean close() {
+            if (closed) {
+                return false;
+            }
+            closed = true;
+            return true;
+        }
+    }
+}
@@ -23,9 +23,10 @@ import org.slf4j.LoggerFactory;
 import java.io.Serializable;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author majun8
@@ -33,9 +34,10 @@ import java.util.Set;
 public class MqttSession implements Serializable {
     private static final Logger LOG = LoggerFactory.getLogger(MqttSession.class);
     private static final long serialVersionUID = -1L;
+    private static final int MAX_PACKET_ID = 0xFFFF;
 
     private final String clientID;
-    private final Set<MqttSubscription> subscriptions = new HashSet<>();
+    private final Set<MqttSubscription> subscriptions = ConcurrentHashMap.newKeySet();
     private boolean cleanSession;
 
     private final MessageAcknowledgedZone messageAcknowledgedZone = new MessageAcknowledgedZone();
@@ -81,23 +83,90 @@ public class MqttSession implements Serializable {
 
     public class MessageAcknowledgedZone {
         final Map<Integer, BrokerMessage> acknowledgedMap = Collections.synchronizedMap(new HashMap<>());
+        // 按主题+分区记录已推送未提交的消息序号，value表示是否已确认，只有连续已确认的前缀才能提交
+        private final Map<String, TreeMap<Long, Boolean>> pendingIndexMap = new HashMap<>();
+        // 按主题+分区记录已提交的最大序号，重新推送已提交的消息时不再记录，避免提交的序号回退
+        private final Map<String, Long> committedIndexMap = new HashMap<>();
+        private int nextPacketId = 0;
 
         public BrokerMessage acquireAcknowledgedMessage(Integer packageId) {
-            BrokerMessage brokerMessage = acknowledgedMap.remove(packageId);
-            if (brokerMessage == null) {
-                LOG.error("Can't find the message for client: <{}> publish ack packageId: <{}>", clientID, packageId);
-                throw new RuntimeException("Can't find the session message for client <" + clientID + ">");
+            synchronized (acknowledgedMap) {
+                BrokerMessage brokerMessage = acknowledgedMap.remove(packageId);
+                if (brokerMessage == null) {
+                    LOG.error("Can't find the message for client: <{}> publish ack packageId: <{}>", clientID, packageId);
+                    throw new RuntimeException("Can't find the session message for client <" + clientID + ">");
+                }
+                TreeMap<Long, Boolean> pendingIndexes = pendingIndexMap.get(pendingKey(brokerMessage.getTopic(), brokerMessage.getPartition()));
+                if (pendingIndexes != null && pendingIndexes.containsKey(brokerMessage.getMsgIndexNo())) {
+                    pendingIndexes.put(brokerMessage.getMsgIndexNo(), true);
+                }
+                return brokerMessage;
             }
-
-            return brokerMessage;
         }
 
         public int acquireAcknowledgedPosition(BrokerMessage brokerMessage) {
-            int maxId = acknowledgedMap.keySet().isEmpty() ? 0 : Collections.max(acknowledgedMap.keySet());
-            int nextPacketId = (maxId + 1) % 0xFFFF;
-            acknowledgedMap.put(nextPacketId, brokerMessage);
+            synchronized (acknowledgedMap) {
+                if (acknowledgedMap.size() >= MAX_PACKET_ID) {
+                    throw new IllegalStateException("No packet id available for client <" + clientID + ">");
+                }
+                do {
+                    nextPacketId = nextPacketId % MAX_PACKET_ID + 1;
+                } while (acknowledgedMap.containsKey(nextPacketId));
+                acknowledgedMap.put(nextPacketId, brokerMessage);
+                addPendingIndex(brokerMessage, false);
+                return nextPacketId;
+            }
+        }
+
+        /**
+         * qos0的消息客户端不会确认，推送后即视为已确认，等待之前的在途消息确认后一起提交
+         */
+        public void acknowledgeAtMostOnce(BrokerMessage brokerMessage) {
+            synchronized (acknowledgedMap) {
+                addPendingIndex(brokerMessage, true);
+            }
+        }
+
+        /**
+         * 移除连续已确认的序号前缀
+         *
+         * @return 可以提交的最大序号，没有则返回-1
+         */
+        public long pollAcknowledgedIndex(String topic, short partition) {
+            synchronized (acknowledgedMap) {
+                TreeMap<Long, Boolean> pendingIndexes = pendingIndexMap.get(pendingKey(topic, partition));
+                if (pendingIndexes == null) {
+                    return -1;
+                }
+                long index = -1;
+                while (!pendingIndexes.isEmpty() && pendingIndexes.firstEntry().getValue()) {
+                    index = pendingIndexes.pollFirstEntry().getKey();
+                }
+                if (pendingIndexes.isEmpty()) {
+                    pendingIndexMap.remove(pendingKey(topic, partition));
+                }
+                if (index >= 0) {
+                    committedIndexMap.put(pendingKey(topic, partition), index);
+                }
+                return index;
+            }
+        }
+
+        private void addPendingIndex(BrokerMessage brokerMessage, boolean acknowledged) {
+            String key = pendingKey(brokerMessage.getTopic(), brokerMessage.getPartition());
+            Long committedIndex = committedIndexMap.get(key);
+            if (committedIndex != null && brokerMessage.getMsgIndexNo() <= committedIndex) {
+                return;
+            }
+            // 重新推送时已确认的序号保持已确认
+            TreeMap<Long, Boolean> pendingIndexes = pendingIndexMap.computeIfAbsent(key, k -> new TreeMap<>());
+            if (acknowledged || !pendingIndexes.containsKey(brokerMessage.getMsgIndexNo())) {
+                pendingIndexes.put(brokerMessage.getMsgIndexNo(), acknowledged);
+            }
+        }
 
-            return nextPacketId;
+        private String pendingKey(String topic, short partition) {
+            return topic + ":" + partition;
         }
 
         public int zoneSize() {
@@ -0,0 +1,166 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.mqtt.subscriptions;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 订阅前缀树，按topic filter的层级存放订阅，支持'+'和'#'通配符
+ * 增删订阅加锁，匹配不加锁，匹配一个topic的代价只和topic层级数及通配符分支有关
+ *
+ * author: gaohaoxiang
+ * date: 2020/4/14
+ */
+public class SubscriptionTrie {
+
+    private final Node root = new Node();
+    private final Map<String, Set<MqttSubscription>> clientSubscriptions = new ConcurrentHashMap<>();
+
+    public synchronized void add(MqttSubscription subscription) {
+        List<Token> tokens = subscription.getTopicFilter().getTokens();
+        if (tokens == null) {
+            return;
+        }
+        Node node = root;
+        for (Token token : tokens) {
+            node = node.children.computeIfAbsent(token, key -> new Node());
+        }
+        // 订阅只按客户端和topic filter判等，重复订阅时用新的订阅替换旧的qos
+        node.subscriptions.remove(subscription);
+        node.subscriptions.add(subscription);
+        Set<MqttSubscription> subscriptions = clientSubscriptions.computeIfAbsent(subscription.getClientId(), key -> ConcurrentHashMap.newKeySet());
+        subscriptions.remove(subscription);
+        subscriptions.add(subscription);
+    }
+
+    public synchronized void remove(MqttSubscription subscription) {
+        List<Token> tokens = subscription.getTopicFilter().getTokens();
+        if (tokens == null) {
+            return;
+        }
+        remove(root, tokens, 0, subscription);
+        Set<MqttSubscription> subscriptions = clientSubscriptions.get(subscription.getClientId());
+        if (subscriptions != null) {
+            subscriptions.remove(subscription);
+            if (subscriptions.isEmpty()) {
+                clientSubscriptions.remove(subscription.getClientId());
+            }
+        }
+    }
+
+    /**
+     * 移除客户端的全部订阅
+     */
+    public synchronized void removeClient(String clientId) {
+        Set<MqttSubscription> subscriptions = clientSubscriptions.remove(clientId);
+        if (subscriptions == null) {
+            return;
+        }
+        for (MqttSubscription subscription : subscriptions) {
+            List<Token> tokens = subscription.getTopicFilter().getTokens();
+            if (tokens != null) {
+                remove(root, tokens, 0, subscription);
+            }
+        }
+    }
+
+    /**
+     * 返回是否可以删除当前节点
+     */
+    private boolean remove(Node node, List<Token> tokens, int level, MqttSubscription subscription) {
+        if (level == tokens.size()) {
+            node.subscriptions.remove(subscription);
+        } else {
+            Token token = tokens.get(level);
+            Node child = node.children.get(token);
+            if (child != null && remove(child, tokens, level + 1, subscription)) {
+                node.children.remove(token);
+            }
+        }
+        return node.isEmpty();
+    }
+
+    /**
+     * 查找匹配topic的全部订阅
+     *
+     * @param topic 不含通配符的topic
+     * @return 匹配的订阅
+     */
+    public Set<MqttSubscription> match(String topic) {
+        Set<MqttSubscription> result = new HashSet<>();
+        List<Token> tokens = new TopicFilter(topic).getTokens();
+        if (tokens != null) {
+            match(root, tokens, 0, result);
+        }
+        return result;
+    }
+
+    private void match(Node node, List<Token> tokens, int level, Set<MqttSubscription> result) {
+        // 以'$'开头的topic不能被首层的通配符匹配
+        if (level == 0 && !tokens.isEmpty() && tokens.get(0).name().startsWith("$")) {
+            Node child = node.children.get(tokens.get(0));
+            if (child != null) {
+                match(child, tokens, 1, result);
+            }
+            return;
+        }
+        // '#'同时匹配父级，a/#匹配a
+        Node multi = node.children.get(Token.MULTI);
+        if (multi != null) {
+            result.addAll(multi.subscriptions);
+        }
+        if (level == tokens.size()) {
+            result.addAll(node.subscriptions);
+            return;
+        }
+        Node child = node.children.get(tokens.get(level));
+        if (child != null) {
+            match(child, tokens, level + 1, result);
+        }
+        Node single = node.children.get(Token.SINGLE);
+        if (single != null) {
+            match(single, tokens, level + 1, result);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Set<MqttSubscription> subscriptions : clientSubscriptions.values()) {
+            size += subscriptions.size();
+        }
+        return size;
+    }
+
+    /**
+     * 删除订阅后会清理空节点，全部删除后根节点为空
+     */
+    public boolean isEmpty() {
+        return root.isEmpty();
+    }
+
+    private static class Node {
+        private final Map<Token, Node> children = new ConcurrentHashMap<>();
+        private final Set<MqttSubscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+        private boolean isEmpty() {
+            return children.isEmpty() && subscriptions.isEmpty();
+        }
+    }
+}
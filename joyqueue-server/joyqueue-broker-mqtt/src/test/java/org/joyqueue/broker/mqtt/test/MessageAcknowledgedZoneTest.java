@@ -0,0 +1,126 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.mqtt.test;
+
+import org.joyqueue.broker.mqtt.session.MqttSession;
+import org.joyqueue.message.BrokerMessage;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * MessageAcknowledgedZoneTest
+ * author: gaohaoxiang
+ * date: 2020/4/14
+ */
+public class MessageAcknowledgedZoneTest {
+
+    private static final String TOPIC = "test_topic";
+    private static final short PARTITION = 0;
+
+    private MqttSession.MessageAcknowledgedZone zone = new MqttSession("client_1", false).getMessageAcknowledgedZone();
+
+    @Test
+    public void outOfOrderAckTest() {
+        int packetId0 = zone.acquireAcknowledgedPosition(message(0));
+        int packetId1 = zone.acquireAcknowledgedPosition(message(1));
+        int packetId2 = zone.acquireAcknowledgedPosition(message(2));
+        Assert.assertEquals(3, zone.zoneSize());
+        Assert.assertEquals(-1, zone.pollAcknowledgedIndex(TOPIC, PARTITION));
+
+        // 后面的消息先确认，不能提交
+        zone.acquireAcknowledgedMessage(packetId2);
+        Assert.assertEquals(-1, zone.pollAcknowledgedIndex(TOPIC, PARTITION));
+        zone.acquireAcknowledgedMessage(packetId1);
+        Assert.assertEquals(-1, zone.pollAcknowledgedIndex(TOPIC, PARTITION));
+
+        // 第一个消息确认后连续的前缀一起提交
+        zone.acquireAcknowledgedMessage(packetId0);
+        Assert.assertEquals(2, zone.pollAcknowledgedIndex(TOPIC, PARTITION));
+        Assert.assertEquals(-1, zone.pollAcknowledgedIndex(TOPIC, PARTITION));
+        Assert.assertEquals(0, zone.zoneSize());
+    }
+
+    @Test
+    public void partialPrefixTest() {
+        int packetId0 = zone.acquireAcknowledgedPosition(message(0));
+        zone.acquireAcknowledgedPosition(message(1));
+        int packetId2 = zone.acquireAcknowledgedPosition(message(2));
+
+        zone.acquireAcknowledgedMessage(packetId0);
+        zone.acquireAcknowledgedMessage(packetId2);
+        Assert.assertEquals(0, zone.pollAcknowledgedIndex(TOPIC, PARTITION));
+
+        // qos0的消息推送后即视为已确认，但要等前面的消息确认
+        zone.acknowledgeAtMostOnce(message(3));
+        Assert.assertEquals(-1, zone.pollAcknowledgedIndex(TOPIC, PARTITION));
+    }
+
+    @Test
+    public void partitionTest() {
+        int packetId0 = zone.acquireAcknowledgedPosition(message(0));
+        BrokerMessage otherPartition = message(5);
+        otherPartition.setPartition((short) 1);
+        int packetId1 = zone.acquireAcknowledgedPosition(otherPartition);
+
+        // 不同分区分别提交
+        zone.acquireAcknowledgedMessage(packetId1);
+        Assert.assertEquals(-1, zone.pollAcknowledgedIndex(TOPIC, PARTITION));
+        Assert.assertEquals(5, zone.pollAcknowledgedIndex(TOPIC, (short) 1));
+        zone.acquireAcknowledgedMessage(packetId0);
+        Assert.assertEquals(0, zone.pollAcknowledgedIndex(TOPIC, PARTITION));
+    }
+
+    @Test
+    public void redeliveryTest() {
+        int packetId0 = zone.acquireAcknowledgedPosition(message(0));
+        int packetId1 = zone.acquireAcknowledgedPosition(message(1));
+        zone.acquireAcknowledgedMessage(packetId1);
+
+        // 已确认未提交的消息重新推送，保持已确认
+        int redeliveryPacketId1 = zone.acquireAcknowledgedPosition(message(1));
+        Assert.assertNotEquals(packetId1, redeliveryPacketId1);
+
+        // 未确认的消息重新推送，任意一次确认都可以提交
+        int redeliveryPacketId0 = zone.acquireAcknowledgedPosition(message(0));
+        zone.acquireAcknowledgedMessage(redeliveryPacketId0);
+        Assert.assertEquals(1, zone.pollAcknowledgedIndex(TOPIC, PARTITION));
+
+        // 已提交的消息再次确认或重新推送，不会导致提交的序号回退
+        zone.acquireAcknowledgedMessage(packetId0);
+        zone.acquireAcknowledgedMessage(redeliveryPacketId1);
+        int redeliveryPacketId = zone.acquireAcknowledgedPosition(message(0));
+        zone.acquireAcknowledgedMessage(redeliveryPacketId);
+        Assert.assertEquals(-1, zone.pollAcknowledgedIndex(TOPIC, PARTITION));
+        Assert.assertEquals(0, zone.zoneSize());
+
+        int packetId2 = zone.acquireAcknowledgedPosition(message(2));
+        zone.acquireAcknowledgedMessage(packetId2);
+        Assert.assertEquals(2, zone.pollAcknowledgedIndex(TOPIC, PARTITION));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void unknownPacketTest() {
+        zone.acquireAcknowledgedMessage(1);
+    }
+
+    protected BrokerMessage message(long index) {
+        BrokerMessage message = new BrokerMessage();
+        message.setTopic(TOPIC);
+        message.setPartition(PARTITION);
+        message.setMsgIndexNo(index);
+        return message;
+    }
+}
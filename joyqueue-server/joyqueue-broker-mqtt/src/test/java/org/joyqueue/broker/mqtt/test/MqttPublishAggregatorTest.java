@@ -0,0 +1,179 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.mqtt.test;
+
+import org.joyqueue.broker.mqtt.publish.MqttPublishAggregator;
+import org.joyqueue.broker.producer.Produce;
+import org.joyqueue.exception.JoyQueueCode;
+import org.joyqueue.exception.JoyQueueException;
+import org.joyqueue.message.BrokerMessage;
+import org.joyqueue.network.session.Producer;
+import org.joyqueue.store.WriteResult;
+import org.joyqueue.toolkit.concurrent.EventListener;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * MqttPublishAggregatorTest
+ * author: gaohaoxiang
+ * date: 2020/4/14
+ */
+public class MqttPublishAggregatorTest {
+
+    private static final String TOPIC = "test_topic";
+    private static final String APP = "test_app";
+
+    private List<List<BrokerMessage>> writes = new ArrayList<>();
+    private List<EventListener<WriteResult>> writeListeners = new ArrayList<>();
+    private boolean writeError = false;
+
+    @Test
+    public void batchSizeTest() {
+        TestAggregator aggregator = new TestAggregator(newProduce(), 2, 1000 * 60, Arrays.asList((short) 0));
+        List<Integer> acks = new ArrayList<>();
+        aggregator.append(producer(), message(), event -> acks.add(1));
+        Assert.assertTrue(writes.isEmpty());
+
+        // 达到batchSize后整批写入
+        aggregator.append(producer(), message(), event -> acks.add(2));
+        Assert.assertEquals(1, writes.size());
+        Assert.assertEquals(2, writes.get(0).size());
+
+        // 每个设备单独回调
+        writeListeners.get(0).onEvent(new WriteResult(JoyQueueCode.SUCCESS, new long[] {0, 1}));
+        Assert.assertEquals(Arrays.asList(1, 2), acks);
+
+        // 新的消息进入新的批次
+        aggregator.append(producer(), message(), event -> acks.add(3));
+        Assert.assertEquals(1, writes.size());
+    }
+
+    @Test
+    public void lingerTest() throws Exception {
+        TestAggregator aggregator = new TestAggregator(newProduce(), 100, 10, Arrays.asList((short) 0));
+        aggregator.append(producer(), message(), event -> {
+        });
+        aggregator.flushExpired();
+        Assert.assertTrue(writes.isEmpty());
+
+        // 超过linger后写入未满的批次
+        Thread.sleep(20);
+        aggregator.flushExpired();
+        Assert.assertEquals(1, writes.size());
+        Assert.assertEquals(1, writes.get(0).size());
+        aggregator.flushExpired();
+        Assert.assertEquals(1, writes.size());
+    }
+
+    @Test
+    public void partitionTest() {
+        TestAggregator aggregator = new TestAggregator(newProduce(), 2, 0, Arrays.asList((short) 0, (short) 1));
+
+        // 没有指定分区的消息轮询分区，每个分区单独的批次
+        for (int i = 0; i < 4; i++) {
+            aggregator.append(producer(), message(), event -> {
+            });
+        }
+        Assert.assertEquals(2, writes.size());
+        for (List<BrokerMessage> write : writes) {
+            Assert.assertEquals(2, write.size());
+            Assert.assertEquals(write.get(0).getPartition(), write.get(1).getPartition());
+        }
+        Assert.assertNotEquals(writes.get(0).get(0).getPartition(), writes.get(1).get(0).getPartition());
+
+        // 指定分区的消息使用指定的分区
+        BrokerMessage message = message();
+        message.setPartition((short) 1);
+        aggregator.append(producer(), message, event -> {
+        });
+        aggregator.flushExpired();
+        Assert.assertEquals(3, writes.size());
+        Assert.assertEquals(1, writes.get(2).get(0).getPartition());
+    }
+
+    @Test
+    public void failureTest() {
+        writeError = true;
+        TestAggregator aggregator = new TestAggregator(newProduce(), 2, 1000 * 60, Arrays.asList((short) 0));
+        List<Integer> acks = new ArrayList<>();
+        aggregator.append(producer(), message(), event -> acks.add(1));
+        aggregator.append(producer(), message(), event -> acks.add(2));
+
+        // 写入失败不回调，不返回PUBACK，由设备重发
+        Assert.assertEquals(1, writes.size());
+        Assert.assertTrue(writeListeners.isEmpty());
+        Assert.assertTrue(acks.isEmpty());
+
+        // 设备重发的消息进入新的批次
+        writeError = false;
+        aggregator.append(producer(), message(), event -> acks.add(1));
+        aggregator.append(producer(), message(), event -> acks.add(2));
+        Assert.assertEquals(2, writes.size());
+        writeListeners.get(0).onEvent(new WriteResult(JoyQueueCode.SUCCESS, new long[] {0, 1}));
+        Assert.assertEquals(Arrays.asList(1, 2), acks);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected Produce newProduce() {
+        return (Produce) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] {Produce.class}, (proxy, method, args) -> {
+            if (!method.getName().equals("putMessageAsync")) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            writes.add(new ArrayList<>((List<BrokerMessage>) args[1]));
+            if (writeError) {
+                throw new JoyQueueException(JoyQueueCode.SE_WRITE_FAILED);
+            }
+            writeListeners.add((EventListener<WriteResult>) args[args.length - 1]);
+            return null;
+        });
+    }
+
+    protected Producer producer() {
+        return new Producer(TOPIC, APP, Producer.ProducerType.MQTT);
+    }
+
+    protected BrokerMessage message() {
+        BrokerMessage message = new BrokerMessage();
+        message.setTopic(TOPIC);
+        message.setApp(APP);
+        return message;
+    }
+
+    protected static class TestAggregator extends MqttPublishAggregator {
+
+        private List<Short> partitions;
+
+        public TestAggregator(Produce produce, int batchSize, int linger, List<Short> partitions) {
+            super(produce, null, batchSize, linger);
+            this.partitions = partitions;
+        }
+
+        @Override
+        protected List<Short> getPartitions(String topic) {
+            return partitions;
+        }
+
+        @Override
+        public void flushExpired() {
+            super.flushExpired();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.mqtt.test;
+
+import io.netty.handler.codec.mqtt.MqttQoS;
+import org.joyqueue.broker.mqtt.subscriptions.MqttSubscription;
+import org.joyqueue.broker.mqtt.subscriptions.SubscriptionTrie;
+import org.joyqueue.broker.mqtt.subscriptions.TopicFilter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * SubscriptionTrieTest
+ * author: gaohaoxiang
+ * date: 2020/4/14
+ */
+public class SubscriptionTrieTest {
+
+    private SubscriptionTrie subscriptionTrie = new SubscriptionTrie();
+
+    @Test
+    public void matchTest() {
+        subscriptionTrie.add(subscription("client_1", "a/b/c"));
+        subscriptionTrie.add(subscription("client_2", "a/+/c"));
+        subscriptionTrie.add(subscription("client_3", "a/#"));
+        subscriptionTrie.add(subscription("client_4", "#"));
+        subscriptionTrie.add(subscription("client_5", "+/b"));
+
+        Assert.assertEquals(clients("client_1", "client_2", "client_3", "client_4"), clients(subscriptionTrie.match("a/b/c")));
+        Assert.assertEquals(clients("client_3", "client_4", "client_5"), clients(subscriptionTrie.match("a/b")));
+        Assert.assertEquals(clients("client_3", "client_4"), clients(subscriptionTrie.match("a")));
+        Assert.assertEquals(clients("client_4"), clients(subscriptionTrie.match("b/c")));
+        Assert.assertEquals(clients("client_3", "client_4"), clients(subscriptionTrie.match("a/b/c/d")));
+    }
+
+    @Test
+    public void systemTopicTest() {
+        subscriptionTrie.add(subscription("client_1", "#"));
+        subscriptionTrie.add(subscription("client_2", "+/monitor"));
+        subscriptionTrie.add(subscription("client_3", "$SYS/#"));
+        subscriptionTrie.add(subscription("client_4", "$SYS/+"));
+
+        Assert.assertEquals(clients("client_3", "client_4"), clients(subscriptionTrie.match("$SYS/monitor")));
+        Assert.assertEquals(clients("client_1", "client_2"), clients(subscriptionTrie.match("SYS/monitor")));
+    }
+
+    @Test
+    public void resubscribeTest() {
+        subscriptionTrie.add(subscription("client_1", "a/+", MqttQoS.AT_MOST_ONCE));
+        subscriptionTrie.add(subscription("client_1", "a/+", MqttQoS.AT_LEAST_ONCE));
+
+        Set<MqttSubscription> subscriptions = subscriptionTrie.match("a/b");
+        Assert.assertEquals(1, subscriptions.size());
+        Assert.assertEquals(MqttQoS.AT_LEAST_ONCE, subscriptions.iterator().next().getRequestedQos());
+        Assert.assertEquals(1, subscriptionTrie.size());
+    }
+
+    @Test
+    public void removeTest() {
+        subscriptionTrie.add(subscription("client_1", "a/b/c"));
+        subscriptionTrie.add(subscription("client_1", "a/+/c"));
+        subscriptionTrie.add(subscription("client_2", "a/b/c"));
+
+        subscriptionTrie.remove(subscription("client_1", "a/b/c"));
+        Assert.assertEquals(clients("client_1", "client_2"), clients(subscriptionTrie.match("a/b/c")));
+        Assert.assertEquals(2, subscriptionTrie.size());
+
+        subscriptionTrie.removeClient("client_1");
+        Assert.assertEquals(clients("client_2"), clients(subscriptionTrie.match("a/b/c")));
+        Assert.assertTrue(subscriptionTrie.match("a/x/c").isEmpty());
+        Assert.assertEquals(1, subscriptionTrie.size());
+
+        subscriptionTrie.remove(subscription("client_2", "a/b/c"));
+        Assert.assertTrue(subscriptionTrie.match("a/b/c").isEmpty());
+        Assert.assertEquals(0, subscriptionTrie.size());
+        Assert.assertTrue(subscriptionTrie.isEmpty());
+    }
+
+    private MqttSubscription subscription(String clientId, String topicFilter) {
+        return subscription(clientId, topicFilter, MqttQoS.AT_LEAST_ONCE);
+    }
+
+    private MqttSubscription subscription(String clientId, String topicFilter, MqttQoS qos) {
+        return new MqttSubscription(clientId, new TopicFilter(topicFilter), qos);
+    }
+
+    private Set<String> clients(String... clientIds) {
+        Set<String> result = new HashSet<>();
+        for (String clientId : clientIds) {
+            result.add(clientId);
+        }
+        return result;
+    }
+
+    private Set<String> clients(Set<MqttSubscription> subscriptions) {
+        Set<String> result = new HashSet<>();
+        for (MqttSubscription subscription : subscriptions) {
+            result.add(subscription.getClientId());
+        }
+        return result;
+    }
+}
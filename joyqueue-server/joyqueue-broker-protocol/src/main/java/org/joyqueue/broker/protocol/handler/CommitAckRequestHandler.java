@@ -32,7 +32,6 @@ import org.joyqueue.domain.Partition;
 import org.joyqueue.domain.TopicName;
 import org.joyqueue.exception.JoyQueueCode;
 import org.joyqueue.exception.JoyQueueException;
-import org.joyqueue.message.BrokerMessage;
 import org.joyqueue.message.MessageLocation;
 import org.joyqueue.network.command.BooleanAck;
 import org.joyqueue.network.command.CommitAckData;
@@ -216,25 +215,25 @@ public class CommitAckRequestHandler implements JoyQueueCommandHandler, Type, Br
                 continue;
             }
 
+            // 只读取消息头和业务ID，不复制消息体
             ByteBuffer buffer = buffers.get(0);
-            BrokerMessage brokerMessage = Serializer.readBrokerMessage(buffer);
-            RetryMessageModel model = generateRetryMessage(consumer, brokerMessage, buffer.array(), ackData.getRetryType().name());
+            RetryMessageModel model = generateRetryMessage(consumer, buffer, buffer.array(), ackData.getRetryType().name());
             retryMessageModelList.add(model);
         }
         retryManager.addRetry(retryMessageModelList);
     }
 
-    private RetryMessageModel generateRetryMessage(Consumer consumer, BrokerMessage brokerMessage, byte[] brokerMessageData/* BrokerMessage 序列化后的字节数组 */, String exception) {
+    private RetryMessageModel generateRetryMessage(Consumer consumer, ByteBuffer buffer, byte[] brokerMessageData/* BrokerMessage 序列化后的字节数组 */, String exception) {
         RetryMessageModel model = new RetryMessageModel();
-        model.setBusinessId(brokerMessage.getBusinessId());
+        model.setBusinessId(Serializer.readBusinessId(buffer));
         model.setTopic(consumer.getTopic());
         model.setApp(consumer.getApp());
         model.setPartition(Partition.RETRY_PARTITION_ID);
-        model.setIndex(brokerMessage.getMsgIndexNo());
+        model.setIndex(Serializer.readIndex(buffer));
         model.setBrokerMessage(brokerMessageData);
         byte[] exceptionBytes = exception.getBytes(Charset.forName("UTF-8"));
         model.setException(exceptionBytes);
-        model.setSendTime(brokerMessage.getStartTime());
+        model.setSendTime(Serializer.readSendTime(buffer));
 
         return model;
     }
@@ -18,6 +18,7 @@ package org.joyqueue.broker.protocol.handler;
 import org.joyqueue.broker.protocol.JoyQueueCommandHandler;
 import org.joyqueue.network.command.FetchHealthResponse;
 import org.joyqueue.network.command.JoyQueueCommandType;
+import org.joyqueue.network.protocol.annotation.DirectHandler;
 import org.joyqueue.network.transport.Transport;
 import org.joyqueue.network.transport.command.Command;
 import org.joyqueue.network.transport.command.Type;
@@ -28,6 +29,7 @@ import org.joyqueue.network.transport.command.Type;
  * author: gaohaoxiang
  * date: 2018/12/28
  */
+@DirectHandler
 public class FetchHealthRequestHandler implements JoyQueueCommandHandler, Type {
 
     @Override
@@ -22,6 +22,7 @@ import org.joyqueue.broker.cluster.ClusterManager;
 import org.joyqueue.broker.consumer.Consume;
 import org.joyqueue.broker.consumer.model.PullResult;
 import org.joyqueue.broker.helper.SessionHelper;
+import org.joyqueue.broker.monitor.BrokerMonitor;
 import org.joyqueue.broker.monitor.SessionManager;
 import org.joyqueue.broker.network.traffic.Traffic;
 import org.joyqueue.broker.polling.LongPolling;
@@ -67,6 +68,7 @@ public class FetchTopicMessageRequestHandler implements JoyQueueCommandHandler,
     private SessionManager sessionManager;
     private ClusterManager clusterManager;
     private LongPollingManager longPollingManager;
+    private BrokerMonitor brokerMonitor;
 
     @Override
     public void setJoyQueueContext(JoyQueueContext joyQueueContext) {
@@ -74,10 +76,12 @@ public class FetchTopicMessageRequestHandler implements JoyQueueCommandHandler,
         this.sessionManager = joyQueueContext.getBrokerContext().getSessionManager();
         this.clusterManager = joyQueueContext.getBrokerContext().getClusterManager();
         this.longPollingManager = joyQueueContext.getLongPollingManager();
+        this.brokerMonitor = joyQueueContext.getBrokerContext().getBrokerMonitor();
     }
 
     @Override
     public Command handle(Transport transport, Command command) {
+        long handleTime = System.nanoTime();
         FetchTopicMessageRequest fetchTopicMessageRequest = (FetchTopicMessageRequest) command.getPayload();
         Connection connection = SessionHelper.getConnection(transport);
 
@@ -114,6 +118,7 @@ public class FetchTopicMessageRequestHandler implements JoyQueueCommandHandler,
             }
 
             FetchTopicMessageData fetchTopicMessageData = entry.getValue();
+            long readTime = System.nanoTime();
             FetchTopicMessageAckData fetchTopicMessageAckData = fetchMessage(transport, consumer, fetchTopicMessageData.getCount(), fetchTopicMessageRequest.getAckTimeout());
 
             if (isNeedLongPoll && CollectionUtils.isEmpty(fetchTopicMessageAckData.getBuffers()) && clusterManager.isNeedLongPull(consumer.getTopic())) {
@@ -123,6 +128,11 @@ public class FetchTopicMessageRequestHandler implements JoyQueueCommandHandler,
                 }
             }
 
+            // 空拉取不计入，避免拉低耗时分布
+            if (CollectionUtils.isNotEmpty(fetchTopicMessageAckData.getBuffers())) {
+                brokerMonitor.onFetchStages(topic, fetchTopicMessageRequest.getApp(), command, handleTime, readTime);
+            }
+
             traffic.record(topic, fetchTopicMessageAckData.getTraffic(), fetchTopicMessageAckData.getSize());
             result.put(topic, fetchTopicMessageAckData);
         }
@@ -22,6 +22,7 @@ import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.joyqueue.broker.cluster.ClusterManager;
 import org.joyqueue.broker.helper.SessionHelper;
+import org.joyqueue.broker.monitor.BrokerMonitor;
 import org.joyqueue.broker.network.traffic.Traffic;
 import org.joyqueue.broker.producer.Produce;
 import org.joyqueue.broker.producer.ProduceConfig;
@@ -74,6 +75,7 @@ public class ProduceMessageRequestHandler implements JoyQueueCommandHandler, Typ
     private ProduceConfig produceConfig;
     private Produce produce;
     private ClusterManager clusterManager;
+    private BrokerMonitor brokerMonitor;
 
     @Override
     public void setJoyQueueContext(JoyQueueContext joyQueueContext) {
@@ -81,10 +83,12 @@ public class ProduceMessageRequestHandler implements JoyQueueCommandHandler, Typ
         this.produceConfig = new ProduceConfig(joyQueueContext.getBrokerContext().getPropertySupplier());
         this.produce = joyQueueContext.getBrokerContext().getProduce();
         this.clusterManager = joyQueueContext.getBrokerContext().getClusterManager();
+        this.brokerMonitor = joyQueueContext.getBrokerContext().getBrokerMonitor();
     }
 
     @Override
     public Command handle(Transport transport, Command command) {
+        long handleTime = System.nanoTime();
         ProduceMessageRequest produceMessageRequest = (ProduceMessageRequest) command.getPayload();
         Connection connection = SessionHelper.getConnection(transport);
 
@@ -122,7 +126,7 @@ public class ProduceMessageRequestHandler implements JoyQueueCommandHandler, Typ
                 continue;
             }
 
-            produceMessage(connection, topic, produceMessageRequest.getApp(), produceMessageData, (data) -> {
+            produceMessage(connection, command, handleTime, topic, produceMessageRequest.getApp(), produceMessageData, (data) -> {
                 resultData.put(topic, data);
                 traffic.record(topic, produceMessageData.getTraffic(), produceMessageData.getSize());
                 latch.countDown();
@@ -148,12 +152,16 @@ public class ProduceMessageRequestHandler implements JoyQueueCommandHandler, Typ
         return new Command(produceMessageResponse);
     }
 
-    protected void produceMessage(Connection connection, String topic, String app, ProduceMessageData produceMessageData, EventListener<ProduceMessageAckData> listener) {
+    protected void produceMessage(Connection connection, Command command, long handleTime, String topic, String app,
+                                  ProduceMessageData produceMessageData, EventListener<ProduceMessageAckData> listener) {
         Producer producer = new Producer(connection.getId(), topic, app, Producer.ProducerType.JOYQUEUE);
+        long submitTime = System.nanoTime();
         try {
             produce.putMessageAsync(producer, produceMessageData.getMessages(), produceMessageData.getQosLevel(), produceMessageData.getTimeout(), (writeResult) -> {
                 if (!writeResult.getCode().equals(JoyQueueCode.SUCCESS)) {
                     logger.error("produce message failed, topic: {}, code: {}", producer.getTopic(), writeResult.getCode());
+                } else {
+                    brokerMonitor.onProduceStages(topic, app, command, handleTime, submitTime, writeResult);
                 }
                 ProduceMessageAckData produceMessageAckData = new ProduceMessageAckData();
                 produceMessageAckData.setCode(writeResult.getCode());
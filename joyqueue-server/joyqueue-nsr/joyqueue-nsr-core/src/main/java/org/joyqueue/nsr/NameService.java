@@ -22,6 +22,7 @@ import org.joyqueue.domain.ClientType;
 import org.joyqueue.domain.Config;
 import org.joyqueue.domain.Consumer;
 import org.joyqueue.domain.DataCenter;
+import org.joyqueue.domain.MetadataDelta;
 import org.joyqueue.domain.PartitionGroup;
 import org.joyqueue.domain.Producer;
 import org.joyqueue.domain.Replica;
@@ -241,6 +242,16 @@ public interface NameService extends LifeCycle {
      */
     AllMetadata getAllMetadata();
 
+    /**
+     * 返回指定版本之后的元数据增量
+     * 不支持增量或版本已不在变更日志中时返回null，需要通过getAllMetadata全量同步
+     * @param version
+     * @return
+     */
+    default MetadataDelta getMetadataDelta(long version) {
+        return null;
+    }
+
     /**
      * add listener
      * @param listener
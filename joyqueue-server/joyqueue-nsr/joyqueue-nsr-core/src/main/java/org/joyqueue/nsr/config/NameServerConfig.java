@@ -58,6 +58,10 @@ public class NameServerConfig {
         return propertySupplier.getValue(NameServerConfigKey.NAMESERVER_ADDRESS);
     }
 
+    public int getMetadataDeltaMaxChanges() {
+        return propertySupplier.getValue(NameServerConfigKey.NAMESERVER_METADATA_DELTA_MAX_CHANGES);
+    }
+
     public ServerConfig getServerConfig() {
         return serverConfig;
     }
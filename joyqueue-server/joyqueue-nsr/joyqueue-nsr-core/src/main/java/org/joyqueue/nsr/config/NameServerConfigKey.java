@@ -26,7 +26,8 @@ public enum NameServerConfigKey implements PropertyDef {
     NAMESERVER_ADDRESS("nameserver.nsr.address", "127.0.0.1:50092", Type.STRING),
     NAMESERVER_CACHE_ENABLE("nameserver.nsr.cache.enable", true, Type.BOOLEAN),
     NAMESERVER_CACHE_EXPIRE_TIME("nameserver.nsr.cache.expire.time", 1000 * 60, Type.INT),
-    NAMESERVER_TOPIC_CACHE_EXPIRE_TIME("nameserver.nsr.topic.cache.expire.time", 1000 * 10, Type.INT);
+    NAMESERVER_TOPIC_CACHE_EXPIRE_TIME("nameserver.nsr.topic.cache.expire.time", 1000 * 10, Type.INT),
+    NAMESERVER_METADATA_DELTA_MAX_CHANGES("nameserver.nsr.metadata.delta.max.changes", 1000 * 10, Type.INT);
 
     public static final String NAME_SERVER_CONFIG_PREFIX = "nameserver.";
 
@@ -67,6 +67,14 @@ public class NameServiceConfig {
         return getAndCreateDataPath() + PropertySupplier.getValue(propertySupplier, NameServiceConfigKey.NAMESERVER_ALL_METADATA_CACHE_FILE);
     }
 
+    public boolean getAllMetadataCacheCompress() {
+        return PropertySupplier.getValue(propertySupplier, NameServiceConfigKey.NAMESERVER_ALL_METADATA_CACHE_COMPRESS);
+    }
+
+    public boolean getAllMetadataCacheLazyLoad() {
+        return PropertySupplier.getValue(propertySupplier, NameServiceConfigKey.NAMESERVER_ALL_METADATA_CACHE_LAZY_LOAD);
+    }
+
     public int getAllMetadataCacheExpireTime() {
         return PropertySupplier.getValue(propertySupplier, NameServiceConfigKey.NAMESERVER_ALL_METADATA_CACHE_EXPIRE_TIME);
     }
@@ -79,6 +87,10 @@ public class NameServiceConfig {
         return PropertySupplier.getValue(propertySupplier, NameServiceConfigKey.NAMESERVER_ALL_METADATA_REWRITE_ENABLE);
     }
 
+    public boolean getAllMetadataDeltaEnable() {
+        return PropertySupplier.getValue(propertySupplier, NameServiceConfigKey.NAMESERVER_ALL_METADATA_DELTA_ENABLE);
+    }
+
     public boolean getCompensationEnable() {
         return PropertySupplier.getValue(propertySupplier, NameServiceConfigKey.NAMESERVER_COMPENSATION_ENABLE);
     }
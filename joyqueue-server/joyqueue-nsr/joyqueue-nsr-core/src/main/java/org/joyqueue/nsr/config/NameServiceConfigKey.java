@@ -26,9 +26,12 @@ public enum NameServiceConfigKey implements PropertyDef {
     NAMESERVER_ALL_METADATA_TRANSPORT_TIMEOUT("nameservice.allmetadata.transport.timeout", 1000 * 10, Type.INT),
     NAMESERVER_ALL_METADATA_CACHE_ENABLE("nameservice.allmetadata.cache.enable", true, Type.BOOLEAN),
     NAMESERVER_ALL_METADATA_CACHE_FILE("nameservice.allmetadata.cache.file", "/metadata/cache", Type.STRING),
+    NAMESERVER_ALL_METADATA_CACHE_COMPRESS("nameservice.allmetadata.cache.compress", true, Type.BOOLEAN),
+    NAMESERVER_ALL_METADATA_CACHE_LAZY_LOAD("nameservice.allmetadata.cache.lazy.load", true, Type.BOOLEAN),
     NAMESERVER_ALL_METADATA_CACHE_EXPIRE_TIME("nameservice.allmetadata.cache.expire.time", 1000 * 1, Type.INT),
     NAMESERVER_ALL_METADATA_REWRITE_ENABLE("nameservice.allmetadata.rewrite.enable", false, Type.BOOLEAN),
     NAMESERVER_ALL_METADATA_INTERVAL("nameservice.allmetadata.interval", 1000 * 10, Type.INT),
+    NAMESERVER_ALL_METADATA_DELTA_ENABLE("nameservice.allmetadata.delta.enable", true, Type.BOOLEAN),
     NAMESERVER_COMPENSATION_ENABLE("nameservice.compensation.enable", true, Type.BOOLEAN),
     NAMESERVER_COMPENSATION_INTERVAL("nameservice.compensation.interval", 1000 * 30, Type.INT),
     NAMESERVER_COMPENSATION_RETRY_TIMES("nameservice.compensation.retry.times", 3, Type.INT),
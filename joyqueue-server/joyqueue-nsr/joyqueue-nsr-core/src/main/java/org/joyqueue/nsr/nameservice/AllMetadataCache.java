@@ -31,6 +31,9 @@ import java.util.Map;
 
 public class AllMetadataCache {
 
+    // 元数据版本，0表示不支持增量同步
+    private long version;
+
     private Map<Integer /** brokerId **/, Broker> brokerMap;
     private List<Broker> allBrokers;
     private Map<TopicName, TopicConfig> topicConfigMap;
@@ -49,6 +52,14 @@ public class AllMetadataCache {
     private List<DCWrapper> allDataCenters;
     private Map<String /** code **/, DCWrapper> dataCenterCodeMap;
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public Map<Integer, Broker> getBrokerMap() {
         return brokerMap;
     }
@@ -187,6 +198,7 @@ public class AllMetadataCache {
 
     public AllMetadataCache clone() {
         AllMetadataCache allMetadataCache = new AllMetadataCache();
+        allMetadataCache.setVersion(version);
         allMetadataCache.setBrokerMap(Maps.newHashMap(brokerMap));
         allMetadataCache.setAllBrokers(Lists.newArrayList(allBrokers));
         allMetadataCache.setTopicConfigMap(Maps.newHashMap(topicConfigMap));
@@ -25,6 +25,7 @@ import org.joyqueue.domain.ClientType;
 import org.joyqueue.domain.Config;
 import org.joyqueue.domain.Consumer;
 import org.joyqueue.domain.DataCenter;
+import org.joyqueue.domain.MetadataDelta;
 import org.joyqueue.domain.PartitionGroup;
 import org.joyqueue.domain.Producer;
 import org.joyqueue.domain.Replica;
@@ -587,6 +588,11 @@ public class CompensatedNameService extends Service implements NameService, Prop
         return delegate.getAllMetadata();
     }
 
+    @Override
+    public MetadataDelta getMetadataDelta(long version) {
+        return delegate.getMetadataDelta(version);
+    }
+
     @Override
     public void addListener(EventListener<NameServerEvent> listener) {
         eventBus.addListener(listener);
@@ -26,6 +26,7 @@ import org.joyqueue.domain.Broker;
 import org.joyqueue.domain.Config;
 import org.joyqueue.domain.Consumer;
 import org.joyqueue.domain.DataCenter;
+import org.joyqueue.domain.MetadataDelta;
 import org.joyqueue.domain.PartitionGroup;
 import org.joyqueue.domain.Producer;
 import org.joyqueue.domain.Replica;
@@ -60,6 +61,9 @@ public class MetadataCacheManager extends Service {
 
     private NameServiceCacheDoubleCopy nameServiceCacheDoubleCopy;
     private volatile AllMetadataCache cache;
+    private volatile AllMetadataCache flushedCache;
+    private volatile NameServiceCacheSnapshot snapshot;
+    private final Object snapshotLock = new Object();
     private ReentrantLock lock = new ReentrantLock();
     private volatile long timestamp = 0;
 
@@ -69,13 +73,57 @@ public class MetadataCacheManager extends Service {
 
     @Override
     protected void validate() throws Exception {
-        nameServiceCacheDoubleCopy = new NameServiceCacheDoubleCopy(new File(config.getAllMetadataCacheFile()));
+        nameServiceCacheDoubleCopy = new NameServiceCacheDoubleCopy(new File(config.getAllMetadataCacheFile()), config.getAllMetadataCacheCompress());
     }
 
     @Override
     protected void doStart() throws Exception {
         nameServiceCacheDoubleCopy.recover();
         this.cache = nameServiceCacheDoubleCopy.getCache();
+        this.snapshot = nameServiceCacheDoubleCopy.getSnapshot();
+
+        if (snapshot != null) {
+            if (config.getAllMetadataCacheLazyLoad()) {
+                // 先通过快照提供查询，完整缓存异步构建
+                Thread loadThread = new Thread(this::loadSnapshot, "joyqueue-nameservice-cache-loader");
+                loadThread.setDaemon(true);
+                loadThread.start();
+            } else {
+                loadSnapshot();
+            }
+        }
+    }
+
+    /**
+     * 通过快照构建完整缓存
+     */
+    protected AllMetadataCache loadSnapshot() {
+        synchronized (snapshotLock) {
+            NameServiceCacheSnapshot snapshot = this.snapshot;
+            if (snapshot == null) {
+                return cache;
+            }
+            try {
+                long startTime = SystemClock.now();
+                AllMetadataCache cache = buildCache(snapshot.toAllMetadata());
+                this.cache = cache;
+                this.flushedCache = cache;
+                logger.info("load nameservice cache snapshot, version: {}, topics: {}, time: {}ms",
+                        cache.getVersion(), cache.getAllTopicCodes().size(), SystemClock.now() - startTime);
+            } catch (Exception e) {
+                logger.error("load nameservice cache snapshot exception", e);
+            } finally {
+                this.snapshot = null;
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * 完整缓存构建前返回快照
+     */
+    protected NameServiceCacheSnapshot getLoadingSnapshot() {
+        return (cache == null ? snapshot : null);
     }
 
     public AllMetadataCache buildCache(AllMetadata allMetadata) {
@@ -197,6 +245,7 @@ public class MetadataCacheManager extends Service {
         }
 
         AllMetadataCache cache = new AllMetadataCache();
+        cache.setVersion(allMetadata.getVersion());
         cache.setAllBrokers(allBrokers);
         cache.setBrokerMap(brokerMap);
         cache.setTopicConfigMap(topicConfigMap);
@@ -217,30 +266,401 @@ public class MetadataCacheManager extends Service {
         return cache;
     }
 
+    /**
+     * 在当前缓存上应用增量，返回新的缓存
+     * 只复制外层容器和变更涉及的内层容器，当前缓存不受影响
+     */
+    public AllMetadataCache applyDelta(AllMetadataCache cache, MetadataDelta delta) {
+        AllMetadataCache newCache = cache.clone();
+        newCache.setVersion(delta.getVersion());
+
+        Map<Integer, Broker> brokerMap = newCache.getBrokerMap();
+        Map<TopicName, TopicConfig> topicConfigMap = newCache.getTopicConfigMap();
+        Map<Integer, Map<TopicName, TopicConfig>> topicConfigBrokerMap = newCache.getTopicConfigBrokerMap();
+        Set<Integer> copiedBrokerTopics = Sets.newHashSet();
+        boolean topicConfigChanged = false;
+
+        // 维护broker映射
+        if (!isEmpty(delta.getBrokers()) || !isEmpty(delta.getRemovedBrokers())) {
+            Set<Integer> changedBrokers = Sets.newHashSet();
+            if (delta.getRemovedBrokers() != null) {
+                for (Integer brokerId : delta.getRemovedBrokers()) {
+                    brokerMap.remove(brokerId);
+                    changedBrokers.add(brokerId);
+                }
+            }
+            if (delta.getBrokers() != null) {
+                for (Broker broker : delta.getBrokers()) {
+                    brokerMap.put(broker.getId(), broker);
+                    changedBrokers.add(broker.getId());
+                }
+            }
+            newCache.setAllBrokers(Lists.newLinkedList(brokerMap.values()));
+
+            // 刷新引用了变更broker的partitionGroup，主题配置和旧缓存共享，复制后再修改
+            Set<TopicName> changedTopics = Sets.newHashSet();
+            for (Integer brokerId : changedBrokers) {
+                Map<TopicName, TopicConfig> brokerTopicConfigMap = topicConfigBrokerMap.get(brokerId);
+                if (brokerTopicConfigMap != null) {
+                    changedTopics.addAll(brokerTopicConfigMap.keySet());
+                }
+            }
+            for (TopicName topicName : changedTopics) {
+                TopicConfig topicConfig = topicConfigMap.get(topicName);
+                if (topicConfig == null) {
+                    continue;
+                }
+                TopicConfig newTopicConfig = topicConfig.clone();
+                for (PartitionGroup partitionGroup : newTopicConfig.getPartitionGroups().values()) {
+                    if (!Collections.disjoint(partitionGroup.getReplicas(), changedBrokers)) {
+                        fillPartitionGroupBrokers(partitionGroup, brokerMap);
+                    }
+                    for (Integer replica : partitionGroup.getReplicas()) {
+                        copyOnWrite(topicConfigBrokerMap, copiedBrokerTopics, replica).put(topicName, newTopicConfig);
+                    }
+                }
+                topicConfigMap.put(topicName, newTopicConfig);
+                topicConfigChanged = true;
+            }
+        }
+
+        // 维护主题映射
+        if (!isEmpty(delta.getTopics()) || !isEmpty(delta.getRemovedTopics())) {
+            topicConfigChanged = true;
+            if (delta.getRemovedTopics() != null) {
+                for (String removedTopic : delta.getRemovedTopics()) {
+                    TopicConfig oldTopicConfig = topicConfigMap.remove(TopicName.parse(removedTopic));
+                    if (oldTopicConfig != null) {
+                        removeTopicBrokerMapping(topicConfigBrokerMap, copiedBrokerTopics, oldTopicConfig);
+                    }
+                }
+            }
+            if (delta.getTopics() != null) {
+                for (TopicConfig topicConfig : delta.getTopics()) {
+                    TopicConfig oldTopicConfig = topicConfigMap.put(topicConfig.getName(), topicConfig);
+                    if (oldTopicConfig != null) {
+                        removeTopicBrokerMapping(topicConfigBrokerMap, copiedBrokerTopics, oldTopicConfig);
+                    }
+                    for (PartitionGroup partitionGroup : topicConfig.getPartitionGroups().values()) {
+                        fillPartitionGroupBrokers(partitionGroup, brokerMap);
+                        for (Integer replica : partitionGroup.getReplicas()) {
+                            copyOnWrite(topicConfigBrokerMap, copiedBrokerTopics, replica).put(topicConfig.getName(), topicConfig);
+                        }
+                    }
+                }
+            }
+        }
+
+        if (topicConfigChanged) {
+            List<TopicConfig> allTopicConfigs = Lists.newLinkedList();
+            List<String> allTopicCodes = Lists.newLinkedList();
+            for (Map.Entry<TopicName, TopicConfig> entry : topicConfigMap.entrySet()) {
+                allTopicConfigs.add(entry.getValue());
+                allTopicCodes.add(entry.getKey().getFullName());
+            }
+            newCache.setAllTopicConfigs(allTopicConfigs);
+            newCache.setAllTopicCodes(allTopicCodes);
+        }
+
+        // 维护producer映射
+        if (applySubscriptionDelta(newCache.getProducerTopicMap(), newCache.getProducerAppMap(), delta.getProducers(), delta.getRemovedProducers())) {
+            newCache.setAllProducers(flatSubscriptions(newCache.getProducerTopicMap()));
+        }
+
+        // 维护consumer映射
+        if (applySubscriptionDelta(newCache.getConsumerTopicMap(), newCache.getConsumerAppMap(), delta.getConsumers(), delta.getRemovedConsumers())) {
+            newCache.setAllConsumers(flatSubscriptions(newCache.getConsumerTopicMap()));
+        }
+
+        // 配置、数据中心和令牌有变更时是全量
+        if (delta.getConfigs() != null) {
+            List<Config> allConfigs = Lists.newLinkedList(delta.getConfigs());
+            Map<String, Config> configKeyMap = Maps.newHashMapWithExpectedSize(allConfigs.size());
+            for (Config config : allConfigs) {
+                configKeyMap.put(config.getId(), config);
+            }
+            newCache.setAllConfigs(allConfigs);
+            newCache.setConfigKeyMap(configKeyMap);
+        }
+
+        if (delta.getDataCenters() != null) {
+            List<DCWrapper> allDataCenterWrappers = Lists.newLinkedList();
+            Map<String, DCWrapper> dataCenterWrapperCodeMap = Maps.newHashMapWithExpectedSize(delta.getDataCenters().size());
+            for (DataCenter dataCenter : delta.getDataCenters()) {
+                DCWrapper dcWrapper = new DCWrapper(dataCenter);
+                allDataCenterWrappers.add(dcWrapper);
+                dataCenterWrapperCodeMap.put(dataCenter.getCode(), dcWrapper);
+            }
+            newCache.setAllDataCenters(allDataCenterWrappers);
+            newCache.setDataCenterCodeMap(dataCenterWrapperCodeMap);
+        }
+
+        if (delta.getAppTokens() != null) {
+            Map<String, List<AppToken>> allAppTokenMap = Maps.newHashMap();
+            for (AppToken appToken : delta.getAppTokens()) {
+                List<AppToken> appTokens = allAppTokenMap.get(appToken.getApp());
+                if (appTokens == null) {
+                    appTokens = Lists.newLinkedList();
+                    allAppTokenMap.put(appToken.getApp(), appTokens);
+                }
+                appTokens.add(appToken);
+            }
+            newCache.setAllAppTokenMap(allAppTokenMap);
+        }
+        return newCache;
+    }
+
+    /**
+     * 构建只包含增量涉及数据的缓存，补偿时只需要比较这部分数据
+     * 变更主题上的所有订阅都会包含在内，因为主题副本变化会影响订阅的补偿
+     *
+     * @param cache 从哪个缓存中取数据
+     * @param otherCache 另一个缓存，涉及的数据范围取两个缓存的并集，保证新旧两个结果范围一致
+     * @param delta 增量
+     * @return
+     */
+    public AllMetadataCache buildChangedCache(AllMetadataCache cache, AllMetadataCache otherCache, MetadataDelta delta) {
+        Set<Integer> brokers = Sets.newHashSet();
+        Set<TopicName> topics = Sets.newHashSet();
+        Map<TopicName, Set<String>> producers = Maps.newHashMap();
+        Map<TopicName, Set<String>> consumers = Maps.newHashMap();
+
+        if (delta.getBrokers() != null) {
+            for (Broker broker : delta.getBrokers()) {
+                brokers.add(broker.getId());
+            }
+        }
+        if (delta.getRemovedBrokers() != null) {
+            brokers.addAll(delta.getRemovedBrokers());
+        }
+        if (delta.getTopics() != null) {
+            for (TopicConfig topicConfig : delta.getTopics()) {
+                topics.add(topicConfig.getName());
+            }
+        }
+        if (delta.getRemovedTopics() != null) {
+            for (String removedTopic : delta.getRemovedTopics()) {
+                topics.add(TopicName.parse(removedTopic));
+            }
+        }
+
+        collectSubscriptionKeys(producers, delta.getProducers());
+        collectSubscriptionKeys(producers, delta.getRemovedProducers());
+        collectSubscriptionKeys(consumers, delta.getConsumers());
+        collectSubscriptionKeys(consumers, delta.getRemovedConsumers());
+        for (TopicName topic : topics) {
+            for (AllMetadataCache topicCache : new AllMetadataCache[] {cache, otherCache}) {
+                Map<String, Producer> topicProducers = topicCache.getProducerTopicMap().get(topic);
+                if (topicProducers != null) {
+                    producers.computeIfAbsent(topic, key -> Sets.newHashSet()).addAll(topicProducers.keySet());
+                }
+                Map<String, Consumer> topicConsumers = topicCache.getConsumerTopicMap().get(topic);
+                if (topicConsumers != null) {
+                    consumers.computeIfAbsent(topic, key -> Sets.newHashSet()).addAll(topicConsumers.keySet());
+                }
+            }
+        }
+        topics.addAll(producers.keySet());
+        topics.addAll(consumers.keySet());
+
+        Map<Integer, Broker> brokerMap = Maps.newHashMap();
+        for (Integer brokerId : brokers) {
+            Broker broker = cache.getBrokerMap().get(brokerId);
+            if (broker != null) {
+                brokerMap.put(brokerId, broker);
+            }
+        }
+
+        Map<TopicName, TopicConfig> topicConfigMap = Maps.newHashMap();
+        List<String> allTopicCodes = Lists.newLinkedList();
+        for (TopicName topic : topics) {
+            TopicConfig topicConfig = cache.getTopicConfigMap().get(topic);
+            if (topicConfig != null) {
+                topicConfigMap.put(topic, topicConfig);
+                allTopicCodes.add(topic.getFullName());
+            }
+        }
+
+        AllMetadataCache changedCache = new AllMetadataCache();
+        changedCache.setVersion(cache.getVersion());
+        changedCache.setBrokerMap(brokerMap);
+        changedCache.setAllBrokers(Lists.newLinkedList(brokerMap.values()));
+        changedCache.setTopicConfigMap(topicConfigMap);
+        changedCache.setAllTopicConfigs(Lists.newLinkedList(topicConfigMap.values()));
+        changedCache.setAllTopicCodes(allTopicCodes);
+        changedCache.setTopicConfigBrokerMap(Collections.emptyMap());
+        changedCache.setProducerTopicMap(Maps.newHashMap());
+        changedCache.setProducerAppMap(Maps.newHashMap());
+        changedCache.setConsumerTopicMap(Maps.newHashMap());
+        changedCache.setConsumerAppMap(Maps.newHashMap());
+        applySubscriptionDelta(changedCache.getProducerTopicMap(), changedCache.getProducerAppMap(),
+                filterSubscriptions(cache.getProducerTopicMap(), producers), null);
+        applySubscriptionDelta(changedCache.getConsumerTopicMap(), changedCache.getConsumerAppMap(),
+                filterSubscriptions(cache.getConsumerTopicMap(), consumers), null);
+        changedCache.setAllProducers(flatSubscriptions(changedCache.getProducerTopicMap()));
+        changedCache.setAllConsumers(flatSubscriptions(changedCache.getConsumerTopicMap()));
+
+        if (delta.getConfigs() != null) {
+            changedCache.setAllConfigs(cache.getAllConfigs());
+            changedCache.setConfigKeyMap(cache.getConfigKeyMap());
+        } else {
+            changedCache.setAllConfigs(Collections.emptyList());
+            changedCache.setConfigKeyMap(Collections.emptyMap());
+        }
+        if (delta.getDataCenters() != null) {
+            changedCache.setAllDataCenters(cache.getAllDataCenters());
+            changedCache.setDataCenterCodeMap(cache.getDataCenterCodeMap());
+        } else {
+            changedCache.setAllDataCenters(Collections.emptyList());
+            changedCache.setDataCenterCodeMap(Collections.emptyMap());
+        }
+        changedCache.setAllAppTokenMap(Collections.emptyMap());
+        return changedCache;
+    }
+
+    protected <T extends Subscription> boolean applySubscriptionDelta(Map<TopicName, Map<String, T>> topicMap, Map<String, Map<TopicName, T>> appMap,
+                                                                      List<T> subscriptions, List<T> removedSubscriptions) {
+        if (isEmpty(subscriptions) && isEmpty(removedSubscriptions)) {
+            return false;
+        }
+        Set<TopicName> copiedTopics = Sets.newHashSet();
+        Set<String> copiedApps = Sets.newHashSet();
+
+        if (removedSubscriptions != null) {
+            for (T subscription : removedSubscriptions) {
+                copyOnWrite(topicMap, copiedTopics, subscription.getTopic()).remove(subscription.getApp());
+                copyOnWrite(appMap, copiedApps, subscription.getApp()).remove(subscription.getTopic());
+            }
+        }
+        if (subscriptions != null) {
+            for (T subscription : subscriptions) {
+                copyOnWrite(topicMap, copiedTopics, subscription.getTopic()).put(subscription.getApp(), subscription);
+                copyOnWrite(appMap, copiedApps, subscription.getApp()).put(subscription.getTopic(), subscription);
+            }
+        }
+        return true;
+    }
+
+    protected <T extends Subscription> List<T> filterSubscriptions(Map<TopicName, Map<String, T>> topicMap, Map<TopicName, Set<String>> keys) {
+        List<T> result = Lists.newLinkedList();
+        for (Map.Entry<TopicName, Set<String>> entry : keys.entrySet()) {
+            Map<String, T> appMap = topicMap.get(entry.getKey());
+            if (appMap == null) {
+                continue;
+            }
+            for (String app : entry.getValue()) {
+                T subscription = appMap.get(app);
+                if (subscription != null) {
+                    result.add(subscription);
+                }
+            }
+        }
+        return result;
+    }
+
+    protected void collectSubscriptionKeys(Map<TopicName, Set<String>> keys, List<? extends Subscription> subscriptions) {
+        if (subscriptions == null) {
+            return;
+        }
+        for (Subscription subscription : subscriptions) {
+            keys.computeIfAbsent(subscription.getTopic(), key -> Sets.newHashSet()).add(subscription.getApp());
+        }
+    }
+
+    protected <T> List<T> flatSubscriptions(Map<TopicName, Map<String, T>> topicMap) {
+        List<T> result = Lists.newLinkedList();
+        for (Map<String, T> appMap : topicMap.values()) {
+            result.addAll(appMap.values());
+        }
+        return result;
+    }
+
+    protected void removeTopicBrokerMapping(Map<Integer, Map<TopicName, TopicConfig>> topicConfigBrokerMap, Set<Integer> copied, TopicConfig topicConfig) {
+        for (PartitionGroup partitionGroup : topicConfig.getPartitionGroups().values()) {
+            for (Integer replica : partitionGroup.getReplicas()) {
+                if (topicConfigBrokerMap.containsKey(replica)) {
+                    copyOnWrite(topicConfigBrokerMap, copied, replica).remove(topicConfig.getName());
+                }
+            }
+        }
+    }
+
+    protected void fillPartitionGroupBrokers(PartitionGroup partitionGroup, Map<Integer, Broker> brokerMap) {
+        Map<Integer, Broker> partitionGroupBrokerMap = Maps.newHashMap();
+        for (Integer replica : partitionGroup.getReplicas()) {
+            Broker broker = brokerMap.get(replica);
+            if (broker != null) {
+                partitionGroupBrokerMap.put(replica, broker);
+            }
+        }
+        partitionGroup.setBrokers(partitionGroupBrokerMap);
+    }
+
+    /**
+     * 内层容器和旧缓存共享，第一次修改时复制
+     */
+    protected <K, IK, V> Map<IK, V> copyOnWrite(Map<K, Map<IK, V>> map, Set<K> copied, K key) {
+        Map<IK, V> value = map.get(key);
+        if (copied.add(key)) {
+            value = (value == null ? Maps.newHashMap() : Maps.newHashMap(value));
+            map.put(key, value);
+        }
+        return value;
+    }
+
+    protected boolean isEmpty(List<?> list) {
+        return list == null || list.isEmpty();
+    }
+
     public void fillCache(AllMetadataCache cache) {
-        this.cache = cache;
+        synchronized (snapshotLock) {
+            this.cache = cache;
+            this.snapshot = null;
+        }
     }
 
     public void flushCache() {
+        // 缓存没有变化时不需要重复写入
+        AllMetadataCache cache = this.cache;
+        if (cache == flushedCache) {
+            return;
+        }
         nameServiceCacheDoubleCopy.flush(cache);
+        flushedCache = cache;
     }
 
     public Broker getBroker(int brokerId) {
+        NameServiceCacheSnapshot snapshot = getLoadingSnapshot();
+        if (snapshot != null) {
+            return snapshot.getBroker(brokerId);
+        }
         checkCacheStatus();
         return cache.getBrokerMap().get(brokerId);
     }
 
     public List<Broker> getAllBrokers() {
+        NameServiceCacheSnapshot snapshot = getLoadingSnapshot();
+        if (snapshot != null) {
+            return snapshot.getAllBrokers();
+        }
         checkCacheStatus();
         return cache.getAllBrokers();
     }
 
     public TopicConfig getTopicConfig(TopicName topic) {
+        NameServiceCacheSnapshot snapshot = getLoadingSnapshot();
+        if (snapshot != null) {
+            return snapshot.getTopicConfig(topic);
+        }
         checkCacheStatus();
         return cache.getTopicConfigMap().get(topic);
     }
 
     public Set<String> getAllTopicCodes() {
+        NameServiceCacheSnapshot snapshot = getLoadingSnapshot();
+        if (snapshot != null) {
+            return Sets.newHashSet(snapshot.getAllTopicCodes());
+        }
         checkCacheStatus();
         return Sets.newHashSet(cache.getAllTopicCodes());
     }
@@ -278,10 +698,15 @@ public class MetadataCacheManager extends Service {
     }
 
     public Map<TopicName, Producer> getProducerByApp(String app) {
+        checkCacheStatus();
         return cache.getProducerAppMap().get(app);
     }
 
     public Producer getProducerByTopicAndApp(TopicName topic, String app) {
+        NameServiceCacheSnapshot snapshot = getLoadingSnapshot();
+        if (snapshot != null) {
+            return snapshot.getProducerByTopicAndApp(topic, app);
+        }
         checkCacheStatus();
         Map<String, Producer> producerMap = cache.getProducerTopicMap().get(topic);
         if (producerMap == null) {
@@ -291,10 +716,15 @@ public class MetadataCacheManager extends Service {
     }
 
     public Map<TopicName, Consumer> getConsumerByApp(String app) {
+        checkCacheStatus();
         return cache.getConsumerAppMap().get(app);
     }
 
     public Consumer getConsumerByTopicAndApp(TopicName topic, String app) {
+        NameServiceCacheSnapshot snapshot = getLoadingSnapshot();
+        if (snapshot != null) {
+            return snapshot.getConsumerByTopicAndApp(topic, app);
+        }
         checkCacheStatus();
         Map<String, Consumer> consumerMap = cache.getConsumerTopicMap().get(topic);
         if (consumerMap == null) {
@@ -430,10 +860,24 @@ public class MetadataCacheManager extends Service {
         if (cache != null) {
             return;
         }
+        if (snapshot != null && loadSnapshot() != null) {
+            return;
+        }
         throw new NsrException();
     }
 
+    /**
+     * 缓存或快照是否存在，不触发快照加载
+     */
+    public boolean isCacheExists() {
+        return cache != null || snapshot != null;
+    }
+
     public AllMetadataCache getCache() {
+        AllMetadataCache cache = this.cache;
+        if (cache == null && snapshot != null) {
+            return loadSnapshot();
+        }
         return cache;
     }
 
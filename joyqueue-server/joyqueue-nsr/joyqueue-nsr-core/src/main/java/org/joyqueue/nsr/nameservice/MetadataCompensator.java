@@ -85,26 +85,37 @@ public class MetadataCompensator extends Service {
     }
 
     public void compensate(AllMetadataCache oldCache, AllMetadataCache newCache) {
+        compensate(oldCache, newCache, oldCache, newCache);
+    }
+
+    /**
+     * 补偿
+     * @param oldCache 旧缓存
+     * @param newCache 新缓存
+     * @param oldChangedCache 旧缓存中需要比较的部分，增量同步时只包含变更涉及的数据
+     * @param newChangedCache 新缓存中需要比较的部分
+     */
+    public void compensate(AllMetadataCache oldCache, AllMetadataCache newCache, AllMetadataCache oldChangedCache, AllMetadataCache newChangedCache) {
         if (brokerId <= 0) {
             return;
         }
         if (config.getCompensationBrokerEnable()) {
-            compensateBroker(oldCache, newCache);
+            compensateBroker(oldChangedCache, newChangedCache);
         }
         if (config.getCompensationTopicEnable()) {
-            compensateTopic(oldCache, newCache);
+            compensateTopic(oldChangedCache, newChangedCache);
         }
         if (config.getCompensationProducerEnable()) {
-            compensateProducer(oldCache, newCache);
+            compensateProducer(oldChangedCache, newChangedCache);
         }
         if (config.getCompensationConsumerEnable()) {
-            compensateConsumer(oldCache, newCache);
+            compensateConsumer(oldChangedCache, newChangedCache);
         }
         if (config.getCompensationDataCenterEnable()) {
-            compensateDataCenter(oldCache, newCache);
+            compensateDataCenter(oldChangedCache, newChangedCache);
         }
         if (config.getCompensationConfigEnable()) {
-            compensateConfig(oldCache, newCache);
+            compensateConfig(oldChangedCache, newChangedCache);
         }
         if (config.getCompensationEventEnable()) {
             publishEvent(new CompensateEvent(oldCache, newCache));
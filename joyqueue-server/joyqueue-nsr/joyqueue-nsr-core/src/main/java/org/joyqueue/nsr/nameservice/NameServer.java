@@ -27,6 +27,7 @@ import org.joyqueue.domain.ClientType;
 import org.joyqueue.domain.Config;
 import org.joyqueue.domain.Consumer;
 import org.joyqueue.domain.DataCenter;
+import org.joyqueue.domain.MetadataDelta;
 import org.joyqueue.domain.PartitionGroup;
 import org.joyqueue.domain.Producer;
 import org.joyqueue.domain.Replica;
@@ -452,6 +453,19 @@ public class NameServer extends Service implements NameService, PropertySupplier
         }
     }
 
+    @Override
+    public MetadataDelta getMetadataDelta(long version) {
+        TraceStat trace = tracer.begin("NameService.getMetadataDelta");
+        try {
+            MetadataDelta result = delegate.getMetadataDelta(version);
+            tracer.end(trace);
+            return result;
+        } catch (Exception e) {
+            tracer.error(trace);
+            throw e;
+        }
+    }
+
     @Override
     public void addListener(EventListener<NameServerEvent> listener) {
         delegate.addListener(listener);
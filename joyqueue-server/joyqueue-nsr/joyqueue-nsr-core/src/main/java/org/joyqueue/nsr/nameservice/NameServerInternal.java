@@ -30,6 +30,8 @@ import org.joyqueue.domain.ClientType;
 import org.joyqueue.domain.Config;
 import org.joyqueue.domain.Consumer;
 import org.joyqueue.domain.DataCenter;
+import org.joyqueue.domain.MetadataChange;
+import org.joyqueue.domain.MetadataDelta;
 import org.joyqueue.domain.PartitionGroup;
 import org.joyqueue.domain.Producer;
 import org.joyqueue.domain.Replica;
@@ -49,6 +51,7 @@ import org.joyqueue.nsr.service.BrokerService;
 import org.joyqueue.nsr.service.ConfigService;
 import org.joyqueue.nsr.service.ConsumerService;
 import org.joyqueue.nsr.service.DataCenterService;
+import org.joyqueue.nsr.service.MetadataChangeLogService;
 import org.joyqueue.nsr.service.NamespaceService;
 import org.joyqueue.nsr.service.PartitionGroupReplicaService;
 import org.joyqueue.nsr.service.PartitionGroupService;
@@ -531,6 +534,10 @@ public class NameServerInternal extends Service implements NameService, Property
 
     @Override
     public AllMetadata getAllMetadata() {
+        // 先取版本再取数据，保证增量同步时不会漏掉取数据过程中的变更
+        MetadataChangeLogService metadataChangeLogService = serviceProvider.getService(MetadataChangeLogService.class);
+        long version = (metadataChangeLogService != null ? metadataChangeLogService.getVersion() : 0);
+
         Map<TopicName, TopicConfig> topicConfigs = getAllTopicConfigs();
         List<Broker> allBrokers = metaManager.getAllBrokers();
         List<Config> allConfigs = metaManager.getAllConfigs();
@@ -566,9 +573,168 @@ public class NameServerInternal extends Service implements NameService, Property
         allMetadata.setDataCenters(allDataCenters);
         allMetadata.setConfigs(allConfigs);
         allMetadata.setAppTokens(allAppTokens);
+        allMetadata.setVersion(version);
         return allMetadata;
     }
 
+    @Override
+    public MetadataDelta getMetadataDelta(long version) {
+        MetadataChangeLogService metadataChangeLogService = serviceProvider.getService(MetadataChangeLogService.class);
+        if (metadataChangeLogService == null || version <= 0) {
+            return null;
+        }
+        long currentVersion = metadataChangeLogService.getVersion();
+        if (version > currentVersion || !metadataChangeLogService.contains(version)) {
+            return null;
+        }
+
+        MetadataDelta delta = new MetadataDelta();
+        delta.setVersion(version);
+        if (version == currentVersion) {
+            return delta;
+        }
+
+        int maxChanges = nameServerConfig.getMetadataDeltaMaxChanges();
+        List<MetadataChange> changes = metadataChangeLogService.getChanges(version, maxChanges + 1);
+        if (changes.isEmpty() || changes.size() > maxChanges) {
+            return null;
+        }
+
+        Map<MetadataChange.Type, Set<String>> changeKeys = Maps.newHashMap();
+        for (MetadataChange change : changes) {
+            // 无法识别的变更只能全量同步
+            if (change.getKey() == null) {
+                return null;
+            }
+            changeKeys.computeIfAbsent(change.getType(), key -> new HashSet<>()).add(change.getKey());
+        }
+
+        delta.setVersion(changes.get(changes.size() - 1).getVersion());
+        fillTopicDelta(delta, changeKeys.get(MetadataChange.Type.TOPIC));
+        fillBrokerDelta(delta, changeKeys.get(MetadataChange.Type.BROKER));
+        fillProducerDelta(delta, changeKeys.get(MetadataChange.Type.PRODUCER));
+        fillConsumerDelta(delta, changeKeys.get(MetadataChange.Type.CONSUMER));
+        if (changeKeys.containsKey(MetadataChange.Type.CONFIG)) {
+            delta.setConfigs(metaManager.getAllConfigs());
+        }
+        if (changeKeys.containsKey(MetadataChange.Type.DATACENTER)) {
+            delta.setDataCenters(Lists.newArrayList(metaManager.getAllDataCenter()));
+        }
+        if (changeKeys.containsKey(MetadataChange.Type.APP_TOKEN)) {
+            delta.setAppTokens(metaManager.getAllAppToken());
+        }
+        return delta;
+    }
+
+    protected void fillTopicDelta(MetadataDelta delta, Set<String> keys) {
+        if (keys == null) {
+            return;
+        }
+        List<TopicConfig> topics = Lists.newArrayList();
+        List<String> removedTopics = Lists.newArrayList();
+        for (String key : keys) {
+            TopicName topicName = TopicName.parse(key);
+            Topic topic = metaManager.getTopicByName(topicName);
+            if (topic == null) {
+                removedTopics.add(key);
+                continue;
+            }
+            TopicConfig topicConfig = TopicConfig.toTopicConfig(topic);
+            Map<Integer, PartitionGroup> partitionGroups = Maps.newHashMap();
+            for (PartitionGroup partitionGroup : metaManager.getPartitionGroupByTopic(topicName)) {
+                partitionGroups.put(partitionGroup.getGroup(), partitionGroup);
+            }
+            topicConfig.setPartitionGroups(partitionGroups);
+            topics.add(topicConfig);
+        }
+        delta.setTopics(topics);
+        delta.setRemovedTopics(removedTopics);
+    }
+
+    protected void fillBrokerDelta(MetadataDelta delta, Set<String> keys) {
+        if (keys == null) {
+            return;
+        }
+        List<Broker> brokers = Lists.newArrayList();
+        List<Integer> removedBrokers = Lists.newArrayList();
+        for (String key : keys) {
+            Integer brokerId = Integer.valueOf(key);
+            Broker broker = metaManager.getBrokerById(brokerId);
+            if (broker == null) {
+                removedBrokers.add(brokerId);
+            } else {
+                brokers.add(broker);
+            }
+        }
+        delta.setBrokers(brokers);
+        delta.setRemovedBrokers(removedBrokers);
+    }
+
+    protected void fillProducerDelta(MetadataDelta delta, Set<String> keys) {
+        if (keys == null) {
+            return;
+        }
+        List<Producer> producers = Lists.newArrayList();
+        List<Producer> removedProducers = Lists.newArrayList();
+        for (String key : keys) {
+            for (Subscription subscription : parseSubscriptionKey(key)) {
+                Producer producer = metaManager.getProducer(subscription.getTopic(), subscription.getApp());
+                if (producer != null) {
+                    producers.add(producer);
+                } else {
+                    Producer removedProducer = new Producer();
+                    removedProducer.setTopic(subscription.getTopic());
+                    removedProducer.setApp(subscription.getApp());
+                    removedProducers.add(removedProducer);
+                }
+            }
+        }
+        delta.setProducers(producers);
+        delta.setRemovedProducers(removedProducers);
+    }
+
+    protected void fillConsumerDelta(MetadataDelta delta, Set<String> keys) {
+        if (keys == null) {
+            return;
+        }
+        List<Consumer> consumers = Lists.newArrayList();
+        List<Consumer> removedConsumers = Lists.newArrayList();
+        for (String key : keys) {
+            for (Subscription subscription : parseSubscriptionKey(key)) {
+                Consumer consumer = metaManager.getConsumer(subscription.getTopic(), subscription.getApp());
+                if (consumer != null) {
+                    consumers.add(consumer);
+                } else {
+                    Consumer removedConsumer = new Consumer();
+                    removedConsumer.setTopic(subscription.getTopic());
+                    removedConsumer.setApp(subscription.getApp());
+                    removedConsumers.add(removedConsumer);
+                }
+            }
+        }
+        delta.setConsumers(consumers);
+        delta.setRemovedConsumers(removedConsumers);
+    }
+
+    /**
+     * 订阅标识为topic全名.app，app本身可能带有点号，所以返回所有可能的拆分
+     */
+    protected List<Subscription> parseSubscriptionKey(String key) {
+        List<Subscription> result = Lists.newArrayListWithCapacity(2);
+        int index = key.indexOf('.');
+        while (index > 0 && index < key.length() - 1) {
+            Subscription subscription = new Subscription();
+            subscription.setTopic(TopicName.parse(key.substring(0, index)));
+            subscription.setApp(key.substring(index + 1));
+            result.add(subscription);
+            if (result.size() >= 2) {
+                break;
+            }
+            index = key.indexOf('.', index + 1);
+        }
+        return result;
+    }
+
     protected Map<TopicName, TopicConfig> getAllTopicConfigs() {
         List<Topic> topics = metaManager.getAllTopics();
         List<PartitionGroup> partitionGroups = metaManager.getAllPartitionGroups();
@@ -16,7 +16,6 @@
 package org.joyqueue.nsr.nameservice;
 
 import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.serializer.SerializerFeature;
 import org.joyqueue.nsr.exception.NsrException;
 import org.joyqueue.toolkit.io.DoubleCopy;
 import org.joyqueue.toolkit.io.ZipUtil;
@@ -26,6 +25,10 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 
+/**
+ * 元数据缓存文件
+ * 默认使用二进制快照格式，兼容读取旧版本的json格式
+ */
 public class NameServiceCacheDoubleCopy extends DoubleCopy {
 
     protected static final Logger logger = LoggerFactory.getLogger(NameServiceCacheDoubleCopy.class);
@@ -33,27 +36,30 @@ public class NameServiceCacheDoubleCopy extends DoubleCopy {
     private static final int DEFAULT_MAX_LENGTH =  1024 * 1024 * 100;
 
     private static final int VERSION_V0 = 0;
-    private static final int CURRENT_VERSION = VERSION_V0;
 
     private File file;
+    private boolean compress;
 
-    protected NameServiceCacheEntry entry;
+    protected AllMetadataCache cache;
+    protected NameServiceCacheSnapshot snapshot;
 
-    public NameServiceCacheDoubleCopy(File file, int maxLength) throws IOException {
+    public NameServiceCacheDoubleCopy(File file, int maxLength, boolean compress) throws IOException {
         super(file, maxLength);
         this.file = file;
+        this.compress = compress;
+    }
+
+    public NameServiceCacheDoubleCopy(File file, boolean compress) throws IOException {
+        this(file, DEFAULT_MAX_LENGTH, compress);
     }
 
     public NameServiceCacheDoubleCopy(File file) throws IOException {
-        this(file, DEFAULT_MAX_LENGTH);
+        this(file, true);
     }
 
     public void flush(AllMetadataCache cache) {
-        if (entry == null) {
-            entry = new NameServiceCacheEntry(CURRENT_VERSION, cache);
-        } else {
-            entry = new NameServiceCacheEntry(entry.getVersion(), cache);
-        }
+        this.cache = cache;
+        this.snapshot = null;
         super.flush();
     }
 
@@ -65,14 +71,13 @@ public class NameServiceCacheDoubleCopy extends DoubleCopy {
     @Override
     protected byte[] serialize() {
         try {
-            byte[] json = JSON.toJSONBytes(entry, SerializerFeature.DisableCircularReferenceDetect);
-            json = ZipUtil.compress(json);
+            byte[] data = NameServiceCacheSnapshot.serialize(cache, compress);
 
             if (logger.isDebugEnabled()) {
-                logger.debug("save nameservice cache, value: {}, file: {}", new String(json), file);
+                logger.debug("save nameservice cache, length: {}, file: {}", data.length, file);
             }
 
-            return json;
+            return data;
         } catch (Exception e) {
             logger.error("serialize cache exception", e);
             return new byte[0];
@@ -83,18 +88,16 @@ public class NameServiceCacheDoubleCopy extends DoubleCopy {
     protected void parse(byte[] data) {
         try {
             if (logger.isDebugEnabled()) {
-                logger.debug("load nameservice cache, value: {}, file: {}", new String(data), file);
+                logger.debug("load nameservice cache, length: {}, file: {}", data.length, file);
             }
 
-            data = ZipUtil.decompress(data).getBytes();
-            NameServiceCacheEntry entry = JSON.parseObject(data, NameServiceCacheEntry.class);
-
-            if (entry != null && entry.getVersion() != CURRENT_VERSION) {
-                logger.warn("nameservice cache check version failed, current: {}, required: {}", entry.getVersion(), CURRENT_VERSION);
-                throw new NsrException("check version failed");
+            if (NameServiceCacheSnapshot.isSnapshot(data)) {
+                this.snapshot = NameServiceCacheSnapshot.parse(data);
+                this.cache = null;
+            } else {
+                this.cache = parseJson(data);
+                this.snapshot = null;
             }
-
-            this.entry = entry;
         } catch (Exception e) {
             logger.error("load nameservice cache exception, file: {}", file, e);
             if (e instanceof NsrException) {
@@ -105,13 +108,34 @@ public class NameServiceCacheDoubleCopy extends DoubleCopy {
         }
     }
 
-    public AllMetadataCache getCache() {
+    protected AllMetadataCache parseJson(byte[] data) throws IOException {
+        data = ZipUtil.decompress(data).getBytes();
+        NameServiceCacheEntry entry = JSON.parseObject(data, NameServiceCacheEntry.class);
+
         if (entry == null) {
             return null;
         }
+        if (entry.getVersion() != VERSION_V0) {
+            logger.warn("nameservice cache check version failed, current: {}, required: {}", entry.getVersion(), VERSION_V0);
+            throw new NsrException("check version failed");
+        }
         return entry.getCache();
     }
 
+    /**
+     * 旧版本json格式的缓存
+     */
+    public AllMetadataCache getCache() {
+        return cache;
+    }
+
+    /**
+     * 二进制格式的缓存快照
+     */
+    public NameServiceCacheSnapshot getSnapshot() {
+        return snapshot;
+    }
+
     public static class NameServiceCacheEntry {
         private int version;
         private AllMetadataCache cache;
@@ -0,0 +1,702 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.nsr.nameservice;
+
+import com.alibaba.fastjson.JSON;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.joyqueue.domain.AllMetadata;
+import org.joyqueue.domain.AppToken;
+import org.joyqueue.domain.Broker;
+import org.joyqueue.domain.ClientType;
+import org.joyqueue.domain.Config;
+import org.joyqueue.domain.Consumer;
+import org.joyqueue.domain.DataCenter;
+import org.joyqueue.domain.PartitionGroup;
+import org.joyqueue.domain.Producer;
+import org.joyqueue.domain.Subscription;
+import org.joyqueue.domain.Topic;
+import org.joyqueue.domain.TopicConfig;
+import org.joyqueue.domain.TopicName;
+import org.joyqueue.domain.TopicType;
+import org.joyqueue.nsr.exception.NsrException;
+import org.joyqueue.nsr.util.DCWrapper;
+import org.joyqueue.toolkit.io.ZipUtil;
+import org.joyqueue.toolkit.retry.RetryPolicy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 元数据缓存快照
+ * 二进制格式，字符串统一存放在字符串表中，主题和订阅按长度前缀存储
+ * 加载时只解析broker和索引，主题和订阅按需解析，完整缓存可以异步构建
+ *
+ * author: gaohaoxiang
+ * date: 2020/3/10
+ */
+public class NameServiceCacheSnapshot {
+
+    public static final int MAGIC = 0x4A514D43;
+    public static final byte VERSION_V1 = 1;
+    public static final byte CURRENT_VERSION = VERSION_V1;
+
+    private static final int HEADER_SIZE = 4 + 1 + 1 + 4;
+    private static final byte FLAG_COMPRESSED = 0x01;
+    private static final int NULL = -1;
+
+    private long version;
+    private String[] strings;
+    private TopicName[] topicNames;
+    private ByteBuf body;
+
+    private List<Broker> brokers;
+    private Map<Integer /** brokerId **/, Broker> brokerMap;
+    private Map<String /** topic **/, Integer /** offset **/> topicIndex;
+    private Map<String /** topic **/, Map<String /** app **/, Integer /** offset **/>> producerIndex;
+    private Map<String /** topic **/, Map<String /** app **/, Integer /** offset **/>> consumerIndex;
+    private int producerOffset;
+    private int consumerOffset;
+    private int configOffset;
+
+    protected NameServiceCacheSnapshot() {
+
+    }
+
+    public static boolean isSnapshot(byte[] data) {
+        return data != null && data.length >= HEADER_SIZE && Unpooled.wrappedBuffer(data).getInt(0) == MAGIC;
+    }
+
+    public static byte[] serialize(AllMetadataCache cache, boolean compress) throws IOException {
+        StringTable stringTable = new StringTable();
+        ByteBuf body = Unpooled.buffer();
+
+        body.writeLong(cache.getVersion());
+        writeBrokers(nullToEmpty(cache.getAllBrokers()), stringTable, body);
+        writeTopics(nullToEmpty(cache.getAllTopicConfigs()), stringTable, body);
+        writeProducers(nullToEmpty(cache.getAllProducers()), stringTable, body);
+        writeConsumers(nullToEmpty(cache.getAllConsumers()), stringTable, body);
+        writeConfigs(nullToEmpty(cache.getAllConfigs()), stringTable, body);
+        writeDataCenters(nullToEmpty(cache.getAllDataCenters()), stringTable, body);
+        writeAppTokens(cache.getAllAppTokenMap(), stringTable, body);
+
+        ByteBuf payload = Unpooled.buffer(stringTable.size() + body.readableBytes());
+        stringTable.write(payload);
+        payload.writeBytes(body);
+
+        byte[] payloadBytes = new byte[payload.readableBytes()];
+        payload.readBytes(payloadBytes);
+        int length = payloadBytes.length;
+        if (compress) {
+            payloadBytes = ZipUtil.compressByZlib(payloadBytes, 0, payloadBytes.length);
+        }
+
+        ByteBuf result = Unpooled.buffer(HEADER_SIZE + payloadBytes.length);
+        result.writeInt(MAGIC);
+        result.writeByte(CURRENT_VERSION);
+        result.writeByte(compress ? FLAG_COMPRESSED : 0);
+        result.writeInt(length);
+        result.writeBytes(payloadBytes);
+
+        byte[] bytes = new byte[result.readableBytes()];
+        result.readBytes(bytes);
+        return bytes;
+    }
+
+    public static NameServiceCacheSnapshot parse(byte[] data) throws IOException {
+        ByteBuf buffer = Unpooled.wrappedBuffer(data);
+        if (buffer.readInt() != MAGIC) {
+            throw new NsrException("nameservice cache snapshot check magic failed");
+        }
+        byte version = buffer.readByte();
+        if (version != CURRENT_VERSION) {
+            throw new NsrException(String.format("nameservice cache snapshot check version failed, current: %s, required: %s", version, CURRENT_VERSION));
+        }
+        byte flag = buffer.readByte();
+        int length = buffer.readInt();
+
+        ByteBuf payload;
+        if ((flag & FLAG_COMPRESSED) != 0) {
+            byte[] decompressed = ZipUtil.decompressByZlib(data, HEADER_SIZE, data.length - HEADER_SIZE);
+            if (decompressed == null || decompressed.length != length) {
+                throw new NsrException("nameservice cache snapshot check length failed");
+            }
+            payload = Unpooled.wrappedBuffer(decompressed);
+        } else {
+            payload = buffer.slice(HEADER_SIZE, length);
+        }
+
+        NameServiceCacheSnapshot snapshot = new NameServiceCacheSnapshot();
+        snapshot.load(payload);
+        return snapshot;
+    }
+
+    protected void load(ByteBuf payload) {
+        int stringSize = payload.readInt();
+        strings = new String[stringSize];
+        topicNames = new TopicName[stringSize];
+        for (int i = 0; i < stringSize; i++) {
+            int length = payload.readInt();
+            strings[i] = payload.toString(payload.readerIndex(), length, StandardCharsets.UTF_8);
+            payload.skipBytes(length);
+        }
+
+        body = payload.slice(payload.readerIndex(), payload.readableBytes());
+        ByteBuf in = body.duplicate();
+        version = in.readLong();
+
+        int brokerSize = in.readInt();
+        brokers = Lists.newArrayListWithCapacity(brokerSize);
+        brokerMap = Maps.newHashMapWithExpectedSize(brokerSize);
+        for (int i = 0; i < brokerSize; i++) {
+            Broker broker = readBroker(in);
+            brokers.add(broker);
+            brokerMap.put(broker.getId(), broker);
+        }
+
+        // 只建立索引，记录按需解析
+        int topicSize = in.readInt();
+        topicIndex = Maps.newHashMapWithExpectedSize(topicSize);
+        for (int i = 0; i < topicSize; i++) {
+            String topic = readString(in);
+            int length = in.readInt();
+            topicIndex.put(topic, in.readerIndex());
+            in.skipBytes(length);
+        }
+
+        producerOffset = in.readerIndex();
+        producerIndex = readSubscriptionIndex(in);
+        consumerOffset = in.readerIndex();
+        consumerIndex = readSubscriptionIndex(in);
+        configOffset = in.readerIndex();
+    }
+
+    protected Map<String, Map<String, Integer>> readSubscriptionIndex(ByteBuf in) {
+        int size = in.readInt();
+        Map<String, Map<String, Integer>> result = Maps.newHashMap();
+        for (int i = 0; i < size; i++) {
+            String topic = readString(in);
+            String app = readString(in);
+            int length = in.readInt();
+            Map<String, Integer> appMap = result.get(topic);
+            if (appMap == null) {
+                appMap = Maps.newHashMap();
+                result.put(topic, appMap);
+            }
+            appMap.put(app, in.readerIndex());
+            in.skipBytes(length);
+        }
+        return result;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Broker getBroker(int brokerId) {
+        return brokerMap.get(brokerId);
+    }
+
+    public List<Broker> getAllBrokers() {
+        return brokers;
+    }
+
+    public Set<String> getAllTopicCodes() {
+        return Collections.unmodifiableSet(topicIndex.keySet());
+    }
+
+    public TopicConfig getTopicConfig(TopicName topic) {
+        Integer offset = topicIndex.get(topic.getFullName());
+        if (offset == null) {
+            return null;
+        }
+        TopicConfig topicConfig = readTopicConfig(topic, body.duplicate().readerIndex(offset));
+        fillBrokers(topicConfig);
+        return topicConfig;
+    }
+
+    public Producer getProducerByTopicAndApp(TopicName topic, String app) {
+        Integer offset = getSubscriptionOffset(producerIndex, topic, app);
+        if (offset == null) {
+            return null;
+        }
+        return readProducer(topic, app, body.duplicate().readerIndex(offset));
+    }
+
+    public Consumer getConsumerByTopicAndApp(TopicName topic, String app) {
+        Integer offset = getSubscriptionOffset(consumerIndex, topic, app);
+        if (offset == null) {
+            return null;
+        }
+        return readConsumer(topic, app, body.duplicate().readerIndex(offset));
+    }
+
+    protected Integer getSubscriptionOffset(Map<String, Map<String, Integer>> index, TopicName topic, String app) {
+        Map<String, Integer> appMap = index.get(topic.getFullName());
+        if (appMap == null) {
+            return null;
+        }
+        return appMap.get(app);
+    }
+
+    protected void fillBrokers(TopicConfig topicConfig) {
+        for (PartitionGroup partitionGroup : topicConfig.getPartitionGroups().values()) {
+            Map<Integer, Broker> partitionGroupBrokerMap = Maps.newHashMap();
+            for (Integer replica : partitionGroup.getReplicas()) {
+                Broker broker = brokerMap.get(replica);
+                if (broker != null) {
+                    partitionGroupBrokerMap.put(replica, broker);
+                }
+            }
+            partitionGroup.setBrokers(partitionGroupBrokerMap);
+        }
+    }
+
+    /**
+     * 解析完整元数据
+     */
+    public AllMetadata toAllMetadata() {
+        AllMetadata allMetadata = new AllMetadata();
+        allMetadata.setVersion(version);
+        allMetadata.setBrokers(Maps.newHashMap(brokerMap));
+
+        ByteBuf in = body.duplicate();
+        Map<TopicName, TopicConfig> topics = Maps.newHashMapWithExpectedSize(topicIndex.size());
+        for (Map.Entry<String, Integer> entry : topicIndex.entrySet()) {
+            TopicName topicName = TopicName.parse(entry.getKey());
+            topics.put(topicName, readTopicConfig(topicName, in.readerIndex(entry.getValue())));
+        }
+        allMetadata.setTopics(topics);
+
+        in.readerIndex(producerOffset);
+        int producerSize = in.readInt();
+        List<Producer> producers = Lists.newArrayListWithCapacity(producerSize);
+        for (int i = 0; i < producerSize; i++) {
+            TopicName topic = readTopicName(in);
+            String app = readString(in);
+            in.skipBytes(4);
+            producers.add(readProducer(topic, app, in));
+        }
+        allMetadata.setProducers(producers);
+
+        in.readerIndex(consumerOffset);
+        int consumerSize = in.readInt();
+        List<Consumer> consumers = Lists.newArrayListWithCapacity(consumerSize);
+        for (int i = 0; i < consumerSize; i++) {
+            TopicName topic = readTopicName(in);
+            String app = readString(in);
+            in.skipBytes(4);
+            consumers.add(readConsumer(topic, app, in));
+        }
+        allMetadata.setConsumers(consumers);
+
+        in.readerIndex(configOffset);
+        allMetadata.setConfigs(readConfigs(in));
+        allMetadata.setDataCenters(readDataCenters(in));
+        allMetadata.setAppTokens(readAppTokens(in));
+        return allMetadata;
+    }
+
+    protected static void writeBrokers(List<Broker> brokers, StringTable stringTable, ByteBuf out) {
+        out.writeInt(brokers.size());
+        for (Broker broker : brokers) {
+            out.writeInt(broker.getId());
+            stringTable.write(broker.getIp(), out);
+            out.writeInt(broker.getPort());
+            stringTable.write(broker.getDataCenter(), out);
+            stringTable.write(broker.getRetryType(), out);
+            stringTable.write(broker.getPermission() == null ? null : broker.getPermission().name(), out);
+        }
+    }
+
+    protected Broker readBroker(ByteBuf in) {
+        Broker broker = new Broker();
+        broker.setId(in.readInt());
+        broker.setIp(readString(in));
+        broker.setPort(in.readInt());
+        broker.setDataCenter(readString(in));
+        broker.setRetryType(readString(in));
+        broker.setPermission(readEnum(Broker.PermissionEnum.class, in));
+        return broker;
+    }
+
+    protected static void writeTopics(List<TopicConfig> topicConfigs, StringTable stringTable, ByteBuf out) {
+        out.writeInt(topicConfigs.size());
+        for (TopicConfig topicConfig : topicConfigs) {
+            stringTable.write(topicConfig.getName().getFullName(), out);
+            int lengthIndex = out.writerIndex();
+            out.writeInt(0);
+
+            out.writeShort(topicConfig.getPartitions());
+            stringTable.write(topicConfig.getType() == null ? null : topicConfig.getType().name(), out);
+            writeShorts(topicConfig.getPriorityPartitions(), out);
+
+            Map<Integer, PartitionGroup> partitionGroups = (topicConfig.getPartitionGroups() == null ?
+                    Collections.emptyMap() : topicConfig.getPartitionGroups());
+            out.writeInt(partitionGroups.size());
+            for (PartitionGroup partitionGroup : partitionGroups.values()) {
+                out.writeInt(partitionGroup.getGroup());
+                writeInteger(partitionGroup.getLeader(), out);
+                writeInteger(partitionGroup.getRecLeader(), out);
+                writeInteger(partitionGroup.getTerm(), out);
+                stringTable.write(partitionGroup.getElectType() == null ? null : partitionGroup.getElectType().name(), out);
+                writeShorts(partitionGroup.getPartitions(), out);
+                writeInts(partitionGroup.getReplicas(), out);
+                writeInts(partitionGroup.getIsrs(), out);
+                writeInts(partitionGroup.getLearners(), out);
+                writeInts(partitionGroup.getOutSyncReplicas(), out);
+            }
+
+            out.setInt(lengthIndex, out.writerIndex() - lengthIndex - 4);
+        }
+    }
+
+    protected TopicConfig readTopicConfig(TopicName topicName, ByteBuf in) {
+        TopicConfig topicConfig = new TopicConfig();
+        topicConfig.setName(topicName);
+        topicConfig.setPartitions(in.readShort());
+        topicConfig.setType(readEnum(Topic.Type.class, in));
+        topicConfig.setPriorityPartitions(readShorts(in));
+
+        int partitionGroupSize = in.readInt();
+        Map<Integer, PartitionGroup> partitionGroups = Maps.newHashMapWithExpectedSize(partitionGroupSize);
+        for (int i = 0; i < partitionGroupSize; i++) {
+            PartitionGroup partitionGroup = new PartitionGroup();
+            partitionGroup.setTopic(topicName);
+            partitionGroup.setGroup(in.readInt());
+            partitionGroup.setLeader(readInteger(in));
+            partitionGroup.setRecLeader(readInteger(in));
+            partitionGroup.setTerm(readInteger(in));
+            partitionGroup.setElectType(readEnum(PartitionGroup.ElectType.class, in));
+            partitionGroup.setPartitions(readShorts(in));
+            partitionGroup.setReplicas(readInts(in));
+            partitionGroup.setIsrs(readInts(in));
+            partitionGroup.setLearners(readInts(in));
+            partitionGroup.setOutSyncReplicas(readIntList(in));
+            partitionGroups.put(partitionGroup.getGroup(), partitionGroup);
+        }
+        topicConfig.setPartitionGroups(partitionGroups);
+        return topicConfig;
+    }
+
+    protected static void writeProducers(List<Producer> producers, StringTable stringTable, ByteBuf out) {
+        out.writeInt(producers.size());
+        for (Producer producer : producers) {
+            int lengthIndex = writeSubscription(producer, stringTable, out);
+            stringTable.write(producer.getClientType() == null ? null : producer.getClientType().name(), out);
+            stringTable.writeJson(producer.getProducerPolicy(), out);
+            stringTable.writeJson(producer.getLimitPolicy(), out);
+            out.setInt(lengthIndex, out.writerIndex() - lengthIndex - 4);
+        }
+    }
+
+    protected Producer readProducer(TopicName topic, String app, ByteBuf in) {
+        Producer producer = new Producer();
+        producer.setTopic(topic);
+        producer.setApp(app);
+        producer.setType(readEnum(Subscription.Type.class, in));
+        producer.setClientType(readEnum(ClientType.class, in));
+        producer.setProducerPolicy(readJson(Producer.ProducerPolicy.class, in));
+        producer.setLimitPolicy(readJson(Producer.ProducerLimitPolicy.class, in));
+        return producer;
+    }
+
+    protected static void writeConsumers(List<Consumer> consumers, StringTable stringTable, ByteBuf out) {
+        out.writeInt(consumers.size());
+        for (Consumer consumer : consumers) {
+            int lengthIndex = writeSubscription(consumer, stringTable, out);
+            stringTable.write(consumer.getClientType() == null ? null : consumer.getClientType().name(), out);
+            stringTable.write(consumer.getTopicType() == null ? null : consumer.getTopicType().name(), out);
+            stringTable.writeJson(consumer.getRetryPolicy(), out);
+            stringTable.writeJson(consumer.getConsumerPolicy(), out);
+            stringTable.writeJson(consumer.getLimitPolicy(), out);
+            out.setInt(lengthIndex, out.writerIndex() - lengthIndex - 4);
+        }
+    }
+
+    protected Consumer readConsumer(TopicName topic, String app, ByteBuf in) {
+        Consumer consumer = new Consumer();
+        consumer.setTopic(topic);
+        consumer.setApp(app);
+        consumer.setType(readEnum(Subscription.Type.class, in));
+        consumer.setClientType(readEnum(ClientType.class, in));
+        consumer.setTopicType(readEnum(TopicType.class, in));
+        consumer.setRetryPolicy(readJson(RetryPolicy.class, in));
+        consumer.setConsumerPolicy(readJson(Consumer.ConsumerPolicy.class, in));
+        consumer.setLimitPolicy(readJson(Consumer.ConsumerLimitPolicy.class, in));
+        return consumer;
+    }
+
+    /**
+     * 写入订阅的主题和应用，返回记录长度的位置
+     */
+    protected static int writeSubscription(Subscription subscription, StringTable stringTable, ByteBuf out) {
+        stringTable.write(subscription.getTopic().getFullName(), out);
+        stringTable.write(subscription.getApp(), out);
+        int lengthIndex = out.writerIndex();
+        out.writeInt(0);
+        stringTable.write(subscription.getType() == null ? null : subscription.getType().name(), out);
+        return lengthIndex;
+    }
+
+    protected static void writeConfigs(List<Config> configs, StringTable stringTable, ByteBuf out) {
+        out.writeInt(configs.size());
+        for (Config config : configs) {
+            stringTable.write(config.getGroup(), out);
+            stringTable.write(config.getKey(), out);
+            stringTable.write(config.getValue(), out);
+        }
+    }
+
+    protected List<Config> readConfigs(ByteBuf in) {
+        int size = in.readInt();
+        List<Config> result = Lists.newArrayListWithCapacity(size);
+        for (int i = 0; i < size; i++) {
+            Config config = new Config();
+            config.setGroup(readString(in));
+            config.setKey(readString(in));
+            config.setValue(readString(in));
+            result.add(config);
+        }
+        return result;
+    }
+
+    protected static void writeDataCenters(List<DCWrapper> dataCenters, StringTable stringTable, ByteBuf out) {
+        out.writeInt(dataCenters.size());
+        for (DCWrapper dcWrapper : dataCenters) {
+            DataCenter dataCenter = dcWrapper.getDataCenter();
+            stringTable.write(dataCenter.getCode(), out);
+            stringTable.write(dataCenter.getName(), out);
+            stringTable.write(dataCenter.getRegion(), out);
+            stringTable.write(dataCenter.getUrl(), out);
+        }
+    }
+
+    protected List<DataCenter> readDataCenters(ByteBuf in) {
+        int size = in.readInt();
+        List<DataCenter> result = Lists.newArrayListWithCapacity(size);
+        for (int i = 0; i < size; i++) {
+            DataCenter dataCenter = new DataCenter();
+            dataCenter.setCode(readString(in));
+            dataCenter.setName(readString(in));
+            dataCenter.setRegion(readString(in));
+            dataCenter.setUrl(readString(in));
+            result.add(dataCenter);
+        }
+        return result;
+    }
+
+    protected static void writeAppTokens(Map<String, List<AppToken>> appTokenMap, StringTable stringTable, ByteBuf out) {
+        List<AppToken> appTokens = Lists.newArrayList();
+        if (appTokenMap != null) {
+            for (List<AppToken> value : appTokenMap.values()) {
+                appTokens.addAll(value);
+            }
+        }
+        out.writeInt(appTokens.size());
+        for (AppToken appToken : appTokens) {
+            writeLong(appToken.getId(), out);
+            stringTable.write(appToken.getApp(), out);
+            stringTable.write(appToken.getToken(), out);
+            writeLong(appToken.getEffectiveTime() == null ? null : appToken.getEffectiveTime().getTime(), out);
+            writeLong(appToken.getExpirationTime() == null ? null : appToken.getExpirationTime().getTime(), out);
+        }
+    }
+
+    protected List<AppToken> readAppTokens(ByteBuf in) {
+        int size = in.readInt();
+        List<AppToken> result = Lists.newArrayListWithCapacity(size);
+        for (int i = 0; i < size; i++) {
+            AppToken appToken = new AppToken();
+            appToken.setId(readLong(in));
+            appToken.setApp(readString(in));
+            appToken.setToken(readString(in));
+            Long effectiveTime = readLong(in);
+            appToken.setEffectiveTime(effectiveTime == null ? null : new Date(effectiveTime));
+            Long expirationTime = readLong(in);
+            appToken.setExpirationTime(expirationTime == null ? null : new Date(expirationTime));
+            result.add(appToken);
+        }
+        return result;
+    }
+
+    protected String readString(ByteBuf in) {
+        int index = in.readInt();
+        return (index == NULL ? null : strings[index]);
+    }
+
+    /**
+     * 主题名按字符串表复用同一个实例
+     */
+    protected TopicName readTopicName(ByteBuf in) {
+        int index = in.readInt();
+        TopicName topicName = topicNames[index];
+        if (topicName == null) {
+            topicName = TopicName.parse(strings[index]);
+            topicNames[index] = topicName;
+        }
+        return topicName;
+    }
+
+    protected <E extends Enum<E>> E readEnum(Class<E> type, ByteBuf in) {
+        String name = readString(in);
+        return (name == null ? null : Enum.valueOf(type, name));
+    }
+
+    protected <T> T readJson(Class<T> type, ByteBuf in) {
+        String json = readString(in);
+        return (json == null ? null : JSON.parseObject(json, type));
+    }
+
+    protected static void writeInteger(Integer value, ByteBuf out) {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    protected static Integer readInteger(ByteBuf in) {
+        return (in.readBoolean() ? in.readInt() : null);
+    }
+
+    protected static void writeLong(Long value, ByteBuf out) {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    protected static Long readLong(ByteBuf in) {
+        return (in.readBoolean() ? in.readLong() : null);
+    }
+
+    protected static void writeShorts(Collection<Short> values, ByteBuf out) {
+        if (values == null) {
+            out.writeInt(NULL);
+            return;
+        }
+        out.writeInt(values.size());
+        for (Short value : values) {
+            out.writeShort(value);
+        }
+    }
+
+    protected static Set<Short> readShorts(ByteBuf in) {
+        int size = in.readInt();
+        if (size == NULL) {
+            return null;
+        }
+        Set<Short> result = new TreeSet<>();
+        for (int i = 0; i < size; i++) {
+            result.add(in.readShort());
+        }
+        return result;
+    }
+
+    protected static void writeInts(Collection<Integer> values, ByteBuf out) {
+        if (values == null) {
+            out.writeInt(NULL);
+            return;
+        }
+        out.writeInt(values.size());
+        for (Integer value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    protected static Set<Integer> readInts(ByteBuf in) {
+        int size = in.readInt();
+        if (size == NULL) {
+            return null;
+        }
+        Set<Integer> result = new TreeSet<>();
+        for (int i = 0; i < size; i++) {
+            result.add(in.readInt());
+        }
+        return result;
+    }
+
+    protected static List<Integer> readIntList(ByteBuf in) {
+        int size = in.readInt();
+        if (size == NULL) {
+            return null;
+        }
+        List<Integer> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(in.readInt());
+        }
+        return result;
+    }
+
+    protected static <T> List<T> nullToEmpty(List<T> list) {
+        return (list == null ? Collections.emptyList() : list);
+    }
+
+    /**
+     * 字符串表，相同的字符串只写一次
+     */
+    protected static class StringTable {
+
+        private Map<String, Integer> indexMap = Maps.newHashMap();
+        private List<byte[]> values = new ArrayList<>();
+        private int size = 4;
+
+        public void write(String value, ByteBuf out) {
+            out.writeInt(index(value));
+        }
+
+        public void writeJson(Object value, ByteBuf out) {
+            write(value == null ? null : JSON.toJSONString(value), out);
+        }
+
+        protected int index(String value) {
+            if (value == null) {
+                return NULL;
+            }
+            Integer index = indexMap.get(value);
+            if (index == null) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                index = values.size();
+                indexMap.put(value, index);
+                values.add(bytes);
+                size += 4 + bytes.length;
+            }
+            return index;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public void write(ByteBuf out) {
+            out.writeInt(values.size());
+            for (byte[] value : values) {
+                out.writeInt(value.length);
+                out.writeBytes(value);
+            }
+        }
+    }
+}
\ No newline at end of file
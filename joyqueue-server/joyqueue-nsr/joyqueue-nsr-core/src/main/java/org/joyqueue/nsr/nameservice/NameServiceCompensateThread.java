@@ -17,6 +17,7 @@ package org.joyqueue.nsr.nameservice;
 
 import com.alibaba.fastjson.JSON;
 import org.joyqueue.domain.AllMetadata;
+import org.joyqueue.domain.MetadataDelta;
 import org.joyqueue.nsr.NameService;
 import org.joyqueue.nsr.config.NameServiceConfig;
 import org.joyqueue.toolkit.service.Service;
@@ -88,7 +89,7 @@ public class NameServiceCompensateThread extends Service implements Runnable {
             return;
         }
 
-        if (metadataCacheManager.getCache() == null) {
+        if (!metadataCacheManager.isCacheExists()) {
             AllMetadata allMetadata = delegate.getAllMetadata();
             AllMetadataCache newCache = metadataCacheManager.buildCache(allMetadata);
 
@@ -125,21 +126,43 @@ public class NameServiceCompensateThread extends Service implements Runnable {
                         logger.debug("doCompensate pre, oldCache: {}", JSON.toJSONString(oldCache));
                     }
 
-                    try {
-                        allMetadata = delegate.getAllMetadata();
-                    } catch (Exception e) {
-                        logger.error("getAllMetadata exception", e);
-                        continue;
-                    }
+                    AllMetadataCache oldChangedCache = oldCache;
+                    AllMetadataCache newChangedCache = null;
+                    MetadataDelta delta = getMetadataDelta(oldCache);
+
+                    if (delta != null) {
+                        if (delta.isEmpty() && delta.getVersion() == oldCache.getVersion()) {
+                            newCache = oldCache;
+                        } else {
+                            newCache = metadataCacheManager.applyDelta(oldCache, delta);
+                            oldChangedCache = metadataCacheManager.buildChangedCache(oldCache, newCache, delta);
+                            newChangedCache = metadataCacheManager.buildChangedCache(newCache, oldCache, delta);
+                        }
+
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("doCompensate, oldVersion: {}, delta: {}", oldCache.getVersion(), JSON.toJSONString(delta));
+                        }
+                    } else {
+                        try {
+                            allMetadata = delegate.getAllMetadata();
+                        } catch (Exception e) {
+                            logger.error("getAllMetadata exception", e);
+                            continue;
+                        }
 
-                    newCache = metadataCacheManager.buildCache(allMetadata);
+                        newCache = metadataCacheManager.buildCache(allMetadata);
 
-                    if (logger.isDebugEnabled()) {
-                        logger.debug("doCompensate, oldCache: {}, newCache: {}, metadata: {}",
-                                JSON.toJSONString(oldCache), JSON.toJSONString(newCache), JSON.toJSONString(allMetadata));
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("doCompensate, oldCache: {}, newCache: {}, metadata: {}",
+                                    JSON.toJSONString(oldCache), JSON.toJSONString(newCache), JSON.toJSONString(allMetadata));
+                        }
                     }
 
-                    if (!metadataValidator.validateChange(oldCache, newCache)) {
+                    if (newChangedCache == null) {
+                        newChangedCache = newCache;
+                    }
+
+                    if (!metadataValidator.validateChange(oldChangedCache, newChangedCache)) {
                         logger.error("doCompensate validate error");
                         if (logger.isDebugEnabled()) {
                             logger.debug("doCompensate validate error, oldCache: {}, newCache: {}", oldCache, newCache);
@@ -148,8 +171,8 @@ public class NameServiceCompensateThread extends Service implements Runnable {
                         break;
                     }
 
-                    if (config.getCompensationEnable()) {
-                        metadataCompensator.compensate(oldCache, newCache);
+                    if (config.getCompensationEnable() && newCache != oldCache) {
+                        metadataCompensator.compensate(oldCache, newCache, oldChangedCache, newChangedCache);
                     }
 
                     long currentVersion = metadataCacheManager.getTimestamp();
@@ -177,4 +200,23 @@ public class NameServiceCompensateThread extends Service implements Runnable {
             }
         }
     }
+
+    /**
+     * 获取缓存版本之后的增量，不支持或版本不连续时返回null，需要全量同步
+     */
+    protected MetadataDelta getMetadataDelta(AllMetadataCache cache) {
+        if (!config.getAllMetadataDeltaEnable() || cache.getVersion() <= 0) {
+            return null;
+        }
+        try {
+            MetadataDelta delta = delegate.getMetadataDelta(cache.getVersion());
+            if (delta == null || delta.getVersion() < cache.getVersion()) {
+                return null;
+            }
+            return delta;
+        } catch (Exception e) {
+            logger.warn("getMetadataDelta exception, version: {}", cache.getVersion(), e);
+            return null;
+        }
+    }
 }
\ No newline at end of file
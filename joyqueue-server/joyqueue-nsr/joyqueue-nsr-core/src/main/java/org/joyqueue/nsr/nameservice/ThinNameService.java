@@ -28,6 +28,7 @@ import org.joyqueue.domain.ClientType;
 import org.joyqueue.domain.Config;
 import org.joyqueue.domain.Consumer;
 import org.joyqueue.domain.DataCenter;
+import org.joyqueue.domain.MetadataDelta;
 import org.joyqueue.domain.PartitionGroup;
 import org.joyqueue.domain.Producer;
 import org.joyqueue.domain.Replica;
@@ -78,6 +79,8 @@ import org.joyqueue.nsr.network.command.GetConsumerByTopicAndApp;
 import org.joyqueue.nsr.network.command.GetConsumerByTopicAndAppAck;
 import org.joyqueue.nsr.network.command.GetDataCenter;
 import org.joyqueue.nsr.network.command.GetDataCenterAck;
+import org.joyqueue.nsr.network.command.GetMetadataDeltaRequest;
+import org.joyqueue.nsr.network.command.GetMetadataDeltaResponse;
 import org.joyqueue.nsr.network.command.GetProducerByTopic;
 import org.joyqueue.nsr.network.command.GetProducerByTopicAck;
 import org.joyqueue.nsr.network.command.GetProducerByTopicAndApp;
@@ -486,6 +489,17 @@ public class ThinNameService extends Service implements NameService, PropertySup
         return ((GetAllMetadataResponse) response.getPayload()).getMetadata();
     }
 
+    @Override
+    public MetadataDelta getMetadataDelta(long version) {
+        Command request = new Command(new JoyQueueHeader(Direction.REQUEST, NsrCommandType.NSR_GET_METADATA_DELTA_REQUEST), new GetMetadataDeltaRequest(version));
+        Command response = send(request, nameServiceConfig.getAllMetadataTransportTimeout());
+        if (!response.isSuccess()) {
+            logger.error("getMetadataDelta error request {},response {}", request, response);
+            throw new RuntimeException(String.format("getMetadataDelta error request %s,response %s", request, response));
+        }
+        return ((GetMetadataDeltaResponse) response.getPayload()).getDelta();
+    }
+
     @Override
     public void addListener(EventListener<NameServerEvent> listener) {
         eventBus.addListener(listener);
@@ -0,0 +1,60 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.nsr.network.codec;
+
+import org.joyqueue.domain.MetadataDelta;
+import org.joyqueue.network.transport.command.Header;
+import org.joyqueue.network.transport.command.Type;
+import org.joyqueue.nsr.network.NsrPayloadCodec;
+import org.joyqueue.nsr.network.command.GetMetadataDeltaResponse;
+import org.joyqueue.nsr.network.command.NsrCommandType;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * GetMetadataDeltaResponseCodec
+ * author: gaohaoxiang
+ * date: 2020/3/9
+ */
+public class GetMetadataDeltaResponseCodec implements NsrPayloadCodec<GetMetadataDeltaResponse>, Type {
+
+    @Override
+    public GetMetadataDeltaResponse decode(Header header, ByteBuf buffer) throws Exception {
+        GetMetadataDeltaResponse getMetadataDeltaResponse = new GetMetadataDeltaResponse();
+        int length = buffer.readInt();
+        if (length > 0) {
+            byte[] json = new byte[length];
+            buffer.readBytes(json);
+            getMetadataDeltaResponse.setDelta((MetadataDelta) GetAllMetadataResponseCodec.parseJson(json, MetadataDelta.class));
+        }
+        return getMetadataDeltaResponse;
+    }
+
+    @Override
+    public void encode(GetMetadataDeltaResponse payload, ByteBuf buffer) throws Exception {
+        if (payload.getDelta() == null) {
+            buffer.writeInt(0);
+            return;
+        }
+        byte[] json = GetAllMetadataResponseCodec.toJson(payload.getDelta());
+        buffer.writeInt(json.length);
+        buffer.writeBytes(json);
+    }
+
+    @Override
+    public int type() {
+        return NsrCommandType.NSR_GET_METADATA_DELTA_RESPONSE;
+    }
+}
\ No newline at end of file
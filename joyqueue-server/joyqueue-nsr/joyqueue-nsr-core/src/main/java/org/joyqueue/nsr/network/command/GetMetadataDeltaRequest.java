@@ -0,0 +1,49 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.nsr.network.command;
+
+import org.joyqueue.network.transport.command.JoyQueuePayload;
+
+/**
+ * GetMetadataDeltaRequest
+ * author: gaohaoxiang
+ * date: 2020/3/9
+ */
+public class GetMetadataDeltaRequest extends JoyQueuePayload {
+
+    private long version;
+
+    public GetMetadataDeltaRequest() {
+
+    }
+
+    public GetMetadataDeltaRequest(long version) {
+        this.version = version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public int type() {
+        return NsrCommandType.NSR_GET_METADATA_DELTA_REQUEST;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,43 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.nsr.network.command;
+
+import org.joyqueue.domain.MetadataDelta;
+import org.joyqueue.network.transport.command.JoyQueuePayload;
+
+/**
+ * GetMetadataDeltaResponse
+ * author: gaohaoxiang
+ * date: 2020/3/9
+ */
+public class GetMetadataDeltaResponse extends JoyQueuePayload {
+
+    // 为null表示无法增量同步
+    private MetadataDelta delta;
+
+    public void setDelta(MetadataDelta delta) {
+        this.delta = delta;
+    }
+
+    public MetadataDelta getDelta() {
+        return delta;
+    }
+
+    @Override
+    public int type() {
+        return NsrCommandType.NSR_GET_METADATA_DELTA_RESPONSE;
+    }
+}
\ No newline at end of file
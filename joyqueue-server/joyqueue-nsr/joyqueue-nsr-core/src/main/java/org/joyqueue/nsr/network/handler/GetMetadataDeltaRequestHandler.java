@@ -0,0 +1,96 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.nsr.network.handler;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.joyqueue.domain.Config;
+import org.joyqueue.domain.MetadataDelta;
+import org.joyqueue.network.transport.Transport;
+import org.joyqueue.network.transport.command.Command;
+import org.joyqueue.network.transport.command.Types;
+import org.joyqueue.nsr.NameService;
+import org.joyqueue.nsr.config.NameServiceConfig;
+import org.joyqueue.nsr.network.NsrCommandHandler;
+import org.joyqueue.nsr.network.command.GetMetadataDeltaRequest;
+import org.joyqueue.nsr.network.command.GetMetadataDeltaResponse;
+import org.joyqueue.nsr.network.command.NsrCommandType;
+import org.joyqueue.toolkit.config.Property;
+import org.joyqueue.toolkit.config.PropertySupplier;
+import org.joyqueue.toolkit.config.PropertySupplierAware;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * GetMetadataDeltaRequestHandler
+ * author: gaohaoxiang
+ * date: 2020/3/9
+ */
+public class GetMetadataDeltaRequestHandler implements NsrCommandHandler, PropertySupplierAware, Types, com.jd.laf.extension.Type<String> {
+
+    private PropertySupplier supplier;
+    private NameServiceConfig config;
+    private NameService nameService;
+
+    @Override
+    public void setSupplier(PropertySupplier supplier) {
+        this.supplier = supplier;
+        this.config = new NameServiceConfig(supplier);
+    }
+
+    @Override
+    public void setNameService(NameService nameService) {
+        this.nameService = nameService;
+    }
+
+    @Override
+    public Command handle(Transport transport, Command command) {
+        GetMetadataDeltaRequest getMetadataDeltaRequest = (GetMetadataDeltaRequest) command.getPayload();
+        MetadataDelta delta = nameService.getMetadataDelta(getMetadataDeltaRequest.getVersion());
+
+        // 和全量同步保持一致，配置需要合并内存配置
+        if (delta != null && delta.getConfigs() != null && config.getAllMetadataRewriteEnable()) {
+            delta.setConfigs(mergeMemoryConfigs(delta.getConfigs()));
+        }
+
+        GetMetadataDeltaResponse getMetadataDeltaResponse = new GetMetadataDeltaResponse();
+        getMetadataDeltaResponse.setDelta(delta);
+        return new Command(getMetadataDeltaResponse);
+    }
+
+    protected List<Config> mergeMemoryConfigs(List<Config> configs) {
+        Set<Config> result = Sets.newHashSet();
+        result.addAll(configs);
+        List<Property> properties = supplier.getProperties();
+        for (Property property : properties) {
+            if ("all".equals(property.getGroup())) {
+                result.add(new Config(property.getGroup(), property.getKey(), String.valueOf(property.getValue())));
+            }
+        }
+        return Lists.newArrayList(result);
+    }
+
+    @Override
+    public String type() {
+        return SERVER_TYPE;
+    }
+
+    @Override
+    public int[] types() {
+        return new int[] {NsrCommandType.NSR_GET_METADATA_DELTA_REQUEST};
+    }
+}
\ No newline at end of file
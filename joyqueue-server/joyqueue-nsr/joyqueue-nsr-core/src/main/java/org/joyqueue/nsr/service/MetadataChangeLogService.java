@@ -0,0 +1,49 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.nsr.service;
+
+import org.joyqueue.domain.MetadataChange;
+
+import java.util.List;
+
+/**
+ * MetadataChangeLogService
+ * author: gaohaoxiang
+ * date: 2020/3/9
+ */
+public interface MetadataChangeLogService {
+
+    /**
+     * 当前版本，没有变更时返回0
+     * @return
+     */
+    long getVersion();
+
+    /**
+     * 版本是否还保留在变更日志中
+     * @param version
+     * @return
+     */
+    boolean contains(long version);
+
+    /**
+     * 返回大于指定版本的变更，按版本升序
+     * @param version
+     * @param limit
+     * @return
+     */
+    List<MetadataChange> getChanges(long version, int limit);
+}
@@ -0,0 +1,51 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.nsr.support;
+
+import org.joyqueue.domain.MetadataChange;
+import org.joyqueue.nsr.service.MetadataChangeLogService;
+import org.joyqueue.nsr.service.internal.MetadataChangeLogInternalService;
+
+import java.util.List;
+
+/**
+ * DefaultMetadataChangeLogService
+ * author: gaohaoxiang
+ * date: 2020/3/9
+ */
+public class DefaultMetadataChangeLogService implements MetadataChangeLogService {
+
+    private MetadataChangeLogInternalService metadataChangeLogInternalService;
+
+    public DefaultMetadataChangeLogService(MetadataChangeLogInternalService metadataChangeLogInternalService) {
+        this.metadataChangeLogInternalService = metadataChangeLogInternalService;
+    }
+
+    @Override
+    public long getVersion() {
+        return metadataChangeLogInternalService.getVersion();
+    }
+
+    @Override
+    public boolean contains(long version) {
+        return metadataChangeLogInternalService.contains(version);
+    }
+
+    @Override
+    public List<MetadataChange> getChanges(long version, int limit) {
+        return metadataChangeLogInternalService.getChanges(version, limit);
+    }
+}
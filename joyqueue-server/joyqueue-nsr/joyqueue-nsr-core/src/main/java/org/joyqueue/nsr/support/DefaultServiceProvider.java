@@ -27,6 +27,7 @@ import org.joyqueue.nsr.service.BrokerService;
 import org.joyqueue.nsr.service.ConfigService;
 import org.joyqueue.nsr.service.ConsumerService;
 import org.joyqueue.nsr.service.DataCenterService;
+import org.joyqueue.nsr.service.MetadataChangeLogService;
 import org.joyqueue.nsr.service.NamespaceService;
 import org.joyqueue.nsr.service.PartitionGroupReplicaService;
 import org.joyqueue.nsr.service.PartitionGroupService;
@@ -37,6 +38,7 @@ import org.joyqueue.nsr.service.internal.BrokerInternalService;
 import org.joyqueue.nsr.service.internal.ConfigInternalService;
 import org.joyqueue.nsr.service.internal.ConsumerInternalService;
 import org.joyqueue.nsr.service.internal.DataCenterInternalService;
+import org.joyqueue.nsr.service.internal.MetadataChangeLogInternalService;
 import org.joyqueue.nsr.service.internal.NamespaceInternalService;
 import org.joyqueue.nsr.service.internal.PartitionGroupInternalService;
 import org.joyqueue.nsr.service.internal.PartitionGroupReplicaInternalService;
@@ -47,6 +49,8 @@ import org.joyqueue.toolkit.config.PropertySupplier;
 import org.joyqueue.toolkit.config.PropertySupplierAware;
 import org.joyqueue.toolkit.lang.LifeCycle;
 import org.joyqueue.toolkit.service.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * DefaultServiceProvider
@@ -55,6 +59,8 @@ import org.joyqueue.toolkit.service.Service;
  */
 public class DefaultServiceProvider extends Service implements ServiceProvider, PropertySupplierAware {
 
+    protected static final Logger logger = LoggerFactory.getLogger(DefaultServiceProvider.class);
+
     private ExtensionPoint<InternalServiceProvider, String> INTERNAL_SERVICE_PROVIDER_POINT = new ExtensionPointLazy<>(InternalServiceProvider.class);
     private ExtensionPoint<Messenger, String> MESSENGER_POINT = new ExtensionPointLazy<>(Messenger.class);
 
@@ -71,6 +77,7 @@ public class DefaultServiceProvider extends Service implements ServiceProvider,
     private PartitionGroupReplicaService partitionGroupReplicaService;
     private ProducerService producerService;
     private TopicService topicService;
+    private MetadataChangeLogService metadataChangeLogService;
     private NameServiceConfig config;
     private Messenger messenger;
 
@@ -110,6 +117,23 @@ public class DefaultServiceProvider extends Service implements ServiceProvider,
         topicService = new DefaultTopicService(config, messenger, internalServiceProvider.getService(TopicInternalService.class),
                 internalServiceProvider.getService(PartitionGroupInternalService.class), internalServiceProvider.getService(BrokerInternalService.class),
                 internalServiceProvider.getService(TransactionInternalService.class));
+
+        MetadataChangeLogInternalService metadataChangeLogInternalService = getInternalServiceIfSupported(MetadataChangeLogInternalService.class);
+        if (metadataChangeLogInternalService != null) {
+            metadataChangeLogService = new DefaultMetadataChangeLogService(metadataChangeLogInternalService);
+        }
+    }
+
+    /**
+     * 可选的内部服务，存储不支持时返回null
+     */
+    protected <T> T getInternalServiceIfSupported(Class<T> service) {
+        try {
+            return internalServiceProvider.getService(service);
+        } catch (Exception e) {
+            logger.info("internal service not supported, service: {}, provider: {}", service.getName(), internalServiceProvider.type());
+            return null;
+        }
     }
 
     protected  <T> T enrichIfNecessary(T obj) throws Exception {
@@ -151,6 +175,8 @@ public class DefaultServiceProvider extends Service implements ServiceProvider,
             return (T) topicService;
         } else if (service.equals(Messenger.class)) {
             return (T) messenger;
+        } else if (service.equals(MetadataChangeLogService.class)) {
+            return (T) metadataChangeLogService;
         }
         throw new UnsupportedOperationException(service.getName());
     }
@@ -0,0 +1,169 @@
+package org.joyqueue.nsr;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.joyqueue.domain.AllMetadata;
+import org.joyqueue.domain.Broker;
+import org.joyqueue.domain.Consumer;
+import org.joyqueue.domain.MetadataDelta;
+import org.joyqueue.domain.PartitionGroup;
+import org.joyqueue.domain.Producer;
+import org.joyqueue.domain.Topic;
+import org.joyqueue.domain.TopicConfig;
+import org.joyqueue.domain.TopicName;
+import org.joyqueue.nsr.config.NameServiceConfig;
+import org.joyqueue.nsr.nameservice.AllMetadataCache;
+import org.joyqueue.nsr.nameservice.MetadataCacheManager;
+import org.joyqueue.toolkit.config.PropertySupplier;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * MetadataCacheManagerTest
+ * author: gaohaoxiang
+ * date: 2020/3/9
+ */
+public class MetadataCacheManagerTest {
+
+    private MetadataCacheManager metadataCacheManager;
+    private AllMetadataCache cache;
+
+    @Before
+    public void before() {
+        metadataCacheManager = new MetadataCacheManager(new NameServiceConfig(new PropertySupplier.MapSupplier(new HashMap<>())));
+
+        Map<TopicName, TopicConfig> topics = Maps.newHashMap();
+        topics.put(TopicName.parse("topic_1"), newTopicConfig("topic_1", 1));
+        topics.put(TopicName.parse("topic_2"), newTopicConfig("topic_2", 2));
+
+        Map<Integer, Broker> brokers = Maps.newHashMap();
+        brokers.put(1, newBroker(1, "127.0.0.1"));
+        brokers.put(2, newBroker(2, "127.0.0.2"));
+
+        AllMetadata allMetadata = new AllMetadata();
+        allMetadata.setVersion(10);
+        allMetadata.setTopics(topics);
+        allMetadata.setBrokers(brokers);
+        allMetadata.setProducers(Lists.newArrayList(newProducer("topic_1", "app_1"), newProducer("topic_2", "app_1")));
+        allMetadata.setConsumers(Lists.newArrayList(newConsumer("topic_1", "app_1")));
+        allMetadata.setConfigs(Collections.emptyList());
+        allMetadata.setDataCenters(Collections.emptyList());
+        allMetadata.setAppTokens(Collections.emptyList());
+        cache = metadataCacheManager.buildCache(allMetadata);
+    }
+
+    @Test
+    public void testApplyDelta() {
+        MetadataDelta delta = new MetadataDelta();
+        delta.setVersion(12);
+        delta.setTopics(Lists.newArrayList(newTopicConfig("topic_3", 1)));
+        delta.setRemovedTopics(Lists.newArrayList("topic_2"));
+        delta.setBrokers(Lists.newArrayList(newBroker(1, "127.0.0.3")));
+        delta.setProducers(Lists.newArrayList(newProducer("topic_3", "app_2")));
+        delta.setRemovedProducers(Lists.newArrayList(newProducer("topic_2", "app_1")));
+
+        AllMetadataCache newCache = metadataCacheManager.applyDelta(cache, delta);
+
+        Assert.assertEquals(12, newCache.getVersion());
+        Assert.assertEquals(Sets.newHashSet("topic_1", "topic_3"), Sets.newHashSet(newCache.getAllTopicCodes()));
+        Assert.assertEquals(Sets.newHashSet(TopicName.parse("topic_1"), TopicName.parse("topic_3")),
+                newCache.getTopicConfigBrokerMap().get(1).keySet());
+        Assert.assertTrue(newCache.getTopicConfigBrokerMap().get(2).isEmpty());
+        Assert.assertEquals("127.0.0.3", newCache.getBrokerMap().get(1).getIp());
+        Assert.assertEquals("127.0.0.3", newCache.getTopicConfigMap().get(TopicName.parse("topic_1"))
+                .getPartitionGroups().get(0).getBrokers().get(1).getIp());
+        Assert.assertEquals(2, newCache.getAllProducers().size());
+        Assert.assertEquals(Sets.newHashSet(TopicName.parse("topic_1")), newCache.getProducerAppMap().get("app_1").keySet());
+        Assert.assertNotNull(newCache.getProducerTopicMap().get(TopicName.parse("topic_3")).get("app_2"));
+        Assert.assertEquals(1, newCache.getAllConsumers().size());
+
+        // 旧缓存不受影响
+        Assert.assertEquals(10, cache.getVersion());
+        Assert.assertEquals(Sets.newHashSet("topic_1", "topic_2"), Sets.newHashSet(cache.getAllTopicCodes()));
+        Assert.assertEquals(1, cache.getTopicConfigBrokerMap().get(2).size());
+        Assert.assertEquals("127.0.0.1", cache.getBrokerMap().get(1).getIp());
+        Assert.assertEquals(Sets.newHashSet(TopicName.parse("topic_1"), TopicName.parse("topic_2")), cache.getProducerAppMap().get("app_1").keySet());
+    }
+
+    @Test
+    public void testApplyBrokerDeltaKeepOldCache() {
+        TopicConfig oldTopicConfig = cache.getTopicConfigMap().get(TopicName.parse("topic_1"));
+
+        MetadataDelta delta = new MetadataDelta();
+        delta.setVersion(11);
+        delta.setBrokers(Lists.newArrayList(newBroker(1, "127.0.0.3")));
+
+        AllMetadataCache newCache = metadataCacheManager.applyDelta(cache, delta);
+        TopicConfig newTopicConfig = newCache.getTopicConfigMap().get(TopicName.parse("topic_1"));
+
+        Assert.assertNotSame(oldTopicConfig, newTopicConfig);
+        Assert.assertEquals("127.0.0.3", newTopicConfig.getPartitionGroups().get(0).getBrokers().get(1).getIp());
+        Assert.assertSame(newTopicConfig, newCache.getTopicConfigBrokerMap().get(1).get(TopicName.parse("topic_1")));
+        Assert.assertTrue(newCache.getAllTopicConfigs().contains(newTopicConfig));
+
+        Assert.assertSame(oldTopicConfig, cache.getTopicConfigMap().get(TopicName.parse("topic_1")));
+        Assert.assertSame(oldTopicConfig, cache.getTopicConfigBrokerMap().get(1).get(TopicName.parse("topic_1")));
+        Assert.assertEquals("127.0.0.1", oldTopicConfig.getPartitionGroups().get(0).getBrokers().get(1).getIp());
+        Assert.assertEquals("127.0.0.1", cache.getBrokerMap().get(1).getIp());
+    }
+
+    @Test
+    public void testBuildChangedCache() {
+        MetadataDelta delta = new MetadataDelta();
+        delta.setVersion(11);
+        delta.setTopics(Lists.newArrayList(newTopicConfig("topic_1", 2)));
+
+        AllMetadataCache newCache = metadataCacheManager.applyDelta(cache, delta);
+        AllMetadataCache oldChangedCache = metadataCacheManager.buildChangedCache(cache, newCache, delta);
+        AllMetadataCache newChangedCache = metadataCacheManager.buildChangedCache(newCache, cache, delta);
+
+        Assert.assertEquals(Sets.newHashSet(TopicName.parse("topic_1")), oldChangedCache.getTopicConfigMap().keySet());
+        Assert.assertEquals(Sets.newHashSet(TopicName.parse("topic_1")), newChangedCache.getTopicConfigMap().keySet());
+        Assert.assertEquals(1, oldChangedCache.getAllProducers().size());
+        Assert.assertEquals(1, newChangedCache.getAllConsumers().size());
+        Assert.assertTrue(newChangedCache.getBrokerMap().isEmpty());
+        Assert.assertTrue(newChangedCache.getAllConfigs().isEmpty());
+    }
+
+    protected TopicConfig newTopicConfig(String topic, int replica) {
+        Topic topicInfo = new Topic();
+        topicInfo.setName(TopicName.parse(topic));
+        topicInfo.setPartitions((short) 1);
+
+        PartitionGroup partitionGroup = new PartitionGroup();
+        partitionGroup.setTopic(TopicName.parse(topic));
+        partitionGroup.setGroup(0);
+        partitionGroup.setPartitions(Sets.newHashSet((short) 0));
+        partitionGroup.setReplicas(Sets.newHashSet(replica));
+        partitionGroup.setLeader(replica);
+        return TopicConfig.toTopicConfig(topicInfo, Lists.newArrayList(partitionGroup));
+    }
+
+    protected Broker newBroker(int id, String ip) {
+        Broker broker = new Broker();
+        broker.setId(id);
+        broker.setIp(ip);
+        broker.setPort(50088);
+        return broker;
+    }
+
+    protected Producer newProducer(String topic, String app) {
+        Producer producer = new Producer();
+        producer.setTopic(TopicName.parse(topic));
+        producer.setApp(app);
+        return producer;
+    }
+
+    protected Consumer newConsumer(String topic, String app) {
+        Consumer consumer = new Consumer();
+        consumer.setTopic(TopicName.parse(topic));
+        consumer.setApp(app);
+        return consumer;
+    }
+}
@@ -0,0 +1,181 @@
+package org.joyqueue.nsr;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.joyqueue.domain.AllMetadata;
+import org.joyqueue.domain.AppToken;
+import org.joyqueue.domain.Broker;
+import org.joyqueue.domain.ClientType;
+import org.joyqueue.domain.Config;
+import org.joyqueue.domain.Consumer;
+import org.joyqueue.domain.DataCenter;
+import org.joyqueue.domain.PartitionGroup;
+import org.joyqueue.domain.Producer;
+import org.joyqueue.domain.Subscription;
+import org.joyqueue.domain.Topic;
+import org.joyqueue.domain.TopicConfig;
+import org.joyqueue.domain.TopicName;
+import org.joyqueue.nsr.config.NameServiceConfig;
+import org.joyqueue.nsr.nameservice.AllMetadataCache;
+import org.joyqueue.nsr.nameservice.MetadataCacheManager;
+import org.joyqueue.nsr.nameservice.NameServiceCacheSnapshot;
+import org.joyqueue.toolkit.config.PropertySupplier;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * NameServiceCacheSnapshotTest
+ * author: gaohaoxiang
+ * date: 2020/3/10
+ */
+public class NameServiceCacheSnapshotTest {
+
+    private MetadataCacheManager metadataCacheManager;
+    private AllMetadataCache cache;
+
+    @Before
+    public void before() {
+        metadataCacheManager = new MetadataCacheManager(new NameServiceConfig(new PropertySupplier.MapSupplier(new HashMap<>())));
+
+        Map<TopicName, TopicConfig> topics = Maps.newHashMap();
+        topics.put(TopicName.parse("topic_1"), newTopicConfig("topic_1", 1, 2));
+        topics.put(TopicName.parse("namespace.topic_2"), newTopicConfig("namespace.topic_2", 2));
+
+        Map<Integer, Broker> brokers = Maps.newHashMap();
+        brokers.put(1, newBroker(1, "127.0.0.1"));
+        brokers.put(2, newBroker(2, "127.0.0.2"));
+
+        Producer producer = newProducer("topic_1", "app_1");
+        producer.setProducerPolicy(Producer.ProducerPolicy.Builder.build().archive(true).blackList("127.0.0.3").create());
+
+        Consumer consumer = newConsumer("namespace.topic_2", "app_1");
+        consumer.setConsumerPolicy(Consumer.ConsumerPolicy.Builder.build().paused(true).batchSize((short) 20).create());
+        consumer.setLimitPolicy(new Consumer.ConsumerLimitPolicy(100, 200));
+
+        Config config = new Config();
+        config.setGroup("group");
+        config.setKey("key");
+        config.setValue("value");
+
+        DataCenter dataCenter = new DataCenter();
+        dataCenter.setCode("dc");
+        dataCenter.setName("dc");
+        dataCenter.setRegion("region");
+        dataCenter.setUrl("IPRANGE://?pattern=127.0.0.1-127.0.0.2");
+
+        AppToken appToken = new AppToken();
+        appToken.setId(1L);
+        appToken.setApp("app_1");
+        appToken.setToken("token");
+        appToken.setEffectiveTime(new Date(1000));
+        appToken.setExpirationTime(new Date(2000));
+
+        AllMetadata allMetadata = new AllMetadata();
+        allMetadata.setVersion(10);
+        allMetadata.setTopics(topics);
+        allMetadata.setBrokers(brokers);
+        allMetadata.setProducers(Lists.newArrayList(producer, newProducer("namespace.topic_2", "app_2")));
+        allMetadata.setConsumers(Lists.newArrayList(consumer));
+        allMetadata.setConfigs(Lists.newArrayList(config));
+        allMetadata.setDataCenters(Lists.newArrayList(dataCenter));
+        allMetadata.setAppTokens(Lists.newArrayList(appToken));
+        cache = metadataCacheManager.buildCache(allMetadata);
+    }
+
+    @Test
+    public void testLazyLookup() throws Exception {
+        NameServiceCacheSnapshot snapshot = NameServiceCacheSnapshot.parse(NameServiceCacheSnapshot.serialize(cache, false));
+
+        Assert.assertEquals(10, snapshot.getVersion());
+        Assert.assertEquals(Sets.newHashSet("topic_1", "namespace.topic_2"), snapshot.getAllTopicCodes());
+        Assert.assertEquals(2, snapshot.getAllBrokers().size());
+        Assert.assertEquals("127.0.0.2", snapshot.getBroker(2).getIp());
+        Assert.assertNull(snapshot.getTopicConfig(TopicName.parse("topic_3")));
+
+        TopicConfig topicConfig = snapshot.getTopicConfig(TopicName.parse("topic_1"));
+        PartitionGroup partitionGroup = topicConfig.getPartitionGroups().get(0);
+        Assert.assertEquals(Sets.newHashSet(1, 2), partitionGroup.getReplicas());
+        Assert.assertEquals(Integer.valueOf(1), partitionGroup.getLeader());
+        Assert.assertEquals("127.0.0.2", partitionGroup.getBrokers().get(2).getIp());
+        Assert.assertEquals(partitionGroup, topicConfig.fetchPartitionGroupByPartition((short) 0));
+
+        Producer producer = snapshot.getProducerByTopicAndApp(TopicName.parse("topic_1"), "app_1");
+        Assert.assertTrue(producer.getProducerPolicy().getArchive());
+        Assert.assertEquals(Sets.newHashSet("127.0.0.3"), producer.getProducerPolicy().getBlackList());
+        Assert.assertNull(snapshot.getProducerByTopicAndApp(TopicName.parse("topic_1"), "app_2"));
+
+        Consumer consumer = snapshot.getConsumerByTopicAndApp(TopicName.parse("namespace.topic_2"), "app_1");
+        Assert.assertEquals(ClientType.JOYQUEUE, consumer.getClientType());
+        Assert.assertTrue(consumer.getConsumerPolicy().getPaused());
+        Assert.assertEquals(Short.valueOf((short) 20), consumer.getConsumerPolicy().getBatchSize());
+        Assert.assertEquals(Integer.valueOf(200), consumer.getLimitPolicy().getTraffic());
+    }
+
+    @Test
+    public void testToAllMetadata() throws Exception {
+        NameServiceCacheSnapshot snapshot = NameServiceCacheSnapshot.parse(NameServiceCacheSnapshot.serialize(cache, true));
+        AllMetadataCache newCache = metadataCacheManager.buildCache(snapshot.toAllMetadata());
+
+        Assert.assertEquals(cache.getVersion(), newCache.getVersion());
+        Assert.assertEquals(cache.getTopicConfigMap().keySet(), newCache.getTopicConfigMap().keySet());
+        Assert.assertEquals(cache.getTopicConfigBrokerMap().get(2).keySet(), newCache.getTopicConfigBrokerMap().get(2).keySet());
+        Assert.assertEquals(cache.getProducerAppMap().get("app_1").keySet(), newCache.getProducerAppMap().get("app_1").keySet());
+        Assert.assertEquals(cache.getConsumerTopicMap().keySet(), newCache.getConsumerTopicMap().keySet());
+        Assert.assertEquals("value", newCache.getConfigKeyMap().values().iterator().next().getValue());
+        Assert.assertEquals("dc", newCache.getDataCenterCodeMap().get("dc").getDataCenter().getCode());
+        Assert.assertEquals(new Date(2000), newCache.getAllAppTokenMap().get("app_1").get(0).getExpirationTime());
+    }
+
+    @Test
+    public void testCheckSnapshot() throws Exception {
+        Assert.assertTrue(NameServiceCacheSnapshot.isSnapshot(NameServiceCacheSnapshot.serialize(cache, true)));
+        Assert.assertFalse(NameServiceCacheSnapshot.isSnapshot(new byte[] {'P', 'K', 3, 4, 0, 0, 0, 0, 0, 0}));
+    }
+
+    protected TopicConfig newTopicConfig(String topic, Integer... replicas) {
+        Topic topicInfo = new Topic();
+        topicInfo.setName(TopicName.parse(topic));
+        topicInfo.setPartitions((short) 1);
+
+        PartitionGroup partitionGroup = new PartitionGroup();
+        partitionGroup.setTopic(TopicName.parse(topic));
+        partitionGroup.setGroup(0);
+        partitionGroup.setPartitions(Sets.newHashSet((short) 0));
+        partitionGroup.setReplicas(Sets.newHashSet(replicas));
+        partitionGroup.setIsrs(Sets.newHashSet(replicas));
+        partitionGroup.setLeader(replicas[0]);
+        return TopicConfig.toTopicConfig(topicInfo, Lists.newArrayList(partitionGroup));
+    }
+
+    protected Broker newBroker(int id, String ip) {
+        Broker broker = new Broker();
+        broker.setId(id);
+        broker.setIp(ip);
+        broker.setPort(50088);
+        return broker;
+    }
+
+    protected Producer newProducer(String topic, String app) {
+        Producer producer = new Producer();
+        producer.setTopic(TopicName.parse(topic));
+        producer.setApp(app);
+        producer.setType(Subscription.Type.PRODUCTION);
+        producer.setClientType(ClientType.JOYQUEUE);
+        return producer;
+    }
+
+    protected Consumer newConsumer(String topic, String app) {
+        Consumer consumer = new Consumer();
+        consumer.setTopic(TopicName.parse(topic));
+        consumer.setApp(app);
+        consumer.setType(Subscription.Type.CONSUMPTION);
+        consumer.setClientType(ClientType.JOYQUEUE);
+        return consumer;
+    }
+}
\ No newline at end of file
@@ -19,12 +19,14 @@ import io.journalkeeper.sql.client.SQLClient;
 import io.journalkeeper.sql.client.SQLOperator;
 import io.journalkeeper.sql.server.SQLServer;
 import org.joyqueue.monitor.PointTracer;
+import org.joyqueue.nsr.journalkeeper.config.JournalkeeperConfig;
 import org.joyqueue.nsr.journalkeeper.repository.AppTokenRepository;
 import org.joyqueue.nsr.journalkeeper.repository.BaseRepository;
 import org.joyqueue.nsr.journalkeeper.repository.BrokerRepository;
 import org.joyqueue.nsr.journalkeeper.repository.ConfigRepository;
 import org.joyqueue.nsr.journalkeeper.repository.ConsumerRepository;
 import org.joyqueue.nsr.journalkeeper.repository.DataCenterRepository;
+import org.joyqueue.nsr.journalkeeper.repository.MetadataChangeLogRepository;
 import org.joyqueue.nsr.journalkeeper.repository.NamespaceRepository;
 import org.joyqueue.nsr.journalkeeper.repository.PartitionGroupReplicaRepository;
 import org.joyqueue.nsr.journalkeeper.repository.PartitionGroupRepository;
@@ -36,6 +38,7 @@ import org.joyqueue.nsr.journalkeeper.service.JournalkeeperClusterInternalServic
 import org.joyqueue.nsr.journalkeeper.service.JournalkeeperConfigInternalService;
 import org.joyqueue.nsr.journalkeeper.service.JournalkeeperConsumerInternalService;
 import org.joyqueue.nsr.journalkeeper.service.JournalkeeperDataCenterInternalService;
+import org.joyqueue.nsr.journalkeeper.service.JournalkeeperMetadataChangeLogInternalService;
 import org.joyqueue.nsr.journalkeeper.service.JournalkeeperNamespaceInternalService;
 import org.joyqueue.nsr.journalkeeper.service.JournalkeeperOperationInternalService;
 import org.joyqueue.nsr.journalkeeper.service.JournalkeeperPartitionGroupInternalService;
@@ -49,6 +52,7 @@ import org.joyqueue.nsr.service.internal.ClusterInternalService;
 import org.joyqueue.nsr.service.internal.ConfigInternalService;
 import org.joyqueue.nsr.service.internal.ConsumerInternalService;
 import org.joyqueue.nsr.service.internal.DataCenterInternalService;
+import org.joyqueue.nsr.service.internal.MetadataChangeLogInternalService;
 import org.joyqueue.nsr.service.internal.NamespaceInternalService;
 import org.joyqueue.nsr.service.internal.OperationInternalService;
 import org.joyqueue.nsr.service.internal.PartitionGroupInternalService;
@@ -68,6 +72,7 @@ public class JournalkeeperInternalServiceManager extends Service {
     private SQLServer sqlServer;
     private SQLClient sqlClient;
     private SQLOperator sqlOperator;
+    private JournalkeeperConfig config;
 
     private BaseRepository baseRepository;
     private TopicRepository topicRepository;
@@ -80,6 +85,7 @@ public class JournalkeeperInternalServiceManager extends Service {
     private NamespaceRepository namespaceRepository;
     private ConfigRepository configRepository;
     private AppTokenRepository appTokenRepository;
+    private MetadataChangeLogRepository metadataChangeLogRepository;
     private PointTracer tracer;
 
     private JournalkeeperTopicInternalService journalkeeperTopicInternalService;
@@ -95,17 +101,19 @@ public class JournalkeeperInternalServiceManager extends Service {
     private JournalkeeperTransactionInternalService journalkeeperTransactionInternalService;
     private JournalkeeperOperationInternalService journalkeeperOperationInternalService;
     private JournalkeeperClusterInternalService journalkeeperClusterInternalService;
+    private JournalkeeperMetadataChangeLogInternalService journalkeeperMetadataChangeLogInternalService;
 
-    public JournalkeeperInternalServiceManager(SQLServer sqlServer, SQLClient sqlClient, SQLOperator sqlOperator, PointTracer tracer) {
+    public JournalkeeperInternalServiceManager(SQLServer sqlServer, SQLClient sqlClient, SQLOperator sqlOperator, JournalkeeperConfig config, PointTracer tracer) {
         this.sqlServer = sqlServer;
         this.sqlClient = sqlClient;
         this.sqlOperator = sqlOperator;
+        this.config = config;
         this.tracer = tracer;
     }
 
     @Override
     protected void validate() throws Exception {
-        baseRepository = new BaseRepository(sqlOperator, tracer);
+        baseRepository = new BaseRepository(sqlOperator, tracer, config.getChangeLogRetention());
         topicRepository = new TopicRepository(baseRepository);
         partitionGroupRepository = new PartitionGroupRepository(baseRepository);
         partitionGroupReplicaRepository = new PartitionGroupReplicaRepository(baseRepository);
@@ -116,6 +124,7 @@ public class JournalkeeperInternalServiceManager extends Service {
         namespaceRepository = new NamespaceRepository(baseRepository);
         configRepository = new ConfigRepository(baseRepository);
         appTokenRepository = new AppTokenRepository(baseRepository);
+        metadataChangeLogRepository = new MetadataChangeLogRepository(baseRepository);
 
         journalkeeperTopicInternalService = new JournalkeeperTopicInternalService(topicRepository, partitionGroupRepository, partitionGroupReplicaRepository);
         journalkeeperPartitionGroupInternalService = new JournalkeeperPartitionGroupInternalService(partitionGroupRepository);
@@ -130,6 +139,7 @@ public class JournalkeeperInternalServiceManager extends Service {
         journalkeeperTransactionInternalService = new JournalkeeperTransactionInternalService();
         journalkeeperOperationInternalService = new JournalkeeperOperationInternalService(baseRepository);
         journalkeeperClusterInternalService = new JournalkeeperClusterInternalService(sqlClient);
+        journalkeeperMetadataChangeLogInternalService = new JournalkeeperMetadataChangeLogInternalService(metadataChangeLogRepository);
     }
 
     public <T> T getService(Class<T> service) {
@@ -159,6 +169,8 @@ public class JournalkeeperInternalServiceManager extends Service {
             return (T) journalkeeperOperationInternalService;
         } else if (service.equals(ClusterInternalService.class)) {
             return (T) journalkeeperClusterInternalService;
+        } else if (service.equals(MetadataChangeLogInternalService.class)) {
+            return (T) journalkeeperMetadataChangeLogInternalService;
         }
         throw new UnsupportedOperationException(service.getName());
     }
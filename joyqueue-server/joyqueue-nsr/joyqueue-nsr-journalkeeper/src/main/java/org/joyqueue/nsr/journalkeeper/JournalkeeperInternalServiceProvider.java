@@ -127,7 +127,7 @@ public class JournalkeeperInternalServiceProvider extends Service implements Int
         }
         this.sqlOperator = new DefaultSQLOperator(this.sqlClient);
         BatchOperationContext.init(sqlOperator);
-        this.journalkeeperInternalServiceManager = new JournalkeeperInternalServiceManager(this.sqlServer, this.sqlClient, this.sqlOperator, this.tracer);
+        this.journalkeeperInternalServiceManager = new JournalkeeperInternalServiceManager(this.sqlServer, this.sqlClient, this.sqlOperator, this.config, this.tracer);
         this.journalkeeperInternalServiceManager.start();
     }
 
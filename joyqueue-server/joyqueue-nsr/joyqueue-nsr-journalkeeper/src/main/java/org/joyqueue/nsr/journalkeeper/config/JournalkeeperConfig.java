@@ -109,4 +109,8 @@ public class JournalkeeperConfig {
     public int getMetricPrintInterval() {
         return PropertySupplier.getValue(propertySupplier, JournalkeeperConfigKey.METRIC_PRINT_INTERVAL);
     }
+
+    public int getChangeLogRetention() {
+        return PropertySupplier.getValue(propertySupplier, JournalkeeperConfigKey.CHANGE_LOG_RETENTION);
+    }
 }
\ No newline at end of file
@@ -47,6 +47,8 @@ public enum JournalkeeperConfigKey implements PropertyDef {
     METRIC_ENABLE("nameserver.journalkeeper.metric.enable", false, PropertyDef.Type.BOOLEAN),
     METRIC_PRINT_INTERVAL("nameserver.journalkeeper.metric.print.interval", 5, PropertyDef.Type.INT),
 
+    CHANGE_LOG_RETENTION("nameserver.journalkeeper.change.log.retention", 1000 * 10, PropertyDef.Type.INT),
+
     ;
 
     public static final String NODE_SPLITTER = ",";
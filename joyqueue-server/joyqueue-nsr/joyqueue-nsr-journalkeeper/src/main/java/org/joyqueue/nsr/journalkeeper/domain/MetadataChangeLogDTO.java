@@ -0,0 +1,55 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.nsr.journalkeeper.domain;
+
+import org.joyqueue.nsr.journalkeeper.helper.Column;
+
+/**
+ * MetadataChangeLogDTO
+ * author: gaohaoxiang
+ * date: 2020/3/9
+ */
+public class MetadataChangeLogDTO extends BaseDTO {
+
+    private Long version;
+    private String type;
+    @Column(alias = "change_key")
+    private String changeKey;
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getChangeKey() {
+        return changeKey;
+    }
+
+    public void setChangeKey(String changeKey) {
+        this.changeKey = changeKey;
+    }
+}
\ No newline at end of file
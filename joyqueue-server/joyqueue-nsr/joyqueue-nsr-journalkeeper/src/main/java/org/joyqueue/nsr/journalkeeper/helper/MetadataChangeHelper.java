@@ -0,0 +1,83 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.nsr.journalkeeper.helper;
+
+import org.apache.commons.lang3.StringUtils;
+import org.joyqueue.domain.MetadataChange;
+
+/**
+ * 根据写入的表和标识生成元数据变更
+ * author: gaohaoxiang
+ * date: 2020/3/9
+ */
+public class MetadataChangeHelper {
+
+    /**
+     * 生成变更
+     *
+     * @param table 表名
+     * @param id 标识
+     * @return 变更
+     * @throws IllegalArgumentException 表不是元数据表或标识为空
+     */
+    public static MetadataChange getChange(String table, Object id) {
+        MetadataChange.Type type = getType(table);
+        if (type == null) {
+            throw new IllegalArgumentException(String.format("not metadata table, table: %s", table));
+        }
+        if (id == null) {
+            throw new IllegalArgumentException(String.format("metadata id is null, table: %s", table));
+        }
+        return new MetadataChange(0, type, getKey(table, String.valueOf(id)));
+    }
+
+    protected static MetadataChange.Type getType(String table) {
+        switch (table.toLowerCase()) {
+            case "topic":
+            case "partition_group":
+            case "partition_group_replica":
+                return MetadataChange.Type.TOPIC;
+            case "broker":
+                return MetadataChange.Type.BROKER;
+            case "producer":
+                return MetadataChange.Type.PRODUCER;
+            case "consumer":
+                return MetadataChange.Type.CONSUMER;
+            case "config":
+                return MetadataChange.Type.CONFIG;
+            case "datacenter":
+                return MetadataChange.Type.DATACENTER;
+            case "app_token":
+                return MetadataChange.Type.APP_TOKEN;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * partitionGroup的id为topic.group，副本的id为topic.group.brokerId，都归到topic上
+     */
+    protected static String getKey(String table, String id) {
+        switch (table.toLowerCase()) {
+            case "partition_group":
+                return StringUtils.substringBeforeLast(id, ".");
+            case "partition_group_replica":
+                return StringUtils.substringBeforeLast(StringUtils.substringBeforeLast(id, "."), ".");
+            default:
+                return id;
+        }
+    }
+}
\ No newline at end of file
@@ -64,19 +64,19 @@ public class AppTokenRepository {
 
     public AppTokenDTO add(AppTokenDTO appTokenDTO) {
         DateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
-        baseRepository.insert(ADD, appTokenDTO.getId(), appTokenDTO.getApp(), appTokenDTO.getToken(),
+        baseRepository.insertMetadata(TABLE, appTokenDTO.getId(), ADD, appTokenDTO.getId(), appTokenDTO.getApp(), appTokenDTO.getToken(),
                 format.format(appTokenDTO.getEffectiveTime()), format.format(appTokenDTO.getExpirationTime()));
         return appTokenDTO;
     }
 
     public AppTokenDTO update(AppTokenDTO appTokenDTO) {
         DateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
-        baseRepository.update(UPDATE_BY_ID, appTokenDTO.getApp(), appTokenDTO.getToken(), format.format(appTokenDTO.getEffectiveTime()),
+        baseRepository.updateMetadata(TABLE, appTokenDTO.getId(), UPDATE_BY_ID, appTokenDTO.getApp(), appTokenDTO.getToken(), format.format(appTokenDTO.getEffectiveTime()),
                 format.format(appTokenDTO.getExpirationTime()), appTokenDTO.getId());
         return appTokenDTO;
     }
 
     public int deleteById(long id) {
-        return baseRepository.delete(DELETE_BY_ID, id);
+        return baseRepository.deleteMetadata(TABLE, id, DELETE_BY_ID, id);
     }
 }
\ No newline at end of file
@@ -18,12 +18,16 @@ package org.joyqueue.nsr.journalkeeper.repository;
 import io.journalkeeper.sql.client.BatchSQLOperator;
 import io.journalkeeper.sql.client.SQLOperator;
 import io.journalkeeper.sql.client.domain.ResultSet;
+import org.joyqueue.domain.MetadataChange;
 import org.joyqueue.monitor.PointTracer;
 import org.joyqueue.monitor.TraceStat;
 import org.joyqueue.nsr.journalkeeper.BatchOperationContext;
+import org.joyqueue.nsr.journalkeeper.helper.MetadataChangeHelper;
 import org.joyqueue.nsr.journalkeeper.helper.ResultSetHelper;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
  * BaseRepository
@@ -32,12 +36,22 @@ import java.util.List;
  */
 public class BaseRepository {
 
+    // 每追加多少条变更清理一次变更日志
+    private static final int CHANGE_LOG_TRIM_INTERVAL = 1000;
+
     private SQLOperator sqlOperator;
     private PointTracer tracer;
+    private int changeLogRetention;
+    private AtomicLong changeLogAppends = new AtomicLong();
 
     public BaseRepository(SQLOperator sqlOperator, PointTracer tracer) {
+        this(sqlOperator, tracer, 0);
+    }
+
+    public BaseRepository(SQLOperator sqlOperator, PointTracer tracer, int changeLogRetention) {
         this.sqlOperator = sqlOperator;
         this.tracer = tracer;
+        this.changeLogRetention = changeLogRetention;
     }
 
     public String insert(String sql, Object... params) {
@@ -67,6 +81,37 @@ public class BaseRepository {
         }
     }
 
+    /**
+     * 写入元数据，同时追加变更日志
+     * 数据和变更日志在同一个批次中提交，取不到生成的主键，返回写入的标识，在批次中时和批次写入一样返回null
+     *
+     * @param table 表名
+     * @param id 标识
+     * @param sql sql
+     * @param params 参数
+     * @return 标识
+     */
+    public String insertMetadata(String table, Object id, String sql, Object... params) {
+        TraceStat trace = tracer.begin(getTraceKey(sql));
+        try {
+            String result = doInsertMetadata(table, id, sql, params);
+            tracer.end(trace);
+            return result;
+        } catch (Exception e) {
+            tracer.error(trace);
+            throw e;
+        }
+    }
+
+    protected String doInsertMetadata(String table, Object id, String sql, Object... params) {
+        if (!isChangeLogEnable()) {
+            return doInsert(sql, params);
+        }
+        boolean batch = (BatchOperationContext.getBatchSQLOperator() != null);
+        doWithChangeLog(MetadataChangeHelper.getChange(table, id), batchSQLOperator -> batchSQLOperator.insert(sql, params));
+        return (batch ? null : String.valueOf(id));
+    }
+
     public int update(String sql, Object... params) {
         TraceStat trace = tracer.begin(getTraceKey(sql));
         try {
@@ -89,6 +134,35 @@ public class BaseRepository {
         }
     }
 
+    /**
+     * 修改元数据，同时追加变更日志，返回修改的行数，在批次中时返回0
+     *
+     * @param table 表名
+     * @param id 标识
+     * @param sql sql
+     * @param params 参数
+     * @return 修改的行数
+     */
+    public int updateMetadata(String table, Object id, String sql, Object... params) {
+        TraceStat trace = tracer.begin(getTraceKey(sql));
+        try {
+            int result = doUpdateMetadata(table, id, sql, params);
+            tracer.end(trace);
+            return result;
+        } catch (Exception e) {
+            tracer.error(trace);
+            throw e;
+        }
+    }
+
+    protected int doUpdateMetadata(String table, Object id, String sql, Object... params) {
+        if (!isChangeLogEnable()) {
+            return doUpdate(sql, params);
+        }
+        Object result = doWithChangeLog(MetadataChangeHelper.getChange(table, id), batchSQLOperator -> batchSQLOperator.update(sql, params));
+        return (result == null ? 0 : ((Number) result).intValue());
+    }
+
     public int delete(String sql, Object... params) {
         TraceStat trace = tracer.begin(getTraceKey(sql));
         try {
@@ -111,6 +185,78 @@ public class BaseRepository {
         }
     }
 
+    /**
+     * 删除元数据，同时追加变更日志，返回删除的行数，在批次中时返回0
+     *
+     * @param table 表名
+     * @param id 标识
+     * @param sql sql
+     * @param params 参数
+     * @return 删除的行数
+     */
+    public int deleteMetadata(String table, Object id, String sql, Object... params) {
+        TraceStat trace = tracer.begin(getTraceKey(sql));
+        try {
+            int result = doDeleteMetadata(table, id, sql, params);
+            tracer.end(trace);
+            return result;
+        } catch (Exception e) {
+            tracer.error(trace);
+            throw e;
+        }
+    }
+
+    protected int doDeleteMetadata(String table, Object id, String sql, Object... params) {
+        if (!isChangeLogEnable()) {
+            return doDelete(sql, params);
+        }
+        Object result = doWithChangeLog(MetadataChangeHelper.getChange(table, id), batchSQLOperator -> batchSQLOperator.delete(sql, params));
+        return (result == null ? 0 : ((Number) result).intValue());
+    }
+
+    /**
+     * 无法确定变更内容的写入，例如直接执行的sql，删除之前的变更日志，使所有旧版本只能全量同步
+     */
+    public void resetChangeLog() {
+        if (!isChangeLogEnable()) {
+            return;
+        }
+        doWithChangeLog(new MetadataChange(0, null, null), batchSQLOperator -> {});
+    }
+
+    protected boolean isChangeLogEnable() {
+        return changeLogRetention > 0;
+    }
+
+    /**
+     * 元数据写入和变更日志在同一个批次中提交，保证变更日志和数据一致
+     * 已经在批次中时加入当前批次，返回值和批次写入一样为空
+     */
+    protected Object doWithChangeLog(MetadataChange change, Consumer<BatchSQLOperator> operation) {
+        BatchSQLOperator batchSQLOperator = BatchOperationContext.getBatchSQLOperator();
+        if (batchSQLOperator != null) {
+            operation.accept(batchSQLOperator);
+            appendChangeLog(batchSQLOperator, change);
+            return null;
+        }
+
+        batchSQLOperator = sqlOperator.beginBatch();
+        operation.accept(batchSQLOperator);
+        appendChangeLog(batchSQLOperator, change);
+        List<Object> result = batchSQLOperator.commit();
+        return (result == null || result.isEmpty() ? null : result.get(0));
+    }
+
+    protected void appendChangeLog(BatchSQLOperator batchSQLOperator, MetadataChange change) {
+        if (change.getKey() == null) {
+            batchSQLOperator.delete(MetadataChangeLogRepository.RESET);
+        }
+        batchSQLOperator.insert(MetadataChangeLogRepository.APPEND, (change.getType() == null ? null : change.getType().name()), change.getKey());
+        if (changeLogAppends.incrementAndGet() % CHANGE_LOG_TRIM_INTERVAL == 0) {
+            batchSQLOperator.delete(MetadataChangeLogRepository.TRIM, changeLogRetention);
+        }
+    }
+
     public ResultSet query(String sql, Object... params) {
         TraceStat trace = tracer.begin(getTraceKey(sql));
         try {
@@ -130,18 +130,18 @@ public class BrokerRepository {
     }
 
     public BrokerDTO add(BrokerDTO brokerDTO) {
-        baseRepository.insert(ADD, brokerDTO.getId(), brokerDTO.getIp(), brokerDTO.getPort(), brokerDTO.getDataCenter(),
+        baseRepository.insertMetadata(TABLE, brokerDTO.getId(), ADD, brokerDTO.getId(), brokerDTO.getIp(), brokerDTO.getPort(), brokerDTO.getDataCenter(),
                 brokerDTO.getRetryType(), brokerDTO.getPermission());
         return brokerDTO;
     }
 
     public BrokerDTO update(BrokerDTO brokerDTO) {
-        baseRepository.update(UPDATE_BY_ID, brokerDTO.getIp(), brokerDTO.getPort(), brokerDTO.getDataCenter(),
+        baseRepository.updateMetadata(TABLE, brokerDTO.getId(), UPDATE_BY_ID, brokerDTO.getIp(), brokerDTO.getPort(), brokerDTO.getDataCenter(),
                 brokerDTO.getRetryType(), brokerDTO.getPermission(), brokerDTO.getId());
         return brokerDTO;
     }
 
     public int deleteById(long id) {
-        return baseRepository.delete(DELETE_BY_ID, id);
+        return baseRepository.deleteMetadata(TABLE, id, DELETE_BY_ID, id);
     }
 }
\ No newline at end of file
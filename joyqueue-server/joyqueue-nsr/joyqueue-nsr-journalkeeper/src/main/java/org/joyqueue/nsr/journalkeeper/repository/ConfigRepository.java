@@ -56,16 +56,16 @@ public class ConfigRepository {
     }
 
     public ConfigDTO add(ConfigDTO configDTO) {
-        baseRepository.insert(ADD, configDTO.getId(), configDTO.getKey(), configDTO.getValue(), configDTO.getGroup());
+        baseRepository.insertMetadata(TABLE, configDTO.getId(), ADD, configDTO.getId(), configDTO.getKey(), configDTO.getValue(), configDTO.getGroup());
         return configDTO;
     }
 
     public ConfigDTO update(ConfigDTO configDTO) {
-        baseRepository.update(UPDATE_BY_ID, configDTO.getKey(), configDTO.getValue(), configDTO.getGroup(), configDTO.getId());
+        baseRepository.updateMetadata(TABLE, configDTO.getId(), UPDATE_BY_ID, configDTO.getKey(), configDTO.getValue(), configDTO.getGroup(), configDTO.getId());
         return configDTO;
     }
 
     public int deleteById(String id) {
-        return baseRepository.delete(DELETE_BY_ID, id);
+        return baseRepository.deleteMetadata(TABLE, id, DELETE_BY_ID, id);
     }
 }
\ No newline at end of file
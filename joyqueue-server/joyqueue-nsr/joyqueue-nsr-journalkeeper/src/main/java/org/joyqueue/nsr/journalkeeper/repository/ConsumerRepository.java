@@ -75,20 +75,20 @@ public class ConsumerRepository {
     }
 
     public ConsumerDTO add(ConsumerDTO consumerDTO) {
-        baseRepository.insert(ADD, consumerDTO.getId(), consumerDTO.getTopic(), consumerDTO.getNamespace(), consumerDTO.getApp(),
+        baseRepository.insertMetadata(TABLE, consumerDTO.getId(), ADD, consumerDTO.getId(), consumerDTO.getTopic(), consumerDTO.getNamespace(), consumerDTO.getApp(),
                 consumerDTO.getTopicType(), consumerDTO.getClientType(), consumerDTO.getReferer(), consumerDTO.getGroup(),
                 consumerDTO.getConsumePolicy(), consumerDTO.getRetryPolicy(), consumerDTO.getLimitPolicy());
         return consumerDTO;
     }
 
     public ConsumerDTO update(ConsumerDTO consumerDTO) {
-        baseRepository.update(UPDATE_BY_ID, consumerDTO.getTopic(), consumerDTO.getNamespace(), consumerDTO.getApp(),
+        baseRepository.updateMetadata(TABLE, consumerDTO.getId(), UPDATE_BY_ID, consumerDTO.getTopic(), consumerDTO.getNamespace(), consumerDTO.getApp(),
                 consumerDTO.getTopicType(), consumerDTO.getClientType(), consumerDTO.getReferer(), consumerDTO.getConsumePolicy(),
                 consumerDTO.getRetryPolicy(), consumerDTO.getLimitPolicy(), consumerDTO.getId());
         return consumerDTO;
     }
 
     public int deleteById(String id) {
-        return baseRepository.delete(DELETE_BY_ID, id);
+        return baseRepository.deleteMetadata(TABLE, id, DELETE_BY_ID, id);
     }
 }
\ No newline at end of file
@@ -51,18 +51,18 @@ public class DataCenterRepository {
     }
 
     public DataCenterDTO add(DataCenterDTO dataCenterDTO) {
-        baseRepository.insert(ADD, dataCenterDTO.getId(), dataCenterDTO.getRegion(), dataCenterDTO.getCode(),
+        baseRepository.insertMetadata(TABLE, dataCenterDTO.getId(), ADD, dataCenterDTO.getId(), dataCenterDTO.getRegion(), dataCenterDTO.getCode(),
                 dataCenterDTO.getName(), dataCenterDTO.getUrl());
         return dataCenterDTO;
     }
 
     public DataCenterDTO update(DataCenterDTO dataCenterDTO) {
-        baseRepository.update(UPDATE_BY_ID, dataCenterDTO.getRegion(), dataCenterDTO.getCode(),
+        baseRepository.updateMetadata(TABLE, dataCenterDTO.getId(), UPDATE_BY_ID, dataCenterDTO.getRegion(), dataCenterDTO.getCode(),
                 dataCenterDTO.getName(), dataCenterDTO.getUrl(), dataCenterDTO.getId());
         return dataCenterDTO;
     }
 
     public int deleteById(String id) {
-        return baseRepository.delete(DELETE_BY_ID, id);
+        return baseRepository.deleteMetadata(TABLE, id, DELETE_BY_ID, id);
     }
 }
\ No newline at end of file
@@ -0,0 +1,70 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.nsr.journalkeeper.repository;
+
+import org.joyqueue.nsr.journalkeeper.domain.MetadataChangeLogDTO;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MetadataChangeLogRepository
+ * author: gaohaoxiang
+ * date: 2020/3/9
+ */
+public class MetadataChangeLogRepository {
+
+    private static final String TABLE = "metadata_change_log";
+    private static final String COLUMNS = "version, type, change_key";
+
+    // 版本在状态机中按日志顺序生成，所有节点一致
+    static final String APPEND = String.format("INSERT INTO %s(%s) SELECT COALESCE(MAX(version), 0) + 1, ?, ? FROM %s",
+            TABLE, COLUMNS, TABLE);
+    // 只保留最近的变更
+    static final String TRIM = String.format("DELETE FROM %s WHERE version <= (SELECT MAX(version) FROM %s) - ?",
+            TABLE, TABLE);
+    // 无法识别的变更，删除之前的日志，使所有旧版本只能全量同步
+    static final String RESET = String.format("DELETE FROM %s WHERE version < (SELECT MAX(version) FROM %s)",
+            TABLE, TABLE);
+
+    private static final String GET_VERSION = String.format("SELECT MAX(version) FROM %s", TABLE);
+    private static final String GET_COUNT_BY_VERSION = String.format("SELECT COUNT(*) FROM %s WHERE version = ?", TABLE);
+    private static final String GET_AFTER_VERSION = String.format("SELECT %s FROM %s WHERE version > ? ORDER BY version LIMIT ?",
+            COLUMNS, TABLE);
+
+    private BaseRepository baseRepository;
+
+    public MetadataChangeLogRepository(BaseRepository baseRepository) {
+        this.baseRepository = baseRepository;
+    }
+
+    public long getVersion() {
+        List<Map<String, String>> rows = baseRepository.query(GET_VERSION).getRows();
+        if (rows == null || rows.isEmpty()) {
+            return 0;
+        }
+        String version = rows.get(0).values().iterator().next();
+        return (version == null ? 0 : Long.valueOf(version));
+    }
+
+    public boolean contains(long version) {
+        return baseRepository.count(GET_COUNT_BY_VERSION, version) > 0;
+    }
+
+    public List<MetadataChangeLogDTO> getAfterVersion(long version, int limit) {
+        return baseRepository.query(MetadataChangeLogDTO.class, GET_AFTER_VERSION, version, limit);
+    }
+}
\ No newline at end of file
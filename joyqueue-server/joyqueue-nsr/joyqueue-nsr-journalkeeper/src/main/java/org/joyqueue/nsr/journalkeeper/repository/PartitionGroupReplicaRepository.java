@@ -74,18 +74,18 @@ public class PartitionGroupReplicaRepository {
     }
 
     public PartitionGroupReplicaDTO add(PartitionGroupReplicaDTO partitionGroupReplicaDTO) {
-        baseRepository.insert(ADD, partitionGroupReplicaDTO.getId(), partitionGroupReplicaDTO.getTopic(), partitionGroupReplicaDTO.getNamespace(),
+        baseRepository.insertMetadata(TABLE, partitionGroupReplicaDTO.getId(), ADD, partitionGroupReplicaDTO.getId(), partitionGroupReplicaDTO.getTopic(), partitionGroupReplicaDTO.getNamespace(),
                 partitionGroupReplicaDTO.getBrokerId(), partitionGroupReplicaDTO.getGroup());
         return partitionGroupReplicaDTO;
     }
 
     public PartitionGroupReplicaDTO update(PartitionGroupReplicaDTO partitionGroupReplicaDTO) {
-        baseRepository.update(UPDATE_BY_ID, partitionGroupReplicaDTO.getTopic(), partitionGroupReplicaDTO.getNamespace(),
+        baseRepository.updateMetadata(TABLE, partitionGroupReplicaDTO.getId(), UPDATE_BY_ID, partitionGroupReplicaDTO.getTopic(), partitionGroupReplicaDTO.getNamespace(),
                 partitionGroupReplicaDTO.getBrokerId(), partitionGroupReplicaDTO.getGroup(), partitionGroupReplicaDTO.getId());
         return partitionGroupReplicaDTO;
     }
 
     public int deleteById(String id) {
-        return baseRepository.delete(DELETE_BY_ID, id);
+        return baseRepository.deleteMetadata(TABLE, id, DELETE_BY_ID, id);
     }
 }
\ No newline at end of file
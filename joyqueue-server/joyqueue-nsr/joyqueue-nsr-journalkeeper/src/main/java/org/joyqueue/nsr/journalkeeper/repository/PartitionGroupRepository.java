@@ -72,7 +72,7 @@ public class PartitionGroupRepository {
     }
 
     public PartitionGroupDTO add(PartitionGroupDTO partitionGroupDTO) {
-        baseRepository.insert(ADD, partitionGroupDTO.getId(), partitionGroupDTO.getNamespace(), partitionGroupDTO.getTopic(),
+        baseRepository.insertMetadata(TABLE, partitionGroupDTO.getId(), ADD, partitionGroupDTO.getId(), partitionGroupDTO.getNamespace(), partitionGroupDTO.getTopic(),
                 partitionGroupDTO.getGroup(), partitionGroupDTO.getLeader(), partitionGroupDTO.getIsrs(),
                 partitionGroupDTO.getTerm(), partitionGroupDTO.getPartitions(), partitionGroupDTO.getLearners(),
                 partitionGroupDTO.getReplicas(), partitionGroupDTO.getOutSyncReplicas(), partitionGroupDTO.getElectType(), partitionGroupDTO.getRecLeader());
@@ -80,13 +80,13 @@ public class PartitionGroupRepository {
     }
 
     public PartitionGroupDTO updateLeader(PartitionGroupDTO partitionGroupDTO) {
-        baseRepository.update(UPDATE_LEADER_BY_ID, partitionGroupDTO.getLeader(), partitionGroupDTO.getTerm(), partitionGroupDTO.getIsrs(),
+        baseRepository.updateMetadata(TABLE, partitionGroupDTO.getId(), UPDATE_LEADER_BY_ID, partitionGroupDTO.getLeader(), partitionGroupDTO.getTerm(), partitionGroupDTO.getIsrs(),
                 partitionGroupDTO.getId());
         return partitionGroupDTO;
     }
 
     public PartitionGroupDTO update(PartitionGroupDTO partitionGroupDTO) {
-        baseRepository.update(UPDATE_BY_ID, partitionGroupDTO.getNamespace(), partitionGroupDTO.getTopic(), partitionGroupDTO.getGroup(),
+        baseRepository.updateMetadata(TABLE, partitionGroupDTO.getId(), UPDATE_BY_ID, partitionGroupDTO.getNamespace(), partitionGroupDTO.getTopic(), partitionGroupDTO.getGroup(),
                 partitionGroupDTO.getLeader(), partitionGroupDTO.getIsrs(), partitionGroupDTO.getTerm(), partitionGroupDTO.getPartitions(),
                 partitionGroupDTO.getLearners(), partitionGroupDTO.getReplicas(), partitionGroupDTO.getOutSyncReplicas(),
                 partitionGroupDTO.getElectType(), partitionGroupDTO.getRecLeader(), partitionGroupDTO.getId());
@@ -94,6 +94,6 @@ public class PartitionGroupRepository {
     }
 
     public int deleteById(String id) {
-        return baseRepository.delete(DELETE_BY_ID, id);
+        return baseRepository.deleteMetadata(TABLE, id, DELETE_BY_ID, id);
     }
 }
\ No newline at end of file
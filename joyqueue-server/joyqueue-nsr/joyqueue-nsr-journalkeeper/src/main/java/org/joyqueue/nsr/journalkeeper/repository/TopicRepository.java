@@ -107,26 +107,26 @@ public class TopicRepository {
     }
 
     public TopicDTO add(TopicDTO topicDTO) {
-        baseRepository.insert(ADD, topicDTO.getId(), topicDTO.getCode(), topicDTO.getNamespace(), topicDTO.getPartitions(),
+        baseRepository.insertMetadata(TABLE, topicDTO.getId(), ADD, topicDTO.getId(), topicDTO.getCode(), topicDTO.getNamespace(), topicDTO.getPartitions(),
                 topicDTO.getPriorityPartitions(), topicDTO.getType());
         return topicDTO;
     }
 
     public TopicDTO update(TopicDTO topicDTO) {
-        baseRepository.update(UPDATE_BY_ID, topicDTO.getCode(), topicDTO.getNamespace(), topicDTO.getPartitions(),
+        baseRepository.updateMetadata(TABLE, topicDTO.getId(), UPDATE_BY_ID, topicDTO.getCode(), topicDTO.getNamespace(), topicDTO.getPartitions(),
                 topicDTO.getPriorityPartitions(), topicDTO.getType(), topicDTO.getId());
         return topicDTO;
     }
 
     public int incrPartitions(String id, int value) {
-        return baseRepository.update(UPDATE_INCR_PARTITION_BY_ID, value, id);
+        return baseRepository.updateMetadata(TABLE, id, UPDATE_INCR_PARTITION_BY_ID, value, id);
     }
 
     public int decrPartitions(String id, int value) {
-        return baseRepository.update(UPDATE_DECR_PARTITION_BY_ID, value, id);
+        return baseRepository.updateMetadata(TABLE, id, UPDATE_DECR_PARTITION_BY_ID, value, id);
     }
 
     public int deleteById(String id) {
-        return baseRepository.delete(DELETE_BY_ID, id);
+        return baseRepository.deleteMetadata(TABLE, id, DELETE_BY_ID, id);
     }
 }
\ No newline at end of file
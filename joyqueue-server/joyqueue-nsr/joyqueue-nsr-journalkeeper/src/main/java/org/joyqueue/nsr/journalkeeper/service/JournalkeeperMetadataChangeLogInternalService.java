@@ -0,0 +1,60 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.nsr.journalkeeper.service;
+
+import com.google.common.collect.Lists;
+import org.joyqueue.domain.MetadataChange;
+import org.joyqueue.nsr.journalkeeper.domain.MetadataChangeLogDTO;
+import org.joyqueue.nsr.journalkeeper.repository.MetadataChangeLogRepository;
+import org.joyqueue.nsr.service.internal.MetadataChangeLogInternalService;
+
+import java.util.List;
+
+/**
+ * JournalkeeperMetadataChangeLogInternalService
+ * author: gaohaoxiang
+ * date: 2020/3/9
+ */
+public class JournalkeeperMetadataChangeLogInternalService implements MetadataChangeLogInternalService {
+
+    private MetadataChangeLogRepository metadataChangeLogRepository;
+
+    public JournalkeeperMetadataChangeLogInternalService(MetadataChangeLogRepository metadataChangeLogRepository) {
+        this.metadataChangeLogRepository = metadataChangeLogRepository;
+    }
+
+    @Override
+    public long getVersion() {
+        return metadataChangeLogRepository.getVersion();
+    }
+
+    @Override
+    public boolean contains(long version) {
+        return metadataChangeLogRepository.contains(version);
+    }
+
+    @Override
+    public List<MetadataChange> getChanges(long version, int limit) {
+        List<MetadataChangeLogDTO> changeLogs = metadataChangeLogRepository.getAfterVersion(version, limit);
+        List<MetadataChange> result = Lists.newArrayListWithCapacity(changeLogs.size());
+        for (MetadataChangeLogDTO changeLog : changeLogs) {
+            // 重置的变更没有类型
+            MetadataChange.Type type = (changeLog.getType() == null ? null : MetadataChange.Type.valueOf(changeLog.getType()));
+            result.add(new MetadataChange(changeLog.getVersion(), type, changeLog.getChangeKey()));
+        }
+        return result;
+    }
+}
\ No newline at end of file
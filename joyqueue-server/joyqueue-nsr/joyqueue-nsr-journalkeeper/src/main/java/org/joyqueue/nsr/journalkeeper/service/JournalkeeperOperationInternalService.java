@@ -45,28 +45,40 @@ public class JournalkeeperOperationInternalService implements OperationInternalS
 
     @Override
     public Object insert(String operator, List<Object> params) {
+        Object result;
         if (CollectionUtils.isEmpty(params)) {
-            return baseRepository.insert(operator);
+            result = baseRepository.insert(operator);
         } else {
-            return baseRepository.insert(operator, params.toArray(new Object[0]));
+            result = baseRepository.insert(operator, params.toArray(new Object[0]));
         }
+        // 直接执行的sql无法确定变更的元数据
+        baseRepository.resetChangeLog();
+        return result;
     }
 
     @Override
     public Object update(String operator, List<Object> params) {
+        Object result;
         if (CollectionUtils.isEmpty(params)) {
-            return baseRepository.update(operator);
+            result = baseRepository.update(operator);
         } else {
-            return baseRepository.update(operator, params.toArray(new Object[0]));
+            result = baseRepository.update(operator, params.toArray(new Object[0]));
         }
+        // 直接执行的sql无法确定变更的元数据
+        baseRepository.resetChangeLog();
+        return result;
     }
 
     @Override
     public Object delete(String operator, List<Object> params) {
+        Object result;
         if (CollectionUtils.isEmpty(params)) {
-            return baseRepository.delete(operator);
+            result = baseRepository.delete(operator);
         } else {
-            return baseRepository.delete(operator, params.toArray(new Object[0]));
+            result = baseRepository.delete(operator, params.toArray(new Object[0]));
         }
+        // 直接执行的sql无法确定变更的元数据
+        baseRepository.resetChangeLog();
+        return result;
     }
 }
\ No newline at end of file
@@ -119,4 +119,11 @@ CREATE TABLE IF NOT EXISTS `config` (
 	PRIMARY KEY (`id`)
 );
 CREATE INDEX IF NOT EXISTS idx_key_group ON config(`key`, `group`);
-CREATE INDEX IF NOT EXISTS idx_group ON config(`group`);
\ No newline at end of file
+CREATE INDEX IF NOT EXISTS idx_group ON config(`group`);
+
+CREATE TABLE IF NOT EXISTS `metadata_change_log` (
+	`version` bigint(20) NOT NULL,
+	`type` varchar(32),
+	`change_key` varchar(255),
+	PRIMARY KEY (`version`)
+);
\ No newline at end of file
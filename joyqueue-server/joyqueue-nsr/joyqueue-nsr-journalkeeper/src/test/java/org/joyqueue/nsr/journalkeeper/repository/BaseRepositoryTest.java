@@ -0,0 +1,179 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.nsr.journalkeeper.repository;
+
+import io.journalkeeper.sql.client.BatchSQLOperator;
+import io.journalkeeper.sql.client.SQLOperator;
+import io.journalkeeper.sql.client.domain.ResultSet;
+import org.joyqueue.domain.MetadataChange;
+import org.joyqueue.monitor.DefaultPointTracer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * BaseRepositoryTest
+ * author: gaohaoxiang
+ * date: 2020/3/9
+ */
+public class BaseRepositoryTest {
+
+    private static final String INSERT = "INSERT INTO partition_group(id) VALUES(?)";
+    private static final String UPDATE = "UPDATE partition_group SET leader = ? WHERE id = ?";
+    private static final String DELETE = "DELETE FROM partition_group WHERE id = ?";
+
+    @Test
+    public void changeLogDisabledTest() {
+        TestSQLOperator sqlOperator = new TestSQLOperator();
+        BaseRepository repository = new BaseRepository(sqlOperator, new DefaultPointTracer());
+
+        Assert.assertEquals("100", repository.insertMetadata("partition_group", "ns.topic.1", INSERT, "ns.topic.1"));
+        Assert.assertEquals(3, repository.updateMetadata("partition_group", "ns.topic.1", UPDATE, 1, "ns.topic.1"));
+        Assert.assertEquals(3, repository.deleteMetadata("partition_group", "ns.topic.1", DELETE, "ns.topic.1"));
+        repository.resetChangeLog();
+
+        Assert.assertEquals(Arrays.asList(INSERT, UPDATE, DELETE), sqlOperator.sqls);
+        Assert.assertTrue(sqlOperator.batches.isEmpty());
+    }
+
+    @Test
+    public void changeLogTest() {
+        TestSQLOperator sqlOperator = new TestSQLOperator();
+        BaseRepository repository = new BaseRepository(sqlOperator, new DefaultPointTracer(), 100);
+
+        // 变更日志和数据在同一个批次，插入返回写入的标识
+        Assert.assertEquals("ns.topic.1", repository.insertMetadata("partition_group", "ns.topic.1", INSERT, "ns.topic.1"));
+        Assert.assertEquals(3, repository.updateMetadata("partition_group_replica", "ns.topic.1.2", UPDATE, 1, "ns.topic.1.2"));
+        Assert.assertEquals(3, repository.deleteMetadata("broker", 2, DELETE, 2));
+        Assert.assertTrue(sqlOperator.sqls.isEmpty());
+        Assert.assertEquals(3, sqlOperator.batches.size());
+
+        assertChange(sqlOperator.batches.get(0), INSERT, MetadataChange.Type.TOPIC.name(), "ns.topic");
+        assertChange(sqlOperator.batches.get(1), UPDATE, MetadataChange.Type.TOPIC.name(), "ns.topic");
+        assertChange(sqlOperator.batches.get(2), DELETE, MetadataChange.Type.BROKER.name(), "2");
+    }
+
+    @Test
+    public void plainWriteTest() {
+        TestSQLOperator sqlOperator = new TestSQLOperator();
+        BaseRepository repository = new BaseRepository(sqlOperator, new DefaultPointTracer(), 100);
+
+        // 非元数据的写入不追加变更日志，保持原来的返回值
+        Assert.assertEquals("100", repository.insert(INSERT, "ns.topic.1"));
+        Assert.assertEquals(3, repository.update(UPDATE, 1, "ns.topic.1"));
+        Assert.assertEquals(3, repository.delete(DELETE, "ns.topic.1"));
+        Assert.assertEquals(Arrays.asList(INSERT, UPDATE, DELETE), sqlOperator.sqls);
+        Assert.assertTrue(sqlOperator.batches.isEmpty());
+    }
+
+    @Test
+    public void resetTest() {
+        TestSQLOperator sqlOperator = new TestSQLOperator();
+        BaseRepository repository = new BaseRepository(sqlOperator, new DefaultPointTracer(), 100);
+
+        repository.resetChangeLog();
+        Assert.assertEquals(1, sqlOperator.batches.size());
+        TestBatchSQLOperator batch = sqlOperator.batches.get(0);
+        Assert.assertEquals(Arrays.asList(MetadataChangeLogRepository.RESET, MetadataChangeLogRepository.APPEND), batch.sqls);
+        Assert.assertArrayEquals(new Object[] {null, null}, batch.params.get(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void notMetadataTableTest() {
+        BaseRepository repository = new BaseRepository(new TestSQLOperator(), new DefaultPointTracer(), 100);
+        repository.insertMetadata("namespace", "ns", INSERT, "ns");
+    }
+
+    protected void assertChange(TestBatchSQLOperator batch, String sql, String type, String key) {
+        Assert.assertEquals(Arrays.asList(sql, MetadataChangeLogRepository.APPEND), batch.sqls);
+        Assert.assertArrayEquals(new Object[] {type, key}, batch.params.get(1));
+    }
+
+    protected static class TestSQLOperator implements SQLOperator {
+
+        private List<String> sqls = new ArrayList<>();
+        private List<TestBatchSQLOperator> batches = new ArrayList<>();
+
+        @Override
+        public Object insert(String sql, Object... params) {
+            sqls.add(sql);
+            return 100L;
+        }
+
+        @Override
+        public int update(String sql, Object... params) {
+            sqls.add(sql);
+            return 3;
+        }
+
+        @Override
+        public int delete(String sql, Object... params) {
+            sqls.add(sql);
+            return 3;
+        }
+
+        @Override
+        public ResultSet query(String sql, Object... params) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public BatchSQLOperator beginBatch() {
+            TestBatchSQLOperator batch = new TestBatchSQLOperator();
+            batches.add(batch);
+            return batch;
+        }
+    }
+
+    protected static class TestBatchSQLOperator implements BatchSQLOperator {
+
+        private List<String> sqls = new ArrayList<>();
+        private List<Object[]> params = new ArrayList<>();
+
+        @Override
+        public void insert(String sql, Object... params) {
+            add(sql, params);
+        }
+
+        @Override
+        public void update(String sql, Object... params) {
+            add(sql, params);
+        }
+
+        @Override
+        public void delete(String sql, Object... params) {
+            add(sql, params);
+        }
+
+        protected void add(String sql, Object... params) {
+            this.sqls.add(sql);
+            this.params.add(params);
+        }
+
+        // 批次中每条语句都按更新执行，返回影响的行数
+        @Override
+        public List<Object> commit() {
+            List<Object> result = new ArrayList<>();
+            for (int i = 0; i < sqls.size(); i++) {
+                result.add(3);
+            }
+            return result;
+        }
+    }
+}
@@ -21,6 +21,18 @@ import org.joyqueue.exception.JoyQueueCode;
  * 写消息结果
  */
 public class WriteResult {
+
+    // metrics中各阶段耗时的下标，单位纳秒
+    // 在写入队列中等待
+    public static final int METRIC_QUEUE = 0;
+    // 等待刷盘，脏数据过多时阻塞
+    public static final int METRIC_FLUSH_WAIT = 1;
+    // 写入消息和索引
+    public static final int METRIC_WRITE = 2;
+    // 等待刷盘或复制确认
+    public static final int METRIC_ACK = 3;
+    public static final int METRIC_SIZE = 4;
+
     private long [] metrics;
 
     public WriteResult() {}
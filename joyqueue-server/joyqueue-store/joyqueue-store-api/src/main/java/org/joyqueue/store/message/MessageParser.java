@@ -296,14 +296,16 @@ public class MessageParser {
     }
 
 
+    // offset为相对消息起始位置的偏移量，1、2字节长度按无符号数读取
     private static int getVariableAttributeLength(ByteBuffer messageBuffer, int length, int offset) {
+        int position = messageBuffer.position() + offset;
         switch (length) {
             case VARIABLE_LENGTH_1:
-                return messageBuffer.get(offset);
+                return messageBuffer.get(position) & 0xFF;
             case VARIABLE_LENGTH_2:
-                return messageBuffer.getShort(offset);
+                return messageBuffer.getShort(position) & 0xFFFF;
             case VARIABLE_LENGTH_4:
-                return messageBuffer.getInt(offset);
+                return messageBuffer.getInt(position);
             default:
                 throw new ParseAttributeException("Invalid length: " + length);
         }
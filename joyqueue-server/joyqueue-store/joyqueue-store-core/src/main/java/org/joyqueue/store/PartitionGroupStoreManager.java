@@ -64,6 +64,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -83,6 +84,8 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
     private static final Logger logger = LoggerFactory.getLogger(PartitionGroupStoreManager.class);
     // 回调超时
     private static final long EVENT_TIMEOUT_MILLS = 60 * 1000L;
+    // 恢复时每次从索引文件尾部读取的大小
+    private static final int RECOVER_INDEX_SCAN_SIZE = IndexItem.STORAGE_SIZE * 16 * 1024;
     // Journal store
     private final PositioningStore<ByteBuffer> store;
     // Partition Group所在的目录
@@ -456,23 +459,7 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
             indexStore.setRight(indexStore.right() - indexStore.right() % IndexItem.STORAGE_SIZE);
 
             // 删除末尾的全是0的部分
-            long validPosition = indexStore.right();
-            IndexItem currentIndex, previousIndex = null;
-
-            while ((validPosition -= IndexItem.STORAGE_SIZE) >= indexStore.left() + IndexItem.STORAGE_SIZE) { //第一条索引有可能是全0，这是合法的。
-                if(null == previousIndex) {
-                    currentIndex = indexStore.read(validPosition);
-                } else {
-                    currentIndex = previousIndex;
-                }
-
-                previousIndex = indexStore.read(validPosition - IndexItem.STORAGE_SIZE);
-                if(verifyCurrentIndex(currentIndex, previousIndex)){
-                    break;
-                }
-            }
-
-            indexStore.setRight(validPosition + IndexItem.STORAGE_SIZE);
+            indexStore.setRight(recoverIndexTail(indexStore));
 
 
             partitionMap.put(partitionIndex, new Partition(indexStore));
@@ -511,14 +498,62 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
         return indexPosition;
     }
 
+    /**
+     * 从索引文件尾部向前分块扫描，找到最后一条合法索引，返回其后的位置
+     * 每次读取一块连续的索引直接在buffer上校验，避免逐条反序列化IndexItem
+     * @param indexStore 分区索引存储
+     * @return 合法索引的结束位置
+     * @throws IOException 读取索引失败时抛出
+     */
+    private long recoverIndexTail(PositioningStore<IndexItem> indexStore) throws IOException {
+        long left = indexStore.left();
+        long right = indexStore.right();
+        long end = right;
+
+        // 第一条索引有可能是全0，这是合法的，所以至少需要两条索引才需要校验
+        while (end - left >= 2 * IndexItem.STORAGE_SIZE) {
+            long start = Math.max(left, end - RECOVER_INDEX_SCAN_SIZE);
+            ByteBuffer buffer = readIndexBuffer(indexStore, start, (int) (end - start));
+            for (int position = buffer.limit() - IndexItem.STORAGE_SIZE; position >= IndexItem.STORAGE_SIZE; position -= IndexItem.STORAGE_SIZE) {
+                if (verifyCurrentIndex(buffer, position)) {
+                    return start + position + IndexItem.STORAGE_SIZE;
+                }
+            }
+            // 下一块的最后一条是本块的第一条，需要和它的上一条比较
+            end = start + IndexItem.STORAGE_SIZE;
+        }
+        return Math.min(right, left + IndexItem.STORAGE_SIZE);
+    }
+
+    /**
+     * 读取一段连续的索引，可能跨越多个索引文件
+     */
+    private ByteBuffer readIndexBuffer(PositioningStore<IndexItem> indexStore, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        long pointer = position;
+        while (buffer.hasRemaining()) {
+            ByteBuffer read = indexStore.readByteBuffer(pointer, buffer.remaining());
+            if (!read.hasRemaining()) {
+                throw new ReadException(String.format("Read index failed! store: %s, position: %d.", indexStore.base().getAbsolutePath(), pointer));
+            }
+            pointer += read.remaining();
+            buffer.put(read);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
     /**
      * 根据上一条索引来验证这条索引的合法性
-     * @param current 当前索引
-     * @param previous 上一条索引
+     * @param buffer 索引
+     * @param position 当前索引在buffer中的位置
      * @return true 合法
      */
-    private boolean verifyCurrentIndex(IndexItem current, IndexItem previous) {
-        return current.getLength() > 0 && current.getOffset() > previous.getOffset();
+    private boolean verifyCurrentIndex(ByteBuffer buffer, int position) {
+        long offset = buffer.getLong(position);
+        int length = buffer.getInt(position + 8);
+        long previousOffset = buffer.getLong(position - IndexItem.STORAGE_SIZE);
+        return length > 0 && offset > previousOffset;
     }
 
     private Short[] loadPartitionIndices(File indexBase) {
@@ -792,10 +827,22 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
                     writeCommand.eventListener.onEvent(new WriteResult(JoyQueueCode.SE_WRITE_TIMEOUT, null));
                 }
             } else {
+                long flushTime = System.nanoTime();
                 // 继续写入
                 long[] indices = write(writeCommand.messages);
+                long writeTime = System.nanoTime();
+
+                // 记录各阶段耗时，确认阶段在回调时补充，关闭统计时不分配
+                long[] metrics = null;
+                if (config.writeMetricsEnable.getAsBoolean()) {
+                    metrics = new long[WriteResult.METRIC_SIZE];
+                    metrics[WriteResult.METRIC_QUEUE] = t0 - writeCommand.createTime;
+                    metrics[WriteResult.METRIC_FLUSH_WAIT] = flushTime - t0;
+                    metrics[WriteResult.METRIC_WRITE] = writeTime - flushTime;
+                }
+
                 // 处理回调
-                handleCallback(writeCommand, store.right(), indices);
+                handleCallback(writeCommand, store.right(), indices, metrics, writeTime);
             }
             long t1 = System.nanoTime();
 //
@@ -846,9 +893,11 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
         return SystemClock.now() - t0 > config.writeTimeoutMs;
     }
 
-    private void handleCallback(WriteCommand writeCommand, long position, long[] indices) {
+    private void handleCallback(WriteCommand writeCommand, long position, long[] indices, long[] metrics, long writeTime) {
         Callback callback = new Callback(writeCommand.qosLevel, writeCommand.eventListener, indices);
         callback.position = position;
+        callback.metrics = metrics;
+        callback.writeTime = writeTime;
 
         // 处理回调
         CallbackPositioningBelt belt = callbackMap.get(writeCommand.qosLevel);
@@ -1626,12 +1675,21 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
         long[] indices;
         long timestamp;
         QosLevel qosLevel;
+        long[] metrics;
+        long writeTime;
         Callback(QosLevel qosLevel, EventListener<WriteResult> listener, long[] indices) {
             this.listener = listener;
             this.indices = indices;
             this.qosLevel = qosLevel;
             this.timestamp = SystemClock.now();
         }
+
+        void onSuccess() {
+            if (metrics != null) {
+                metrics[WriteResult.METRIC_ACK] = System.nanoTime() - writeTime;
+            }
+            listener.onEvent(new WriteResult(JoyQueueCode.SUCCESS, indices, metrics));
+        }
     }
 
     private static class Partition {
@@ -1665,11 +1723,13 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
         private final QosLevel qosLevel;
         private final EventListener<WriteResult> eventListener;
         private final ByteBuffer[] messages;
+        private final long createTime;
 
         private WriteCommand(QosLevel qosLevel, EventListener<WriteResult> eventListener, ByteBuffer[] messages) {
             this.qosLevel = qosLevel;
             this.eventListener = eventListener;
             this.messages = messages;
+            this.createTime = System.nanoTime();
         }
     }
 
@@ -1681,6 +1741,7 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
         public static final long DEFAULT_WRITE_TIMEOUT_MS = 3000L;
         public static final long DEFAULT_MAX_DIRTY_SIZE = 10L * 1024 * 1024;
         public static final long DEFAULT_PRINT_METRIC_INTERVAL_MS = 0L;
+        public static final boolean DEFAULT_WRITE_METRICS_ENABLE = true;
 
         /**
          * 允许脏数据的最大长度，超过这个长度就阻塞写入。
@@ -1715,6 +1776,11 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
         private final PositioningStore.Config storeConfig;
         private final PositioningStore.Config indexStoreConfig;
 
+        /**
+         * 是否记录写入各阶段耗时，关闭后写入结果中不带耗时
+         */
+        private final BooleanSupplier writeMetricsEnable;
+
         public Config() {
 
             this(DEFAULT_MAX_MESSAGE_LENGTH, DEFAULT_WRITE_REQUEST_CACHE_SIZE, DEFAULT_FLUSH_INTERVAL_MS,
@@ -1727,6 +1793,13 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
         public Config(int maxMessageLength, int writeRequestCacheSize, long flushIntervalMs,
                       long writeTimeoutMs, long maxDirtySize, long printMetricIntervalMs,
                       PositioningStore.Config storeConfig, PositioningStore.Config indexStoreConfig) {
+            this(maxMessageLength, writeRequestCacheSize, flushIntervalMs, writeTimeoutMs, maxDirtySize, printMetricIntervalMs,
+                    storeConfig, indexStoreConfig, () -> DEFAULT_WRITE_METRICS_ENABLE);
+        }
+
+        public Config(int maxMessageLength, int writeRequestCacheSize, long flushIntervalMs,
+                      long writeTimeoutMs, long maxDirtySize, long printMetricIntervalMs,
+                      PositioningStore.Config storeConfig, PositioningStore.Config indexStoreConfig, BooleanSupplier writeMetricsEnable) {
             this.maxMessageLength = maxMessageLength;
             this.writeRequestCacheSize = writeRequestCacheSize;
             this.flushIntervalMs = flushIntervalMs;
@@ -1735,6 +1808,7 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
             this.printMetricIntervalMs = printMetricIntervalMs;
             this.storeConfig = storeConfig;
             this.indexStoreConfig = indexStoreConfig;
+            this.writeMetricsEnable = writeMetricsEnable;
         }
     }
 
@@ -1774,7 +1848,7 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
                     callbackPosition.set(position);
                     while (getFirst().position <= position) {
                         Callback callback = removeFirst();
-                        callback.listener.onEvent(new WriteResult(JoyQueueCode.SUCCESS, callback.indices));
+                        callback.onSuccess();
                     }
                 }
                 long deadline = SystemClock.now() - EVENT_TIMEOUT_MILLS;
@@ -1788,7 +1862,7 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
         void put(Callback callback) {
             addLast(callback);
             if (callback.position <= callbackPosition.get() && remove(callback)) {
-                callback.listener.onEvent(new WriteResult(JoyQueueCode.SUCCESS, callback.indices));
+                callback.onSuccess();
             }
         }
     }
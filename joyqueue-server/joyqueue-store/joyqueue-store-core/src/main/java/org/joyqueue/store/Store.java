@@ -276,7 +276,7 @@ public class Store extends Service implements StoreService, Closeable, PropertyS
         return new PartitionGroupStoreManager.Config(
                 config.getMaxMessageLength(), config.getWriteRequestCacheSize(), config.getFlushIntervalMs(),
                 config.getWriteTimeoutMs(), config.getMaxDirtySize(),
-                config.getPrintMetricIntervalMs(), messageConfig, indexConfig);
+                config.getPrintMetricIntervalMs(), messageConfig, indexConfig, config::isWriteMetricsEnable);
     }
 
     private PositioningStore.Config getIndexStoreConfig(StoreConfig config) {
@@ -213,6 +213,10 @@ public class StoreConfig {
         this.printMetricIntervalMs = printMetricIntervalMs;
     }
 
+    public boolean isWriteMetricsEnable() {
+        return PropertySupplier.getValue(propertySupplier, StoreConfigKey.WRITE_METRICS_ENABLE, PartitionGroupStoreManager.Config.DEFAULT_WRITE_METRICS_ENABLE);
+    }
+
     public int getDiskFullRatio() {
         return PropertySupplier.getValue(propertySupplier, StoreConfigKey.DISK_FULL_RATIO, this.diskFullRatio);
     }
@@ -22,6 +22,7 @@ import static org.joyqueue.store.PartitionGroupStoreManager.Config.DEFAULT_FLUSH
 import static org.joyqueue.store.PartitionGroupStoreManager.Config.DEFAULT_MAX_DIRTY_SIZE;
 import static org.joyqueue.store.PartitionGroupStoreManager.Config.DEFAULT_MAX_MESSAGE_LENGTH;
 import static org.joyqueue.store.PartitionGroupStoreManager.Config.DEFAULT_WRITE_REQUEST_CACHE_SIZE;
+import static org.joyqueue.store.PartitionGroupStoreManager.Config.DEFAULT_WRITE_METRICS_ENABLE;
 import static org.joyqueue.store.PartitionGroupStoreManager.Config.DEFAULT_WRITE_TIMEOUT_MS;
 import static org.joyqueue.store.file.PositioningStore.Config.DEFAULT_FILE_HEADER_SIZE;
 
@@ -88,7 +89,12 @@ public enum StoreConfigKey implements PropertyDef {
 
     DISK_FULL_RATIO("store.disk.full.ratio", PositioningStore.Config.DEFAULT_DISK_FULL_RATIO, Type.INT),
 
-    PRINT_METRIC_INTERVAL_MS("print.metric.interval", StoreConfig.DEFAULT_PRINT_METRIC_INTERVAL_MS, Type.LONG);
+    PRINT_METRIC_INTERVAL_MS("print.metric.interval", StoreConfig.DEFAULT_PRINT_METRIC_INTERVAL_MS, Type.LONG),
+
+    /**
+     * 是否记录写入各阶段耗时，与broker的请求阶段耗时统计共用一个开关
+     */
+    WRITE_METRICS_ENABLE("stat.stage.trace.enable", DEFAULT_WRITE_METRICS_ENABLE, Type.BOOLEAN);
 
 
     private String name;
@@ -21,6 +21,7 @@ import org.joyqueue.domain.QosLevel;
 import org.joyqueue.exception.JoyQueueCode;
 import org.joyqueue.store.file.Checkpoint;
 import org.joyqueue.store.file.PositioningStore;
+import org.joyqueue.store.index.IndexItem;
 import org.joyqueue.store.message.MessageParser;
 import org.joyqueue.store.utils.MessageUtils;
 import org.joyqueue.store.utils.PreloadBufferPool;
@@ -734,6 +735,60 @@ public class PartitionGroupStoreManagerTest {
         }
     }
 
+    @Test
+    public void zeroIndexTailTest() throws Exception {
+        int count = 55;
+        long timeout = 500000L;
+        short partition = partitions[0];
+        List<ByteBuffer> messages = MessageUtils.build(count, 1024);
+
+        long length = messages.stream().mapToInt(Buffer::remaining).sum();
+
+        final EventFuture<WriteResult> future = new EventFuture<>();
+        store.asyncWrite(QosLevel.RECEIVE, future, messages.stream().map(b -> new WriteRequest(partition, b)).toArray(WriteRequest[]::new));
+
+        // 等待建索引都完成
+        long t0 = SystemClock.now();
+        while (SystemClock.now() - t0 < timeout && store.indexPosition() < length) {
+            Thread.sleep(10L);
+        }
+
+        store.disable();
+        store.stop();
+        store.close();
+        store = null;
+
+        File indexBase = new File(groupBase, "index/" + partition);
+        File[] files = indexBase.listFiles(file -> file.isFile() && file.getName().matches("\\d+"));
+        File lastFile = new File(indexBase, String.valueOf(Arrays.stream(files).mapToLong(file -> Long.parseLong(file.getName())).max().orElse(0L)));
+
+        // 末尾的0超过一次扫描的大小
+        FileOutputStream output = new FileOutputStream(lastFile, true);
+        try {
+            output.write(new byte[IndexItem.STORAGE_SIZE * 20 * 1024]);
+            output.flush();
+        } finally {
+            output.close();
+        }
+
+        store = new PartitionGroupStoreManager(topic, partitionGroup, groupBase, new PartitionGroupStoreManager.Config(),
+                bufferPool);
+        store.recover();
+        store.start();
+        store.enable();
+        store.commit(store.rightPosition());
+
+        Assert.assertEquals(count, store.getRightIndex(partition));
+        for (int i = 0; i < messages.size(); i++) {
+            ByteBuffer writeBuffer = messages.get(i);
+            writeBuffer.clear();
+
+            ReadResult readResult = store.read(partition, i, 1, 0);
+            Assert.assertEquals(JoyQueueCode.SUCCESS, readResult.getCode());
+            Assert.assertEquals(writeBuffer, readResult.getMessages()[0]);
+        }
+    }
+
     @Test
     public void getIndexTest() throws InterruptedException, IOException {
         long timeout = 500000L;
@@ -779,6 +834,35 @@ public class PartitionGroupStoreManagerTest {
 
     }
 
+    @Test
+    public void writeMetricsTest() throws Exception {
+        short partition = partitions[0];
+        EventFuture<WriteResult> future = new EventFuture<>();
+        store.asyncWrite(QosLevel.PERSISTENCE, future, new WriteRequest(partition, MessageUtils.build(1, 255).get(0)));
+        WriteResult writeResult = future.get();
+        Assert.assertEquals(JoyQueueCode.SUCCESS, writeResult.getCode());
+        Assert.assertEquals(WriteResult.METRIC_SIZE, writeResult.getMetrics().length);
+
+        // 关闭统计后不再记录写入各阶段耗时
+        destroyStore();
+        bufferPool = PreloadBufferPool.getInstance();
+        PartitionGroupStoreManager.Config config = new PartitionGroupStoreManager.Config(
+                DEFAULT_MAX_MESSAGE_LENGTH, DEFAULT_WRITE_REQUEST_CACHE_SIZE, 1L,
+                DEFAULT_WRITE_TIMEOUT_MS, DEFAULT_MAX_DIRTY_SIZE, 6000,
+                new PositioningStore.Config(32 * 1024 * 1024),
+                new PositioningStore.Config(128 * 1024, true, false), () -> false);
+        store = new PartitionGroupStoreManager(topic, partitionGroup, groupBase, config, bufferPool);
+        store.recover();
+        store.start();
+        store.enable();
+
+        future = new EventFuture<>();
+        store.asyncWrite(QosLevel.PERSISTENCE, future, new WriteRequest(partition, MessageUtils.build(1, 255).get(0)));
+        writeResult = future.get();
+        Assert.assertEquals(JoyQueueCode.SUCCESS, writeResult.getCode());
+        Assert.assertNull(writeResult.getMetrics());
+    }
+
     private void verifyTerm(ByteBuffer buffer) {
         int term = -1;
         ByteBuffer r = buffer.asReadOnlyBuffer();